@@ -20,14 +20,26 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.seasar.dbflute.BehaviorSelector;
+import org.seasar.dbflute.CallbackContext;
 import org.seasar.dbflute.Entity;
 import org.seasar.dbflute.bhv.core.BehaviorCommand;
 import org.seasar.dbflute.bhv.core.BehaviorCommandInvoker;
@@ -37,11 +49,16 @@ import org.seasar.dbflute.bhv.core.command.InsertEntityCommand;
 import org.seasar.dbflute.bhv.core.command.SelectCountCBCommand;
 import org.seasar.dbflute.bhv.core.command.SelectCursorCBCommand;
 import org.seasar.dbflute.bhv.core.command.SelectListCBCommand;
+import org.seasar.dbflute.bhv.core.command.SelectListTemplateCBCommand;
 import org.seasar.dbflute.bhv.core.command.SelectNextValCommand;
 import org.seasar.dbflute.bhv.core.command.SelectNextValSubCommand;
 import org.seasar.dbflute.bhv.core.command.SelectScalarCBCommand;
+import org.seasar.dbflute.bhv.core.supplement.EntityCache;
 import org.seasar.dbflute.cbean.AndQuery;
+import org.seasar.dbflute.cbean.ConcurrentPagingHandler;
 import org.seasar.dbflute.cbean.ConditionBean;
+import org.seasar.dbflute.cbean.ConditionBeanTemplate;
+import org.seasar.dbflute.cbean.ConditionBeanTemplateBinding;
 import org.seasar.dbflute.cbean.EntityRowHandler;
 import org.seasar.dbflute.cbean.ListResultBean;
 import org.seasar.dbflute.cbean.OrQuery;
@@ -49,13 +66,16 @@ import org.seasar.dbflute.cbean.PagingBean;
 import org.seasar.dbflute.cbean.PagingHandler;
 import org.seasar.dbflute.cbean.PagingInvoker;
 import org.seasar.dbflute.cbean.PagingResultBean;
+import org.seasar.dbflute.cbean.PipelinedEntityRowHandler;
 import org.seasar.dbflute.cbean.ResultBeanBuilder;
 import org.seasar.dbflute.cbean.UnionQuery;
 import org.seasar.dbflute.cbean.chelper.HpFixedConditionQueryResolver;
 import org.seasar.dbflute.cbean.chelper.HpSLSExecutor;
 import org.seasar.dbflute.cbean.chelper.HpSLSFunction;
 import org.seasar.dbflute.cbean.ckey.ConditionKey;
+import org.seasar.dbflute.cbean.compact.CompactEntityList;
 import org.seasar.dbflute.cbean.coption.CursorSelectOption;
+import org.seasar.dbflute.cbean.sqlclause.SqlClause;
 import org.seasar.dbflute.cbean.sqlclause.clause.SelectClauseType;
 import org.seasar.dbflute.cbean.sqlclause.orderby.OrderByClause;
 import org.seasar.dbflute.cbean.sqlclause.orderby.OrderByElement;
@@ -181,6 +201,44 @@ public abstract class AbstractBehaviorReadable<ENTITY extends Entity, CB extends
         return helpSelectEntityInternally(cb, entityType);
     }
 
+    /**
+     * Select the entity by the primary-key condition-bean, using the entity cache if the table is its target.
+     * @param <RESULT> The type of result entity.
+     * @param cb The condition-bean prepared as primary-key condition. (NotNull)
+     * @param entityType The type of result entity. (NotNull)
+     * @param pkValues The values of primary key, ordered as primary key columns. (NotNull)
+     * @return The selected entity, which is copied if cached. (NullAllowed: if no data, it returns null)
+     */
+    protected <RESULT extends ENTITY> RESULT doSelectByPKCached(CB cb, Class<? extends RESULT> entityType, Object... pkValues) {
+        final EntityCache cache = getBehaviorCommandInvoker().getEntityCache();
+        final DBMeta dbmeta = getDBMeta();
+        if (cache == null || !cache.isCacheTarget(dbmeta.getTableDbName())) { // basically here
+            return doSelectEntity(cb, entityType);
+        }
+        if (cache.isWritingTable(dbmeta.getTableDbName())) { // may be uncommitted value in this transaction
+            return doSelectEntity(cb, entityType);
+        }
+        final RESULT cached = cache.findEntity(dbmeta, pkValues, entityType);
+        if (cached != null) {
+            return cached;
+        }
+        final long version = cache.prepareVersion(dbmeta.getTableDbName());
+        final RESULT entity = doSelectEntity(cb, entityType);
+        if (entity != null) {
+            cache.registerEntity(dbmeta, pkValues, entity, version);
+        }
+        return entity;
+    }
+
+    protected <RESULT extends ENTITY> RESULT doSelectByPKCachedWithDeletedCheck(CB cb, Class<? extends RESULT> entityType,
+            Object... pkValues) {
+        assertCBStateValid(cb);
+        assertObjectNotNull("entityType", entityType);
+        final RESULT entity = doSelectByPKCached(cb, entityType, pkValues);
+        assertEntityNotDeleted(entity, cb);
+        return entity;
+    }
+
     protected ENTITY facadeSelectEntityWithDeletedCheck(CB cb) {
         return doSelectEntityWithDeletedCheck(cb, typeOfSelectedEntity());
     }
@@ -340,6 +398,9 @@ public abstract class AbstractBehaviorReadable<ENTITY extends Entity, CB extends
     protected <RESULT extends ENTITY> ListResultBean<RESULT> helpSelectListInternally(CB cb, Class<? extends RESULT> entityType) {
         assertConditionBeanSelectResource(cb, entityType);
         try {
+            if (cb.isCompactResultEnabled()) {
+                return helpSelectCompactListInternally(cb, entityType);
+            }
             final List<RESULT> selectedList = delegateSelectList(cb, entityType);
             return createListResultBean(cb, selectedList);
         } catch (FetchingOverSafetySizeException e) {
@@ -352,6 +413,67 @@ public abstract class AbstractBehaviorReadable<ENTITY extends Entity, CB extends
         return new ResultBeanBuilder<RESULT>(getTableDbName()).buildListResultBean(cb, selectedList);
     }
 
+    // -----------------------------------------------------
+    //                                        Compact Result
+    //                                        --------------
+    protected <RESULT extends ENTITY> ListResultBean<RESULT> helpSelectCompactListInternally(CB cb, Class<? extends RESULT> entityType) {
+        helpSelectCompactCheckingBasePointOnly(cb);
+        final CompactEntityList<RESULT> compactList = createCompactEntityList(entityType);
+        delegateSelectCursor(cb, new EntityRowHandler<RESULT>() {
+            public void handle(RESULT entity) {
+                compactList.addEntity(entity); // the entity is released after decomposed
+            }
+        }, entityType);
+        compactList.trimToSize();
+        return new ResultBeanBuilder<RESULT>(getTableDbName()).buildCompactListResultBean(cb, compactList);
+    }
+
+    protected void helpSelectCompactCheckingBasePointOnly(CB cb) {
+        final SqlClause sqlClause = cb.getSqlClause();
+        if (!sqlClause.isSelectedRelationEmpty() || !sqlClause.getSpecifiedDerivingAliasList().isEmpty()) {
+            String msg = "The compact result cannot have relation or derived-referrer: " + cb.getTableDbName();
+            throw new IllegalConditionBeanOperationException(msg);
+        }
+    }
+
+    protected <RESULT extends ENTITY> CompactEntityList<RESULT> createCompactEntityList(Class<? extends RESULT> entityType) {
+        return new CompactEntityList<RESULT>(getDBMeta(), entityType);
+    }
+
+    // -----------------------------------------------------
+    //                                       Template Select
+    //                                       ---------------
+    protected ListResultBean<ENTITY> facadeSelectList(ConditionBeanTemplateBinding binding) {
+        return doSelectList(binding, typeOfSelectedEntity());
+    }
+
+    protected <RESULT extends ENTITY> ListResultBean<RESULT> doSelectList(ConditionBeanTemplateBinding binding,
+            Class<? extends RESULT> entityType) {
+        return helpSelectTemplateListInternally(binding, entityType);
+    }
+
+    protected <RESULT extends ENTITY> ListResultBean<RESULT> helpSelectTemplateListInternally(
+            ConditionBeanTemplateBinding binding, Class<? extends RESULT> entityType) {
+        assertTemplateBindingValid(binding);
+        final ConditionBean cb = binding.getTemplate().getConditionBean(); // frozen, used for mapping
+        try {
+            final List<RESULT> selectedList = delegateSelectList(binding, entityType);
+            return createListResultBean(cb, selectedList);
+        } catch (FetchingOverSafetySizeException e) {
+            createBhvExThrower().throwDangerousResultSizeException(cb, e);
+            return null; // unreachable
+        }
+    }
+
+    protected void assertTemplateBindingValid(ConditionBeanTemplateBinding binding) {
+        assertObjectNotNull("binding", binding);
+        final ConditionBeanTemplate template = binding.getTemplate();
+        if (!template.getTableDbName().equals(getTableDbName())) {
+            String msg = "The template was prepared for other table: template=" + template + " bhv=" + getTableDbName();
+            throw new IllegalConditionBeanOperationException(msg);
+        }
+    }
+
     // -----------------------------------------------------
     //                                       Option Handling
     //                                       ---------------
@@ -380,6 +502,19 @@ public abstract class AbstractBehaviorReadable<ENTITY extends Entity, CB extends
         return facadeSelectList(downcast(cb));
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public <RESULT extends Entity> ListResultBean<RESULT> readList(ConditionBeanTemplateBinding binding) {
+        @SuppressWarnings("unchecked")
+        final ListResultBean<RESULT> entityList = (ListResultBean<RESULT>) doReadList(binding);
+        return entityList;
+    }
+
+    protected ListResultBean<? extends Entity> doReadList(ConditionBeanTemplateBinding binding) {
+        return facadeSelectList(binding);
+    }
+
     // ===================================================================================
     //                                                                         Page Select
     //                                                                         ===========
@@ -396,6 +531,7 @@ public abstract class AbstractBehaviorReadable<ENTITY extends Entity, CB extends
 
     protected <RESULT extends ENTITY> PagingResultBean<RESULT> helpSelectPageInternally(CB cb, Class<? extends RESULT> entityType) {
         assertConditionBeanSelectResource(cb, entityType);
+        assertCBNotKeysetPaging(cb);
         try {
             final PagingHandler<RESULT> handler = createPagingHandler(cb, entityType);
             final PagingInvoker<RESULT> invoker = createPagingInvoker(cb);
@@ -433,7 +569,73 @@ public abstract class AbstractBehaviorReadable<ENTITY extends Entity, CB extends
     }
 
     protected <RESULT extends ENTITY> PagingInvoker<RESULT> createPagingInvoker(CB cb) {
-        return cb.createPagingInvoker(getTableDbName());
+        final PagingInvoker<RESULT> invoker = cb.createPagingInvoker(getTableDbName());
+        invoker.setPagingCountCache(getBehaviorCommandInvoker().getPagingCountCache()); // null allowed
+        return invoker;
+    }
+
+    // -----------------------------------------------------
+    //                                      Concurrent Count
+    //                                      ----------------
+    protected PagingResultBean<ENTITY> facadeSelectPage(ConditionBeanSetupper<CB> setupper) {
+        return doSelectPage(setupper, typeOfSelectedEntity());
+    }
+
+    protected <RESULT extends ENTITY> PagingResultBean<RESULT> doSelectPage(ConditionBeanSetupper<CB> setupper,
+            Class<? extends RESULT> entityType) {
+        assertObjectNotNull("setupper", setupper);
+        final CB cb = newConditionBean();
+        setupper.setup(cb);
+        final Executor countExecutor = getConcurrentPagingCountExecutor();
+        if (countExecutor == null) { // sequential as default
+            return doSelectPage(cb, entityType);
+        }
+        final CB countCB = newConditionBean(); // own condition-bean for the count thread
+        setupper.setup(countCB);
+        return helpSelectPageConcurrently(cb, countCB, countExecutor, entityType);
+    }
+
+    protected Executor getConcurrentPagingCountExecutor() { // customize point
+        return getBehaviorCommandInvoker().getConcurrentPagingCountExecutor(); // null allowed
+    }
+
+    protected <RESULT extends ENTITY> PagingResultBean<RESULT> helpSelectPageConcurrently(CB cb, CB countCB,
+            Executor countExecutor, Class<? extends RESULT> entityType) {
+        assertConditionBeanSelectResource(cb, entityType);
+        assertCBNotKeysetPaging(cb);
+        assertCBStateValid(countCB);
+        try {
+            final PagingHandler<RESULT> handler = createConcurrentPagingHandler(cb, countCB, entityType);
+            final PagingInvoker<RESULT> invoker = createPagingInvoker(cb);
+            invoker.setConcurrentCountExecutor(countExecutor);
+            return invoker.invokePaging(handler);
+        } catch (PagingOverSafetySizeException e) {
+            createBhvExThrower().throwDangerousResultSizeException(cb, e);
+            return null; // unreachable
+        }
+    }
+
+    protected <RESULT extends ENTITY> PagingHandler<RESULT> createConcurrentPagingHandler(final CB cb, CB countCB,
+            Class<? extends RESULT> entityType) {
+        final PagingHandler<RESULT> pagingHandler = createPagingHandler(cb, entityType);
+        final PagingHandler<RESULT> countHandler = createPagingHandler(countCB, entityType);
+        return new ConcurrentPagingHandler<RESULT>() {
+            public PagingBean getPagingBean() {
+                return cb;
+            }
+
+            public int count() { // e.g. count later
+                return pagingHandler.count();
+            }
+
+            public int countConcurrently() { // on the executor's thread
+                return countHandler.count();
+            }
+
+            public List<RESULT> paging() {
+                return pagingHandler.paging();
+            }
+        };
     }
 
     // -----------------------------------------------------
@@ -479,6 +681,15 @@ public abstract class AbstractBehaviorReadable<ENTITY extends Entity, CB extends
         assertObjectNotNull("entityRowHandler", handler);
         assertConditionBeanSelectResource(cb, entityType);
         final CursorSelectOption option = cb.getCursorSelectOption();
+        if (option != null && option.isPipelined()) {
+            helpSelectCursorHandlingByPipeline(cb, handler, entityType, option);
+        } else {
+            helpSelectCursorHandlingActually(cb, handler, entityType, option);
+        }
+    }
+
+    protected <RESULT extends ENTITY> void helpSelectCursorHandlingActually(CB cb, EntityRowHandler<RESULT> handler,
+            Class<? extends RESULT> entityType, CursorSelectOption option) {
         if (option != null && option.isByPaging()) {
             helpSelectCursorHandlingByPaging(cb, handler, entityType, option);
         } else { // basically here
@@ -486,6 +697,30 @@ public abstract class AbstractBehaviorReadable<ENTITY extends Entity, CB extends
         }
     }
 
+    protected <RESULT extends ENTITY> void helpSelectCursorHandlingByPipeline(CB cb, EntityRowHandler<RESULT> handler,
+            Class<? extends RESULT> entityType, CursorSelectOption option) {
+        final PipelinedEntityRowHandler<RESULT> pipeline = createPipelinedEntityRowHandler(handler, option);
+        pipeline.start();
+        boolean finished = false;
+        try {
+            helpSelectCursorHandlingActually(cb, pipeline, entityType, option); // fetching on this thread
+            pipeline.finish(); // waits for workers and throws their failure
+            finished = true;
+        } finally {
+            if (!finished) {
+                pipeline.cancel();
+            }
+        }
+    }
+
+    protected <RESULT extends ENTITY> PipelinedEntityRowHandler<RESULT> createPipelinedEntityRowHandler(
+            EntityRowHandler<RESULT> handler, CursorSelectOption option) {
+        final int queueSize = option.getPipelineQueueSize();
+        final int workerCount = option.getPipelineWorkerCount();
+        final int batchSize = option.getPipelineBatchSize();
+        return new PipelinedEntityRowHandler<RESULT>(handler, queueSize, workerCount, batchSize);
+    }
+
     protected <RESULT extends ENTITY> void helpSelectCursorHandlingByPaging(CB cb, EntityRowHandler<RESULT> entityRowHandler,
             Class<? extends RESULT> entityType, CursorSelectOption option) {
         helpSelectCursorCheckingByPagingAllowed(cb, option);
@@ -523,6 +758,23 @@ public abstract class AbstractBehaviorReadable<ENTITY extends Entity, CB extends
         }
     }
 
+    // -----------------------------------------------------
+    //                                    Interface Dispatch
+    //                                    ------------------
+    /**
+     * {@inheritDoc}
+     */
+    public <RESULT extends Entity> void readCursor(ConditionBean cb, EntityRowHandler<RESULT> handler) {
+        assertCBStateValid(cb);
+        @SuppressWarnings("unchecked")
+        final EntityRowHandler<ENTITY> entityRowHandler = (EntityRowHandler<ENTITY>) handler;
+        doReadCursor(cb, entityRowHandler);
+    }
+
+    protected void doReadCursor(ConditionBean cb, EntityRowHandler<ENTITY> handler) {
+        facadeSelectCursor(downcast(cb), handler);
+    }
+
     // ===================================================================================
     //                                                                       Scalar Select
     //                                                                       =============
@@ -694,6 +946,10 @@ public abstract class AbstractBehaviorReadable<ENTITY extends Entity, CB extends
                 return referrerBhv.readList(cb);
             }
 
+            public void cusRfLs(REFERRER_CB cb, EntityRowHandler<REFERRER_ENTITY> handler) {
+                referrerBhv.readCursor(cb, handler);
+            }
+
             public KEY getFKVal(REFERRER_ENTITY entity) {
                 final Class<?> fkType = fkCol.getObjectNativeType();
                 final Class<?> pkType = pkCol.getObjectNativeType();
@@ -776,6 +1032,10 @@ public abstract class AbstractBehaviorReadable<ENTITY extends Entity, CB extends
                 return referrerBhv.readList(cb);
             }
 
+            public void cusRfLs(REFERRER_CB cb, EntityRowHandler<REFERRER_ENTITY> handler) {
+                referrerBhv.readCursor(cb, handler);
+            }
+
             @SuppressWarnings("unchecked")
             public KEY getFKVal(REFERRER_ENTITY entity) {
                 final Map<String, Object> fkMap = xnewLoadReferrerCompoundKeyMap();
@@ -877,6 +1137,9 @@ public abstract class AbstractBehaviorReadable<ENTITY extends Entity, CB extends
         assertBehaviorSelectorNotNull("loadReferrer");
         assertObjectNotNull("localEntityList", localEntityList);
         assertObjectNotNull("loadReferrerOption", loadReferrerOption);
+        if (loadReferrerOption.isStreamingReferrerGroup() && localEntityList.isEmpty()) {
+            return xcreateStreamingNestedReferrerGateway(callback);
+        }
         if (localEntityList.isEmpty()) {
             @SuppressWarnings("unchecked")
             final NestedReferrerListGateway<REFERRER_ENTITY> empty = (NestedReferrerListGateway<REFERRER_ENTITY>) EMPTY_NREF_LGWAY;
@@ -898,47 +1161,15 @@ public abstract class AbstractBehaviorReadable<ENTITY extends Entity, CB extends
             pkLocalEntityMap.put(toLoadReferrerMappingKey(primaryKeyValue), localEntity);
         }
 
-        // - - - - - - - - - - - - - - - -
-        // Prepare referrer condition bean
-        // - - - - - - - - - - - - - - - -
-        final REFERRER_CB cb;
-        if (loadReferrerOption.getReferrerConditionBean() != null) {
-            cb = loadReferrerOption.getReferrerConditionBean();
-        } else {
-            cb = callback.newMyCB();
+        if (loadReferrerOption.isStreamingReferrerGroup()) { // memory is per one local entity
+            xstreamLoadReferrerGroup(localEntityList, pkSet, loadReferrerOption, callback);
+            return xcreateStreamingNestedReferrerGateway(callback); // nested referrer is loaded by set-upper per group
         }
 
         // - - - - - - - - - - - - - -
         // Select the list of referrer
         // - - - - - - - - - - - - - -
-        callback.qyFKIn(cb, pkSet);
-        final String referrerPropertyName = callback.getRfPrNm();
-        final String fixedCondition = xbuildReferrerCorrelatedFixedCondition(cb, referrerPropertyName);
-        final String basePointAliasName = cb.getSqlClause().getBasePointAliasName();
-        final boolean hasFixedCondition = fixedCondition != null && fixedCondition.trim().length() > 0;
-        if (hasFixedCondition) {
-            cb.getSqlClause().registerWhereClause(fixedCondition, basePointAliasName);
-        }
-        cb.xregisterUnionQuerySynchronizer(new UnionQuery<ConditionBean>() {
-            public void query(ConditionBean unionCB) {
-                @SuppressWarnings("unchecked")
-                REFERRER_CB referrerUnionCB = (REFERRER_CB) unionCB;
-                // for when application uses union query in condition-bean set-upper.
-                callback.qyFKIn(referrerUnionCB, pkSet);
-                if (hasFixedCondition) {
-                    referrerUnionCB.getSqlClause().registerWhereClause(fixedCondition, basePointAliasName);
-                }
-            }
-        });
-        if (pkSet.size() > 1) {
-            callback.qyOdFKAsc(cb);
-            cb.getOrderByComponent().exchangeFirstOrderByElementForLastOne();
-        }
-        loadReferrerOption.delegateConditionBeanSettingUp(cb);
-        if (cb.getSqlClause().hasSpecifiedSelectColumn(basePointAliasName)) {
-            callback.spFKCol(cb); // specify required columns for relation
-        }
-        final List<REFERRER_ENTITY> referrerList = callback.selRfLs(cb);
+        final List<REFERRER_ENTITY> referrerList = xselectLoadReferrerList(pkSet, loadReferrerOption, callback);
         loadReferrerOption.delegateEntitySettingUp(referrerList);
 
         // - - - - - - - - - - - - - - - - - - - - - - - -
@@ -987,6 +1218,324 @@ public abstract class AbstractBehaviorReadable<ENTITY extends Entity, CB extends
         };
     }
 
+    protected <REFERRER_ENTITY extends Entity> NestedReferrerListGateway<REFERRER_ENTITY> xcreateStreamingNestedReferrerGateway(
+            final InternalLoadReferrerCallback<?, ?, ?, REFERRER_ENTITY> callback) {
+        return new NestedReferrerListGateway<REFERRER_ENTITY>() {
+            public void withNestedReferrer(ReferrerListHandler<REFERRER_ENTITY> handler) {
+                final ExceptionMessageBuilder br = createExceptionMessageBuilder();
+                br.addNotice("Cannot load nested referrer after streaming loadReferrer.");
+                br.addItem("Advice");
+                br.addElement("The referrer list is not kept in streaming (referrer group handler),");
+                br.addElement("so load the nested referrer by entity-list set-upper of the option, per group.");
+                br.addElement("For example:");
+                br.addElement("  option.setEntityListSetupper(new EntityListSetupper<Purchase>() {");
+                br.addElement("      public void setup(List<Purchase> entityList) {");
+                br.addElement("          purchaseBhv.loadPurchaseDetailList(entityList, ...);");
+                br.addElement("      }");
+                br.addElement("  });");
+                br.addItem("Referrer Property");
+                br.addElement(callback.getRfPrNm());
+                final String msg = br.buildExceptionMessage();
+                throw new IllegalBehaviorStateException(msg);
+            }
+        };
+    }
+
+    // -----------------------------------------------------
+    //                                       Referrer Select
+    //                                       ---------------
+    protected <LOCAL_ENTITY extends Entity, KEY, REFERRER_CB extends ConditionBean, REFERRER_ENTITY extends Entity> // generic
+    List<REFERRER_ENTITY> xselectLoadReferrerList(Set<KEY> pkSet, LoadReferrerOption<REFERRER_CB, REFERRER_ENTITY> loadReferrerOption,
+            InternalLoadReferrerCallback<LOCAL_ENTITY, KEY, REFERRER_CB, REFERRER_ENTITY> callback) {
+        final REFERRER_CB specifiedCB = loadReferrerOption.getReferrerConditionBean();
+        if (specifiedCB != null) { // cannot split because the instance is only one
+            return xselectLoadReferrerChunk(specifiedCB, pkSet, loadReferrerOption, callback);
+        }
+        final int splitSize = loadReferrerOption.getSplitSize();
+        if (splitSize <= 0 || pkSet.size() <= splitSize) { // mainly here
+            return xselectLoadReferrerChunk(callback.newMyCB(), pkSet, loadReferrerOption, callback);
+        }
+        final List<List<KEY>> chunkList = DfCollectionUtil.splitByLimit(new ArrayList<KEY>(pkSet), splitSize);
+        if (loadReferrerOption.isParallelSplitSelect()) {
+            return xselectLoadReferrerChunkParallel(chunkList, loadReferrerOption, callback);
+        }
+        final List<REFERRER_ENTITY> referrerList = new ArrayList<REFERRER_ENTITY>();
+        for (List<KEY> chunk : chunkList) { // merged in chunk order so ordering per key is kept
+            referrerList.addAll(xselectLoadReferrerChunk(callback.newMyCB(), chunk, loadReferrerOption, callback));
+        }
+        return referrerList;
+    }
+
+    protected <LOCAL_ENTITY extends Entity, KEY, REFERRER_CB extends ConditionBean, REFERRER_ENTITY extends Entity> // generic
+    List<REFERRER_ENTITY> xselectLoadReferrerChunkParallel(final List<List<KEY>> chunkList,
+            final LoadReferrerOption<REFERRER_CB, REFERRER_ENTITY> loadReferrerOption,
+            final InternalLoadReferrerCallback<LOCAL_ENTITY, KEY, REFERRER_CB, REFERRER_ENTITY> callback) {
+        final int chunkCount = chunkList.size();
+        final int workerCount = Math.min(loadReferrerOption.getParallelDegree(), chunkCount);
+        final CallbackContext callbackContext = CallbackContext.getCallbackContextOnThread(); // inherited to workers
+        final AtomicReferenceArray<List<REFERRER_ENTITY>> resultArray = new AtomicReferenceArray<List<REFERRER_ENTITY>>(chunkCount);
+        final AtomicInteger nextChunkIndex = new AtomicInteger();
+        final AtomicBoolean failed = new AtomicBoolean();
+        final ExecutorService service = xgetLoadReferrerParallelExecutor(loadReferrerOption);
+        final List<Future<Void>> futureList = new ArrayList<Future<Void>>(workerCount);
+        for (int i = 0; i < workerCount; i++) { // workers pull chunks so at most parallel degree at the same time
+            futureList.add(service.submit(new Callable<Void>() {
+                public Void call() { // on worker thread, so separate connection
+                    if (callbackContext != null) {
+                        CallbackContext.setCallbackContextOnThread(callbackContext);
+                    }
+                    try {
+                        int chunkIndex;
+                        while (!failed.get() && (chunkIndex = nextChunkIndex.getAndIncrement()) < chunkCount) {
+                            final List<KEY> chunk = chunkList.get(chunkIndex);
+                            boolean selected = false;
+                            try {
+                                resultArray.set(chunkIndex, xselectLoadReferrerChunk(callback.newMyCB(), chunk, loadReferrerOption, callback));
+                                selected = true;
+                            } finally {
+                                if (!selected) { // other workers stop taking next chunk
+                                    failed.set(true);
+                                }
+                            }
+                        }
+                        return null;
+                    } finally {
+                        if (callbackContext != null) {
+                            CallbackContext.clearCallbackContextOnThread();
+                        }
+                    }
+                }
+            }));
+        }
+        RuntimeException firstRuntimeEx = null;
+        Error firstError = null;
+        for (Future<Void> future : futureList) { // waits for all workers not to leave running selects
+            try {
+                xgetLoadReferrerChunkResult(future);
+            } catch (RuntimeException e) {
+                if (firstRuntimeEx == null && firstError == null) {
+                    firstRuntimeEx = e;
+                }
+            } catch (Error e) {
+                if (firstRuntimeEx == null && firstError == null) {
+                    firstError = e;
+                }
+            }
+        }
+        if (firstError != null) {
+            throw firstError;
+        }
+        if (firstRuntimeEx != null) {
+            throw firstRuntimeEx;
+        }
+        final List<REFERRER_ENTITY> referrerList = new ArrayList<REFERRER_ENTITY>();
+        for (int i = 0; i < chunkCount; i++) { // merged in chunk order so ordering per key is kept
+            referrerList.addAll(resultArray.get(i));
+        }
+        return referrerList;
+    }
+
+    protected void xgetLoadReferrerChunkResult(Future<Void> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            String msg = "future.get() for loadReferrer chunk was interrupted: " + future;
+            throw new IllegalStateException(msg, e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            String msg = "Failed to select the loadReferrer chunk: " + future;
+            throw new IllegalStateException(msg, cause);
+        }
+    }
+
+    protected ExecutorService xgetLoadReferrerParallelExecutor(LoadReferrerOption<?, ?> loadReferrerOption) {
+        final ExecutorService specified = loadReferrerOption.getParallelExecutor();
+        return specified != null ? specified : getLoadReferrerSharedExecutor();
+    }
+
+    /**
+     * Get the shared executor for parallel split select of load-referrer. (extension point) <br />
+     * It is shared by all behaviors, threads are created on demand and released when idle.
+     * @return The executor service. (NotNull)
+     */
+    protected ExecutorService getLoadReferrerSharedExecutor() {
+        return LoadReferrerSharedExecutorHolder.EXECUTOR;
+    }
+
+    protected static class LoadReferrerSharedExecutorHolder { // lazy-loaded when first parallel loading
+
+        protected static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+            protected final AtomicInteger _threadNumber = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "dbflute-loadReferrer-" + _threadNumber.incrementAndGet());
+                thread.setDaemon(true); // not to prevent JVM shutdown
+                return thread;
+            }
+        });
+    }
+
+    protected <LOCAL_ENTITY extends Entity, KEY, REFERRER_CB extends ConditionBean, REFERRER_ENTITY extends Entity> // generic
+    List<REFERRER_ENTITY> xselectLoadReferrerChunk(REFERRER_CB cb, Collection<KEY> pkList,
+            LoadReferrerOption<REFERRER_CB, REFERRER_ENTITY> loadReferrerOption,
+            InternalLoadReferrerCallback<LOCAL_ENTITY, KEY, REFERRER_CB, REFERRER_ENTITY> callback) {
+        xprepareLoadReferrerCB(cb, pkList, loadReferrerOption, callback);
+        return callback.selRfLs(cb);
+    }
+
+    protected <LOCAL_ENTITY extends Entity, KEY, REFERRER_CB extends ConditionBean, REFERRER_ENTITY extends Entity> // generic
+    void xprepareLoadReferrerCB(REFERRER_CB cb, final Collection<KEY> pkList,
+            LoadReferrerOption<REFERRER_CB, REFERRER_ENTITY> loadReferrerOption,
+            final InternalLoadReferrerCallback<LOCAL_ENTITY, KEY, REFERRER_CB, REFERRER_ENTITY> callback) {
+        callback.qyFKIn(cb, pkList);
+        final String referrerPropertyName = callback.getRfPrNm();
+        final String fixedCondition = xbuildReferrerCorrelatedFixedCondition(cb, referrerPropertyName);
+        final String basePointAliasName = cb.getSqlClause().getBasePointAliasName();
+        final boolean hasFixedCondition = fixedCondition != null && fixedCondition.trim().length() > 0;
+        if (hasFixedCondition) {
+            cb.getSqlClause().registerWhereClause(fixedCondition, basePointAliasName);
+        }
+        cb.xregisterUnionQuerySynchronizer(new UnionQuery<ConditionBean>() {
+            public void query(ConditionBean unionCB) {
+                @SuppressWarnings("unchecked")
+                REFERRER_CB referrerUnionCB = (REFERRER_CB) unionCB;
+                // for when application uses union query in condition-bean set-upper.
+                callback.qyFKIn(referrerUnionCB, pkList);
+                if (hasFixedCondition) {
+                    referrerUnionCB.getSqlClause().registerWhereClause(fixedCondition, basePointAliasName);
+                }
+            }
+        });
+        if (pkList.size() > 1) {
+            callback.qyOdFKAsc(cb);
+            cb.getOrderByComponent().exchangeFirstOrderByElementForLastOne();
+        }
+        loadReferrerOption.delegateConditionBeanSettingUp(cb);
+        if (cb.getSqlClause().hasSpecifiedSelectColumn(basePointAliasName)) {
+            callback.spFKCol(cb); // specify required columns for relation
+        }
+    }
+
+    // -----------------------------------------------------
+    //                                       Referrer Stream
+    //                                       ---------------
+    protected <LOCAL_ENTITY extends Entity, KEY, REFERRER_CB extends ConditionBean, REFERRER_ENTITY extends Entity> // generic
+    void xstreamLoadReferrerGroup(List<LOCAL_ENTITY> localEntityList, Set<KEY> pkSet,
+            LoadReferrerOption<REFERRER_CB, REFERRER_ENTITY> loadReferrerOption,
+            InternalLoadReferrerCallback<LOCAL_ENTITY, KEY, REFERRER_CB, REFERRER_ENTITY> callback) {
+        final Map<KEY, List<LOCAL_ENTITY>> pkLocalEntityListMap = new LinkedHashMap<KEY, List<LOCAL_ENTITY>>();
+        for (LOCAL_ENTITY localEntity : localEntityList) { // might be same PK e.g. when entity of pull-out
+            final KEY mappingKey = toLoadReferrerMappingKey(callback.getPKVal(localEntity));
+            List<LOCAL_ENTITY> sameKeyList = pkLocalEntityListMap.get(mappingKey);
+            if (sameKeyList == null) {
+                sameKeyList = new ArrayList<LOCAL_ENTITY>(1);
+                pkLocalEntityListMap.put(mappingKey, sameKeyList);
+            }
+            sameKeyList.add(localEntity);
+        }
+        final InternalReferrerGroupStreamer<LOCAL_ENTITY, KEY, REFERRER_CB, REFERRER_ENTITY> streamer = //
+                new InternalReferrerGroupStreamer<LOCAL_ENTITY, KEY, REFERRER_CB, REFERRER_ENTITY>(pkLocalEntityListMap,
+                        loadReferrerOption, callback);
+        final REFERRER_CB specifiedCB = loadReferrerOption.getReferrerConditionBean();
+        final int splitSize = loadReferrerOption.getSplitSize();
+        if (specifiedCB != null || splitSize <= 0 || pkSet.size() <= splitSize) {
+            final REFERRER_CB cb = specifiedCB != null ? specifiedCB : callback.newMyCB();
+            xprepareLoadReferrerCB(cb, pkSet, loadReferrerOption, callback);
+            callback.cusRfLs(cb, streamer);
+        } else { // split but serial (parallel is not supported for stream)
+            for (List<KEY> chunk : DfCollectionUtil.splitByLimit(new ArrayList<KEY>(pkSet), splitSize)) {
+                final REFERRER_CB cb = callback.newMyCB();
+                xprepareLoadReferrerCB(cb, chunk, loadReferrerOption, callback);
+                callback.cusRfLs(cb, streamer);
+            }
+        }
+        streamer.finish();
+    }
+
+    /**
+     * The streamer of referrer group, which groups the referrer rows ordered by FK
+     * and hands the group to the handler when the FK changes.
+     * @param <LOCAL_ENTITY> The type of base entity.
+     * @param <KEY> The type of primary key.
+     * @param <REFERRER_CB> The type of referrer conditionBean.
+     * @param <REFERRER_ENTITY> The type of referrer entity.
+     */
+    protected class InternalReferrerGroupStreamer<LOCAL_ENTITY extends Entity, KEY, REFERRER_CB extends ConditionBean, REFERRER_ENTITY extends Entity>
+            implements EntityRowHandler<REFERRER_ENTITY> {
+
+        protected final Map<KEY, List<LOCAL_ENTITY>> _pkLocalEntityListMap;
+        protected final LoadReferrerOption<REFERRER_CB, REFERRER_ENTITY> _loadReferrerOption;
+        protected final InternalLoadReferrerCallback<LOCAL_ENTITY, KEY, REFERRER_CB, REFERRER_ENTITY> _callback;
+        protected final Set<KEY> _handledKeySet = new HashSet<KEY>();
+        protected KEY _currentKey;
+        protected List<REFERRER_ENTITY> _currentGroup;
+
+        public InternalReferrerGroupStreamer(Map<KEY, List<LOCAL_ENTITY>> pkLocalEntityListMap,
+                LoadReferrerOption<REFERRER_CB, REFERRER_ENTITY> loadReferrerOption,
+                InternalLoadReferrerCallback<LOCAL_ENTITY, KEY, REFERRER_CB, REFERRER_ENTITY> callback) {
+            _pkLocalEntityListMap = pkLocalEntityListMap;
+            _loadReferrerOption = loadReferrerOption;
+            _callback = callback;
+        }
+
+        public void handle(REFERRER_ENTITY referrerEntity) {
+            final KEY referrerListKey = toLoadReferrerMappingKey(_callback.getFKVal(referrerEntity));
+            if (_currentGroup == null || !referrerListKey.equals(_currentKey)) {
+                flushGroup();
+                if (_handledKeySet.contains(referrerListKey)) {
+                    String msg = "The referrer rows should be ordered by FK for streaming loadReferrer:";
+                    msg = msg + " referrer=" + _callback.getRfPrNm() + " key=" + referrerListKey;
+                    throw new IllegalStateException(msg);
+                }
+                _currentKey = referrerListKey;
+                _currentGroup = new ArrayList<REFERRER_ENTITY>();
+            }
+            _currentGroup.add(referrerEntity);
+        }
+
+        protected void flushGroup() {
+            if (_currentGroup == null) {
+                return;
+            }
+            _handledKeySet.add(_currentKey);
+            handleGroup(_pkLocalEntityListMap.get(_currentKey), _currentGroup);
+            _currentKey = null;
+            _currentGroup = null; // released here so memory is per one local entity
+        }
+
+        public void finish() {
+            flushGroup();
+            for (Entry<KEY, List<LOCAL_ENTITY>> entry : _pkLocalEntityListMap.entrySet()) {
+                if (!_handledKeySet.contains(entry.getKey())) { // no referrer
+                    handleGroup(entry.getValue(), new ArrayList<REFERRER_ENTITY>());
+                }
+            }
+        }
+
+        protected void handleGroup(List<LOCAL_ENTITY> localEntityList, List<REFERRER_ENTITY> referrerList) {
+            if (localEntityList == null) { // basically no way, just in case
+                return;
+            }
+            _loadReferrerOption.delegateEntitySettingUp(referrerList); // nested referrer per group
+            @SuppressWarnings("unchecked") // the local entity type is the one of this behavior
+            final ReferrerGroupHandler<LOCAL_ENTITY, REFERRER_ENTITY> groupHandler = //
+                    (ReferrerGroupHandler<LOCAL_ENTITY, REFERRER_ENTITY>) _loadReferrerOption.getReferrerGroupHandler();
+            for (LOCAL_ENTITY localEntity : localEntityList) {
+                for (REFERRER_ENTITY referrerEntity : referrerList) { // for Reverse Reference
+                    _callback.setlcEt(referrerEntity, localEntity);
+                }
+                groupHandler.handle(localEntity, referrerList);
+            }
+        }
+    }
+
     protected String xbuildReferrerCorrelatedFixedCondition(ConditionBean cb, String referrerPropertyName) {
         if (referrerPropertyName == null) {
             return null;
@@ -1074,6 +1623,8 @@ public abstract class AbstractBehaviorReadable<ENTITY extends Entity, CB extends
 
         List<REFERRER_ENTITY> selRfLs(REFERRER_CB cb); // selectReferrerList() 
 
+        void cusRfLs(REFERRER_CB cb, EntityRowHandler<REFERRER_ENTITY> handler); // cursorReferrerList()
+
         PK getFKVal(REFERRER_ENTITY entity); // getForeignKeyValue()
 
         void setlcEt(REFERRER_ENTITY referrerEntity, LOCAL_ENTITY localEntity); // setLocalEntity()
@@ -1387,6 +1938,11 @@ public abstract class AbstractBehaviorReadable<ENTITY extends Entity, CB extends
         return invoke(createSelectListCBCommand(cb, entityType));
     }
 
+    protected <RESULT extends ENTITY> List<RESULT> delegateSelectList(ConditionBeanTemplateBinding binding,
+            Class<? extends RESULT> entityType) {
+        return invoke(createSelectListTemplateCBCommand(binding, entityType));
+    }
+
     protected <RESULT> RESULT delegateSelectNextVal(Class<RESULT> resultType) {
         return invoke(createSelectNextValCommand(resultType));
     }
@@ -1474,6 +2030,21 @@ public abstract class AbstractBehaviorReadable<ENTITY extends Entity, CB extends
         return new SelectListCBCommand<RESULT>();
     }
 
+    protected <RESULT extends ENTITY> SelectListTemplateCBCommand<RESULT> createSelectListTemplateCBCommand(
+            ConditionBeanTemplateBinding binding, Class<? extends RESULT> entityType) {
+        assertBehaviorCommandInvoker("createSelectListTemplateCBCommand");
+        final SelectListTemplateCBCommand<RESULT> cmd = newSelectListTemplateCBCommand();
+        xsetupSelectCommand(cmd);
+        cmd.setConditionBean(binding.getTemplate().getConditionBean());
+        cmd.setEntityType(entityType);
+        cmd.setTemplateBinding(binding);
+        return cmd;
+    }
+
+    protected <RESULT extends ENTITY> SelectListTemplateCBCommand<RESULT> newSelectListTemplateCBCommand() {
+        return new SelectListTemplateCBCommand<RESULT>();
+    }
+
     protected <RESULT> SelectNextValCommand<RESULT> createSelectNextValCommand(Class<RESULT> resultType) {
         assertBehaviorCommandInvoker("createSelectNextValCommand");
         final SelectNextValCommand<RESULT> cmd = newSelectNextValCommand();
@@ -1808,6 +2379,17 @@ public abstract class AbstractBehaviorReadable<ENTITY extends Entity, CB extends
         }
     }
 
+    /**
+     * Assert that the condition-bean is not keyset paging, which cannot be page select.
+     * @param cb The instance of condition-bean to be checked. (NotNull)
+     */
+    protected void assertCBNotKeysetPaging(ConditionBean cb) {
+        if (cb.getSqlClause().isKeysetPagingEffective()) { // the count ignores the seek condition
+            String msg = "The page select cannot use keyset paging, use list select instead: " + cb.getClass();
+            throw new IllegalConditionBeanOperationException(msg);
+        }
+    }
+
     protected <RESULT extends ENTITY> void assertConditionBeanSelectResource(CB cb, Class<RESULT> entityType) {
         assertCBStateValid(cb);
         assertObjectNotNull("entityType", entityType);
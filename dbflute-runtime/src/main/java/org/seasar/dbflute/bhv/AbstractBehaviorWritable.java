@@ -16,7 +16,11 @@
 package org.seasar.dbflute.bhv;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.seasar.dbflute.Entity;
@@ -25,6 +29,7 @@ import org.seasar.dbflute.bhv.core.command.AbstractListEntityCommand;
 import org.seasar.dbflute.bhv.core.command.BatchDeleteCommand;
 import org.seasar.dbflute.bhv.core.command.BatchDeleteNonstrictCommand;
 import org.seasar.dbflute.bhv.core.command.BatchInsertCommand;
+import org.seasar.dbflute.bhv.core.command.BatchInsertOrUpdateCommand;
 import org.seasar.dbflute.bhv.core.command.BatchUpdateCommand;
 import org.seasar.dbflute.bhv.core.command.BatchUpdateNonstrictCommand;
 import org.seasar.dbflute.bhv.core.command.DeleteEntityCommand;
@@ -44,6 +49,7 @@ import org.seasar.dbflute.exception.IllegalBehaviorStateException;
 import org.seasar.dbflute.exception.IllegalConditionBeanOperationException;
 import org.seasar.dbflute.exception.OptimisticLockColumnValueNullException;
 import org.seasar.dbflute.exception.factory.ExceptionMessageBuilder;
+import org.seasar.dbflute.helper.StringKeyMap;
 import org.seasar.dbflute.resource.ResourceContext;
 
 /**
@@ -483,6 +489,130 @@ public abstract class AbstractBehaviorWritable<ENTITY extends Entity, CB extends
         return doBatchInsert(downcast(entityList), downcast(option));
     }
 
+    // -----------------------------------------------------
+    //                                Batch Insert or Update
+    //                                ----------------------
+    /**
+     * Batch-insert-or-update the entity list by native upsert statement of the DB. <br />
+     * The entities that have primary key values are executed as JDBC batch of one upsert statement
+     * (e.g. merge, on conflict, on duplicate key update), which is non-strict (no optimistic lock check). <br />
+     * Entities are batched per same-set modified properties unless insert columns are specified,
+     * so the update clause contains only columns set to the entities. <br />
+     * Entities without primary key values (or unique-driven ones) and all entities on DBs without native upsert
+     * are processed one by one as insertOrUpdateNonstrict (or insertOrUpdate if no optimistic lock),
+     * and their counts are always 1 because they affect one row or throw exception.
+     * @param entityList The list of the entity. (NotNull, EmptyAllowed)
+     * @param insertOption The option of insert. (NullAllowed)
+     * @param updateOption The option of update used only when processed one by one. (NullAllowed)
+     * @return The array of affected count, same order as the list. (NotNull, EmptyAllowed: e.g. MySQL returns 2 when updated)
+     */
+    protected int[] doBatchInsertOrUpdate(List<ENTITY> entityList, InsertOption<CB> insertOption, UpdateOption<CB> updateOption) {
+        assertEntityListNotNull(entityList);
+        final int[] resultArray = new int[entityList.size()];
+        final InsertOption<CB> rlop = insertOption != null ? insertOption : createPlainInsertOption();
+        final boolean nativeAvailable = isBatchInsertOrUpdateNativeAvailable(rlop);
+        final List<ENTITY> upsertList = new ArrayList<ENTITY>(entityList.size());
+        final List<Integer> upsertIndexList = new ArrayList<Integer>(entityList.size());
+        int index = 0;
+        for (ENTITY entity : entityList) {
+            assertEntityNotNull(entity);
+            if (nativeAvailable && helpDetermineBatchInsertOrUpdateNative(entity)) {
+                upsertList.add(entity);
+                upsertIndexList.add(index);
+            } else { // before upsert not to be affected by specified columns of batch
+                helpInsertOrUpdateOneByOne(entity, insertOption, updateOption);
+                resultArray[index] = 1; // one row (or exception) even if skipped by entity filter
+            }
+            ++index;
+        }
+        if (upsertList.isEmpty()) {
+            return resultArray;
+        }
+        if (rlop.hasSpecifiedInsertColumn()) { // specified by application so same columns for all
+            helpBatchInsertOrUpdateNatively(upsertList, upsertIndexList, rlop, resultArray);
+            return resultArray;
+        }
+        // the update clause should not contain columns not set to the entity (they would be null)
+        for (List<Integer> groupIndexList : helpGroupBatchInsertOrUpdate(upsertList).values()) {
+            final List<ENTITY> groupList = new ArrayList<ENTITY>(groupIndexList.size());
+            final List<Integer> groupResultIndexList = new ArrayList<Integer>(groupIndexList.size());
+            for (Integer groupIndex : groupIndexList) {
+                groupList.add(upsertList.get(groupIndex));
+                groupResultIndexList.add(upsertIndexList.get(groupIndex));
+            }
+            rlop.xclearInsertColumnModifiedPropertiesSpecification(); // specified per group
+            helpBatchInsertOrUpdateNatively(groupList, groupResultIndexList, rlop, resultArray);
+        }
+        rlop.xclearInsertColumnModifiedPropertiesSpecification(); // not to leave the last group's columns
+        return resultArray;
+    }
+
+    protected void helpBatchInsertOrUpdateNatively(List<ENTITY> upsertList, List<Integer> upsertIndexList,
+            InsertOption<CB> option, int[] resultArray) {
+        prepareBatchInsertOption(upsertList, option);
+        final List<ENTITY> processedList = processBatchInternally(upsertList, option);
+        final int[] upsertedArray = delegateBatchInsertOrUpdate(processedList, option);
+        int processedIndex = 0;
+        for (int i = 0; i < upsertList.size(); i++) {
+            if (processedIndex < processedList.size() && upsertList.get(i) == processedList.get(processedIndex)) {
+                resultArray[upsertIndexList.get(i)] = upsertedArray[processedIndex];
+                ++processedIndex;
+            } // filtered entities are not executed so zero
+        }
+    }
+
+    /**
+     * Group the upsert entities by their modified properties, and selected entities (all columns) separately.
+     * @param upsertList The list of entity to be upserted. (NotNull)
+     * @return The map of group key and entity indexes, ordered by first appearance. (NotNull)
+     */
+    protected Map<BitSet, List<Integer>> helpGroupBatchInsertOrUpdate(List<ENTITY> upsertList) {
+        final int selectedBit = getDBMeta().getColumnInfoList().size(); // next to column positions
+        final Map<BitSet, List<Integer>> groupMap = new LinkedHashMap<BitSet, List<Integer>>();
+        for (Entry<BitSet, List<Integer>> entry : helpGroupByModifiedProperties(upsertList).entrySet()) {
+            for (Integer index : entry.getValue()) {
+                final BitSet groupKey = (BitSet) entry.getKey().clone();
+                if (upsertList.get(index).createdBySelect()) { // every column is inserted and updated
+                    groupKey.set(selectedBit);
+                }
+                List<Integer> indexList = groupMap.get(groupKey);
+                if (indexList == null) {
+                    indexList = new ArrayList<Integer>();
+                    groupMap.put(groupKey, indexList);
+                }
+                indexList.add(index);
+            }
+        }
+        return groupMap;
+    }
+
+    protected boolean isBatchInsertOrUpdateNativeAvailable(InsertOption<CB> option) {
+        final DBMeta dbmeta = getDBMeta();
+        if (!dbmeta.hasPrimaryKey()) {
+            return false;
+        }
+        if (dbmeta.hasIdentity() && !option.isPrimaryKeyIdentityDisabled()) {
+            return false; // primary key values cannot be inserted
+        }
+        return _behaviorCommandInvoker.getCurrentDBDef().dbway().isUpsertStatementSupported();
+    }
+
+    protected boolean helpDetermineBatchInsertOrUpdateNative(Entity entity) {
+        final Set<String> uniqueDrivenProperties = entity.myuniqueDrivenProperties();
+        if (uniqueDrivenProperties != null && !uniqueDrivenProperties.isEmpty()) {
+            return false; // upsert statement is based on primary key
+        }
+        return entity.hasPrimaryKeyValue();
+    }
+
+    protected void helpInsertOrUpdateOneByOne(ENTITY entity, InsertOption<CB> insertOption, UpdateOption<CB> updateOption) {
+        if (getDBMeta().hasOptimisticLock()) {
+            helpInsertOrUpdateNonstrictInternally(entity, insertOption, updateOption);
+        } else {
+            helpInsertOrUpdateInternally(entity, insertOption, updateOption);
+        }
+    }
+
     // -----------------------------------------------------
     //                                          Batch Update
     //                                          ------------
@@ -494,6 +624,9 @@ public abstract class AbstractBehaviorWritable<ENTITY extends Entity, CB extends
         } else {
             rlop = createPlainUpdateOption();
         }
+        if (helpDetermineBatchUpdateGrouped(rlop)) {
+            return helpBatchUpdateByModifiedPropertiesGroup(entityList, rlop, !getDBMeta().hasOptimisticLock());
+        }
         prepareBatchUpdateOption(entityList, rlop); // required
         return delegateBatchUpdate(entityList, rlop);
     }
@@ -506,6 +639,9 @@ public abstract class AbstractBehaviorWritable<ENTITY extends Entity, CB extends
         } else {
             rlop = createPlainUpdateOption();
         }
+        if (helpDetermineBatchUpdateGrouped(rlop)) {
+            return helpBatchUpdateByModifiedPropertiesGroup(entityList, rlop, true);
+        }
         prepareBatchUpdateOption(entityList, rlop);
         return delegateBatchUpdateNonstrict(entityList, rlop);
     }
@@ -540,10 +676,83 @@ public abstract class AbstractBehaviorWritable<ENTITY extends Entity, CB extends
         return false; // might be overridden by generator option
     }
 
+    protected boolean isBatchUpdateColumnModifiedPropertiesGrouped() {
+        return false; // might be overridden by generator option
+    }
+
     protected boolean isCompatibleBatchUpdateDefaultEveryColumn() {
         return false; // might be overridden by generator option
     }
 
+    // -----------------------------------------------------
+    //                                 Batch Update Grouping
+    //                                 ---------------------
+    protected boolean helpDetermineBatchUpdateGrouped(UpdateOption<CB> option) {
+        // the generator option is determined here not to change the application's option
+        if (!isBatchUpdateColumnModifiedPropertiesGrouped() && !option.isBatchUpdateGroupedByModifiedProperties()) {
+            return false;
+        }
+        // specified columns are used for all entities, and every column is same-set
+        return !option.hasSpecifiedUpdateColumn() && !isCompatibleBatchUpdateDefaultEveryColumn();
+    }
+
+    protected int[] helpBatchUpdateByModifiedPropertiesGroup(List<ENTITY> entityList, UpdateOption<CB> option, boolean nonstrict) {
+        final List<ENTITY> processedList = processBatchInternally(entityList, option, nonstrict);
+        final int[] resultArray = new int[processedList.size()];
+        final Map<BitSet, List<Integer>> groupMap = helpGroupByModifiedProperties(processedList);
+        try {
+            for (List<Integer> indexList : groupMap.values()) {
+                final List<ENTITY> groupList = new ArrayList<ENTITY>(indexList.size());
+                for (Integer index : indexList) {
+                    groupList.add(processedList.get(index));
+                }
+                option.xclearUpdateColumnModifiedPropertiesSpecification(); // specified per group
+                prepareBatchUpdateOption(groupList, option);
+                final int[] groupResult = delegateBatchUpdateGroup(groupList, option, nonstrict);
+                for (int i = 0; i < indexList.size() && i < groupResult.length; i++) {
+                    resultArray[indexList.get(i)] = groupResult[i];
+                }
+            }
+        } finally {
+            option.xclearUpdateColumnModifiedPropertiesSpecification(); // not to leave the last group's columns
+        }
+        return resultArray;
+    }
+
+    /**
+     * Group the entities by the bitmask of their modified properties.
+     * @param entityList The list of entity. (NotNull)
+     * @return The map of bitmask (column positions of DB meta) and entity indexes, ordered by first appearance. (NotNull)
+     */
+    protected Map<BitSet, List<Integer>> helpGroupByModifiedProperties(List<? extends Entity> entityList) {
+        final List<ColumnInfo> columnInfoList = getDBMeta().getColumnInfoList();
+        final Map<String, Integer> positionMap = StringKeyMap.createAsFlexible();
+        int position = 0;
+        for (ColumnInfo columnInfo : columnInfoList) {
+            positionMap.put(columnInfo.getPropertyName(), position);
+            ++position;
+        }
+        final Map<BitSet, List<Integer>> groupMap = new LinkedHashMap<BitSet, List<Integer>>();
+        int index = 0;
+        for (Entity entity : entityList) {
+            final BitSet modifiedBits = new BitSet(columnInfoList.size());
+            for (String propertyName : entity.mymodifiedProperties()) {
+                final Integer columnPosition = positionMap.get(propertyName);
+                if (columnPosition != null) {
+                    modifiedBits.set(columnPosition);
+                }
+            }
+            List<Integer> indexList = groupMap.get(modifiedBits);
+            if (indexList == null) {
+                indexList = new ArrayList<Integer>();
+                groupMap.put(modifiedBits, indexList);
+            }
+            indexList.add(index);
+            ++index;
+        }
+        return groupMap;
+    }
+
     // -----------------------------------------------------
     //                                           Lump Modify
     //                                           -----------
@@ -782,6 +991,13 @@ public abstract class AbstractBehaviorWritable<ENTITY extends Entity, CB extends
         return invoke(createBatchInsertCommand(processBatchInternally(entityList, option), option));
     }
 
+    protected int[] delegateBatchInsertOrUpdate(List<? extends Entity> processedList, InsertOption<? extends ConditionBean> option) {
+        if (processedList.isEmpty()) {
+            return new int[] {};
+        }
+        return invoke(createBatchInsertOrUpdateCommand(processedList, option)); // already processed
+    }
+
     protected int[] delegateBatchUpdate(List<? extends Entity> entityList, UpdateOption<? extends ConditionBean> option) {
         if (entityList.isEmpty()) {
             return new int[] {};
@@ -800,6 +1016,15 @@ public abstract class AbstractBehaviorWritable<ENTITY extends Entity, CB extends
         return invoke(createBatchUpdateNonstrictCommand(processBatchInternally(entityList, option, true), option));
     }
 
+    protected int[] delegateBatchUpdateGroup(List<? extends Entity> processedList, UpdateOption<? extends ConditionBean> option,
+            boolean nonstrict) {
+        if (nonstrict) { // already processed so invoke directly
+            return invoke(createBatchUpdateNonstrictCommand(processedList, option));
+        } else {
+            return invoke(createBatchUpdateCommand(processedList, option));
+        }
+    }
+
     protected int[] delegateBatchDelete(List<? extends Entity> entityList, DeleteOption<? extends ConditionBean> option) {
         if (entityList.isEmpty()) {
             return new int[] {};
@@ -1288,6 +1513,19 @@ public abstract class AbstractBehaviorWritable<ENTITY extends Entity, CB extends
         return new BatchInsertCommand();
     }
 
+    protected BatchInsertOrUpdateCommand createBatchInsertOrUpdateCommand(List<? extends Entity> entityList,
+            InsertOption<? extends ConditionBean> option) {
+        assertBehaviorCommandInvoker("createBatchInsertOrUpdateCommand");
+        final BatchInsertOrUpdateCommand cmd = newBatchInsertOrUpdateCommand();
+        xsetupListEntityCommand(cmd, entityList);
+        cmd.setInsertOption(option);
+        return cmd;
+    }
+
+    protected BatchInsertOrUpdateCommand newBatchInsertOrUpdateCommand() {
+        return new BatchInsertOrUpdateCommand();
+    }
+
     protected BatchUpdateCommand createBatchUpdateCommand(List<? extends Entity> entityList, UpdateOption<? extends ConditionBean> option) {
         assertBehaviorCommandInvoker("createBatchUpdateCommand");
         final BatchUpdateCommand cmd = newBatchUpdateCommand();
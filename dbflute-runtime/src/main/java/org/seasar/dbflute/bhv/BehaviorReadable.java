@@ -17,6 +17,8 @@ package org.seasar.dbflute.bhv;
 
 import org.seasar.dbflute.Entity;
 import org.seasar.dbflute.cbean.ConditionBean;
+import org.seasar.dbflute.cbean.ConditionBeanTemplateBinding;
+import org.seasar.dbflute.cbean.EntityRowHandler;
 import org.seasar.dbflute.cbean.ListResultBean;
 import org.seasar.dbflute.cbean.PagingResultBean;
 import org.seasar.dbflute.cbean.chelper.HpSLSFunction;
@@ -104,6 +106,15 @@ public interface BehaviorReadable {
      */
     <RESULT extends Entity> ListResultBean<RESULT> readList(ConditionBean cb);
 
+    /**
+     * Read list as result-bean by the binding of condition-bean template. <br />
+     * An interface dispatch for selectList() with template.
+     * @param <RESULT> The result type of entity.
+     * @param binding The binding of condition-bean template for the table. (NotNull)
+     * @return The list of entity as result-bean. If the select result is zero, it returns empty list. (NotNull)
+     */
+    <RESULT extends Entity> ListResultBean<RESULT> readList(ConditionBeanTemplateBinding binding);
+
     /**
      * Read page as result-bean. <br />
      * An interface dispatch for selectPage().
@@ -113,6 +124,18 @@ public interface BehaviorReadable {
      */
     <RESULT extends Entity> PagingResultBean<RESULT> readPage(ConditionBean cb);
 
+    // ===================================================================================
+    //                                                                         Cursor Read
+    //                                                                         ===========
+    /**
+     * Read the entity as row by cursor. <br />
+     * An interface dispatch for selectCursor().
+     * @param <RESULT> The result type of entity.
+     * @param cb The instance of corresponding condition-bean. (NotNull)
+     * @param handler The handler of entity row. (NotNull)
+     */
+    <RESULT extends Entity> void readCursor(ConditionBean cb, EntityRowHandler<RESULT> handler);
+
     // ===================================================================================
     //                                                                         Scalar Read
     //                                                                         ===========
@@ -51,6 +51,7 @@ public class InsertOption<CB extends ConditionBean> implements WritableOption<CB
     //                                                                           =========
     protected SpecifyQuery<CB> _insertColumnSpecification;
     protected CB _insertColumnSpecifiedCB;
+    protected boolean _insertColumnModifiedPropertiesSpecified; // for batch grouping
     protected Set<String> _forcedSpecifiedInsertColumnSet;
     protected boolean _exceptCommonColumnForcedSpecified;
     protected boolean _insertColumnModifiedPropertiesFragmentedAllowed = true; // as default of batch insert
@@ -60,6 +61,8 @@ public class InsertOption<CB extends ConditionBean> implements WritableOption<CB
     protected boolean _disableCommonColumnAutoSetup;
     protected boolean _disablePrimaryKeyIdentity;
     protected Integer _batchInsertLoggingLimit;
+    protected Integer _batchInsertFlushSize;
+    protected boolean _batchInsertMultiRowValues;
     protected StatementConfig _insertStatementConfig;
 
     // ===================================================================================
@@ -202,6 +205,16 @@ public class InsertOption<CB extends ConditionBean> implements WritableOption<CB
                 }
             });
         }
+        _insertColumnModifiedPropertiesSpecified = true;
+    }
+
+    public void xclearInsertColumnModifiedPropertiesSpecification() { // internal, for batch grouping
+        if (!_insertColumnModifiedPropertiesSpecified) {
+            return; // not specified or specified by application
+        }
+        _insertColumnSpecification = null;
+        _insertColumnSpecifiedCB = null;
+        _insertColumnModifiedPropertiesSpecified = false;
     }
 
     public void xallowInsertColumnModifiedPropertiesFragmented() { // back to default
@@ -418,6 +431,40 @@ public class InsertOption<CB extends ConditionBean> implements WritableOption<CB
         return _batchInsertLoggingLimit;
     }
 
+    // ===================================================================================
+    //                                                                         Batch Flush
+    //                                                                         ===========
+    /**
+     * Flush batch-insert by the size. <br />
+     * The batch is executed per the size of entities, so the driver does not buffer all entities.
+     * Optimistic lock (update count) is checked per the flushed entities.
+     * @param batchInsertFlushSize The size of entities per execution. (NullAllowed: if null and minus, means no flush)
+     */
+    public void flushBatchInsertBySize(Integer batchInsertFlushSize) {
+        _batchInsertFlushSize = batchInsertFlushSize;
+    }
+
+    public Integer getBatchInsertFlushSize() {
+        return _batchInsertFlushSize;
+    }
+
+    /**
+     * Enable multi-row VALUES of batch-insert if the DB supports it. (e.g. MySQL, PostgreSQL, H2) <br />
+     * The insert statement is rewritten to the one that has the values of the flush size
+     * (or default size if no flush) and executed as one statement.
+     * <pre>
+     * insert into MEMBER (MEMBER_NAME, ...) values (?, ...), (?, ...), (?, ...)
+     * </pre>
+     * It is ignored if the DB does not support it.
+     */
+    public void enableBatchInsertMultiRowValues() {
+        _batchInsertMultiRowValues = true;
+    }
+
+    public boolean isBatchInsertMultiRowValues() {
+        return _batchInsertMultiRowValues;
+    }
+
     // ===================================================================================
     //                                                                           Configure
     //                                                                           =========
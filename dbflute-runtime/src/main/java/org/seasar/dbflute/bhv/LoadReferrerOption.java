@@ -16,6 +16,7 @@
 package org.seasar.dbflute.bhv;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import org.seasar.dbflute.Entity;
 import org.seasar.dbflute.cbean.ConditionBean;
@@ -36,6 +37,10 @@ public class LoadReferrerOption<REFERRER_CB extends ConditionBean, REFERRER_ENTI
     protected ConditionBeanSetupper<REFERRER_CB> _conditionBeanSetupper;
     protected EntityListSetupper<REFERRER_ENTITY> _entityListSetupper;
     protected REFERRER_CB _referrerConditionBean;
+    protected int _splitSize; // zero means no split
+    protected int _parallelDegree; // zero means serial
+    protected ExecutorService _parallelExecutor; // null means shared executor of behavior
+    protected ReferrerGroupHandler<? extends Entity, REFERRER_ENTITY> _referrerGroupHandler; // not null means streaming
 
     // ===================================================================================
     //                                                                         Constructor
@@ -101,6 +106,86 @@ public class LoadReferrerOption<REFERRER_CB extends ConditionBean, REFERRER_ENTI
         }
     }
 
+    // ===================================================================================
+    //                                                                        Split Select
+    //                                                                        ============
+    /**
+     * Enable split select, which selects the referrer per chunk of local keys. <br />
+     * Each chunk is executed as separate select statement, and the results are merged in chunk order.
+     * It is useful when many local entities would make huge in-scope condition in one statement.
+     * (ignored if the original condition-bean instance is set because it cannot be split)
+     * <pre>
+     * LoadReferrerOption option = new LoadReferrerOption();
+     * option.<span style="color: #DD4747">enableSplitSelect</span>(1000); <span style="color: #3F7E5E">// per 1000 keys</span>
+     * </pre>
+     * @param splitSize The max size of local keys per one select. (NotMinus, NotZero)
+     * @return this. (NotNull)
+     */
+    public LoadReferrerOption<REFERRER_CB, REFERRER_ENTITY> enableSplitSelect(int splitSize) {
+        assertSplitSize(splitSize);
+        _splitSize = splitSize;
+        _parallelDegree = 0;
+        return this;
+    }
+
+    /**
+     * Enable split select executed in parallel. <br />
+     * The chunks are selected on worker threads so they use separate connections
+     * outside of the current transaction, so use this only for read-only loading. <br />
+     * The worker threads are borrowed from the shared executor of behavior (or the specified executor),
+     * and at most the parallel degree of chunks are selected at the same time.
+     * <pre>
+     * LoadReferrerOption option = new LoadReferrerOption();
+     * option.<span style="color: #DD4747">enableParallelSplitSelect</span>(1000, 4); <span style="color: #3F7E5E">// per 1000 keys, 4 threads</span>
+     * </pre>
+     * @param splitSize The max size of local keys per one select. (NotMinus, NotZero)
+     * @param parallelDegree The max count of threads for the selects. (NotMinus, NotZero)
+     * @return this. (NotNull)
+     */
+    public LoadReferrerOption<REFERRER_CB, REFERRER_ENTITY> enableParallelSplitSelect(int splitSize, int parallelDegree) {
+        assertSplitSize(splitSize);
+        if (parallelDegree <= 0) {
+            String msg = "The argument 'parallelDegree' should be positive: " + parallelDegree;
+            throw new IllegalArgumentException(msg);
+        }
+        _splitSize = splitSize;
+        _parallelDegree = parallelDegree;
+        return this;
+    }
+
+    protected void assertSplitSize(int splitSize) {
+        if (splitSize <= 0) {
+            String msg = "The argument 'splitSize' should be positive: " + splitSize;
+            throw new IllegalArgumentException(msg);
+        }
+    }
+
+    /**
+     * Set the executor for the parallel split select, e.g. application-managed thread pool. <br />
+     * The executor is not shut down by the loading.
+     * @param parallelExecutor The executor service for worker threads. (NullAllowed: if null, shared executor of behavior)
+     * @return this. (NotNull)
+     */
+    public LoadReferrerOption<REFERRER_CB, REFERRER_ENTITY> parallelExecutor(ExecutorService parallelExecutor) {
+        _parallelExecutor = parallelExecutor;
+        return this;
+    }
+
+    public boolean isSplitSelect() {
+        return _splitSize > 0;
+    }
+
+    public boolean isParallelSplitSelect() {
+        return isSplitSelect() && _parallelDegree > 1;
+    }
+
+    // ===================================================================================
+    //                                                                    Streaming Select
+    //                                                                    ================
+    public boolean isStreamingReferrerGroup() {
+        return _referrerGroupHandler != null;
+    }
+
     // ===================================================================================
     //                                                                            Accessor
     //                                                                            ========
@@ -189,4 +274,44 @@ public class LoadReferrerOption<REFERRER_CB extends ConditionBean, REFERRER_ENTI
     public void setReferrerConditionBean(REFERRER_CB referrerConditionBean) {
         this._referrerConditionBean = referrerConditionBean;
     }
+
+    public int getSplitSize() {
+        return _splitSize;
+    }
+
+    public int getParallelDegree() {
+        return _parallelDegree;
+    }
+
+    public ExecutorService getParallelExecutor() {
+        return _parallelExecutor;
+    }
+
+    public ReferrerGroupHandler<? extends Entity, REFERRER_ENTITY> getReferrerGroupHandler() {
+        return _referrerGroupHandler;
+    }
+
+    /**
+     * Set the handler of referrer group, which enables streaming select of referrer. <br />
+     * The referrer rows are selected by cursor and handed to the handler per local entity
+     * when the FK changes, so the referrer list is not set to the local entity
+     * and memory is proportional to one local entity's referrers.
+     * <pre>
+     * LoadReferrerOption option = new LoadReferrerOption();
+     * option.<span style="color: #DD4747">setReferrerGroupHandler</span>(new ReferrerGroupHandler&lt;Member, Purchase&gt;() {
+     *     public void handle(Member member, List&lt;Purchase&gt; referrerList) {
+     *         ... <span style="color: #3F7E5E">// e.g. aggregate or write out the purchases of the member</span>
+     *     }
+     * });
+     * memberBhv.loadPurchaseList(memberList, option);
+     * </pre>
+     * The entity-list set-upper is called per group in this case, and loading nested referrer
+     * by the returned gateway is not allowed. (the split select works serially, and parallel is ignored)
+     * @param <LOCAL_ENTITY> The type of local entity, should be the entity of the loading behavior.
+     * @param referrerGroupHandler The handler of referrer group. (NullAllowed: if null, normal loading)
+     */
+    public <LOCAL_ENTITY extends Entity> void setReferrerGroupHandler(
+            ReferrerGroupHandler<LOCAL_ENTITY, REFERRER_ENTITY> referrerGroupHandler) {
+        _referrerGroupHandler = referrerGroupHandler;
+    }
 }
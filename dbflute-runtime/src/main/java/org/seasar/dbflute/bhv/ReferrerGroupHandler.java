@@ -0,0 +1,38 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.bhv;
+
+import java.util.List;
+
+import org.seasar.dbflute.Entity;
+
+/**
+ * The handler of referrer group, which receives the referrer list per local entity
+ * when loadReferrer streams the referrer rows by cursor.
+ * @param <LOCAL_ENTITY> The type of local entity, which is the entity of the loading behavior.
+ * @param <REFERRER_ENTITY> The type of referrer entity.
+ * @author jflute
+ * @since 1.0.5N (2014/12/08 Monday)
+ */
+public interface ReferrerGroupHandler<LOCAL_ENTITY extends Entity, REFERRER_ENTITY extends Entity> {
+
+    /**
+     * Handle the group of referrer for the local entity.
+     * @param localEntity The local entity that has the referrers. (NotNull)
+     * @param referrerList The list of referrer for the local entity, might be empty. (NotNull)
+     */
+    void handle(LOCAL_ENTITY localEntity, List<REFERRER_ENTITY> referrerList);
+}
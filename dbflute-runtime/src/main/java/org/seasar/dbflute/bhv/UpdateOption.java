@@ -61,6 +61,7 @@ public class UpdateOption<CB extends ConditionBean> implements WritableOption<CB
 
     protected SpecifyQuery<CB> _updateColumnSpecification;
     protected CB _updateColumnSpecifiedCB;
+    protected boolean _updateColumnModifiedPropertiesSpecified; // for batch grouping
     protected Set<String> _forcedSpecifiedUpdateColumnSet;
     protected boolean _exceptCommonColumnForcedSpecified;
     protected boolean _updateColumnModifiedPropertiesFragmentedAllowed; // as default of batch update
@@ -69,6 +70,8 @@ public class UpdateOption<CB extends ConditionBean> implements WritableOption<CB
     protected boolean _nonQueryUpdateAllowed;
     protected boolean _queryUpdateForcedDirectAllowed;
     protected Integer _batchLoggingUpdateLimit;
+    protected Integer _batchUpdateFlushSize;
+    protected boolean _batchUpdateGroupedByModifiedProperties;
     protected StatementConfig _updateStatementConfig;
 
     // ===================================================================================
@@ -440,6 +443,16 @@ public class UpdateOption<CB extends ConditionBean> implements WritableOption<CB
                 }
             }
         });
+        _updateColumnModifiedPropertiesSpecified = true;
+    }
+
+    public void xclearUpdateColumnModifiedPropertiesSpecification() { // internal, for batch grouping
+        if (!_updateColumnModifiedPropertiesSpecified) {
+            return; // not specified or specified by application
+        }
+        _updateColumnSpecification = null;
+        _updateColumnSpecifiedCB = null;
+        _updateColumnModifiedPropertiesSpecified = false;
     }
 
     public void xallowUpdateColumnModifiedPropertiesFragmented() { // might be called by generator for option
@@ -660,6 +673,50 @@ public class UpdateOption<CB extends ConditionBean> implements WritableOption<CB
         return _batchLoggingUpdateLimit;
     }
 
+    // ===================================================================================
+    //                                                                         Batch Flush
+    //                                                                         ===========
+    /**
+     * Flush batch-update by the size. <br />
+     * The batch is executed per the size of entities, so the driver does not buffer all entities.
+     * Optimistic lock (update count) is checked per the flushed entities.
+     * @param batchUpdateFlushSize The size of entities per execution. (NullAllowed: if null and minus, means no flush)
+     */
+    public void flushBatchUpdateBySize(Integer batchUpdateFlushSize) {
+        _batchUpdateFlushSize = batchUpdateFlushSize;
+    }
+
+    public Integer getBatchUpdateFlushSize() {
+        return _batchUpdateFlushSize;
+    }
+
+    // ===================================================================================
+    //                                                                      Batch Grouping
+    //                                                                      ==============
+    /**
+     * Group batch-update entities by their modified properties. <br />
+     * The entities are partitioned by the set of modified properties,
+     * and one batch (one SQL) is executed per the set, so only changed columns are updated
+     * without fragmented exception. The result counts keep the order of the entity list. <br />
+     * This does not work if update columns are specified by the option.
+     * <pre>
+     * member.setMemberName("foo"); <span style="color: #3F7E5E">// group 1: MEMBER_NAME</span>
+     * other.setBirthdate(birthdate); <span style="color: #3F7E5E">// group 2: BIRTHDATE</span>
+     * UpdateOption&lt;MemberCB&gt; option = new UpdateOption&lt;MemberCB&gt;();
+     * option.<span style="color: #DD4747">groupBatchUpdateByModifiedProperties</span>();
+     * memberBhv.varyingBatchUpdate(memberList, option); <span style="color: #3F7E5E">// two batches</span>
+     * </pre>
+     * @return The option of update. (NotNull: returns this)
+     */
+    public UpdateOption<CB> groupBatchUpdateByModifiedProperties() {
+        _batchUpdateGroupedByModifiedProperties = true;
+        return this;
+    }
+
+    public boolean isBatchUpdateGroupedByModifiedProperties() {
+        return _batchUpdateGroupedByModifiedProperties;
+    }
+
     // ===================================================================================
     //                                                                           Configure
     //                                                                           =========
@@ -708,6 +765,12 @@ public class UpdateOption<CB extends ConditionBean> implements WritableOption<CB
             }
             sb.append("batchLogging(" + _batchLoggingUpdateLimit + ")");
         }
+        if (_batchUpdateGroupedByModifiedProperties) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append("BatchGrouped");
+        }
         if (sb.length() == 0) {
             sb.append("default");
         }
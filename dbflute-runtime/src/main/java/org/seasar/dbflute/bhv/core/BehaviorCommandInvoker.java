@@ -16,15 +16,23 @@
 package org.seasar.dbflute.bhv.core;
 
 import java.sql.SQLException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.seasar.dbflute.CallbackContext;
 import org.seasar.dbflute.DBDef;
 import org.seasar.dbflute.Entity;
 import org.seasar.dbflute.XLog;
 import org.seasar.dbflute.bhv.core.InvokerAssistant.DisposableProcess;
+import org.seasar.dbflute.bhv.core.supplement.EntityCache;
 import org.seasar.dbflute.bhv.core.supplement.SequenceCacheHandler;
 import org.seasar.dbflute.bhv.logging.invoke.BehaviorInvokeNameExtractor;
 import org.seasar.dbflute.bhv.logging.invoke.BehaviorInvokeNameResult;
@@ -33,6 +41,7 @@ import org.seasar.dbflute.bhv.logging.invoke.BehaviorInvokePathResult;
 import org.seasar.dbflute.bhv.logging.result.BehaviorResultBuilder;
 import org.seasar.dbflute.cbean.FetchAssistContext;
 import org.seasar.dbflute.cbean.FetchNarrowingBean;
+import org.seasar.dbflute.cbean.PagingCountCache;
 import org.seasar.dbflute.dbmeta.DBMeta;
 import org.seasar.dbflute.exception.SQLFailureException;
 import org.seasar.dbflute.exception.handler.SQLExceptionResource;
@@ -63,6 +72,8 @@ import org.seasar.dbflute.util.Srl;
  *   o clearExecutionCache();
  *   o isExecutionCacheEmpty();
  *   o getExecutionCacheSize();
+ *   o setExecutionCacheMaxSize(int executionCacheMaxSize);
+ *   o getExecutionCacheHitCount(), getExecutionCacheMissCount(), ...;
  *   o injectComponentProperty(BehaviorCommandComponentSetup behaviorCommand);
  *   o invoke(BehaviorCommand behaviorCommand);
  *   o createOutsideSqlBasicExecutor(String tableDbName);
@@ -84,11 +95,20 @@ public class BehaviorCommandInvoker {
     // -----------------------------------------------------
     //                                       Execution Cache
     //                                       ---------------
-    /** The map of SQL execution. (dispose target, synchronized manually as transaction) */
-    protected final Map<String, SqlExecution> _executionMap = newConcurrentHashMap();
+    /** The map of SQL execution entry, created once per key. (dispose target) */
+    protected final ConcurrentHashMap<String, SqlExecutionEntry> _executionMap = newConcurrentHashMap();
 
-    /** The lock object to synchronize the execution map for transaction. (NotNull) */
-    protected final Object _executionCacheLock = new Object();
+    /** The max size of execution cache, evicted by least recently used. (zero means unlimited) */
+    protected volatile int _executionCacheMaxSize;
+
+    /** The count of execution cache miss, which means creation. (NotNull) */
+    protected final AtomicLong _executionCacheMissCount = new AtomicLong();
+
+    /** The count of execution cache eviction. (NotNull) */
+    protected final AtomicLong _executionCacheEvictionCount = new AtomicLong();
+
+    /** The sequence of access to execution entry, used as time of LRU. (NotNull) */
+    protected final AtomicLong _executionAccessSequence = new AtomicLong();
 
     // -----------------------------------------------------
     //                                    Disposable Process
@@ -110,9 +130,7 @@ public class BehaviorCommandInvoker {
     //                                                                     ===============
     public void clearExecutionCache() {
         // basically should be called only for special case (e.g. HotDeploy)
-        synchronized (_executionCacheLock) {
-            _executionMap.clear();
-        }
+        _executionMap.clear();
     }
 
     public boolean isExecutionCacheEmpty() {
@@ -123,6 +141,58 @@ public class BehaviorCommandInvoker {
         return _executionMap.size();
     }
 
+    /**
+     * Set the max size of execution cache. <br />
+     * If the cache size is over, the least recently used execution is evicted.
+     * @param executionCacheMaxSize The max size of cache. (NotMinus: zero means unlimited)
+     */
+    public void setExecutionCacheMaxSize(int executionCacheMaxSize) {
+        if (executionCacheMaxSize < 0) {
+            String msg = "The argument 'executionCacheMaxSize' should not be minus: " + executionCacheMaxSize;
+            throw new IllegalArgumentException(msg);
+        }
+        _executionCacheMaxSize = executionCacheMaxSize;
+    }
+
+    public int getExecutionCacheMaxSize() {
+        return _executionCacheMaxSize;
+    }
+
+    /**
+     * Get the count of execution cache hit, total of living entries. (evicted entries are not counted)
+     * @return The count of hit. (NotMinus)
+     */
+    public long getExecutionCacheHitCount() {
+        long hitCount = 0;
+        for (SqlExecutionEntry entry : _executionMap.values()) {
+            hitCount = hitCount + entry.getHitCount();
+        }
+        return hitCount;
+    }
+
+    public long getExecutionCacheMissCount() {
+        return _executionCacheMissCount.get();
+    }
+
+    public long getExecutionCacheEvictionCount() {
+        return _executionCacheEvictionCount.get();
+    }
+
+    /**
+     * Get the map of creation time (milliseconds) per key of execution, e.g. for finding heavy SQL.
+     * @return The snapshot map of creation time. map:{key = millis} (NotNull)
+     */
+    public Map<String, Long> getExecutionCreationTimeMap() {
+        final Map<String, Long> timeMap = new LinkedHashMap<String, Long>();
+        for (Entry<String, SqlExecutionEntry> entry : _executionMap.entrySet()) {
+            final SqlExecutionEntry executionEntry = entry.getValue();
+            if (executionEntry.isCreated()) {
+                timeMap.put(entry.getKey(), executionEntry.getCreationMillis());
+            }
+        }
+        return timeMap;
+    }
+
     // ===================================================================================
     //                                                                      Command Set up
     //                                                                      ==============
@@ -255,6 +325,8 @@ public class BehaviorCommandInvoker {
             }
         } finally {
             behaviorCommand.afterExecuting();
+            reflectWritingToPagingCountCache(behaviorCommand); // even if failure (may be partially written)
+            reflectWritingToEntityCache(behaviorCommand);
 
             // - - - - - - - - - - - -
             // Call the handler back!
@@ -378,42 +450,163 @@ public class BehaviorCommandInvoker {
     /**
      * Get SQL-execution if it exists.
      * @param key The key of SQL execution. (NotNull)
-     * @return The SQL execution that may be created then. (NullAllowed)
+     * @return The SQL execution that may be created then. (NullAllowed: also null when under creation)
      */
     protected SqlExecution getSqlExecution(String key) {
-        return _executionMap.get(key);
+        final SqlExecutionEntry entry = _executionMap.get(key);
+        if (entry == null || !entry.isCreated()) {
+            return null;
+        }
+        entry.touch(_executionAccessSequence.incrementAndGet());
+        return entry.getExecution();
     }
 
     /**
-     * Get SQL-execution that may be created if it does not exist.
+     * Get SQL-execution that may be created if it does not exist. <br />
+     * The creation is executed only once per key, and other threads for the key wait for it,
+     * but threads for other keys are not blocked.
      * @param key The key of SQL-execution. (NotNull)
      * @param executionCreator The creator of SQL-execution. (NotNull)
      * @return The SQL-execution that may be created then. (NotNull)
      */
     protected SqlExecution getOrCreateSqlExecution(String key, SqlExecutionCreator executionCreator) {
-        SqlExecution execution = null;
-        synchronized (_executionCacheLock) {
-            execution = getSqlExecution(key);
-            if (execution != null) {
-                // previous thread might have initialized
-                // or reading might failed by same-time writing
-                return execution;
+        SqlExecutionEntry entry = _executionMap.get(key);
+        if (entry == null) {
+            final SqlExecutionEntry newEntry = newSqlExecutionEntry(executionCreator);
+            entry = _executionMap.putIfAbsent(key, newEntry);
+            if (entry == null) { // this thread creates it
+                entry = newEntry;
+                _executionCacheMissCount.incrementAndGet();
+                if (isLogEnabled()) {
+                    log("...Initializing sqlExecution for the key '" + key + "'");
+                }
+                entry.create(); // previous thread might have initialized so only here
+                entry.touch(_executionAccessSequence.incrementAndGet()); // not to be evicted soon
+                evictExecutionIfOver();
             }
-            if (isLogEnabled()) {
-                log("...Initializing sqlExecution for the key '" + key + "'");
+        }
+        SqlExecution execution = null;
+        boolean awaited = false;
+        try {
+            execution = entry.awaitExecution();
+            awaited = true;
+        } finally {
+            if (!awaited) { // e.g. exception, error (e.g. class initialization)
+                _executionMap.remove(key, entry); // to retry next time
             }
-            execution = executionCreator.createSqlExecution();
-            _executionMap.put(key, execution);
         }
         if (execution == null) {
+            _executionMap.remove(key, entry);
             String msg = "sqlExecutionCreator.createSqlCommand() should not return null:";
             msg = msg + " sqlExecutionCreator=" + executionCreator + " key=" + key;
             throw new IllegalStateException(msg);
         }
+        entry.touch(_executionAccessSequence.incrementAndGet());
         toBeDisposable(); // for HotDeploy
         return execution;
     }
 
+    protected SqlExecutionEntry newSqlExecutionEntry(SqlExecutionCreator executionCreator) {
+        return new SqlExecutionEntry(executionCreator);
+    }
+
+    protected void evictExecutionIfOver() {
+        final int maxSize = _executionCacheMaxSize;
+        if (maxSize <= 0) {
+            return;
+        }
+        while (_executionMap.size() > maxSize) { // only when miss so scanning is allowed
+            String oldestKey = null;
+            SqlExecutionEntry oldestEntry = null;
+            for (Entry<String, SqlExecutionEntry> entry : _executionMap.entrySet()) {
+                final SqlExecutionEntry current = entry.getValue();
+                if (!current.isCreated()) { // under creation
+                    continue;
+                }
+                if (oldestEntry == null || current.getLastAccess() < oldestEntry.getLastAccess()) {
+                    oldestKey = entry.getKey();
+                    oldestEntry = current;
+                }
+            }
+            if (oldestEntry == null) { // all are under creation
+                break;
+            }
+            if (_executionMap.remove(oldestKey, oldestEntry)) {
+                _executionCacheEvictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * The entry of SQL-execution cache, which creates the execution once-only.
+     */
+    protected static class SqlExecutionEntry {
+
+        protected final FutureTask<SqlExecution> _task;
+        protected final AtomicLong _hitCount = new AtomicLong();
+        protected volatile long _lastAccess;
+        protected volatile long _creationMillis;
+
+        public SqlExecutionEntry(final SqlExecutionCreator executionCreator) {
+            _task = new FutureTask<SqlExecution>(new Callable<SqlExecution>() {
+                public SqlExecution call() {
+                    return executionCreator.createSqlExecution();
+                }
+            });
+        }
+
+        public void create() {
+            final long before = System.currentTimeMillis();
+            _task.run();
+            _creationMillis = System.currentTimeMillis() - before;
+        }
+
+        public SqlExecution awaitExecution() {
+            try {
+                return _task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                String msg = "Interrupted while waiting for SQL-execution creation: " + _task;
+                throw new IllegalStateException(msg, e);
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                String msg = "Failed to create SQL-execution: " + _task;
+                throw new IllegalStateException(msg, cause);
+            }
+        }
+
+        public boolean isCreated() {
+            return _task.isDone();
+        }
+
+        public SqlExecution getExecution() { // after created
+            _hitCount.incrementAndGet();
+            return awaitExecution();
+        }
+
+        public void touch(long accessSequence) {
+            _lastAccess = accessSequence;
+        }
+
+        public long getLastAccess() {
+            return _lastAccess;
+        }
+
+        public long getHitCount() {
+            return _hitCount.get();
+        }
+
+        public long getCreationMillis() {
+            return _creationMillis;
+        }
+    }
+
     protected Object executeSql(SqlExecution execution, Object[] args) {
         return execution.execute(args);
     }
@@ -702,6 +895,17 @@ public class BehaviorCommandInvoker {
         return factory.createBasic(this, tableDbName, dbdef, config, option); // for an entry instance
     }
 
+    // ===================================================================================
+    //                                                                       Current DBDef
+    //                                                                       =============
+    /**
+     * Get the definition of current DB.
+     * @return The DB definition assisted by invoker assistant. (NotNull)
+     */
+    public DBDef getCurrentDBDef() {
+        return _invokerAssistant.assistCurrentDBDef();
+    }
+
     // ===================================================================================
     //                                                                 SQLException Digger
     //                                                                 ===================
@@ -724,6 +928,65 @@ public class BehaviorCommandInvoker {
         return _invokerAssistant.assistSequenceCacheHandler();
     }
 
+    // ===================================================================================
+    //                                                                  Paging Count Cache
+    //                                                                  ==================
+    /**
+     * Get the cache of paging count.
+     * @return The cache assisted by invoker assistant. (NullAllowed: if null, no cache)
+     */
+    public PagingCountCache getPagingCountCache() {
+        return _invokerAssistant != null ? _invokerAssistant.assistPagingCountCache() : null;
+    }
+
+    protected void reflectWritingToPagingCountCache(BehaviorCommandMeta meta) {
+        final PagingCountCache cache = getPagingCountCache();
+        if (cache == null) {
+            return;
+        }
+        // invalidated at statement end (not commit) so the cache also remembers the writing thread
+        if (meta.isInsert() || meta.isUpdate() || meta.isDelete()) {
+            cache.reflectWriting(meta.getTableDbName());
+        } else if ((meta.isOutsideSql() && !meta.isSelect()) || meta.isProcedure()) {
+            cache.reflectWritingAll(); // written tables are unknown
+        }
+    }
+
+    // ===================================================================================
+    //                                                             Concurrent Paging Count
+    //                                                             =======================
+    /**
+     * Get the executor to select the paging count concurrently.
+     * @return The executor assisted by invoker assistant. (NullAllowed: if null, sequential count)
+     */
+    public Executor getConcurrentPagingCountExecutor() {
+        return _invokerAssistant != null ? _invokerAssistant.assistConcurrentPagingCountExecutor() : null;
+    }
+
+    // ===================================================================================
+    //                                                                        Entity Cache
+    //                                                                        ============
+    /**
+     * Get the cache of entity selected by primary key.
+     * @return The cache assisted by invoker assistant. (NullAllowed: if null, no cache)
+     */
+    public EntityCache getEntityCache() {
+        return _invokerAssistant != null ? _invokerAssistant.assistEntityCache() : null;
+    }
+
+    protected void reflectWritingToEntityCache(BehaviorCommandMeta meta) {
+        final EntityCache cache = getEntityCache();
+        if (cache == null) {
+            return;
+        }
+        // invalidated at statement end (not commit) so the cache also remembers the writing thread
+        if (meta.isInsert() || meta.isUpdate() || meta.isDelete()) { // also batch and query-update/delete
+            cache.reflectWriting(meta.getTableDbName());
+        } else if ((meta.isOutsideSql() && !meta.isSelect()) || meta.isProcedure()) {
+            cache.reflectWritingAll(); // written tables are unknown
+        }
+    }
+
     // ===================================================================================
     //                                                                   Exception Thrower
     //                                                                   =================
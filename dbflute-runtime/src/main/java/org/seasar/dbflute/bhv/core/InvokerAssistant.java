@@ -15,10 +15,14 @@
  */
 package org.seasar.dbflute.bhv.core;
 
+import java.util.concurrent.Executor;
+
 import javax.sql.DataSource;
 
 import org.seasar.dbflute.DBDef;
+import org.seasar.dbflute.bhv.core.supplement.EntityCache;
 import org.seasar.dbflute.bhv.core.supplement.SequenceCacheHandler;
+import org.seasar.dbflute.cbean.PagingCountCache;
 import org.seasar.dbflute.cbean.cipher.GearedCipherManager;
 import org.seasar.dbflute.cbean.sqlclause.SqlClauseCreator;
 import org.seasar.dbflute.dbmeta.DBMetaProvider;
@@ -134,6 +138,25 @@ public interface InvokerAssistant {
      */
     GearedCipherManager assistGearedCipherManager();
 
+    /**
+     * Assist the cache of paging count, it should be same instance in the application.
+     * @return The instance of cache. (NullAllowed: if null, no cache)
+     */
+    PagingCountCache assistPagingCountCache();
+
+    /**
+     * Assist the executor to select the paging count concurrently with the page select,
+     * it should be same instance in the application.
+     * @return The instance of executor. (NullAllowed: if null, the count is selected sequentially)
+     */
+    Executor assistConcurrentPagingCountExecutor();
+
+    /**
+     * Assist the cache of entity selected by primary key, it should be same instance in the application.
+     * @return The instance of cache. (NullAllowed: if null, no cache)
+     */
+    EntityCache assistEntityCache();
+
     /**
      * @return The parameter of resource. (NotNull)
      */
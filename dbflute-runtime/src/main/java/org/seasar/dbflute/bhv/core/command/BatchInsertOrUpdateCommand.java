@@ -0,0 +1,51 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.bhv.core.command;
+
+import org.seasar.dbflute.s2dao.sqlcommand.TnBatchInsertDynamicCommand;
+import org.seasar.dbflute.s2dao.sqlcommand.TnBatchInsertOrUpdateDynamicCommand;
+
+/**
+ * The behavior command of batch insert-or-update by native upsert statement.
+ * @author jflute
+ * @since 1.0.5N (2014/12/18 Thursday)
+ */
+public class BatchInsertOrUpdateCommand extends BatchInsertCommand {
+
+    // ===================================================================================
+    //                                                                   Basic Information
+    //                                                                   =================
+    @Override
+    public String getCommandName() {
+        return "batchInsertOrUpdate";
+    }
+
+    // ===================================================================================
+    //                                                                  Detail Information
+    //                                                                  ==================
+    @Override
+    public boolean isUpdate() {
+        return true; // also insert
+    }
+
+    // ===================================================================================
+    //                                                               SqlExecution Handling
+    //                                                               =====================
+    @Override
+    protected TnBatchInsertDynamicCommand newBatchInsertDynamicCommand() {
+        return new TnBatchInsertOrUpdateDynamicCommand(_dataSource, _statementFactory);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.bhv.core.command;
+
+import org.seasar.dbflute.Entity;
+import org.seasar.dbflute.bhv.core.SqlExecution;
+import org.seasar.dbflute.bhv.core.SqlExecutionCreator;
+import org.seasar.dbflute.bhv.core.execution.SelectTemplateCBExecution;
+import org.seasar.dbflute.cbean.ConditionBeanTemplateBinding;
+import org.seasar.dbflute.s2dao.jdbc.TnResultSetHandler;
+import org.seasar.dbflute.s2dao.metadata.TnBeanMetaData;
+
+/**
+ * The command of select list by condition-bean template. <br />
+ * The condition-bean is the frozen one of the template, used for result mapping.
+ * @author jflute
+ * @since 1.0.5N (2014/12/21 Sunday)
+ * @param <ENTITY> The type of entity.
+ */
+public class SelectListTemplateCBCommand<ENTITY extends Entity> extends SelectListCBCommand<ENTITY> {
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    /** The binding of condition-bean template. (Required) */
+    protected ConditionBeanTemplateBinding _templateBinding;
+
+    // ===================================================================================
+    //                                                               SqlExecution Handling
+    //                                                               =====================
+    @Override
+    public String buildSqlExecutionKey() {
+        return super.buildSqlExecutionKey() + ":template";
+    }
+
+    @Override
+    public SqlExecutionCreator createSqlExecutionCreator() {
+        assertStatus("createSqlExecutionCreator");
+        return new SqlExecutionCreator() {
+            public SqlExecution createSqlExecution() {
+                TnBeanMetaData bmd = createBeanMetaData();
+                TnResultSetHandler handler = createBeanListResultSetHandler(bmd);
+                return createSelectTemplateCBExecution(handler);
+            }
+        };
+    }
+
+    protected SelectTemplateCBExecution createSelectTemplateCBExecution(TnResultSetHandler handler) {
+        return new SelectTemplateCBExecution(_dataSource, _statementFactory,
+                createBeanArgNameTypeMap(_conditionBean.getClass()), handler);
+    }
+
+    @Override
+    public Object[] getSqlExecutionArgument() {
+        assertStatus("getSqlExecutionArgument");
+        return new Object[] { _conditionBean, _templateBinding };
+    }
+
+    // ===================================================================================
+    //                                                                       Assert Helper
+    //                                                                       =============
+    @Override
+    protected void assertStatus(String methodName) {
+        super.assertStatus(methodName);
+        if (_templateBinding == null) {
+            throw new IllegalStateException(buildAssertMessage("_templateBinding", methodName));
+        }
+    }
+
+    // ===================================================================================
+    //                                                                            Accessor
+    //                                                                            ========
+    public void setTemplateBinding(ConditionBeanTemplateBinding templateBinding) {
+        _templateBinding = templateBinding;
+    }
+}
@@ -31,6 +31,7 @@ import org.seasar.dbflute.cbean.sqlclause.SqlClause;
 import org.seasar.dbflute.dbmeta.DBMeta;
 import org.seasar.dbflute.dbmeta.info.ColumnInfo;
 import org.seasar.dbflute.dbmeta.info.UniqueInfo;
+import org.seasar.dbflute.helper.cache.BoundedConcurrentCache;
 import org.seasar.dbflute.jdbc.StatementFactory;
 import org.seasar.dbflute.resource.ResourceContext;
 import org.seasar.dbflute.s2dao.jdbc.TnResultSetHandler;
@@ -45,11 +46,20 @@ import org.seasar.dbflute.twowaysql.node.Node;
  */
 public class SelectCBExecution extends AbstractFixedArgExecution {
 
+    // ===================================================================================
+    //                                                                          Definition
+    //                                                                          ==========
+    /** The default max size of analyzed node cache per execution. */
+    public static final int DEFAULT_ANALYZED_NODE_CACHE_SIZE = 128;
+
     // ===================================================================================
     //                                                                           Attribute
     //                                                                           =========
     protected final TnResultSetHandler _resultSetHandler;
 
+    /** The cache of analyzed node keyed by generated 2Way-SQL, same shape queries share it. (NullAllowed: if no cache) */
+    protected final BoundedConcurrentCache<String, Node> _analyzedNodeCache;
+
     // ===================================================================================
     //                                                                         Constructor
     //                                                                         ===========
@@ -65,6 +75,11 @@ public class SelectCBExecution extends AbstractFixedArgExecution {
         super(dataSource, statementFactory, argNameTypeMap);
         assertObjectNotNull("resultSetHandler", resultSetHandler);
         _resultSetHandler = resultSetHandler;
+        _analyzedNodeCache = createAnalyzedNodeCache();
+    }
+
+    protected BoundedConcurrentCache<String, Node> createAnalyzedNodeCache() { // extension point
+        return new BoundedConcurrentCache<String, Node>(DEFAULT_ANALYZED_NODE_CACHE_SIZE);
     }
 
     // ===================================================================================
@@ -86,7 +101,17 @@ public class SelectCBExecution extends AbstractFixedArgExecution {
 
     @Override
     protected Node getRootNode(Object[] args) {
-        return analyzeTwoWaySql(extractTwoWaySql(args)); // dynamic analysis
+        final String twoWaySql = extractTwoWaySql(args);
+        if (_analyzedNodeCache == null) {
+            return analyzeTwoWaySql(twoWaySql); // dynamic analysis
+        }
+        // the generated SQL has only bind comments (values are in condition-bean)
+        // so the same shape queries can share the analyzed node (node is state-less)
+        final Node cachedNode = _analyzedNodeCache.get(twoWaySql);
+        if (cachedNode != null) {
+            return cachedNode;
+        }
+        return _analyzedNodeCache.put(twoWaySql, analyzeTwoWaySql(twoWaySql));
     }
 
     protected String extractTwoWaySql(Object[] args) {
@@ -231,4 +256,15 @@ public class SelectCBExecution extends AbstractFixedArgExecution {
     protected boolean isBlockNullParameter() {
         return true; // because the SQL is select
     }
+
+    // ===================================================================================
+    //                                                                            Accessor
+    //                                                                            ========
+    /**
+     * Get the cache of analyzed node, e.g. for statistics (hit, miss, eviction).
+     * @return The cache instance. (NullAllowed: if no cache)
+     */
+    public BoundedConcurrentCache<String, Node> getAnalyzedNodeCache() {
+        return _analyzedNodeCache;
+    }
 }
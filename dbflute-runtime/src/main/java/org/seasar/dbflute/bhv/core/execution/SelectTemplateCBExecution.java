@@ -0,0 +1,186 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.bhv.core.execution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.seasar.dbflute.cbean.ConditionBean;
+import org.seasar.dbflute.cbean.ConditionBeanTemplate;
+import org.seasar.dbflute.cbean.ConditionBeanTemplate.BindSlot;
+import org.seasar.dbflute.cbean.ConditionBeanTemplateBinding;
+import org.seasar.dbflute.cbean.coption.LikeSearchOption;
+import org.seasar.dbflute.cbean.cvalue.ConditionValue;
+import org.seasar.dbflute.exception.IllegalConditionBeanOperationException;
+import org.seasar.dbflute.helper.StringSet;
+import org.seasar.dbflute.helper.cache.BoundedConcurrentCache;
+import org.seasar.dbflute.jdbc.StatementFactory;
+import org.seasar.dbflute.s2dao.jdbc.TnResultSetHandler;
+import org.seasar.dbflute.s2dao.sqlhandler.TnBasicParameterHandler;
+import org.seasar.dbflute.twowaysql.context.CommandContext;
+import org.seasar.dbflute.twowaysql.node.BindVariableNode;
+import org.seasar.dbflute.twowaysql.node.Node;
+import org.seasar.dbflute.twowaysql.node.ValueAndType;
+import org.seasar.dbflute.twowaysql.node.ValueAndTypeSetupper;
+import org.seasar.dbflute.twowaysql.node.ValueAndTypeSetupper.CommentType;
+import org.seasar.dbflute.util.Srl;
+
+/**
+ * The SQL execution of select by condition-bean template. <br />
+ * The first element of arguments should be the frozen condition-bean of the template,
+ * and the second element should be the binding of the template. <br />
+ * The template is prepared (analyzed into bind slots) at the first execution,
+ * after that, the prepared SQL is executed with bound values without analyzing and applying nodes.
+ * @author jflute
+ * @since 1.0.5N (2014/12/21 Sunday)
+ */
+public class SelectTemplateCBExecution extends SelectCBExecution {
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    /**
+     * Constructor.
+     * @param dataSource The data source for a database connection. (NotNull)
+     * @param statementFactory The factory of statement. (NotNull)
+     * @param argNameTypeMap The map of names and types for arguments. (NotNull)
+     * @param resultSetHandler The handler of result set. (NotNull)
+     */
+    public SelectTemplateCBExecution(DataSource dataSource, StatementFactory statementFactory,
+            Map<String, Class<?>> argNameTypeMap, TnResultSetHandler resultSetHandler) {
+        super(dataSource, statementFactory, argNameTypeMap, resultSetHandler);
+    }
+
+    @Override
+    protected BoundedConcurrentCache<String, Node> createAnalyzedNodeCache() {
+        return null; // analyzed only once per template
+    }
+
+    // ===================================================================================
+    //                                                                            Resource
+    //                                                                            ========
+    @Override
+    public Object execute(Object[] args) {
+        final ConditionBeanTemplateBinding binding = extractTemplateBinding(args);
+        final ConditionBeanTemplate template = binding.getTemplate();
+        prepareTemplateIfNeeds(template, args);
+        final Object[] bindVariables = binding.buildBindVariables();
+        final Class<?>[] bindVariableTypes = template.getBindVariableTypes();
+        final String executedSql = filterExecutedSql(template.getPreparedSql());
+        final TnBasicParameterHandler handler = newBasicParameterHandler(executedSql);
+        handler.setExceptionMessageSqlArgs(bindVariables);
+        return filterReturnValue(handler.execute(bindVariables, bindVariableTypes));
+    }
+
+    // -----------------------------------------------------
+    //                                     Argument Handling
+    //                                     -----------------
+    protected ConditionBeanTemplateBinding extractTemplateBinding(Object[] args) {
+        assertArgsValid(args);
+        if (args.length < 2 || !(args[1] instanceof ConditionBeanTemplateBinding)) {
+            String msg = "The second element of 'args' should be template binding: args.length=" + args.length;
+            throw new IllegalArgumentException(msg);
+        }
+        return (ConditionBeanTemplateBinding) args[1];
+    }
+
+    // ===================================================================================
+    //                                                                             Prepare
+    //                                                                             =======
+    protected void prepareTemplateIfNeeds(ConditionBeanTemplate template, Object[] args) {
+        if (template.isPrepared()) { // basically here (volatile read)
+            return;
+        }
+        synchronized (template) {
+            if (template.isPrepared()) {
+                return;
+            }
+            doPrepareTemplate(template, args);
+        }
+    }
+
+    protected void doPrepareTemplate(ConditionBeanTemplate template, Object[] args) {
+        final ConditionBean cb = template.getConditionBean();
+        final String twoWaySql = template.getTwoWaySql();
+        final Node rootNode = analyzeTwoWaySql(twoWaySql);
+        final Object[] cbArgs = new Object[] { cb };
+        final List<BindSlot> slotList = new ArrayList<BindSlot>();
+        final Set<String> slotNameSet = StringSet.createAsFlexible();
+        int bindIndex = 0;
+        for (int i = 0; i < rootNode.getChildSize(); i++) {
+            final Node node = rootNode.getChild(i);
+            if (node.getChildSize() > 0) { // e.g. IF comment, no way for condition-bean basically
+                throwTemplateDynamicNodeNotSupportedException(template, node);
+            }
+            final CommandContext nodeCtx = createCommandContext(cbArgs, getArgNames(cbArgs), getArgTypes(cbArgs));
+            node.accept(nodeCtx);
+            final int bindCount = nodeCtx.getBindVariables().length;
+            if (node instanceof BindVariableNode) {
+                final BindVariableNode bindNode = (BindVariableNode) node;
+                final String expression = bindNode.getExpression();
+                final String slotName = template.xderiveSlotName(expression, slotNameSet);
+                slotNameSet.add(slotName);
+                final boolean inScope = isInScopeNode(bindNode);
+                final LikeSearchOption likeSearchOption = findLikeSearchOption(cb, expression, twoWaySql);
+                slotList.add(new BindSlot(slotName, expression, bindIndex, bindCount, inScope, likeSearchOption));
+            } // others are fixed in the template, e.g. dynamic binding in embedded
+            bindIndex = bindIndex + bindCount;
+        }
+        final CommandContext ctx = apply(rootNode, cbArgs, getArgNames(cbArgs), getArgTypes(cbArgs));
+        final Object[] preparedVariables = ctx.getBindVariables();
+        if (preparedVariables.length != bindIndex) { // no way, just in case
+            String msg = "The count of bind variables was unmatched with slots:";
+            msg = msg + " expected=" + preparedVariables.length + ", actual=" + bindIndex + ", slots=" + slotList;
+            throw new IllegalStateException(msg);
+        }
+        template.xacceptPrepared(ctx.getSql(), slotList, preparedVariables, ctx.getBindVariableTypes());
+    }
+
+    protected boolean isInScopeNode(BindVariableNode bindNode) {
+        final String testValue = bindNode.getTestValue();
+        return testValue != null && testValue.startsWith("(") && testValue.endsWith(")");
+    }
+
+    protected LikeSearchOption findLikeSearchOption(ConditionBean cb, String expression, String twoWaySql) {
+        // e.g. pmb.conditionQuery.memberName.varying.likeSearch.likeSearch0
+        // the option is not in the expression path (the value is already converted by it)
+        // so it is found from the condition value by the key of the value
+        final String varyingMark = ".varying.";
+        if (!expression.contains(varyingMark)) { // e.g. fixed value, which is not like-search
+            return null;
+        }
+        final String cvalueExp = Srl.substringFirstFront(expression, varyingMark);
+        final String valueKey = Srl.substringFirstRear(expression, cvalueExp + ".");
+        final List<String> nameList = Srl.splitList(cvalueExp, ".");
+        final ValueAndTypeSetupper setupper = new ValueAndTypeSetupper(nameList, cvalueExp, twoWaySql, CommentType.BIND);
+        final ValueAndType valueAndType = new ValueAndType();
+        valueAndType.setFirstValue(cb);
+        valueAndType.setFirstType(cb.getClass());
+        setupper.setupValueAndType(valueAndType);
+        final Object cvalue = valueAndType.getTargetValue();
+        return cvalue instanceof ConditionValue ? ((ConditionValue) cvalue).findLikeSearchOption(valueKey) : null;
+    }
+
+    protected void throwTemplateDynamicNodeNotSupportedException(ConditionBeanTemplate template, Node node) {
+        String msg = "The condition-bean template does not support dynamic node: " + node;
+        msg = msg + ", table=" + template.getTableDbName();
+        throw new IllegalConditionBeanOperationException(msg);
+    }
+}
@@ -0,0 +1,482 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.bhv.core.supplement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.seasar.dbflute.Entity;
+import org.seasar.dbflute.dbmeta.DBMeta;
+import org.seasar.dbflute.dbmeta.info.ColumnInfo;
+import org.seasar.dbflute.helper.StringKeyMap;
+import org.seasar.dbflute.resource.DBFluteSystem;
+import org.seasar.dbflute.util.DfReflectionUtil;
+
+/**
+ * The cache of entities selected by primary key, for tables registered as cache target. <br />
+ * Each table has its own LRU cache bounded by max size, and cached entities expire by time-to-live. <br />
+ * The cached entity is a snapshot, and callers always get a copy of it, so they can modify it freely.
+ * The table cache is invalidated when a write command of the table is executed via behaviors.
+ * <pre>
+ * e.g. MEMBER_STATUS is cache target
+ *  memberStatusBhv.selectByPKValue("FML") : selected and cached
+ *  memberStatusBhv.selectByPKValue("FML") : hit (copy)
+ *  memberStatusBhv.update(status) : invalidated
+ * </pre>
+ * Writes by other applications (or nodes) are reflected only after the time-to-live. <br />
+ * The invalidation is at the end of the write statement, not at commit, so other threads may cache
+ * the old value until the commit. Call reflectCompletion() after commit or rollback to close the window,
+ * otherwise it is reflected after the time-to-live. The writing thread itself bypasses the cache
+ * of the written table until the completion (or the time-to-live) not to cache uncommitted values.
+ * @author jflute
+ * @since 1.0.5N (2014/12/17 Wednesday)
+ */
+public class EntityCache {
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    protected final Map<String, TableEntityCache> _tableCacheMap; // fixed after construction
+    protected final long _timeToLive; // milliseconds
+    protected final ThreadLocal<Map<String, Long>> _writingTableLocal = new ThreadLocal<Map<String, Long>>(); // table to written millis
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    /**
+     * @param tableSizeMap The map of table DB name and max size of its cache. (NotNull)
+     * @param timeToLive The time-to-live of cached entity in milliseconds. (NotMinus, NotZero)
+     */
+    public EntityCache(Map<String, Integer> tableSizeMap, long timeToLive) {
+        if (tableSizeMap == null) {
+            String msg = "The argument 'tableSizeMap' should not be null.";
+            throw new IllegalArgumentException(msg);
+        }
+        if (timeToLive <= 0) {
+            String msg = "The argument 'timeToLive' should be plus: " + timeToLive;
+            throw new IllegalArgumentException(msg);
+        }
+        final Map<String, TableEntityCache> tableCacheMap = StringKeyMap.createAsFlexibleConcurrent();
+        for (Entry<String, Integer> entry : tableSizeMap.entrySet()) {
+            final String tableDbName = entry.getKey();
+            final Integer maxSize = entry.getValue();
+            if (maxSize == null || maxSize <= 0) {
+                String msg = "The max size of entity cache should be plus: " + tableDbName + "=" + maxSize;
+                throw new IllegalArgumentException(msg);
+            }
+            tableCacheMap.put(tableDbName, newTableEntityCache(tableDbName, maxSize));
+        }
+        _tableCacheMap = tableCacheMap;
+        _timeToLive = timeToLive;
+    }
+
+    protected TableEntityCache newTableEntityCache(String tableDbName, int maxSize) {
+        return new TableEntityCache(tableDbName, maxSize);
+    }
+
+    // ===================================================================================
+    //                                                                        Entity Cache
+    //                                                                        ============
+    /**
+     * Is the table target of entity cache?
+     * @param tableDbName The DB name of table. (NotNull)
+     * @return The determination, true or false.
+     */
+    public boolean isCacheTarget(String tableDbName) {
+        return _tableCacheMap.containsKey(tableDbName);
+    }
+
+    /**
+     * Find the copy of cached entity by the primary-key values.
+     * @param <ENTITY> The type of entity.
+     * @param dbmeta The DB meta of the table. (NotNull)
+     * @param pkValues The values of primary key, ordered as primary key columns. (NotNull)
+     * @param entityType The type of entity to be returned. (NotNull)
+     * @return The copied entity. (NullAllowed: if null, not found or expired or not target)
+     */
+    public <ENTITY extends Entity> ENTITY findEntity(DBMeta dbmeta, Object[] pkValues, Class<? extends ENTITY> entityType) {
+        final TableEntityCache tableCache = _tableCacheMap.get(dbmeta.getTableDbName());
+        if (tableCache == null) {
+            return null;
+        }
+        final Entity cached = tableCache.find(buildCacheKey(pkValues), currentTimeMillis());
+        if (cached == null) {
+            return null;
+        }
+        final ENTITY copied = copyEntity(dbmeta, cached, entityType); // variable to resolve generic on Java6
+        return copied;
+    }
+
+    /**
+     * Prepare the version of the table before selecting. <br />
+     * The entity selected with the version is not cached if the table is written while selecting.
+     * @param tableDbName The DB name of table. (NotNull)
+     * @return The current version of the table cache. (minus if not target)
+     */
+    public long prepareVersion(String tableDbName) {
+        final TableEntityCache tableCache = _tableCacheMap.get(tableDbName);
+        return tableCache != null ? tableCache.getVersion() : -1L;
+    }
+
+    /**
+     * Register the selected entity as snapshot.
+     * @param dbmeta The DB meta of the table. (NotNull)
+     * @param pkValues The values of primary key, ordered as primary key columns. (NotNull)
+     * @param entity The selected entity, which is not changed by this cache. (NotNull)
+     * @param version The version prepared before selecting.
+     */
+    public void registerEntity(DBMeta dbmeta, Object[] pkValues, Entity entity, long version) {
+        final TableEntityCache tableCache = _tableCacheMap.get(dbmeta.getTableDbName());
+        if (tableCache == null) {
+            return;
+        }
+        final Entity snapshot = copyEntity(dbmeta, entity, entity.getClass());
+        tableCache.register(buildCacheKey(pkValues), snapshot, currentTimeMillis() + _timeToLive, version);
+    }
+
+    protected List<Object> buildCacheKey(Object[] pkValues) {
+        return Arrays.asList(pkValues.clone()); // equals() and hashCode() by elements
+    }
+
+    protected long currentTimeMillis() {
+        return DBFluteSystem.currentTimeMillis();
+    }
+
+    // ===================================================================================
+    //                                                                         Entity Copy
+    //                                                                         ===========
+    @SuppressWarnings("unchecked")
+    protected <ENTITY extends Entity> ENTITY copyEntity(DBMeta dbmeta, Entity source, Class<?> entityType) {
+        final ENTITY copied = (ENTITY) DfReflectionUtil.newInstance(entityType);
+        for (ColumnInfo columnInfo : dbmeta.getColumnInfoList()) {
+            columnInfo.write(copied, copyValue(columnInfo.read(source)));
+        }
+        copied.clearModifiedInfo(); // as selected entity
+        copied.markAsSelect();
+        return copied;
+    }
+
+    protected Object copyValue(Object value) {
+        if (value instanceof Date) { // mutable
+            return ((Date) value).clone();
+        }
+        if (value instanceof byte[]) { // mutable
+            return ((byte[]) value).clone();
+        }
+        return value;
+    }
+
+    // ===================================================================================
+    //                                                                        Invalidation
+    //                                                                        ============
+    /**
+     * Invalidate cached entities of the table.
+     * @param tableDbName The DB name of written table. (NotNull)
+     */
+    public void invalidateTable(String tableDbName) {
+        final TableEntityCache tableCache = _tableCacheMap.get(tableDbName);
+        if (tableCache != null) {
+            tableCache.invalidate();
+        }
+    }
+
+    /**
+     * Invalidate all cached entities, e.g. when written tables are unknown.
+     */
+    public void invalidateAll() {
+        for (TableEntityCache tableCache : _tableCacheMap.values()) {
+            tableCache.invalidate();
+        }
+    }
+
+    // -----------------------------------------------------
+    //                                         Writing Table
+    //                                         -------------
+    /**
+     * Reflect the writing of the table by the current thread. <br />
+     * The cache of the table is invalidated, and the current thread bypasses it until the completion.
+     * @param tableDbName The DB name of written table. (NotNull)
+     */
+    public void reflectWriting(String tableDbName) {
+        invalidateTable(tableDbName);
+        if (isCacheTarget(tableDbName)) {
+            prepareWritingTableMap().put(tableDbName, currentTimeMillis());
+        }
+    }
+
+    /**
+     * Reflect the writing of unknown tables by the current thread, e.g. outside-SQL or procedure.
+     */
+    public void reflectWritingAll() {
+        invalidateAll();
+        final Map<String, Long> writingTableMap = prepareWritingTableMap();
+        final Long currentMillis = currentTimeMillis();
+        for (String tableDbName : _tableCacheMap.keySet()) {
+            writingTableMap.put(tableDbName, currentMillis);
+        }
+    }
+
+    /**
+     * Reflect the completion (commit or rollback) of the current thread's transaction. <br />
+     * The tables written by the thread are invalidated again, because other threads may have cached
+     * their old values before the commit. You should call this after commit or rollback, e.g. by transaction callback.
+     */
+    public void reflectCompletion() {
+        final Map<String, Long> writingTableMap = _writingTableLocal.get();
+        if (writingTableMap == null) {
+            return;
+        }
+        _writingTableLocal.remove();
+        for (String tableDbName : writingTableMap.keySet()) {
+            invalidateTable(tableDbName);
+        }
+    }
+
+    /**
+     * Is the table written by the current thread and not completed yet? <br />
+     * The writing expires by the time-to-live if the completion is not reflected.
+     * @param tableDbName The DB name of table. (NotNull)
+     * @return The determination, true or false.
+     */
+    public boolean isWritingTable(String tableDbName) {
+        final Map<String, Long> writingTableMap = _writingTableLocal.get();
+        if (writingTableMap == null) {
+            return false;
+        }
+        final Long writtenMillis = writingTableMap.get(tableDbName);
+        if (writtenMillis == null) {
+            return false;
+        }
+        if (writtenMillis + _timeToLive < currentTimeMillis()) { // completion is not reflected
+            writingTableMap.remove(tableDbName);
+            if (writingTableMap.isEmpty()) {
+                _writingTableLocal.remove();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    protected Map<String, Long> prepareWritingTableMap() {
+        Map<String, Long> writingTableMap = _writingTableLocal.get();
+        if (writingTableMap == null) {
+            writingTableMap = StringKeyMap.createAsFlexible();
+            _writingTableLocal.set(writingTableMap);
+        }
+        return writingTableMap;
+    }
+
+    // ===================================================================================
+    //                                                                          Statistics
+    //                                                                          ==========
+    /**
+     * Get the table cache for statistics.
+     * @param tableDbName The DB name of table. (NotNull)
+     * @return The cache of the table. (NullAllowed: if null, not target)
+     */
+    public TableEntityCache getTableCache(String tableDbName) {
+        return _tableCacheMap.get(tableDbName);
+    }
+
+    public List<TableEntityCache> getTableCacheList() {
+        return new ArrayList<TableEntityCache>(_tableCacheMap.values());
+    }
+
+    public long getHitCount() {
+        long count = 0;
+        for (TableEntityCache tableCache : _tableCacheMap.values()) {
+            count = count + tableCache.getHitCount();
+        }
+        return count;
+    }
+
+    public long getMissCount() {
+        long count = 0;
+        for (TableEntityCache tableCache : _tableCacheMap.values()) {
+            count = count + tableCache.getMissCount();
+        }
+        return count;
+    }
+
+    public long getEvictionCount() {
+        long count = 0;
+        for (TableEntityCache tableCache : _tableCacheMap.values()) {
+            count = count + tableCache.getEvictionCount();
+        }
+        return count;
+    }
+
+    public void resetStatistics() {
+        for (TableEntityCache tableCache : _tableCacheMap.values()) {
+            tableCache.resetStatistics();
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("{tables=").append(getTableCacheList());
+        sb.append(", timeToLive=").append(_timeToLive).append("}");
+        return sb.toString();
+    }
+
+    // ===================================================================================
+    //                                                                         Table Cache
+    //                                                                         ===========
+    /**
+     * The LRU cache of one table. (thread-safe by its own lock)
+     */
+    public static class TableEntityCache {
+
+        protected final String _tableDbName;
+        protected final int _maxSize;
+        protected final Map<List<Object>, CachedEntity> _entityMap; // guarded by this
+        protected final AtomicLong _version = new AtomicLong();
+        protected final AtomicLong _hitCount = new AtomicLong();
+        protected final AtomicLong _missCount = new AtomicLong();
+        protected final AtomicLong _evictionCount = new AtomicLong();
+        protected final AtomicLong _invalidationCount = new AtomicLong();
+
+        public TableEntityCache(String tableDbName, final int maxSize) {
+            _tableDbName = tableDbName;
+            _maxSize = maxSize;
+            _entityMap = new LinkedHashMap<List<Object>, CachedEntity>(16, 0.75f, true) { // access order
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<Object>, CachedEntity> eldest) {
+                    if (size() > maxSize) {
+                        _evictionCount.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        public Entity find(List<Object> key, long currentMillis) {
+            final CachedEntity cached;
+            synchronized (this) {
+                final CachedEntity found = _entityMap.get(key); // also moves it to the newest
+                if (found != null && found.isExpired(currentMillis)) {
+                    _entityMap.remove(key);
+                    cached = null;
+                } else {
+                    cached = found;
+                }
+            }
+            if (cached != null) {
+                _hitCount.incrementAndGet();
+                return cached.getEntity();
+            }
+            _missCount.incrementAndGet();
+            return null;
+        }
+
+        public void register(List<Object> key, Entity snapshot, long expireMillis, long version) {
+            synchronized (this) {
+                if (_version.get() != version) { // written while selecting
+                    return;
+                }
+                _entityMap.put(key, new CachedEntity(snapshot, expireMillis));
+            }
+        }
+
+        public void invalidate() {
+            synchronized (this) {
+                _version.incrementAndGet();
+                _entityMap.clear();
+            }
+            _invalidationCount.incrementAndGet();
+        }
+
+        public long getVersion() {
+            return _version.get();
+        }
+
+        public synchronized int size() {
+            return _entityMap.size();
+        }
+
+        public String getTableDbName() {
+            return _tableDbName;
+        }
+
+        public int getMaxSize() {
+            return _maxSize;
+        }
+
+        public long getHitCount() {
+            return _hitCount.get();
+        }
+
+        public long getMissCount() {
+            return _missCount.get();
+        }
+
+        public long getEvictionCount() {
+            return _evictionCount.get();
+        }
+
+        public long getInvalidationCount() {
+            return _invalidationCount.get();
+        }
+
+        public void resetStatistics() {
+            _hitCount.set(0);
+            _missCount.set(0);
+            _evictionCount.set(0);
+            _invalidationCount.set(0);
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder();
+            sb.append("{").append(_tableDbName);
+            sb.append(", size=").append(size()).append("/").append(_maxSize);
+            sb.append(", hit=").append(getHitCount());
+            sb.append(", miss=").append(getMissCount());
+            sb.append(", eviction=").append(getEvictionCount());
+            sb.append(", invalidation=").append(getInvalidationCount()).append("}");
+            return sb.toString();
+        }
+    }
+
+    protected static class CachedEntity {
+
+        protected final Entity _entity; // snapshot, never exposed
+        protected final long _expireMillis;
+
+        public CachedEntity(Entity entity, long expireMillis) {
+            _entity = entity;
+            _expireMillis = expireMillis;
+        }
+
+        public boolean isExpired(long currentMillis) {
+            return currentMillis >= _expireMillis;
+        }
+
+        public Entity getEntity() {
+            return _entity;
+        }
+    }
+}
@@ -17,10 +17,18 @@ package org.seasar.dbflute.bhv.core.supplement;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -28,7 +36,10 @@ import org.seasar.dbflute.XLog;
 import org.seasar.dbflute.util.DfTypeUtil;
 
 /**
- * The handler of sequence cache.
+ * The handler of sequence cache. <br />
+ * The values are basically handled as long block reserved atomically (lock-free),
+ * and the next block can be prefetched asynchronously if the executor for prefetch exists.
+ * If the sequence value is over long, it switches to decimal way synchronized.
  * @author jflute
  * @since 0.9.6.4 (2010/01/15 Friday)
  */
@@ -82,6 +93,24 @@ public class SequenceCache {
     /** Is the internal debug valid? (should be set when immediately after initialization because of no volatile) */
     protected boolean _internalDebug;
 
+    // -----------------------------------------------------
+    //                                              Long Way
+    //                                              --------
+    /** The current block of sequence values for long way. (NullAllowed: at first or decimal way) */
+    protected volatile SequenceBlock _currentBlock;
+
+    /** The lock object to switch the block, only used when the block is exhausted. (NotNull) */
+    protected final Object _blockSwitchLock = new Object();
+
+    /** The task of next block prefetched asynchronously. (NotNull, the reference is NullAllowed) */
+    protected final AtomicReference<FutureTask<SequenceBlock>> _prefetchTask = new AtomicReference<FutureTask<SequenceBlock>>();
+
+    /** The executor for prefetch of next block. (NullAllowed: if null, no prefetch) */
+    protected volatile Executor _prefetchExecutor;
+
+    /** Is the decimal way valid? (true if the sequence value is over long) */
+    protected volatile boolean _decimalWay;
+
     // ===================================================================================
     //                                                                         Constructor
     //                                                                         ===========
@@ -104,7 +133,235 @@ public class SequenceCache {
      * @param executor The real executor of sequence. (NotNull)
      * @return The next value of sequence as result type. (NotNull)
      */
-    public synchronized Object nextval(SequenceRealExecutor executor) {
+    public Object nextval(SequenceRealExecutor executor) {
+        if (_decimalWay) { // basically no way
+            return nextvalByDecimal(executor);
+        }
+        final SequenceBlock block = _currentBlock;
+        if (block != null) {
+            final long reservedIndex = block.reserve();
+            if (reservedIndex >= 0) { // mainly here
+                prefetchIfNeeds(block, reservedIndex, executor);
+                return toResultType(block, reservedIndex);
+            }
+        }
+        return switchBlockAndNext(executor);
+    }
+
+    // -----------------------------------------------------
+    //                                              Long Way
+    //                                              --------
+    protected Object switchBlockAndNext(final SequenceRealExecutor executor) {
+        synchronized (_blockSwitchLock) {
+            final SequenceBlock current = _currentBlock;
+            if (current != null) { // previous thread might have switched
+                final long reservedIndex = current.reserve();
+                if (reservedIndex >= 0) {
+                    prefetchIfNeeds(current, reservedIndex, executor);
+                    return toResultType(current, reservedIndex);
+                }
+            }
+            if (_decimalWay) { // switched by previous thread
+                return nextvalByDecimal(executor);
+            }
+            SequenceBlock nextBlock = takePrefetchedBlock();
+            if (nextBlock == null) { // no prefetch or failed
+                if (isLogEnabled()) {
+                    log("...Selecting next value and cache values: cacheSize=" + _cacheSize);
+                }
+                final Object selected = executeRealSequence(executor);
+                nextBlock = toSequenceBlock(selected);
+                if (nextBlock == null) { // over long
+                    _decimalWay = true;
+                    _currentBlock = null;
+                    return nextvalByDecimal(new SequenceRealExecutor() { // already selected
+                        public Object execute() {
+                            return selected;
+                        }
+                    });
+                }
+            }
+            final long reservedIndex = nextBlock.reserve(); // always zero here
+            _currentBlock = nextBlock; // published after own reservation
+            return toResultType(nextBlock, reservedIndex);
+        }
+    }
+
+    protected Object executeRealSequence(SequenceRealExecutor executor) {
+        if (isInternalDebugEnabled()) {
+            _log.debug("...Executing sequence cache: " + executor);
+        }
+        final Object obj = executor.execute();
+        assertSequenceRealExecutorReturnsNotNull(obj, executor);
+        return obj;
+    }
+
+    /**
+     * Convert the selected sequence value(s) to the block of long way.
+     * @param selected The selected object from real executor, single value or list. (NotNull)
+     * @return The block of sequence values. (NullAllowed: if the value is over long)
+     */
+    protected SequenceBlock toSequenceBlock(Object selected) {
+        final long[] segmentStarts;
+        final int segmentSize;
+        if (selected instanceof List<?>) { // batchWay
+            final List<?> selectedList = (List<?>) selected; // no guarantee of order
+            if (selectedList.isEmpty()) {
+                String msg = "The sequence real executor should not return empty list.";
+                throw new IllegalStateException(msg);
+            }
+            segmentSize = (_incrementSize != null && _incrementSize >= 2) ? _incrementSize : 1;
+            segmentStarts = new long[selectedList.size()];
+            for (int i = 0; i < segmentStarts.length; i++) {
+                final Long start = toLongIfPossible(selectedList.get(i), segmentSize);
+                if (start == null) {
+                    return null;
+                }
+                segmentStarts[i] = start;
+            }
+            Arrays.sort(segmentStarts); // order ascend
+            _batchWay = true;
+        } else { // incrementWay
+            segmentSize = _cacheSize.intValue();
+            final Long start = toLongIfPossible(selected, segmentSize);
+            if (start == null) {
+                return null;
+            }
+            segmentStarts = new long[] { start };
+            _batchWay = false;
+        }
+        if (isInternalDebugEnabled()) {
+            final String exp = segmentStarts[0] + " to " + segmentStarts[segmentStarts.length - 1];
+            _log.debug("Cached sequence values as block: " + exp + " (segment=" + segmentSize + ")");
+        }
+        return new SequenceBlock(segmentStarts, segmentSize);
+    }
+
+    protected Long toLongIfPossible(Object value, int segmentSize) {
+        final BigDecimal decimal = toInternalType(value);
+        try {
+            final long start = decimal.longValueExact();
+            return start <= Long.MAX_VALUE - segmentSize ? start : null;
+        } catch (ArithmeticException e) { // over long or has fraction
+            return null;
+        }
+    }
+
+    protected Object toResultType(SequenceBlock block, long reservedIndex) {
+        final long value = block.valueAt(reservedIndex);
+        if (isLogEnabled()) {
+            log("...Getting next value from cached block: (" + value + ": cache-point=" + block.getFirstValue() + ")");
+        }
+        return DfTypeUtil.toNumber(value, _resultType);
+    }
+
+    // -----------------------------------------------------
+    //                                              Prefetch
+    //                                              --------
+    protected void prefetchIfNeeds(SequenceBlock block, long reservedIndex, final SequenceRealExecutor executor) {
+        final Executor prefetchExecutor = _prefetchExecutor;
+        if (prefetchExecutor == null) {
+            return;
+        }
+        final long remaining = block.getTotalSize() - reservedIndex - 1;
+        if (remaining > determinePrefetchWatermark(block)) {
+            return;
+        }
+        if (!block.requestPrefetch()) { // already requested by other thread
+            return;
+        }
+        final FutureTask<SequenceBlock> task = new FutureTask<SequenceBlock>(new Callable<SequenceBlock>() {
+            public SequenceBlock call() {
+                return toSequenceBlock(executeRealSequence(executor));
+            }
+        });
+        if (!_prefetchTask.compareAndSet(null, task)) {
+            return;
+        }
+        try {
+            prefetchExecutor.execute(task);
+        } catch (RuntimeException e) { // e.g. rejected
+            _prefetchTask.compareAndSet(task, null);
+            if (isInternalDebugEnabled()) {
+                _log.debug("Failed to request prefetch of sequence: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Determine the watermark of remaining values to prefetch next block.
+     * @param block The current block of sequence values. (NotNull)
+     * @return The count of remaining values. (NotMinus)
+     */
+    protected long determinePrefetchWatermark(SequenceBlock block) {
+        return block.getTotalSize() / 4; // as default
+    }
+
+    protected SequenceBlock takePrefetchedBlock() { // in block switch lock
+        final FutureTask<SequenceBlock> task = _prefetchTask.getAndSet(null);
+        if (task == null) {
+            return null;
+        }
+        try {
+            return task.get(); // basically already done
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null; // selects directly
+        } catch (ExecutionException e) {
+            if (isInternalDebugEnabled()) {
+                _log.debug("Failed to prefetch sequence so select it directly: " + e.getCause());
+            }
+            return null; // selects directly
+        }
+    }
+
+    /**
+     * The block of sequence values reserved atomically by index. <br />
+     * The values are segments of start value and size, e.g. cache size for increment way.
+     */
+    protected static class SequenceBlock {
+
+        protected final long[] _segmentStarts;
+        protected final int _segmentSize;
+        protected final long _totalSize;
+        protected final AtomicLong _cursor = new AtomicLong();
+        protected final AtomicBoolean _prefetchRequested = new AtomicBoolean();
+
+        public SequenceBlock(long[] segmentStarts, int segmentSize) {
+            _segmentStarts = segmentStarts;
+            _segmentSize = segmentSize;
+            _totalSize = (long) segmentStarts.length * segmentSize;
+        }
+
+        /**
+         * @return The reserved index in the block. (MinusAllowed: minus means exhausted)
+         */
+        public long reserve() {
+            final long index = _cursor.getAndIncrement();
+            return index < _totalSize ? index : -1;
+        }
+
+        public long valueAt(long index) {
+            return _segmentStarts[(int) (index / _segmentSize)] + (index % _segmentSize);
+        }
+
+        public boolean requestPrefetch() {
+            return _prefetchRequested.compareAndSet(false, true);
+        }
+
+        public long getTotalSize() {
+            return _totalSize;
+        }
+
+        public long getFirstValue() {
+            return _segmentStarts[0];
+        }
+    }
+
+    // -----------------------------------------------------
+    //                                           Decimal Way
+    //                                           -----------
+    protected synchronized Object nextvalByDecimal(SequenceRealExecutor executor) {
         if (_batchWay) {
             if (_incrementSize == null) {
                 String msg = "The increment size should not be null if it uses batch way!";
@@ -262,4 +519,13 @@ public class SequenceCache {
     public void setInternalDebug(boolean internalDebug) {
         _internalDebug = internalDebug;
     }
+
+    /**
+     * Set the executor for prefetch of next block. <br />
+     * The real sequence is executed in the executor's thread so it uses separate connection.
+     * @param prefetchExecutor The executor for prefetch. (NullAllowed: if null, no prefetch)
+     */
+    public void setPrefetchExecutor(Executor prefetchExecutor) {
+        _prefetchExecutor = prefetchExecutor;
+    }
 }
@@ -18,6 +18,7 @@ package org.seasar.dbflute.bhv.core.supplement;
 import java.math.BigDecimal;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 import javax.sql.DataSource;
 
@@ -46,6 +47,7 @@ public class SequenceCacheHandler {
     protected final Object _sequenceCacheLock = new Object();
 
     protected SequenceCacheKeyGenerator _sequenceCacheKeyGenerator;
+    protected Executor _sequencePrefetchExecutor; // null allowed (no prefetch)
     protected boolean _internalDebug;
 
     // ===================================================================================
@@ -99,6 +101,7 @@ public class SequenceCacheHandler {
             Integer incrementSize) {
         final SequenceCache cache = new SequenceCache(resultType, new BigDecimal(cacheSize), incrementSize);
         cache.setInternalDebug(_internalDebug);
+        cache.setPrefetchExecutor(_sequencePrefetchExecutor);
         return cache;
     }
 
@@ -280,6 +283,16 @@ public class SequenceCacheHandler {
         _sequenceCacheKeyGenerator = sequenceCacheKeyGenerator;
     }
 
+    /**
+     * Set the executor for prefetch of sequence values. <br />
+     * The next block of sequence values is selected in the executor's thread
+     * when the current block becomes low, so callers basically do not wait for the select.
+     * @param sequencePrefetchExecutor The executor for prefetch. (NullAllowed: if null, no prefetch)
+     */
+    public void setSequencePrefetchExecutor(Executor sequencePrefetchExecutor) {
+        _sequencePrefetchExecutor = sequencePrefetchExecutor;
+    }
+
     public void setInternalDebug(boolean internalDebug) {
         _internalDebug = internalDebug;
     }
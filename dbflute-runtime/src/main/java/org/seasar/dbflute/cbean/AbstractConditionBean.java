@@ -149,6 +149,9 @@ public abstract class AbstractConditionBean implements ConditionBean {
     /** Does it allow access to non-specified column? {Internal} */
     protected boolean _nonSpecifiedColumnAccessAllowed; // the default is on the DBFlute generator (false @since 1.1)
 
+    /** Is compact result of list select enabled? {Internal} */
+    protected boolean _compactResultEnabled;
+
     /** The option of cursor select. {Internal} (NullAllowed) */
     protected CursorSelectOption _cursorSelectOption; // set by sub-class
 
@@ -920,6 +923,17 @@ public abstract class AbstractConditionBean implements ConditionBean {
         _pagingSelectAndQuerySplit = false;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public void keysetPaging(int pageSize, KeysetPagingToken token) {
+        if (pageSize <= 0) {
+            throwPagingPageSizeNotPlusException(pageSize, 1);
+        }
+        fetchFirst(pageSize); // always first rows after the seek condition
+        getSqlClause().registerKeysetPaging(token);
+    }
+
     // -----------------------------------------------------
     //                                         Fetch Setting
     //                                         -------------
@@ -1281,6 +1295,21 @@ public abstract class AbstractConditionBean implements ConditionBean {
         return _nonSpecifiedColumnAccessAllowed;
     }
 
+    /** {@inheritDoc} */
+    public void enableCompactResult() {
+        _compactResultEnabled = true;
+    }
+
+    /** {@inheritDoc} */
+    public void disableCompactResult() {
+        _compactResultEnabled = false;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isCompactResultEnabled() {
+        return _compactResultEnabled;
+    }
+
     // ===================================================================================
     //                                                                     Embed Condition
     //                                                                     ===============
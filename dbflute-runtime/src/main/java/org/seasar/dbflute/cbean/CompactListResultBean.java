@@ -0,0 +1,129 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.cbean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.seasar.dbflute.cbean.compact.CompactColumn;
+import org.seasar.dbflute.cbean.compact.CompactEntityList;
+import org.seasar.dbflute.dbmeta.info.ColumnInfo;
+
+/**
+ * The result bean for list as compact result, which stores rows column-wise. <br />
+ * This is returned by selectList() when the condition-bean enables compact result.
+ * Entities are materialized at every access so the list is read-only.
+ * Column values can be extracted or summarized without materializing entities.
+ * <pre>
+ * cb.<span style="color: #DD4747">enableCompactResult()</span>;
+ * ListResultBean&lt;Member&gt; memberList = memberBhv.selectList(cb);
+ * CompactListResultBean&lt;Member&gt; compactList = (CompactListResultBean&lt;Member&gt;) memberList;
+ * List&lt;Integer&gt; memberIdList = compactList.<span style="color: #DD4747">extractColumnList</span>(MemberDbm.getInstance().columnMemberId());
+ * </pre>
+ * @param <ENTITY> The type of entity for the element of selected list.
+ * @author jflute
+ * @since 1.0.5N (2014/12/20 Saturday)
+ */
+public class CompactListResultBean<ENTITY> extends ListResultBean<ENTITY> {
+
+    // ===================================================================================
+    //                                                                          Definition
+    //                                                                          ==========
+    /** Serial version UID. (Default) */
+    private static final long serialVersionUID = 1L;
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    /**
+     * Constructor.
+     */
+    public CompactListResultBean() {
+    }
+
+    // ===================================================================================
+    //                                                                      Extract Column
+    //                                                                      ==============
+    /**
+     * Extract the value list of the column without materializing entities.
+     * @param <COLUMN> The type of COLUMN.
+     * @param columnInfo The information of the column in the table. (NotNull)
+     * @return The value list of the column. (NotNull, NotNullElement)
+     */
+    public <COLUMN> List<COLUMN> extractColumnList(ColumnInfo columnInfo) {
+        final CompactColumn column = getCompactColumn(columnInfo);
+        final List<COLUMN> columnList = new ArrayList<COLUMN>();
+        final int size = column.size();
+        for (int i = 0; i < size; i++) {
+            if (!column.isNull(i)) {
+                @SuppressWarnings("unchecked")
+                final COLUMN value = (COLUMN) column.get(i);
+                columnList.add(value);
+            }
+        }
+        return columnList;
+    }
+
+    /**
+     * Extract the value set of the column without materializing entities.
+     * @param <COLUMN> The type of COLUMN.
+     * @param columnInfo The information of the column in the table. (NotNull)
+     * @return The value set of the column. (NotNull, NotNullElement)
+     */
+    public <COLUMN> Set<COLUMN> extractColumnSet(ColumnInfo columnInfo) {
+        final List<COLUMN> columnList = extractColumnList(columnInfo);
+        return new LinkedHashSet<COLUMN>(columnList);
+    }
+
+    /**
+     * Summarize the non-null values of the number column without materializing entities.
+     * @param columnInfo The information of the number column in the table. (NotNull)
+     * @return The summary value. (NotNull: zero if no value)
+     * @throws IllegalStateException When the column is not number.
+     */
+    public BigDecimal sumColumn(ColumnInfo columnInfo) {
+        return getCompactColumn(columnInfo).sum();
+    }
+
+    /**
+     * Get the column store of the column for e.g. primitive access.
+     * @param columnInfo The information of the column in the table. (NotNull)
+     * @return The column store of the column. (NotNull)
+     */
+    public CompactColumn getCompactColumn(ColumnInfo columnInfo) {
+        return getCompactList().getColumn(columnInfo);
+    }
+
+    // ===================================================================================
+    //                                                                            Accessor
+    //                                                                            ========
+    /**
+     * Get the compact list of selected entity.
+     * @return The compact list. (NotNull)
+     * @throws IllegalStateException When the selected list is replaced with non-compact list.
+     */
+    @SuppressWarnings("unchecked")
+    public CompactEntityList<ENTITY> getCompactList() {
+        if (!(_selectedList instanceof CompactEntityList<?>)) {
+            String msg = "The selected list is not compact list: " + _selectedList.getClass();
+            throw new IllegalStateException(msg);
+        }
+        return (CompactEntityList<ENTITY>) _selectedList;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.cbean;
+
+/**
+ * The handler of paging that can select the count on another thread. <br />
+ * The paging invoker with a count executor runs countConcurrently() on the executor's thread
+ * while it runs paging() on the current thread, and joins both before building the result. <br />
+ * The count is executed by its own connection (outside of the current transaction)
+ * so the two selects should not share mutable state, e.g. the same condition-bean.
+ * @param <ENTITY> The type of entity.
+ * @author jflute
+ * @since 1.0.5N (2014/12/17 Wednesday)
+ */
+public interface ConcurrentPagingHandler<ENTITY> extends PagingHandler<ENTITY> {
+
+    /**
+     * Execute SQL for count on the thread of count executor. <br />
+     * Thread-bound resources of the caller (e.g. transaction, access context) are not inherited.
+     * @return The count of execution.
+     */
+    public int countConcurrently();
+}
@@ -324,6 +324,21 @@ public interface ConditionBean extends PagingBean {
      */
     boolean canPagingSelectAndQuerySplit();
 
+    /**
+     * Set up keyset paging, which seeks after the order-by values of the previous page's last row. <br />
+     * The order-by should be set ahead by not-null columns and it should contain primary key to be unique order. <br />
+     * You should use selectList() (not selectPage()) and the result has the token for the next page.
+     * <pre>
+     * cb.query().addOrderBy_Birthdate_Desc().addOrderBy_MemberId_Asc();
+     * cb.keysetPaging(20, token); <span style="color: #3F7E5E">// token is null at first page</span>
+     * ListResultBean&lt;Member&gt; memberList = memberBhv.selectList(cb);
+     * ... = memberList.getKeysetPagingToken(); <span style="color: #3F7E5E">// null if last page</span>
+     * </pre>
+     * @param pageSize The size of one page. (NotMinus, NotZero)
+     * @param token The continuation token from the previous page. (NullAllowed: if null, first page)
+     */
+    void keysetPaging(int pageSize, KeysetPagingToken token);
+
     // ===================================================================================
     //                                                                        Lock Setting
     //                                                                        ============
@@ -475,6 +490,27 @@ public interface ConditionBean extends PagingBean {
      */
     boolean isNonSpecifiedColumnAccessAllowed();
 
+    /**
+     * Enable compact result of list select. (default is disabled) <br />
+     * selectList() returns {@link CompactListResultBean} that stores rows column-wise
+     * (primitive arrays with null bitmaps, dictionary-encoded strings)
+     * and materializes entities at every access. It is for very large results. <br />
+     * Only base-point columns are stored so setupSelect and derived-referrer are not allowed,
+     * and the list is read-only.
+     */
+    void enableCompactResult();
+
+    /**
+     * Disable compact result of list select. (back to default)
+     */
+    void disableCompactResult();
+
+    /**
+     * Is compact result of list select enabled?
+     * @return The determination, true or false.
+     */
+    boolean isCompactResultEnabled();
+
     // ===================================================================================
     //                                                                         Display SQL
     //                                                                         ===========
@@ -0,0 +1,478 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.cbean;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.seasar.dbflute.cbean.coption.LikeSearchOption;
+import org.seasar.dbflute.exception.IllegalConditionBeanOperationException;
+import org.seasar.dbflute.helper.StringKeyMap;
+import org.seasar.dbflute.helper.beans.DfBeanDesc;
+import org.seasar.dbflute.helper.beans.DfPropertyDesc;
+import org.seasar.dbflute.helper.beans.factory.DfBeanDescFactory;
+import org.seasar.dbflute.util.Srl;
+
+/**
+ * The template of condition-bean select, which freezes the condition-bean and its generated SQL
+ * so that the same query shape can be executed with other parameter values
+ * without condition-query and SQL clause work. <br />
+ * The SQL is analyzed into the bind slots at the first execution (needs the resource context of behavior),
+ * after that, each execution only binds values to the prepared SQL.
+ * <pre>
+ * <span style="color: #3F7E5E">// prepare once (e.g. at initialization)</span>
+ * MemberCB cb = new MemberCB();
+ * cb.setupSelect_MemberStatus();
+ * cb.query().setMemberStatusCode_Equal("FML"); <span style="color: #3F7E5E">// prepared value (used if not bound)</span>
+ * cb.query().setBirthdate_GreaterEqual(birthdate);
+ * cb.query().addOrderBy_MemberId_Asc();
+ * ConditionBeanTemplate template = new ConditionBeanTemplate(cb);
+ * 
+ * <span style="color: #3F7E5E">// execute many times (thread-safe)</span>
+ * Map&lt;String, Object&gt; parameterMap = ...;
+ * parameterMap.put("memberStatusCode_Equal", "PRV"); <span style="color: #3F7E5E">// slot name</span>
+ * ListResultBean&lt;Member&gt; memberList = memberBhv.selectList(template.<span style="color: #DD4747">bind</span>(parameterMap));
+ * </pre>
+ * The slot name is derived from the condition, e.g. memberName_Equal, memberStatus.displayOrder_GreaterThan.
+ * It is matched flexibly (case insensitive and underscore ignored) so a typed parameter bean
+ * that has e.g. getMemberStatusCodeEqual() can be bound as well. <br />
+ * The SQL is frozen so null cannot be bound (the condition cannot be removed)
+ * and the element count of in-scope is fixed.
+ * Like-search values are bound with the like-search option of the condition (wild-card and escape).
+ * The condition-bean should not be changed after it is prepared.
+ * @author jflute
+ * @since 1.0.5N (2014/12/21 Sunday)
+ */
+public class ConditionBeanTemplate {
+
+    // ===================================================================================
+    //                                                                          Definition
+    //                                                                          ==========
+    protected static final String PMB_PREFIX = "pmb.";
+    protected static final String CQ_PROPERTY = "conditionQuery";
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    /** The frozen condition-bean, only for result mapping after prepared. (NotNull) */
+    protected final ConditionBean _conditionBean;
+
+    /** The generated 2Way-SQL of the condition-bean. (NotNull) */
+    protected final String _twoWaySql;
+
+    /** The prepared SQL that has question marks. (NullAllowed: until first execution) */
+    protected volatile String _preparedSql; // set last (means prepared)
+
+    /** The list of bind slot in SQL order. (NotNull: empty until first execution) */
+    protected List<BindSlot> _slotList = Collections.emptyList();
+
+    /** The map of bind slot keyed by slot name, flexible. (NotNull: empty until first execution) */
+    protected Map<String, BindSlot> _slotMap = Collections.emptyMap();
+
+    /** The array of prepared bind variables. (NotNull: empty until first execution) */
+    protected Object[] _preparedVariables = new Object[] {};
+
+    /** The array of bind variable types. (NotNull: empty until first execution) */
+    protected Class<?>[] _bindVariableTypes = new Class<?>[] {};
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    /**
+     * Prepare the template by the condition-bean, which generates the SQL here.
+     * @param cb The condition-bean that has the query shape and the prepared values. (NotNull)
+     * @throws IllegalConditionBeanOperationException When the condition-bean cannot be a template.
+     */
+    public ConditionBeanTemplate(ConditionBean cb) {
+        if (cb == null) {
+            String msg = "The argument 'cb' should not be null.";
+            throw new IllegalArgumentException(msg);
+        }
+        assertConditionBeanTemplatable(cb);
+        _conditionBean = cb;
+        _twoWaySql = cb.getSqlClause().getClause(); // also select index for mapping
+    }
+
+    protected void assertConditionBeanTemplatable(ConditionBean cb) {
+        final String notSupported;
+        if (cb.canPagingSelectAndQuerySplit() && cb.isFetchScopeEffective()) {
+            notSupported = "paging select and query split";
+        } else if (cb.getSqlClause().isKeysetPagingEffective()) {
+            notSupported = "keyset paging";
+        } else if (cb.isCompactResultEnabled()) {
+            notSupported = "compact result";
+        } else {
+            return;
+        }
+        String msg = "The condition-bean template does not support " + notSupported + ": " + cb.getTableDbName();
+        throw new IllegalConditionBeanOperationException(msg);
+    }
+
+    // ===================================================================================
+    //                                                                                Bind
+    //                                                                                ====
+    /**
+     * Bind nothing, so the prepared values are used.
+     * @return The binding of this template. (NotNull)
+     */
+    public ConditionBeanTemplateBinding bind() {
+        return newTemplateBinding(new LinkedHashMap<String, Object>());
+    }
+
+    /**
+     * Bind the parameters by slot name. <br />
+     * The slot names are checked at execution because the slots are prepared at the first execution.
+     * @param parameterMap The map of parameter, key is slot name (flexible). (NotNull, NotNullValue)
+     * @return The binding of this template. (NotNull)
+     */
+    public ConditionBeanTemplateBinding bind(Map<String, ? extends Object> parameterMap) {
+        if (parameterMap == null) {
+            String msg = "The argument 'parameterMap' should not be null.";
+            throw new IllegalArgumentException(msg);
+        }
+        final Map<String, Object> boundMap = new LinkedHashMap<String, Object>();
+        for (Entry<String, ? extends Object> entry : parameterMap.entrySet()) {
+            if (entry.getValue() == null) {
+                String msg = "The template cannot bind null because the condition cannot be removed: " + entry.getKey();
+                throw new IllegalArgumentException(msg);
+            }
+            boundMap.put(entry.getKey(), entry.getValue());
+        }
+        return newTemplateBinding(boundMap);
+    }
+
+    /**
+     * Bind the parameters by the typed parameter bean, whose property names are matched with slot names flexibly. <br />
+     * Properties that have null are not bound, so the prepared values are used for them.
+     * @param parameterBean The bean of parameter. (NotNull)
+     * @return The binding of this template. (NotNull)
+     */
+    public ConditionBeanTemplateBinding bindBean(Object parameterBean) {
+        if (parameterBean == null) {
+            String msg = "The argument 'parameterBean' should not be null.";
+            throw new IllegalArgumentException(msg);
+        }
+        final DfBeanDesc beanDesc = DfBeanDescFactory.getBeanDesc(parameterBean.getClass());
+        final Map<String, Object> boundMap = new LinkedHashMap<String, Object>();
+        for (String propertyName : beanDesc.getProppertyNameList()) {
+            final DfPropertyDesc propertyDesc = beanDesc.getPropertyDesc(propertyName);
+            if (!propertyDesc.isReadable()) {
+                continue;
+            }
+            final Object value = propertyDesc.getValue(parameterBean);
+            if (value != null) {
+                boundMap.put(propertyName, value);
+            }
+        }
+        return newTemplateBinding(boundMap);
+    }
+
+    protected ConditionBeanTemplateBinding newTemplateBinding(Map<String, Object> parameterMap) {
+        return new ConditionBeanTemplateBinding(this, parameterMap);
+    }
+
+    /**
+     * Build the bind variables from the prepared variables and the parameters. {Internal}
+     * @param parameterMap The map of parameter, key is slot name (flexible). (NotNull, NotNullValue)
+     * @return The new array of bind variables. (NotNull)
+     * @throws IllegalStateException When the template is not prepared yet.
+     * @throws IllegalArgumentException When the slot is not found or the value is invalid.
+     */
+    public Object[] xbuildBindVariables(Map<String, Object> parameterMap) {
+        assertPrepared();
+        final Object[] bindVariables = _preparedVariables.clone();
+        for (Entry<String, Object> entry : parameterMap.entrySet()) {
+            final String slotName = entry.getKey();
+            final BindSlot slot = _slotMap.get(slotName);
+            if (slot == null) {
+                String msg = "Not found the bind slot in the template: " + slotName + ", slots=" + _slotMap.keySet();
+                throw new IllegalArgumentException(msg);
+            }
+            slot.bindValue(entry.getValue(), bindVariables);
+        }
+        return bindVariables;
+    }
+
+    // ===================================================================================
+    //                                                                             Prepare
+    //                                                                             =======
+    /**
+     * Is the template already prepared? (the SQL is analyzed into the bind slots)
+     * @return The determination, true or false.
+     */
+    public boolean isPrepared() {
+        return _preparedSql != null;
+    }
+
+    /**
+     * Accept the prepared SQL and bind slots, called by the execution at the first time. {Internal} <br />
+     * It is ignored if already prepared.
+     * @param preparedSql The SQL that has question marks. (NotNull)
+     * @param slotList The list of bind slot in SQL order. (NotNull)
+     * @param preparedVariables The array of prepared bind variables. (NotNull)
+     * @param bindVariableTypes The array of bind variable types. (NotNull)
+     */
+    public synchronized void xacceptPrepared(String preparedSql, List<BindSlot> slotList, Object[] preparedVariables,
+            Class<?>[] bindVariableTypes) {
+        if (isPrepared()) {
+            return;
+        }
+        final Map<String, BindSlot> slotMap = StringKeyMap.createAsFlexibleOrdered();
+        for (BindSlot slot : slotList) {
+            slotMap.put(slot.getSlotName(), slot);
+        }
+        _slotList = Collections.unmodifiableList(new ArrayList<BindSlot>(slotList));
+        _slotMap = Collections.unmodifiableMap(slotMap);
+        _preparedVariables = preparedVariables.clone();
+        _bindVariableTypes = bindVariableTypes.clone();
+        _preparedSql = preparedSql; // volatile so written last
+    }
+
+    /**
+     * Derive the slot name from the bind expression, e.g. memberName_Equal. {Internal}
+     * @param expression The expression of bind variable comment. (NotNull)
+     * @param existingNameSet The set of existing slot names, should be flexible. (NotNull)
+     * @return The unique slot name. (NotNull)
+     */
+    public String xderiveSlotName(String expression, Set<String> existingNameSet) {
+        final String path = expression.startsWith(PMB_PREFIX) ? expression.substring(PMB_PREFIX.length()) : expression;
+        String slotName = deriveConditionSlotName(path);
+        if (slotName == null) { // e.g. sqlClause.pagingBindingLimit
+            slotName = path;
+        }
+        String uniqueName = slotName;
+        int sequence = 2;
+        while (existingNameSet.contains(uniqueName)) { // e.g. two conditions on the same column
+            uniqueName = slotName + sequence;
+            ++sequence;
+        }
+        return uniqueName;
+    }
+
+    protected String deriveConditionSlotName(String path) {
+        // e.g. conditionQuery.conditionQueryMemberStatus.displayOrder.fixed.query.greaterThan
+        //  or  conditionQuery.memberName.varying.likeSearch.likeSearch0
+        final List<String> elementList = Srl.splitList(path, ".");
+        if (elementList.size() < 4 || !CQ_PROPERTY.equals(elementList.get(0))) {
+            return null;
+        }
+        final StringBuilder sb = new StringBuilder();
+        int index = 1;
+        while (index < elementList.size()) {
+            final String element = elementList.get(index);
+            if (!element.startsWith(CQ_PROPERTY) || element.length() == CQ_PROPERTY.length()) {
+                break;
+            }
+            sb.append(Srl.initUncap(element.substring(CQ_PROPERTY.length()))).append(".");
+            ++index;
+        }
+        if (index + 2 >= elementList.size()) {
+            return null;
+        }
+        final String propertyName = elementList.get(index);
+        final String valueKind = elementList.get(index + 1);
+        final String conditionKey;
+        if ("fixed".equals(valueKind) && index + 3 < elementList.size()) {
+            conditionKey = elementList.get(index + 3);
+        } else if ("varying".equals(valueKind)) {
+            conditionKey = elementList.get(index + 2);
+        } else {
+            return null;
+        }
+        return sb.append(propertyName).append("_").append(Srl.initCap(conditionKey)).toString();
+    }
+
+    protected void assertPrepared() {
+        if (!isPrepared()) {
+            String msg = "The template is not prepared yet, it is prepared at the first execution: " + getTableDbName();
+            throw new IllegalStateException(msg);
+        }
+    }
+
+    // ===================================================================================
+    //                                                                           Bind Slot
+    //                                                                           =========
+    /**
+     * The slot of bind variable in the prepared SQL, corresponding to a bind comment. (immutable)
+     */
+    public static class BindSlot {
+
+        protected final String _slotName;
+        protected final String _expression;
+        protected final int _bindIndex;
+        protected final int _bindCount;
+        protected final boolean _inScope;
+        protected final LikeSearchOption _likeSearchOption;
+
+        /**
+         * @param slotName The name of slot. (NotNull)
+         * @param expression The expression of bind variable comment. (NotNull)
+         * @param bindIndex The index of the first question mark in the SQL.
+         * @param bindCount The count of question marks, more than one if in-scope.
+         * @param inScope Is the slot for in-scope?
+         * @param likeSearchOption The option of like-search for the value. (NullAllowed)
+         */
+        public BindSlot(String slotName, String expression, int bindIndex, int bindCount, boolean inScope,
+                LikeSearchOption likeSearchOption) {
+            _slotName = slotName;
+            _expression = expression;
+            _bindIndex = bindIndex;
+            _bindCount = bindCount;
+            _inScope = inScope;
+            _likeSearchOption = likeSearchOption;
+        }
+
+        /**
+         * Bind the value to the bind variables at the position of this slot.
+         * @param value The bound value, collection or array if in-scope. (NotNull)
+         * @param bindVariables The array of bind variables to be set. (NotNull)
+         */
+        public void bindValue(Object value, Object[] bindVariables) {
+            if (_inScope) {
+                final List<Object> elementList = toElementList(value);
+                if (elementList.size() != _bindCount) {
+                    String msg = "The element count of in-scope is fixed in the template:";
+                    msg = msg + " slot=" + _slotName + ", expected=" + _bindCount + ", actual=" + elementList.size();
+                    throw new IllegalArgumentException(msg);
+                }
+                for (int i = 0; i < _bindCount; i++) {
+                    bindVariables[_bindIndex + i] = elementList.get(i);
+                }
+            } else {
+                if (value instanceof Collection<?> || value.getClass().isArray()) {
+                    String msg = "The slot is not in-scope so it cannot bind list: " + _slotName + ", value=" + value;
+                    throw new IllegalArgumentException(msg);
+                }
+                bindVariables[_bindIndex] = filterLikeSearch(value);
+            }
+        }
+
+        protected List<Object> toElementList(Object value) {
+            final List<Object> elementList = new ArrayList<Object>();
+            if (value instanceof Collection<?>) {
+                for (Object element : (Collection<?>) value) {
+                    if (element != null) { // same as bind node
+                        elementList.add(element);
+                    }
+                }
+            } else if (value.getClass().isArray()) {
+                final int length = Array.getLength(value);
+                for (int i = 0; i < length; i++) {
+                    final Object element = Array.get(value, i);
+                    if (element != null) {
+                        elementList.add(element);
+                    }
+                }
+            } else {
+                String msg = "The slot is in-scope so it needs collection or array: " + _slotName + ", value=" + value;
+                throw new IllegalArgumentException(msg);
+            }
+            return elementList;
+        }
+
+        protected Object filterLikeSearch(Object value) {
+            if (_likeSearchOption != null && value instanceof String) {
+                return _likeSearchOption.generateRealValue((String) value); // no state change
+            }
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return "{" + _slotName + ", " + _expression + ", " + _bindIndex + "(" + _bindCount + ")}";
+        }
+
+        public String getSlotName() {
+            return _slotName;
+        }
+
+        public String getExpression() {
+            return _expression;
+        }
+
+        public int getBindIndex() {
+            return _bindIndex;
+        }
+
+        public int getBindCount() {
+            return _bindCount;
+        }
+
+        public boolean isInScope() {
+            return _inScope;
+        }
+
+        public LikeSearchOption getLikeSearchOption() {
+            return _likeSearchOption;
+        }
+    }
+
+    // ===================================================================================
+    //                                                                      Basic Override
+    //                                                                      ==============
+    @Override
+    public String toString() {
+        return "template:{" + getTableDbName() + ", prepared=" + isPrepared() + ", slots=" + _slotList + "}";
+    }
+
+    // ===================================================================================
+    //                                                                            Accessor
+    //                                                                            ========
+    /**
+     * Get the frozen condition-bean. {Internal} <br />
+     * Don't change it because it is shared by executions.
+     * @return The condition-bean. (NotNull)
+     */
+    public ConditionBean getConditionBean() {
+        return _conditionBean;
+    }
+
+    public String getTableDbName() {
+        return _conditionBean.getTableDbName();
+    }
+
+    public String getTwoWaySql() {
+        return _twoWaySql;
+    }
+
+    /**
+     * @return The prepared SQL that has question marks. (NullAllowed: until first execution)
+     */
+    public String getPreparedSql() {
+        return _preparedSql;
+    }
+
+    /**
+     * @return The read-only list of bind slot in SQL order. (NotNull: empty until first execution)
+     */
+    public List<BindSlot> getSlotList() {
+        return _slotList;
+    }
+
+    /**
+     * @return The array of bind variable types, copied. (NotNull: empty until first execution)
+     */
+    public Class<?>[] getBindVariableTypes() {
+        return _bindVariableTypes.clone();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.cbean;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The binding of condition-bean template, which has the template and the bound parameters. (immutable) <br />
+ * It is created by the template's bind() and executed by behavior's selectList().
+ * @author jflute
+ * @since 1.0.5N (2014/12/21 Sunday)
+ */
+public class ConditionBeanTemplateBinding {
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    protected final ConditionBeanTemplate _template;
+    protected final Map<String, Object> _parameterMap;
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    /**
+     * @param template The template of condition-bean. (NotNull)
+     * @param parameterMap The map of parameter, key is slot name. (NotNull, NotNullValue)
+     */
+    public ConditionBeanTemplateBinding(ConditionBeanTemplate template, Map<String, Object> parameterMap) {
+        if (template == null) {
+            String msg = "The argument 'template' should not be null.";
+            throw new IllegalArgumentException(msg);
+        }
+        if (parameterMap == null) {
+            String msg = "The argument 'parameterMap' should not be null.";
+            throw new IllegalArgumentException(msg);
+        }
+        _template = template;
+        _parameterMap = Collections.unmodifiableMap(parameterMap);
+    }
+
+    // ===================================================================================
+    //                                                                      Bind Variables
+    //                                                                      ==============
+    /**
+     * Build the bind variables of the prepared SQL by the bound parameters.
+     * @return The new array of bind variables. (NotNull)
+     * @throws IllegalStateException When the template is not prepared yet.
+     * @throws IllegalArgumentException When the slot is not found or the value is invalid.
+     */
+    public Object[] buildBindVariables() {
+        return _template.xbuildBindVariables(_parameterMap);
+    }
+
+    // ===================================================================================
+    //                                                                      Basic Override
+    //                                                                      ==============
+    @Override
+    public String toString() {
+        return "binding:{" + _template.getTableDbName() + ", " + _parameterMap + "}";
+    }
+
+    // ===================================================================================
+    //                                                                            Accessor
+    //                                                                            ========
+    public ConditionBeanTemplate getTemplate() {
+        return _template;
+    }
+
+    /**
+     * @return The read-only map of parameter. (NotNull)
+     */
+    public Map<String, Object> getParameterMap() {
+        return _parameterMap;
+    }
+}
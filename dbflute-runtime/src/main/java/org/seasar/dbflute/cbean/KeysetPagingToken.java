@@ -0,0 +1,112 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.cbean;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The continuation token of keyset paging. <br />
+ * It has the values of order-by columns of the last row in the previous page,
+ * and the next page is selected by the condition that seeks after the values.
+ * <pre>
+ * MemberCB cb = new MemberCB();
+ * cb.query().addOrderBy_MemberId_Asc();
+ * cb.<span style="color: #DD4747">keysetPaging</span>(20, token); <span style="color: #3F7E5E">// token is null at first page</span>
+ * ListResultBean&lt;Member&gt; memberList = memberBhv.<span style="color: #DD4747">selectList</span>(cb);
+ * KeysetPagingToken nextToken = memberList.<span style="color: #DD4747">getKeysetPagingToken()</span>; <span style="color: #3F7E5E">// null if last page</span>
+ * </pre>
+ * @author jflute
+ * @since 1.0.5N (2014/12/17 Wednesday)
+ */
+public class KeysetPagingToken implements Serializable {
+
+    // ===================================================================================
+    //                                                                          Definition
+    //                                                                          ==========
+    /** Serial version UID. (Default) */
+    private static final long serialVersionUID = 1L;
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    protected final List<String> _orderColumnList; // e.g. dfloc.MEMBER_ID asc
+    protected final List<Object> _keyValueList; // not null elements
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    /**
+     * @param orderColumnList The list of order-by column expressions. (NotNull, NotEmpty)
+     * @param keyValueList The list of values of the order-by columns. (NotNull, SameSizeAsColumn)
+     */
+    public KeysetPagingToken(List<String> orderColumnList, List<Object> keyValueList) {
+        if (orderColumnList == null || orderColumnList.isEmpty()) {
+            String msg = "The argument 'orderColumnList' should not be null or empty: " + orderColumnList;
+            throw new IllegalArgumentException(msg);
+        }
+        if (keyValueList == null || keyValueList.size() != orderColumnList.size()) {
+            String msg = "The argument 'keyValueList' should be same size as columns:";
+            msg = msg + " columns=" + orderColumnList + " values=" + keyValueList;
+            throw new IllegalArgumentException(msg);
+        }
+        _orderColumnList = Collections.unmodifiableList(new ArrayList<String>(orderColumnList));
+        _keyValueList = Collections.unmodifiableList(new ArrayList<Object>(keyValueList));
+    }
+
+    // ===================================================================================
+    //                                                                      Basic Override
+    //                                                                      ==============
+    @Override
+    public int hashCode() {
+        return 31 * _orderColumnList.hashCode() + _keyValueList.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof KeysetPagingToken)) {
+            return false;
+        }
+        final KeysetPagingToken token = (KeysetPagingToken) obj;
+        return _orderColumnList.equals(token._orderColumnList) && _keyValueList.equals(token._keyValueList);
+    }
+
+    @Override
+    public String toString() {
+        return "{" + _orderColumnList + " after " + _keyValueList + "}";
+    }
+
+    // ===================================================================================
+    //                                                                            Accessor
+    //                                                                            ========
+    /**
+     * Get the list of order-by column expressions that the token is built for.
+     * @return The read-only list of column expressions. (NotNull, NotEmpty)
+     */
+    public List<String> getOrderColumnList() {
+        return _orderColumnList;
+    }
+
+    /**
+     * Get the list of values of the order-by columns of the last row.
+     * @return The read-only list of key values. (NotNull, NotEmpty)
+     */
+    public List<Object> getKeyValueList() {
+        return _keyValueList;
+    }
+}
@@ -65,6 +65,9 @@ public class ListResultBean<ENTITY> implements List<ENTITY>, Serializable {
     /** The clause of order-by. (NotNull) */
     protected OrderByClause _orderByClause = new OrderByClause();
 
+    /** The continuation token of keyset paging. (NullAllowed: if null, not keyset paging or last page) */
+    protected KeysetPagingToken _keysetPagingToken;
+
     // ===================================================================================
     //                                                                         Constructor
     //                                                                         ===========
@@ -574,4 +577,20 @@ public class ListResultBean<ENTITY> implements List<ENTITY>, Serializable {
         }
         _orderByClause = orderByClause;
     }
+
+    /**
+     * Get the continuation token of keyset paging for the next page.
+     * @return The token to be set to the next keysetPaging(). (NullAllowed: if null, not keyset paging or last page)
+     */
+    public KeysetPagingToken getKeysetPagingToken() {
+        return _keysetPagingToken;
+    }
+
+    /**
+     * Set the continuation token of keyset paging for the next page.
+     * @param keysetPagingToken The token of keyset paging. (NullAllowed)
+     */
+    public void setKeysetPagingToken(KeysetPagingToken keysetPagingToken) {
+        _keysetPagingToken = keysetPagingToken;
+    }
 }
@@ -0,0 +1,415 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.cbean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.seasar.dbflute.helper.cache.BoundedConcurrentCache;
+import org.seasar.dbflute.resource.DBFluteSystem;
+
+/**
+ * The cache of all record count for paging select. <br />
+ * The key is a fingerprint of the count SQL with bound values, so page turns of the same search
+ * can skip the count select. The cached count expires by time-to-live,
+ * and it is invalidated when a write command touches one of the tables used in the count SQL.
+ * <pre>
+ * e.g. the count is cached for MEMBER and MEMBER_STATUS tables
+ *  select count(*) from MEMBER dfloc left outer join MEMBER_STATUS dfrel_0 ... where ...
+ *  -&gt; update(member) : invalidated
+ *  -&gt; insert(purchase) : still valid
+ *  -&gt; outsideSql().execute(pmb) : invalidated (all)
+ * </pre>
+ * The invalidation is at the end of the write statement, not at commit, so other threads may cache
+ * the old count until the commit. Call reflectCompletion() after commit or rollback to close the window,
+ * otherwise it is reflected after the time-to-live. The writing thread itself neither finds nor registers
+ * counts of the written tables until the completion (or the time-to-live) not to share uncommitted counts.
+ * @author jflute
+ * @since 1.0.5N (2014/12/17 Wednesday)
+ */
+public class PagingCountCache {
+
+    // ===================================================================================
+    //                                                                          Definition
+    //                                                                          ==========
+    /** The pattern to extract table names referred in SQL, e.g. from MEMBER, join MEMBER_STATUS */
+    protected static final Pattern TABLE_REFERENCE_PATTERN = Pattern.compile("(?i)\\b(?:from|join)\\s+([^\\s(),]+)");
+
+    /** The key of writing table for unknown tables, e.g. outside-SQL. (not table name) */
+    protected static final String WRITING_ALL_KEY = "*";
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    protected final BoundedConcurrentCache<String, CountEntry> _countCache;
+    protected final long _timeToLive; // milliseconds
+    protected final ConcurrentHashMap<String, AtomicLong> _tableVersionMap = new ConcurrentHashMap<String, AtomicLong>();
+    protected final AtomicLong _globalVersion = new AtomicLong();
+    protected final AtomicLong _hitCount = new AtomicLong();
+    protected final AtomicLong _missCount = new AtomicLong();
+    protected final AtomicLong _invalidationCount = new AtomicLong();
+    protected final ThreadLocal<Map<String, Long>> _writingTableLocal = new ThreadLocal<Map<String, Long>>(); // table to written millis
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    /**
+     * @param maxSize The max size of cached counts. (NotMinus, NotZero)
+     * @param timeToLive The time-to-live of cached count in milliseconds. (NotMinus, NotZero)
+     */
+    public PagingCountCache(int maxSize, long timeToLive) {
+        if (timeToLive <= 0) {
+            String msg = "The argument 'timeToLive' should be plus: " + timeToLive;
+            throw new IllegalArgumentException(msg);
+        }
+        _countCache = new BoundedConcurrentCache<String, CountEntry>(maxSize);
+        _timeToLive = timeToLive;
+    }
+
+    // ===================================================================================
+    //                                                                         Fingerprint
+    //                                                                         ===========
+    /**
+     * Build the fingerprint of count select for the paging bean.
+     * @param pagingBean The bean of paging, basically condition-bean. (NotNull)
+     * @return The fingerprint string of count SQL. (NullAllowed: if null, not cacheable e.g. outside-SQL)
+     */
+    public String buildFingerprint(PagingBean pagingBean) {
+        if (!(pagingBean instanceof ConditionBean)) {
+            return null; // outside-SQL's tables are unknown
+        }
+        final ConditionBean cb = (ConditionBean) pagingBean;
+        return cb.getTableDbName() + ":" + buildCountDisplaySql(cb);
+    }
+
+    protected String buildCountDisplaySql(ConditionBean cb) {
+        // same setting as select count command, fetch scope and order-by are suppressed
+        // so all pages of the same search have the same fingerprint
+        cb.xsetupSelectCountIgnoreFetchScope(false);
+        try {
+            return cb.toDisplaySql(); // contains bound values
+        } finally {
+            cb.xafterCareSelectCountIgnoreFetchScope();
+        }
+    }
+
+    // ===================================================================================
+    //                                                                         Count Cache
+    //                                                                         ===========
+    /**
+     * Find the cached count by the fingerprint.
+     * @param fingerprint The fingerprint of count select. (NotNull)
+     * @return The cached count. (NullAllowed: if null, not found or expired or invalidated)
+     */
+    public Integer findCount(String fingerprint) {
+        if (isWritingAnyTable(extractTableSet(fingerprint))) { // may be different from committed count
+            _missCount.incrementAndGet();
+            return null;
+        }
+        final CountEntry entry = _countCache.peek(fingerprint);
+        if (entry != null) {
+            if (!entry.isExpired(currentTimeMillis()) && isVersionValid(entry)) {
+                _hitCount.incrementAndGet();
+                return entry.getCount();
+            }
+            _countCache.remove(fingerprint);
+        }
+        _missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Prepare the entry of the fingerprint before the count select. <br />
+     * The versions of tables are taken here, so writes during the count select invalidate the entry.
+     * And the writing of the current thread is also taken here, because the count may be registered in other thread.
+     * @param fingerprint The fingerprint of count select. (NotNull)
+     * @return The prepared entry to be registered after the count select. (NotNull)
+     */
+    public CountEntry prepareEntry(String fingerprint) {
+        final Set<String> tableSet = extractTableSet(fingerprint);
+        final Map<String, Long> tableVersionMap = new HashMap<String, Long>(tableSet.size());
+        for (String tableName : tableSet) {
+            final AtomicLong version = _tableVersionMap.get(tableName);
+            tableVersionMap.put(tableName, version != null ? version.get() : 0L);
+        }
+        final boolean uncommitted = isWritingAnyTable(tableSet);
+        return new CountEntry(fingerprint, _globalVersion.get(), tableVersionMap, uncommitted);
+    }
+
+    /**
+     * Register the selected count with the prepared entry.
+     * @param entry The entry prepared before the count select. (NotNull)
+     * @param count The selected count.
+     */
+    public void registerCount(CountEntry entry, int count) {
+        entry.acceptCount(count, currentTimeMillis() + _timeToLive);
+        if (entry.isUncommitted()) { // may contain uncommitted rows of the current transaction
+            return;
+        }
+        if (isVersionValid(entry)) { // not registered if written while counting
+            _countCache.put(entry.getFingerprint(), entry);
+        }
+    }
+
+    protected boolean isVersionValid(CountEntry entry) {
+        if (entry.getGlobalVersion() != _globalVersion.get()) {
+            return false;
+        }
+        for (Map.Entry<String, Long> versionEntry : entry.getTableVersionMap().entrySet()) {
+            final AtomicLong version = _tableVersionMap.get(versionEntry.getKey());
+            final long current = version != null ? version.get() : 0L;
+            if (current != versionEntry.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected Set<String> extractTableSet(String fingerprint) {
+        final Set<String> tableSet = new LinkedHashSet<String>();
+        final int delimiterIndex = fingerprint.indexOf(":");
+        if (delimiterIndex > 0) { // base table
+            tableSet.add(normalizeTableName(fingerprint.substring(0, delimiterIndex)));
+        }
+        final Matcher matcher = TABLE_REFERENCE_PATTERN.matcher(fingerprint);
+        while (matcher.find()) { // joined tables and tables in sub-queries
+            tableSet.add(normalizeTableName(matcher.group(1)));
+        }
+        return tableSet;
+    }
+
+    protected String normalizeTableName(String tableName) {
+        String normalized = tableName;
+        final int dotIndex = normalized.lastIndexOf(".");
+        if (dotIndex >= 0) { // e.g. EXAMPLEDB.MEMBER
+            normalized = normalized.substring(dotIndex + 1);
+        }
+        normalized = normalized.replace("\"", "").replace("[", "").replace("]", "").replace("`", "");
+        return normalized.toUpperCase();
+    }
+
+    protected long currentTimeMillis() {
+        return DBFluteSystem.currentTimeMillis();
+    }
+
+    // ===================================================================================
+    //                                                                        Invalidation
+    //                                                                        ============
+    /**
+     * Invalidate cached counts that refer to the table.
+     * @param tableDbName The DB name of written table. (NotNull)
+     */
+    public void invalidateTable(String tableDbName) {
+        final String tableName = normalizeTableName(tableDbName);
+        AtomicLong version = _tableVersionMap.get(tableName);
+        if (version == null) {
+            final AtomicLong created = new AtomicLong();
+            version = _tableVersionMap.putIfAbsent(tableName, created);
+            if (version == null) {
+                version = created;
+            }
+        }
+        version.incrementAndGet();
+        _invalidationCount.incrementAndGet();
+    }
+
+    /**
+     * Invalidate all cached counts, e.g. when written tables are unknown.
+     */
+    public void invalidateAll() {
+        _globalVersion.incrementAndGet();
+        _countCache.clear();
+        _invalidationCount.incrementAndGet();
+    }
+
+    // -----------------------------------------------------
+    //                                         Writing Table
+    //                                         -------------
+    /**
+     * Reflect the writing of the table by the current thread. <br />
+     * The counts of the table are invalidated, and the current thread bypasses them until the completion.
+     * @param tableDbName The DB name of written table. (NotNull)
+     */
+    public void reflectWriting(String tableDbName) {
+        invalidateTable(tableDbName);
+        prepareWritingTableMap().put(normalizeTableName(tableDbName), currentTimeMillis());
+    }
+
+    /**
+     * Reflect the writing of unknown tables by the current thread, e.g. outside-SQL or procedure.
+     */
+    public void reflectWritingAll() {
+        invalidateAll();
+        prepareWritingTableMap().put(WRITING_ALL_KEY, currentTimeMillis());
+    }
+
+    /**
+     * Reflect the completion (commit or rollback) of the current thread's transaction. <br />
+     * The tables written by the thread are invalidated again, because other threads may have cached
+     * their old counts before the commit. You should call this after commit or rollback, e.g. by transaction callback.
+     */
+    public void reflectCompletion() {
+        final Map<String, Long> writingTableMap = _writingTableLocal.get();
+        if (writingTableMap == null) {
+            return;
+        }
+        _writingTableLocal.remove();
+        if (writingTableMap.containsKey(WRITING_ALL_KEY)) {
+            invalidateAll();
+            return;
+        }
+        for (String tableName : writingTableMap.keySet()) {
+            invalidateTable(tableName);
+        }
+    }
+
+    /**
+     * Is the table written by the current thread and not completed yet? <br />
+     * The writing expires by the time-to-live if the completion is not reflected.
+     * @param tableDbName The DB name of table. (NotNull)
+     * @return The determination, true or false.
+     */
+    public boolean isWritingTable(String tableDbName) {
+        return isWritingAnyTable(Collections.singleton(normalizeTableName(tableDbName)));
+    }
+
+    protected boolean isWritingAnyTable(Set<String> tableSet) { // table names are normalized
+        final Map<String, Long> writingTableMap = _writingTableLocal.get();
+        if (writingTableMap == null) {
+            return false;
+        }
+        final long currentMillis = currentTimeMillis();
+        boolean writing = false;
+        for (String tableName : new ArrayList<String>(writingTableMap.keySet())) {
+            if (writingTableMap.get(tableName) + _timeToLive < currentMillis) { // completion is not reflected
+                writingTableMap.remove(tableName);
+                continue;
+            }
+            if (tableName.equals(WRITING_ALL_KEY) || tableSet.contains(tableName)) {
+                writing = true;
+            }
+        }
+        if (writingTableMap.isEmpty()) {
+            _writingTableLocal.remove();
+        }
+        return writing;
+    }
+
+    protected Map<String, Long> prepareWritingTableMap() {
+        Map<String, Long> writingTableMap = _writingTableLocal.get();
+        if (writingTableMap == null) {
+            writingTableMap = new HashMap<String, Long>();
+            _writingTableLocal.set(writingTableMap);
+        }
+        return writingTableMap;
+    }
+
+    // ===================================================================================
+    //                                                                          Statistics
+    //                                                                          ==========
+    public int size() {
+        return _countCache.size();
+    }
+
+    public long getHitCount() {
+        return _hitCount.get();
+    }
+
+    public long getMissCount() {
+        return _missCount.get();
+    }
+
+    public long getInvalidationCount() {
+        return _invalidationCount.get();
+    }
+
+    public void resetStatistics() {
+        _hitCount.set(0);
+        _missCount.set(0);
+        _invalidationCount.set(0);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("{size=").append(size());
+        sb.append(", hit=").append(getHitCount());
+        sb.append(", miss=").append(getMissCount());
+        sb.append(", invalidation=").append(getInvalidationCount());
+        sb.append(", timeToLive=").append(_timeToLive).append("}");
+        return sb.toString();
+    }
+
+    // ===================================================================================
+    //                                                                         Count Entry
+    //                                                                         ===========
+    /**
+     * The entry of cached count with versions of referred tables.
+     */
+    public static class CountEntry {
+
+        protected final String _fingerprint;
+        protected final long _globalVersion;
+        protected final Map<String, Long> _tableVersionMap;
+        protected final boolean _uncommitted; // written by the preparing thread
+        protected volatile int _count;
+        protected volatile long _expireMillis;
+
+        public CountEntry(String fingerprint, long globalVersion, Map<String, Long> tableVersionMap, boolean uncommitted) {
+            _fingerprint = fingerprint;
+            _globalVersion = globalVersion;
+            _tableVersionMap = Collections.unmodifiableMap(tableVersionMap);
+            _uncommitted = uncommitted;
+        }
+
+        public void acceptCount(int count, long expireMillis) {
+            _count = count;
+            _expireMillis = expireMillis;
+        }
+
+        public boolean isExpired(long currentMillis) {
+            return currentMillis >= _expireMillis;
+        }
+
+        public String getFingerprint() {
+            return _fingerprint;
+        }
+
+        public long getGlobalVersion() {
+            return _globalVersion;
+        }
+
+        public Map<String, Long> getTableVersionMap() {
+            return _tableVersionMap;
+        }
+
+        public boolean isUncommitted() {
+            return _uncommitted;
+        }
+
+        public int getCount() {
+            return _count;
+        }
+    }
+}
@@ -16,6 +16,10 @@
 package org.seasar.dbflute.cbean;
 
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import org.seasar.dbflute.exception.DangerousResultSizeException;
 import org.seasar.dbflute.exception.PagingOverSafetySizeException;
@@ -35,6 +39,8 @@ public class PagingInvoker<ENTITY> {
     //                                                                           Attribute
     //                                                                           =========
     protected final String _tableDbName;
+    protected Executor _concurrentCountExecutor; // null allowed, sequential if null
+    protected PagingCountCache _pagingCountCache; // null allowed, no cache if null
 
     // ===================================================================================
     //                                                                         Constructor
@@ -43,6 +49,27 @@ public class PagingInvoker<ENTITY> {
         _tableDbName = tableDbName;
     }
 
+    // ===================================================================================
+    //                                                                       Invoke Option
+    //                                                                       =============
+    /**
+     * Set the executor to select the count concurrently with the page select. <br />
+     * It is effective only for the handler of {@link ConcurrentPagingHandler}
+     * and it is not used when paging-count-later is effective.
+     * @param concurrentCountExecutor The executor for count select. (NullAllowed: if null, sequential)
+     */
+    public void setConcurrentCountExecutor(Executor concurrentCountExecutor) {
+        _concurrentCountExecutor = concurrentCountExecutor;
+    }
+
+    /**
+     * Set the cache of all record count to skip the count select of the same search.
+     * @param pagingCountCache The cache of paging count. (NullAllowed: if null, always count)
+     */
+    public void setPagingCountCache(PagingCountCache pagingCountCache) {
+        _pagingCountCache = pagingCountCache;
+    }
+
     // ===================================================================================
     //                                                                              Invoke
     //                                                                              ======
@@ -96,6 +123,29 @@ public class PagingInvoker<ENTITY> {
                 allRecordCount = executeCount(handler); // count later
             }
             checkSafetyResultIfNeeds(safetyMaxResultSize, allRecordCount);
+        } else if (isConcurrentCountEffective(handler)) { // faster when both selects are heavy
+            final String fingerprint = buildCountFingerprint(handler); // before the bean is used concurrently
+            final Integer cachedCount = fingerprint != null ? _pagingCountCache.findCount(fingerprint) : null;
+            if (cachedCount != null) { // no count select so no need to be concurrent
+                allRecordCount = cachedCount;
+                checkSafetyResultIfNeeds(safetyMaxResultSize, allRecordCount);
+                selectedList = executePaging(handler);
+            } else {
+                final PagingCountCache.CountEntry entry; // versions are taken before the count select
+                entry = fingerprint != null ? _pagingCountCache.prepareEntry(fingerprint) : null;
+                final FutureTask<Integer> countTask = executeCountConcurrently(handler, entry);
+                boolean pagingDone = false;
+                try {
+                    selectedList = executePaging(handler);
+                    pagingDone = true;
+                } finally {
+                    if (!pagingDone) { // e.g. exception, error
+                        countTask.cancel(true); // the result is unnecessary
+                    }
+                }
+                allRecordCount = joinConcurrentCount(countTask);
+                checkSafetyResultIfNeeds(safetyMaxResultSize, allRecordCount);
+            }
         } else { // faster when zero record selected
             // basically main here because it has been used for a long time
             allRecordCount = executeCount(handler);
@@ -142,13 +192,79 @@ public class PagingInvoker<ENTITY> {
     }
 
     protected int executeCount(PagingHandler<ENTITY> handler) {
-        return handler.count();
+        final String fingerprint = buildCountFingerprint(handler);
+        if (fingerprint == null) { // no cache or not cacheable
+            return handler.count();
+        }
+        final Integer cachedCount = _pagingCountCache.findCount(fingerprint);
+        if (cachedCount != null) {
+            return cachedCount;
+        }
+        final PagingCountCache.CountEntry entry = _pagingCountCache.prepareEntry(fingerprint);
+        final int allRecordCount = handler.count();
+        _pagingCountCache.registerCount(entry, allRecordCount);
+        return allRecordCount;
+    }
+
+    protected String buildCountFingerprint(PagingHandler<ENTITY> handler) {
+        if (_pagingCountCache == null) {
+            return null;
+        }
+        return _pagingCountCache.buildFingerprint(handler.getPagingBean()); // null if not cacheable
     }
 
     protected List<ENTITY> executePaging(PagingHandler<ENTITY> handler) {
         return handler.paging();
     }
 
+    // -----------------------------------------------------
+    //                                      Concurrent Count
+    //                                      ----------------
+    protected boolean isConcurrentCountEffective(PagingHandler<ENTITY> handler) {
+        return _concurrentCountExecutor != null && handler instanceof ConcurrentPagingHandler<?>;
+    }
+
+    protected FutureTask<Integer> executeCountConcurrently(PagingHandler<ENTITY> handler,
+            final PagingCountCache.CountEntry entry) { // entry is null if no cache
+        final ConcurrentPagingHandler<ENTITY> concurrentHandler = (ConcurrentPagingHandler<ENTITY>) handler;
+        final PagingCountCache pagingCountCache = _pagingCountCache;
+        final FutureTask<Integer> countTask = new FutureTask<Integer>(new Callable<Integer>() {
+            public Integer call() throws Exception {
+                final int allRecordCount = concurrentHandler.countConcurrently();
+                if (entry != null) { // prepared by caller thread
+                    pagingCountCache.registerCount(entry, allRecordCount);
+                }
+                return allRecordCount;
+            }
+        });
+        _concurrentCountExecutor.execute(countTask);
+        return countTask;
+    }
+
+    protected int joinConcurrentCount(FutureTask<Integer> countTask) {
+        try {
+            return countTask.get();
+        } catch (InterruptedException e) {
+            countTask.cancel(true);
+            Thread.currentThread().interrupt();
+            String msg = "Interrupted while waiting for the concurrent count: table=" + _tableDbName;
+            throw new IllegalStateException(msg, e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) { // e.g. SQLFailureException
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            String msg = "Failed to select the concurrent count: table=" + _tableDbName;
+            throw new IllegalStateException(msg, cause);
+        }
+    }
+
+    // -----------------------------------------------------
+    //                                             Re-Select
+    //                                             ---------
     protected PagingResultBean<ENTITY> reselect(PagingHandler<ENTITY> handler, PagingBean pagingBean, ResultBeanBuilder<ENTITY> builder,
             PagingResultBean<ENTITY> rb) {
         pagingBean.fetchPage(rb.getAllPageCount());
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.cbean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.seasar.dbflute.CallbackContext;
+
+/**
+ * The entity row handler that hands off rows to worker threads through a bounded queue. <br />
+ * The fetching thread calls handle(), and workers call the actual handler,
+ * so fetching and mapping of next rows overlap with handling. <br />
+ * The fetching thread waits when the queue is full (back-pressure),
+ * and a failure on workers is thrown from the next handle() or finish() on the fetching thread.
+ * <pre>
+ * handler.start();
+ * boolean finished = false;
+ * try {
+ *     <span style="color: #3F7E5E">// ... call handler.handle() per row</span>
+ *     handler.finish();
+ *     finished = true;
+ * } finally {
+ *     if (!finished) {
+ *         handler.cancel();
+ *     }
+ * }
+ * </pre>
+ * @param <ENTITY> The type of entity.
+ * @author jflute
+ * @since 1.0.5N (2014/12/17 Wednesday)
+ */
+public class PipelinedEntityRowHandler<ENTITY> implements EntityRowHandler<ENTITY> {
+
+    // ===================================================================================
+    //                                                                          Definition
+    //                                                                          ==========
+    /** The interval milliseconds to check failure or cancel while waiting the queue. */
+    protected static final long WAITING_INTERVAL_MILLIS = 100L;
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    protected final EntityRowHandler<ENTITY> _actualHandler;
+    protected final BlockingQueue<List<ENTITY>> _batchQueue;
+    protected final int _workerCount;
+    protected final int _batchSize;
+    protected final List<ENTITY> _endMark = new ArrayList<ENTITY>(0); // identity only
+    protected final AtomicReference<Throwable> _failureRef = new AtomicReference<Throwable>();
+    protected volatile boolean _cancelled;
+    protected List<ENTITY> _currentBatch; // only on fetching thread
+    protected ExecutorService _workerService;
+    protected List<Future<Void>> _workerFutureList;
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    /**
+     * @param actualHandler The actual handler executed on workers. (NotNull)
+     * @param queueSize The max size of waiting batches in the queue. (NotMinus, NotZero)
+     * @param workerCount The count of worker threads. (NotMinus, NotZero)
+     * @param batchSize The count of rows in one hand-off. (NotMinus, NotZero)
+     */
+    public PipelinedEntityRowHandler(EntityRowHandler<ENTITY> actualHandler, int queueSize, int workerCount,
+            int batchSize) {
+        if (actualHandler == null) {
+            String msg = "The argument 'actualHandler' should not be null.";
+            throw new IllegalArgumentException(msg);
+        }
+        if (queueSize <= 0 || workerCount <= 0 || batchSize <= 0) {
+            String msg = "The queueSize, workerCount and batchSize should be plus:";
+            msg = msg + " queueSize=" + queueSize + ", workerCount=" + workerCount + ", batchSize=" + batchSize;
+            throw new IllegalArgumentException(msg);
+        }
+        _actualHandler = actualHandler;
+        _batchQueue = new ArrayBlockingQueue<List<ENTITY>>(queueSize);
+        _workerCount = workerCount;
+        _batchSize = batchSize;
+    }
+
+    // ===================================================================================
+    //                                                                               Start
+    //                                                                               =====
+    /**
+     * Start workers. (the callback context of the current thread is inherited to them)
+     */
+    public synchronized void start() {
+        if (_workerService != null) {
+            String msg = "The pipeline has already been started: " + this;
+            throw new IllegalStateException(msg);
+        }
+        final CallbackContext callbackContext = CallbackContext.getCallbackContextOnThread(); // inherited to workers
+        _workerService = createWorkerService(_workerCount);
+        _workerFutureList = new ArrayList<Future<Void>>(_workerCount);
+        for (int i = 0; i < _workerCount; i++) {
+            _workerFutureList.add(_workerService.submit(new Callable<Void>() {
+                public Void call() { // on worker thread, so separate connection
+                    if (callbackContext != null) {
+                        CallbackContext.setCallbackContextOnThread(callbackContext);
+                    }
+                    try {
+                        consumeBatch();
+                    } catch (RuntimeException e) {
+                        _failureRef.compareAndSet(null, e);
+                        throw e;
+                    } catch (Error e) {
+                        _failureRef.compareAndSet(null, e);
+                        throw e;
+                    } finally {
+                        if (callbackContext != null) {
+                            CallbackContext.clearCallbackContextOnThread();
+                        }
+                    }
+                    return null;
+                }
+            }));
+        }
+    }
+
+    protected ExecutorService createWorkerService(int workerCount) {
+        return Executors.newFixedThreadPool(workerCount);
+    }
+
+    // ===================================================================================
+    //                                                                            Producer
+    //                                                                            ========
+    /**
+     * Hand off the entity to workers. (called on the fetching thread)
+     * @param entity The entity as row. (NotNull)
+     */
+    public void handle(ENTITY entity) {
+        assertStarted();
+        throwWorkerFailureIfExists();
+        if (_currentBatch == null) {
+            _currentBatch = new ArrayList<ENTITY>(_batchSize);
+        }
+        _currentBatch.add(entity);
+        if (_currentBatch.size() >= _batchSize) {
+            final List<ENTITY> batch = _currentBatch;
+            _currentBatch = null;
+            handOff(batch);
+        }
+    }
+
+    protected void handOff(List<ENTITY> batch) {
+        try {
+            while (!_batchQueue.offer(batch, WAITING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) { // back-pressure
+                throwWorkerFailureIfExists();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            String msg = "The hand-off to pipeline workers was interrupted: " + this;
+            throw new IllegalStateException(msg, e);
+        }
+    }
+
+    protected void assertStarted() {
+        if (_workerService == null) {
+            String msg = "The pipeline has not been started yet: " + this;
+            throw new IllegalStateException(msg);
+        }
+    }
+
+    // ===================================================================================
+    //                                                                            Consumer
+    //                                                                            ========
+    protected void consumeBatch() {
+        while (true) {
+            final List<ENTITY> batch = takeBatch();
+            if (batch == null || batch == _endMark) { // cancelled or completed
+                return;
+            }
+            for (ENTITY entity : batch) {
+                if (isStopped()) {
+                    return;
+                }
+                _actualHandler.handle(entity);
+            }
+        }
+    }
+
+    protected List<ENTITY> takeBatch() {
+        try {
+            while (true) {
+                if (isStopped()) {
+                    return null;
+                }
+                final List<ENTITY> batch = _batchQueue.poll(WAITING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (batch != null) {
+                    return batch;
+                }
+            }
+        } catch (InterruptedException e) { // by cancel
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    protected boolean isStopped() {
+        return _cancelled || _failureRef.get() != null;
+    }
+
+    // ===================================================================================
+    //                                                                              Finish
+    //                                                                              ======
+    /**
+     * Hand off the rest rows and wait for workers to handle all rows. (called on the fetching thread) <br />
+     * A failure on workers is thrown here if it exists.
+     */
+    public void finish() {
+        assertStarted();
+        try {
+            if (_currentBatch != null && !_currentBatch.isEmpty()) {
+                final List<ENTITY> batch = _currentBatch;
+                _currentBatch = null;
+                handOff(batch);
+            }
+            for (int i = 0; i < _workerCount; i++) {
+                handOff(_endMark); // one mark per worker
+            }
+            for (Future<Void> future : _workerFutureList) {
+                waitForWorker(future);
+            }
+            throwWorkerFailureIfExists();
+        } finally {
+            _workerService.shutdown();
+        }
+    }
+
+    protected void waitForWorker(Future<Void> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            String msg = "future.get() for pipeline worker was interrupted: " + future;
+            throw new IllegalStateException(msg, e);
+        } catch (ExecutionException e) {
+            throwWorkerFailure(e.getCause());
+        }
+    }
+
+    /**
+     * Stop workers without handling rest rows, e.g. when fetching failed. (called on the fetching thread)
+     */
+    public void cancel() {
+        _cancelled = true;
+        _currentBatch = null;
+        _batchQueue.clear();
+        if (_workerService != null) {
+            _workerService.shutdownNow();
+        }
+    }
+
+    // ===================================================================================
+    //                                                                             Failure
+    //                                                                             =======
+    protected void throwWorkerFailureIfExists() {
+        final Throwable failure = _failureRef.get();
+        if (failure != null) {
+            throwWorkerFailure(failure);
+        }
+    }
+
+    protected void throwWorkerFailure(Throwable failure) {
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        String msg = "Failed to handle the row on pipeline worker: " + this;
+        throw new IllegalStateException(msg, failure);
+    }
+
+    // ===================================================================================
+    //                                                                      Basic Override
+    //                                                                      ==============
+    @Override
+    public String toString() {
+        return "{queue=" + _batchQueue.size() + "/" + (_batchQueue.size() + _batchQueue.remainingCapacity())
+                + ", worker=" + _workerCount + ", batch=" + _batchSize + ", cancelled=" + _cancelled + "}";
+    }
+
+    // ===================================================================================
+    //                                                                            Accessor
+    //                                                                            ========
+    public int getWorkerCount() {
+        return _workerCount;
+    }
+
+    public int getBatchSize() {
+        return _batchSize;
+    }
+}
@@ -18,6 +18,9 @@ package org.seasar.dbflute.cbean;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.seasar.dbflute.Entity;
+import org.seasar.dbflute.cbean.compact.CompactEntityList;
+
 /**
  * The builder of result bean.
  * @param <ENTITY> The type of entity.
@@ -65,9 +68,41 @@ public class ResultBeanBuilder<ENTITY> {
         rb.setAllRecordCount(selectedList.size());
         rb.setSelectedList(selectedList);
         rb.setOrderByClause(cb.getOrderByComponent());
+        if (cb.getSqlClause().isKeysetPagingEffective()) {
+            rb.setKeysetPagingToken(buildNextKeysetPagingToken(cb, selectedList));
+        }
         return rb;
     }
 
+    /**
+     * Build the result bean of list as compact result. {for CB}
+     * @param cb The condition-bean. (NotNull)
+     * @param compactList The compact list of selected entity. (NotNull)
+     * @return The result bean of list as compact result. (NotNull)
+     */
+    public ListResultBean<ENTITY> buildCompactListResultBean(ConditionBean cb, CompactEntityList<ENTITY> compactList) {
+        CompactListResultBean<ENTITY> rb = new CompactListResultBean<ENTITY>();
+        rb.setTableDbName(_tableDbName);
+        rb.setAllRecordCount(compactList.size());
+        rb.setSelectedList(compactList);
+        rb.setOrderByClause(cb.getOrderByComponent());
+        if (cb.getSqlClause().isKeysetPagingEffective()) {
+            rb.setKeysetPagingToken(buildNextKeysetPagingToken(cb, compactList)); // materializes the last only
+        }
+        return rb;
+    }
+
+    protected KeysetPagingToken buildNextKeysetPagingToken(ConditionBean cb, List<ENTITY> selectedList) {
+        if (selectedList.isEmpty() || selectedList.size() < cb.getFetchSize()) {
+            return null; // means last page
+        }
+        final Object lastEntity = selectedList.get(selectedList.size() - 1);
+        if (!(lastEntity instanceof Entity)) { // e.g. scalar select
+            return null;
+        }
+        return cb.getSqlClause().buildKeysetPagingToken((Entity) lastEntity);
+    }
+
     /**
      * Build the result bean of list as empty. {for CB}
      * @param pb The bean of paging. (NotNull)
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.cbean.compact;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.BitSet;
+
+/**
+ * The column store of compact result, which keeps values of one column for all rows. <br />
+ * Null values are kept in the bitmap so that primitive stores do not need boxed values.
+ * The value array is allocated at the first non-null value.
+ * @author jflute
+ * @since 1.0.5N (2014/12/20 Saturday)
+ */
+public abstract class CompactColumn implements Serializable {
+
+    // ===================================================================================
+    //                                                                          Definition
+    //                                                                          ==========
+    /** Serial version UID. (Default) */
+    private static final long serialVersionUID = 1L;
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    /** The bitmap of null values, the index is row index. (NotNull) */
+    protected final BitSet _nullBits = new BitSet();
+
+    /** The count of rows in this column. */
+    protected int _size;
+
+    // ===================================================================================
+    //                                                                        Value Access
+    //                                                                        ============
+    /**
+     * Add the value as the next row.
+     * @param value The value of the column. (NullAllowed)
+     */
+    public void add(Object value) {
+        if (value == null) {
+            _nullBits.set(_size);
+        } else {
+            ensureCapacity(_size + 1);
+            doSet(_size, value);
+        }
+        ++_size;
+    }
+
+    /**
+     * Get the value of the row as boxed value.
+     * @param rowIndex The index of row. (NotMinus, LessThanSize)
+     * @return The value of the column. (NullAllowed)
+     */
+    public Object get(int rowIndex) {
+        assertRowIndex(rowIndex);
+        return _nullBits.get(rowIndex) ? null : doGet(rowIndex);
+    }
+
+    /**
+     * Is the value of the row null?
+     * @param rowIndex The index of row. (NotMinus, LessThanSize)
+     * @return The determination, true or false.
+     */
+    public boolean isNull(int rowIndex) {
+        assertRowIndex(rowIndex);
+        return _nullBits.get(rowIndex);
+    }
+
+    /**
+     * Summarize the non-null values of this column without boxing if primitive.
+     * @return The summary value. (NotNull: zero if all values are null)
+     * @throws IllegalStateException When the column is not number.
+     */
+    public BigDecimal sum() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < _size; i++) {
+            if (_nullBits.get(i)) {
+                continue;
+            }
+            final Object value = doGet(i);
+            if (value instanceof BigDecimal) {
+                total = total.add((BigDecimal) value);
+            } else if (value instanceof Number) {
+                total = total.add(new BigDecimal(value.toString()));
+            } else {
+                String msg = "The column is not number: " + value.getClass() + ", " + this;
+                throw new IllegalStateException(msg);
+            }
+        }
+        return total;
+    }
+
+    protected void assertRowIndex(int rowIndex) {
+        if (rowIndex < 0 || rowIndex >= _size) {
+            String msg = "The row index is out of bounds: index=" + rowIndex + ", size=" + _size;
+            throw new IndexOutOfBoundsException(msg);
+        }
+    }
+
+    // ===================================================================================
+    //                                                                       Value Storage
+    //                                                                       =============
+    /**
+     * Ensure the capacity of the value array. (allocate at first non-null value)
+     * @param minCapacity The minimum capacity needed for the next row.
+     */
+    protected abstract void ensureCapacity(int minCapacity);
+
+    protected int calculateNewCapacity(int currentCapacity, int minCapacity) {
+        final int newCapacity = Math.max(currentCapacity + (currentCapacity >> 1) + 1, 10); // same as ArrayList
+        return Math.max(newCapacity, minCapacity);
+    }
+
+    /**
+     * Set the non-null value to the value array.
+     * @param rowIndex The index of row. (NotMinus, capacity ensured)
+     * @param value The value of the column. (NotNull)
+     */
+    protected abstract void doSet(int rowIndex, Object value);
+
+    /**
+     * Get the non-null value from the value array as boxed value.
+     * @param rowIndex The index of row. (NotMinus, not null row)
+     * @return The value of the column. (NotNull)
+     */
+    protected abstract Object doGet(int rowIndex);
+
+    /**
+     * Trim the value array to the size of rows, called after all rows are added.
+     */
+    public abstract void trimToSize();
+
+    // ===================================================================================
+    //                                                                      Basic Override
+    //                                                                      ==============
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ":{size=" + _size + ", nullCount=" + _nullBits.cardinality() + "}";
+    }
+
+    // ===================================================================================
+    //                                                                            Accessor
+    //                                                                            ========
+    public int size() {
+        return _size;
+    }
+}
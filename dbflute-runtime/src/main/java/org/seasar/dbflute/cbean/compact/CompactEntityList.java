@@ -0,0 +1,237 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.cbean.compact;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import org.seasar.dbflute.Entity;
+import org.seasar.dbflute.dbmeta.DBMeta;
+import org.seasar.dbflute.dbmeta.info.ColumnInfo;
+import org.seasar.dbflute.util.DfReflectionUtil;
+
+/**
+ * The read-only list of entity that stores rows column-wise in DBMeta column order. <br />
+ * Added entities are decomposed to column stores and not kept.
+ * An entity instance is materialized at every access (get or iteration),
+ * so the same index returns another instance and its modification is not reflected to this list.
+ * @param <ENTITY> The type of entity. (should be DBFlute entity)
+ * @author jflute
+ * @since 1.0.5N (2014/12/20 Saturday)
+ */
+public class CompactEntityList<ENTITY> extends AbstractList<ENTITY> implements RandomAccess, Serializable {
+
+    // ===================================================================================
+    //                                                                          Definition
+    //                                                                          ==========
+    /** Serial version UID. (Default) */
+    private static final long serialVersionUID = 1L;
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    /** The type of entity to be materialized. (NotNull) */
+    protected final Class<? extends ENTITY> _entityType;
+
+    /** The array of column store, the index is the same as DBMeta column list. (NotNull) */
+    protected final CompactColumn[] _columns;
+
+    /** The set of specified property names at the first row. (NullAllowed: when no SpecifyColumn) */
+    protected Set<String> _specifiedPropertyNames;
+
+    /** The count of rows. */
+    protected int _size;
+
+    /** The DB meta of the entity. (NullAllowed: lazy-loaded after deserialization) */
+    protected transient DBMeta _dbmeta;
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    /**
+     * @param dbmeta The DB meta of the entity, which provides column order. (NotNull)
+     * @param entityType The type of entity to be materialized. (NotNull)
+     */
+    public CompactEntityList(DBMeta dbmeta, Class<? extends ENTITY> entityType) {
+        if (dbmeta == null) {
+            String msg = "The argument 'dbmeta' should not be null.";
+            throw new IllegalArgumentException(msg);
+        }
+        if (entityType == null) {
+            String msg = "The argument 'entityType' should not be null.";
+            throw new IllegalArgumentException(msg);
+        }
+        _dbmeta = dbmeta;
+        _entityType = entityType;
+        final List<ColumnInfo> columnInfoList = dbmeta.getColumnInfoList();
+        _columns = new CompactColumn[columnInfoList.size()];
+        for (int i = 0; i < _columns.length; i++) {
+            _columns[i] = createCompactColumn(columnInfoList.get(i));
+        }
+    }
+
+    /**
+     * Create the column store for the column by its property access type.
+     * @param columnInfo The information of the column. (NotNull)
+     * @return The new-created column store. (NotNull)
+     */
+    protected CompactColumn createCompactColumn(ColumnInfo columnInfo) {
+        final Class<?> propertyType = columnInfo.getPropertyAccessType();
+        if (Integer.class.equals(propertyType)) {
+            return new CompactIntColumn();
+        } else if (Long.class.equals(propertyType)) {
+            return new CompactLongColumn();
+        } else if (Double.class.equals(propertyType)) {
+            return new CompactDoubleColumn();
+        } else if (String.class.equals(propertyType)) {
+            return new CompactStringColumn();
+        } else { // e.g. BigDecimal, Date
+            return new CompactObjectColumn();
+        }
+    }
+
+    // ===================================================================================
+    //                                                                          Add Entity
+    //                                                                          ==========
+    /**
+     * Decompose the selected entity to column stores as the next row. <br />
+     * Non-specified columns (by SpecifyColumn) are stored as null without reading.
+     * @param entity The selected entity. (NotNull)
+     */
+    public void addEntity(ENTITY entity) {
+        if (entity == null) {
+            String msg = "The argument 'entity' should not be null.";
+            throw new IllegalArgumentException(msg);
+        }
+        final Entity dbfluteEntity = (Entity) entity;
+        if (_size == 0) {
+            final Set<String> specifiedSet = dbfluteEntity.myspecifiedProperties();
+            _specifiedPropertyNames = !specifiedSet.isEmpty() ? new HashSet<String>(specifiedSet) : null;
+        }
+        final List<ColumnInfo> columnInfoList = getDBMeta().getColumnInfoList();
+        for (int i = 0; i < _columns.length; i++) {
+            final ColumnInfo columnInfo = columnInfoList.get(i);
+            if (isSpecifiedColumn(columnInfo)) {
+                _columns[i].add(columnInfo.read(dbfluteEntity));
+            } else {
+                _columns[i].add(null); // not selected so null
+            }
+        }
+        ++_size;
+    }
+
+    protected boolean isSpecifiedColumn(ColumnInfo columnInfo) {
+        return _specifiedPropertyNames == null || _specifiedPropertyNames.contains(columnInfo.getPropertyName());
+    }
+
+    /**
+     * Trim the column stores to the row count, called after all rows are added.
+     */
+    public void trimToSize() {
+        for (CompactColumn column : _columns) {
+            column.trimToSize();
+        }
+    }
+
+    // ===================================================================================
+    //                                                                         Materialize
+    //                                                                         ===========
+    @Override
+    public ENTITY get(int index) {
+        if (index < 0 || index >= _size) {
+            String msg = "The index is out of bounds: index=" + index + ", size=" + _size;
+            throw new IndexOutOfBoundsException(msg);
+        }
+        return materialize(index);
+    }
+
+    /**
+     * Materialize the entity of the row as selected entity. (same state as the row creator's one)
+     * @param rowIndex The index of row. (NotMinus, LessThanSize)
+     * @return The new-created entity. (NotNull)
+     */
+    protected ENTITY materialize(int rowIndex) {
+        final ENTITY entity = newEntity();
+        final Entity dbfluteEntity = (Entity) entity;
+        final List<ColumnInfo> columnInfoList = getDBMeta().getColumnInfoList();
+        for (int i = 0; i < _columns.length; i++) {
+            final ColumnInfo columnInfo = columnInfoList.get(i);
+            if (isSpecifiedColumn(columnInfo)) { // also null to be specified
+                columnInfo.write(dbfluteEntity, _columns[i].get(rowIndex));
+            }
+        }
+        if (_specifiedPropertyNames != null) {
+            dbfluteEntity.modifiedToSpecified();
+        }
+        dbfluteEntity.clearModifiedInfo();
+        dbfluteEntity.markAsSelect();
+        return entity;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected ENTITY newEntity() {
+        final DBMeta dbmeta = getDBMeta();
+        if (_entityType.equals(dbmeta.getEntityType())) {
+            return (ENTITY) dbmeta.newEntity(); // no reflection
+        }
+        return (ENTITY) DfReflectionUtil.newInstance(_entityType); // e.g. sub-class entity
+    }
+
+    // ===================================================================================
+    //                                                                        Column Store
+    //                                                                        ============
+    /**
+     * Get the column store of the column, which can be used without materializing entities.
+     * @param columnInfo The information of the column in the table of this list. (NotNull)
+     * @return The column store of the column. (NotNull)
+     * @throws IllegalArgumentException When the column is not in the table.
+     */
+    public CompactColumn getColumn(ColumnInfo columnInfo) {
+        if (columnInfo == null) {
+            String msg = "The argument 'columnInfo' should not be null.";
+            throw new IllegalArgumentException(msg);
+        }
+        final int columnIndex = getDBMeta().getColumnInfoList().indexOf(columnInfo);
+        if (columnIndex < 0) {
+            String msg = "The column is not in the table: " + columnInfo + ", table=" + getDBMeta().getTableDbName();
+            throw new IllegalArgumentException(msg);
+        }
+        return _columns[columnIndex];
+    }
+
+    // ===================================================================================
+    //                                                                            Accessor
+    //                                                                            ========
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    public DBMeta getDBMeta() {
+        if (_dbmeta == null) { // after deserialization
+            _dbmeta = ((Entity) DfReflectionUtil.newInstance(_entityType)).getDBMeta();
+        }
+        return _dbmeta;
+    }
+
+    public Class<? extends ENTITY> getEntityType() {
+        return _entityType;
+    }
+}
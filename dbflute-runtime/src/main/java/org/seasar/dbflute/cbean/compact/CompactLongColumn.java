@@ -0,0 +1,105 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.cbean.compact;
+
+import java.math.BigDecimal;
+
+/**
+ * The column store of compact result for Long values by long array.
+ * @author jflute
+ * @since 1.0.5N (2014/12/20 Saturday)
+ */
+public class CompactLongColumn extends CompactColumn {
+
+    // ===================================================================================
+    //                                                                          Definition
+    //                                                                          ==========
+    /** Serial version UID. (Default) */
+    private static final long serialVersionUID = 1L;
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    /** The array of values, null row has default value. (NullAllowed: until first non-null value) */
+    protected long[] _values;
+
+    // ===================================================================================
+    //                                                                     Primitive Value
+    //                                                                     ===============
+    /**
+     * Get the value of the row as primitive value.
+     * @param rowIndex The index of row. (NotMinus, LessThanSize)
+     * @return The value of the column. (zero if null so check isNull() if needed)
+     */
+    public long getLong(int rowIndex) {
+        assertRowIndex(rowIndex);
+        return _nullBits.get(rowIndex) ? 0 : _values[rowIndex];
+    }
+
+    @Override
+    public BigDecimal sum() {
+        BigDecimal total = BigDecimal.ZERO;
+        long partial = 0;
+        for (int i = 0; i < _size; i++) {
+            if (_nullBits.get(i)) {
+                continue;
+            }
+            final long value = _values[i];
+            final long added = partial + value;
+            if (((partial ^ added) & (value ^ added)) < 0) { // overflow
+                total = total.add(BigDecimal.valueOf(partial));
+                partial = value;
+            } else {
+                partial = added;
+            }
+        }
+        return total.add(BigDecimal.valueOf(partial));
+    }
+
+    // ===================================================================================
+    //                                                                       Value Storage
+    //                                                                       =============
+    @Override
+    protected void ensureCapacity(int minCapacity) {
+        final int currentCapacity = _values != null ? _values.length : 0;
+        if (minCapacity > currentCapacity) {
+            final long[] newValues = new long[calculateNewCapacity(currentCapacity, minCapacity)];
+            if (_values != null) {
+                System.arraycopy(_values, 0, newValues, 0, currentCapacity);
+            }
+            _values = newValues;
+        }
+    }
+
+    @Override
+    protected void doSet(int rowIndex, Object value) {
+        _values[rowIndex] = (Long) value;
+    }
+
+    @Override
+    protected Object doGet(int rowIndex) {
+        return _values[rowIndex];
+    }
+
+    @Override
+    public void trimToSize() {
+        if (_values != null && _values.length > _size) {
+            final long[] newValues = new long[_size];
+            System.arraycopy(_values, 0, newValues, 0, _size);
+            _values = newValues;
+        }
+    }
+}
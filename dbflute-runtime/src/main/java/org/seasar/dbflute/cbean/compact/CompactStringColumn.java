@@ -0,0 +1,121 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.cbean.compact;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The column store of compact result for String values by dictionary encoding. <br />
+ * Each row has the code of the dictionary so the same strings are kept once.
+ * @author jflute
+ * @since 1.0.5N (2014/12/20 Saturday)
+ */
+public class CompactStringColumn extends CompactColumn {
+
+    // ===================================================================================
+    //                                                                          Definition
+    //                                                                          ==========
+    /** Serial version UID. (Default) */
+    private static final long serialVersionUID = 1L;
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    /** The array of dictionary codes, null row has zero. (NullAllowed: until first non-null value) */
+    protected int[] _codes;
+
+    /** The list of distinct strings, the index is the code. (NotNull) */
+    protected final ArrayList<String> _dictionary = new ArrayList<String>();
+
+    /** The map of string to code for encoding. (NullAllowed: released at trimming, rebuilt when added again) */
+    protected transient Map<String, Integer> _codeMap = new HashMap<String, Integer>();
+
+    // ===================================================================================
+    //                                                                          Dictionary
+    //                                                                          ==========
+    /**
+     * Get the dictionary code of the row.
+     * @param rowIndex The index of row. (NotMinus, LessThanSize)
+     * @return The code of the dictionary. (minus one if null)
+     */
+    public int getCode(int rowIndex) {
+        assertRowIndex(rowIndex);
+        return _nullBits.get(rowIndex) ? -1 : _codes[rowIndex];
+    }
+
+    /**
+     * Get the count of distinct non-null strings in this column.
+     * @return The size of the dictionary.
+     */
+    public int getDictionarySize() {
+        return _dictionary.size();
+    }
+
+    protected int encode(String value) {
+        if (_codeMap == null) {
+            _codeMap = new HashMap<String, Integer>(_dictionary.size() * 2);
+            for (int i = 0; i < _dictionary.size(); i++) {
+                _codeMap.put(_dictionary.get(i), i);
+            }
+        }
+        final Integer code = _codeMap.get(value);
+        if (code != null) {
+            return code;
+        }
+        final int newCode = _dictionary.size();
+        _dictionary.add(value);
+        _codeMap.put(value, newCode);
+        return newCode;
+    }
+
+    // ===================================================================================
+    //                                                                       Value Storage
+    //                                                                       =============
+    @Override
+    protected void ensureCapacity(int minCapacity) {
+        final int currentCapacity = _codes != null ? _codes.length : 0;
+        if (minCapacity > currentCapacity) {
+            final int[] newCodes = new int[calculateNewCapacity(currentCapacity, minCapacity)];
+            if (_codes != null) {
+                System.arraycopy(_codes, 0, newCodes, 0, currentCapacity);
+            }
+            _codes = newCodes;
+        }
+    }
+
+    @Override
+    protected void doSet(int rowIndex, Object value) {
+        _codes[rowIndex] = encode((String) value);
+    }
+
+    @Override
+    protected Object doGet(int rowIndex) {
+        return _dictionary.get(_codes[rowIndex]);
+    }
+
+    @Override
+    public void trimToSize() {
+        if (_codes != null && _codes.length > _size) {
+            final int[] newCodes = new int[_size];
+            System.arraycopy(_codes, 0, newCodes, 0, _size);
+            _codes = newCodes;
+        }
+        _dictionary.trimToSize();
+        _codeMap = null; // only for encoding
+    }
+}
@@ -28,6 +28,10 @@ public class CursorSelectOption {
     protected boolean _byPaging;
     protected boolean _orderByPK;
     protected int _pageSize;
+    protected boolean _pipelined;
+    protected int _pipelineQueueSize;
+    protected int _pipelineWorkerCount;
+    protected int _pipelineBatchSize;
 
     // ===================================================================================
     //                                                                           by Paging
@@ -62,12 +66,60 @@ public class CursorSelectOption {
         return this;
     }
 
+    // ===================================================================================
+    //                                                                         by Pipeline
+    //                                                                         ===========
+    /**
+     * Handle rows on a worker thread while the current thread fetches and maps next rows. <br />
+     * The rows are handed off through a bounded queue, so fetching waits when handling is slow. <br />
+     * The entity row handler is executed outside of the current transaction.
+     * @param queueSize The max size of waiting rows in the queue. (NotMinus, NotZero)
+     * @return this. (NotNull)
+     */
+    public CursorSelectOption byPipeline(int queueSize) {
+        return byPipeline(queueSize, 1, 1);
+    }
+
+    /**
+     * Handle rows on worker threads while the current thread fetches and maps next rows. <br />
+     * The rows are handed off by the batch size through a bounded queue, so fetching waits when handling is slow. <br />
+     * The entity row handler is executed outside of the current transaction,
+     * and it should be thread-safe if two or more workers. (the order of rows is not kept then)
+     * @param queueSize The max size of waiting batches in the queue. (NotMinus, NotZero)
+     * @param workerCount The count of worker threads to handle rows. (NotMinus, NotZero)
+     * @param batchSize The count of rows in one hand-off. (NotMinus, NotZero)
+     * @return this. (NotNull)
+     */
+    public CursorSelectOption byPipeline(int queueSize, int workerCount, int batchSize) {
+        assertPlusNumber("queueSize", queueSize);
+        assertPlusNumber("workerCount", workerCount);
+        assertPlusNumber("batchSize", batchSize);
+        _pipelined = true;
+        _pipelineQueueSize = queueSize;
+        _pipelineWorkerCount = workerCount;
+        _pipelineBatchSize = batchSize;
+        return this;
+    }
+
+    protected void assertPlusNumber(String name, int value) {
+        if (value <= 0) {
+            String msg = "The argument '" + name + "' should be plus: " + value;
+            throw new IllegalArgumentException(msg);
+        }
+    }
+
     // ===================================================================================
     //                                                                      Basic Override
     //                                                                      ==============
     @Override
     public String toString() {
-        return "{" + _byPaging + ", " + _orderByPK + ", " + _pageSize + "}";
+        final String pipelineExp;
+        if (_pipelined) {
+            pipelineExp = ", pipeline(" + _pipelineQueueSize + ", " + _pipelineWorkerCount + ", " + _pipelineBatchSize + ")";
+        } else {
+            pipelineExp = "";
+        }
+        return "{" + _byPaging + ", " + _orderByPK + ", " + _pageSize + pipelineExp + "}";
     }
 
     // ===================================================================================
@@ -84,4 +136,20 @@ public class CursorSelectOption {
     public int getPageSize() {
         return _pageSize;
     }
+
+    public boolean isPipelined() {
+        return _pipelined;
+    }
+
+    public int getPipelineQueueSize() {
+        return _pipelineQueueSize;
+    }
+
+    public int getPipelineWorkerCount() {
+        return _pipelineWorkerCount;
+    }
+
+    public int getPipelineBatchSize() {
+        return _pipelineBatchSize;
+    }
 }
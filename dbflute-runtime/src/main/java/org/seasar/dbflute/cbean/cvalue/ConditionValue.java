@@ -468,6 +468,7 @@ public class ConditionValue implements Serializable {
     public void setupLikeSearch(String value, final LikeSearchOption option, String location) {
         final String key = getLikeSearchValueHandler().setValue(option.generateRealValue(value));
         _likeSearchLatestLocation = location + "." + key;
+        registerLikeSearchOption(key, option);
     }
 
     /**
@@ -500,6 +501,7 @@ public class ConditionValue implements Serializable {
     public void setupNotLikeSearch(String value, final LikeSearchOption option, String location) {
         final String key = getNotLikeSearchValueHandler().setValue(option.generateRealValue(value));
         _notLikeSearchLatestLocation = location + "." + key;
+        registerLikeSearchOption(key, option);
     }
 
     /**
@@ -510,6 +512,28 @@ public class ConditionValue implements Serializable {
         return _notLikeSearchLatestLocation;
     }
 
+    // -----------------------------------------------------
+    //                                    Like Search Option
+    //                                    ------------------
+    protected transient Map<String, LikeSearchOption> _likeSearchOptionMap; // not serializable option
+
+    protected void registerLikeSearchOption(String key, LikeSearchOption option) {
+        if (_likeSearchOptionMap == null) {
+            _likeSearchOptionMap = new HashMap<String, LikeSearchOption>(2);
+        }
+        _likeSearchOptionMap.put(key, option);
+    }
+
+    /**
+     * Find the option of (not) like-search by the key of the value. <br />
+     * Basically for condition-bean template to convert re-bound values.
+     * @param key The key of the varying value, e.g. varying.likeSearch.likeSearch0 (NotNull)
+     * @return The option of (not) like-search for the value. (NullAllowed: when not found)
+     */
+    public LikeSearchOption findLikeSearchOption(String key) {
+        return _likeSearchOptionMap != null ? _likeSearchOptionMap.get(key) : null;
+    }
+
     // ===================================================================================
     //                                                                         Is Not Null
     //                                                                         ===========
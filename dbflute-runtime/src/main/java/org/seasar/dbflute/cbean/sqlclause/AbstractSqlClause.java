@@ -29,7 +29,9 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.StringTokenizer;
 
+import org.seasar.dbflute.Entity;
 import org.seasar.dbflute.cbean.ConditionBean;
+import org.seasar.dbflute.cbean.KeysetPagingToken;
 import org.seasar.dbflute.cbean.ManualOrderBean;
 import org.seasar.dbflute.cbean.chelper.HpCBPurpose;
 import org.seasar.dbflute.cbean.chelper.HpCalcSpecification;
@@ -61,6 +63,7 @@ import org.seasar.dbflute.cbean.sqlclause.query.QueryClause;
 import org.seasar.dbflute.cbean.sqlclause.query.QueryClauseFilter;
 import org.seasar.dbflute.cbean.sqlclause.query.QueryUsedAliasInfo;
 import org.seasar.dbflute.cbean.sqlclause.query.StringQueryClause;
+import org.seasar.dbflute.cbean.sqlclause.select.SelectClauseFragment;
 import org.seasar.dbflute.cbean.sqlclause.select.SelectedRelationColumn;
 import org.seasar.dbflute.cbean.sqlclause.select.SpecifiedSelectColumnHandler;
 import org.seasar.dbflute.cbean.sqlclause.subquery.SubQueryIndentProcessor;
@@ -76,6 +79,7 @@ import org.seasar.dbflute.dbway.DBWay;
 import org.seasar.dbflute.exception.IllegalConditionBeanOperationException;
 import org.seasar.dbflute.exception.factory.ExceptionMessageBuilder;
 import org.seasar.dbflute.helper.StringKeyMap;
+import org.seasar.dbflute.helper.cache.BoundedConcurrentCache;
 import org.seasar.dbflute.resource.DBFluteSystem;
 import org.seasar.dbflute.util.DfAssertUtil;
 import org.seasar.dbflute.util.Srl;
@@ -95,6 +99,13 @@ public abstract class AbstractSqlClause implements SqlClause, Serializable {
     protected static final SelectClauseType DEFAULT_SELECT_CLAUSE_TYPE = SelectClauseType.COLUMNS;
     protected static final String SELECT_HINT = "/*$pmb.selectHint*/";
 
+    /** The max size of select clause fragment cache. */
+    protected static final int SELECT_CLAUSE_FRAGMENT_CACHE_SIZE = 1000;
+
+    /** The cache of select clause fragment keyed by shape of select, shared in all clauses. (NotNull) */
+    protected static final BoundedConcurrentCache<String, SelectClauseFragment> _selectClauseFragmentCache =
+            new BoundedConcurrentCache<String, SelectClauseFragment>(SELECT_CLAUSE_FRAGMENT_CACHE_SIZE);
+
     // ===================================================================================
     //                                                                           Attribute
     //                                                                           =========
@@ -242,6 +253,9 @@ public abstract class AbstractSqlClause implements SqlClause, Serializable {
     /** Is fetch-narrowing effective? Default value is false but true when registered. */
     protected boolean _fetchScopeEffective;
 
+    /** Is keyset paging effective? Default value is false but true when registered. */
+    protected boolean _keysetPagingEffective;
+
     // -----------------------------------------------------
     //                                          OrScopeQuery
     //                                          ------------
@@ -581,6 +595,30 @@ public abstract class AbstractSqlClause implements SqlClause, Serializable {
             return buildSelectClauseScalar(specifiedColumnTableAliasName);
         }
         // if it's a scalar-select, it always has union-query since here
+        final String fragmentKey = buildSelectClauseFragmentKey(); // null if no cache
+        if (fragmentKey == null) {
+            return doBuildSelectClause();
+        }
+        final SelectClauseFragment cachedFragment = _selectClauseFragmentCache.get(fragmentKey);
+        if (cachedFragment != null) {
+            reflectSelectClauseFragment(cachedFragment);
+            return cachedFragment.getSelectClause();
+        }
+        final Map<String, String> previousRealColumnAliasMap = _selectClauseRealColumnAliasMap;
+        _selectClauseRealColumnAliasMap = null; // to collect aliases of this select clause only
+        final String selectClause = doBuildSelectClause();
+        final Map<String, String> realColumnAliasMap = _selectClauseRealColumnAliasMap;
+        if (previousRealColumnAliasMap != null) {
+            if (realColumnAliasMap != null) {
+                previousRealColumnAliasMap.putAll(realColumnAliasMap);
+            }
+            _selectClauseRealColumnAliasMap = previousRealColumnAliasMap;
+        }
+        _selectClauseFragmentCache.put(fragmentKey, createSelectClauseFragment(selectClause, realColumnAliasMap));
+        return selectClause;
+    }
+
+    protected String doBuildSelectClause() {
         final StringBuilder sb = new StringBuilder();
 
         clearSelectIndex(); // suppress duplicate registration
@@ -757,6 +795,113 @@ public abstract class AbstractSqlClause implements SqlClause, Serializable {
         return selectIndex;
     }
 
+    // -----------------------------------------------------
+    //                                        Fragment Cache
+    //                                        --------------
+    /**
+     * Build the key of select clause fragment by the shape of select. <br />
+     * The shape is table, sub-query level, selected relations, specified columns and deriving sub-queries,
+     * which determine the select clause and the select index maps.
+     * @return The key of fragment cache. (NullAllowed: if null, no cache)
+     */
+    protected String buildSelectClauseFragmentKey() {
+        if (!isSelectClauseFragmentCacheEnabled()) {
+            return null;
+        }
+        if (isSelectClauseTypeScalar() || _dbmeta == null) {
+            return null;
+        }
+        if (_selectColumnCipherEffective && _gearedCipherManager != null) {
+            return null; // decrypted expressions depend on the cipher manager
+        }
+        final StringBuilder sb = new StringBuilder(128);
+        sb.append(getClass().getName()).append(":").append(_dbmeta.getClass().getName());
+        sb.append(":").append(getBasePointAliasName());
+        sb.append(":").append(_useSelectIndex).append(":").append(_pkOnlySelectForcedlyEnabled);
+        sb.append(":").append(hasUnionQuery()).append(":").append(_aliasNameLimitSize);
+        if (_selectedRelationColumnMap != null) {
+            for (String tableAliasName : _selectedRelationColumnMap.keySet()) {
+                sb.append("|r:").append(tableAliasName);
+            }
+        }
+        if (_specifiedSelectColumnMap != null) {
+            for (Entry<String, Map<String, HpSpecifiedColumn>> entry : _specifiedSelectColumnMap.entrySet()) {
+                sb.append("|s:").append(entry.getKey()).append(entry.getValue().keySet());
+            }
+        }
+        if (_specifiedDerivingSubQueryMap != null) {
+            for (Entry<String, HpDerivingSubQueryInfo> entry : _specifiedDerivingSubQueryMap.entrySet()) {
+                final String subQueryAlias = entry.getKey();
+                sb.append("|d:").append(subQueryAlias).append("=").append(entry.getValue().getDerivingSubQuery());
+                if (_pkOnlySelectForcedlyEnabled) {
+                    sb.append(":").append(isSpecifiedDerivedOrderBy(subQueryAlias));
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    protected boolean isSelectClauseFragmentCacheEnabled() { // for extension
+        return true; // true as default
+    }
+
+    protected SelectClauseFragment createSelectClauseFragment(String selectClause, Map<String, String> realColumnAliasMap) {
+        Map<String, Map<String, String>> specifiedOnQueryNameMap = null;
+        if (_specifiedSelectColumnMap != null) {
+            for (Entry<String, Map<String, HpSpecifiedColumn>> entry : _specifiedSelectColumnMap.entrySet()) {
+                for (HpSpecifiedColumn specifiedColumn : entry.getValue().values()) {
+                    final String onQueryName = specifiedColumn.getOnQueryName();
+                    if (onQueryName == null) {
+                        continue;
+                    }
+                    if (specifiedOnQueryNameMap == null) {
+                        specifiedOnQueryNameMap = new HashMap<String, Map<String, String>>();
+                    }
+                    Map<String, String> elementMap = specifiedOnQueryNameMap.get(entry.getKey());
+                    if (elementMap == null) {
+                        elementMap = new HashMap<String, String>();
+                        specifiedOnQueryNameMap.put(entry.getKey(), elementMap);
+                    }
+                    elementMap.put(specifiedColumn.getColumnDbName(), onQueryName);
+                }
+            }
+        }
+        final Map<String, String> fragmentAliasMap; // copied because the instance map is modified after this
+        if (realColumnAliasMap != null) {
+            fragmentAliasMap = Collections.unmodifiableMap(new HashMap<String, String>(realColumnAliasMap));
+        } else {
+            fragmentAliasMap = null;
+        }
+        return new SelectClauseFragment(selectClause, _selectIndexMap, _selectColumnKeyNameMap, fragmentAliasMap,
+                specifiedOnQueryNameMap);
+    }
+
+    protected void reflectSelectClauseFragment(SelectClauseFragment fragment) {
+        _selectIndexMap = fragment.getSelectIndexMap(); // shared as read-only
+        _selectColumnKeyNameMap = fragment.getSelectColumnKeyNameMap(); // me too
+        final Map<String, String> realColumnAliasMap = fragment.getRealColumnAliasMap();
+        if (realColumnAliasMap != null) {
+            getSelectClauseRealColumnAliasMap().putAll(realColumnAliasMap);
+        }
+        final Map<String, Map<String, String>> specifiedOnQueryNameMap = fragment.getSpecifiedOnQueryNameMap();
+        if (specifiedOnQueryNameMap != null) { // means specified columns exist
+            for (Entry<String, Map<String, String>> entry : specifiedOnQueryNameMap.entrySet()) {
+                final Map<String, HpSpecifiedColumn> elementMap = _specifiedSelectColumnMap.get(entry.getKey());
+                for (Entry<String, String> onQueryEntry : entry.getValue().entrySet()) {
+                    elementMap.get(onQueryEntry.getKey()).setOnQueryName(onQueryEntry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the cache of select clause fragment, e.g. for statistics.
+     * @return The cache shared in all clauses. (NotNull)
+     */
+    public static BoundedConcurrentCache<String, SelectClauseFragment> getSelectClauseFragmentCache() {
+        return _selectClauseFragmentCache;
+    }
+
     protected Map<String, String> getSelectClauseRealColumnAliasMap() {
         if (_selectClauseRealColumnAliasMap == null) {
             _selectClauseRealColumnAliasMap = new HashMap<String, String>(); // order no needed
@@ -2575,6 +2720,159 @@ public abstract class AbstractSqlClause implements SqlClause, Serializable {
 
     protected abstract String createSqlSuffix();
 
+    // ===================================================================================
+    //                                                                       Keyset Paging
+    //                                                                       =============
+    /**
+     * {@inheritDoc}
+     */
+    public void registerKeysetPaging(KeysetPagingToken token) {
+        final List<OrderByElement> elementList = extractKeysetPagingElementList();
+        if (token != null) {
+            assertKeysetPagingTokenMatched(elementList, token);
+            final String clause = buildKeysetPagingCondition(elementList, token.getKeyValueList());
+            registerWhereClause(clause, getBasePointAliasName(), true); // base table columns only
+        }
+        _keysetPagingEffective = true;
+    }
+
+    protected List<OrderByElement> extractKeysetPagingElementList() {
+        final List<OrderByElement> elementList = getOrderByComponent().getOrderByList();
+        if (elementList.isEmpty()) {
+            String msg = "The keyset paging needs order-by registered ahead: table=" + _tableDbName;
+            throw new IllegalConditionBeanOperationException(msg);
+        }
+        final String basePointAliasName = getBasePointAliasName();
+        final Set<String> orderColumnSet = new HashSet<String>();
+        for (OrderByElement element : elementList) {
+            final ColumnInfo columnInfo = element.getColumnInfo();
+            if (element.isDerivedOrderBy() || element.getManualOrderBean() != null || columnInfo == null
+                    || !basePointAliasName.equals(element.getAliasName()) || findColumnFunctionCipher(columnInfo) != null) {
+                String msg = "The keyset paging supports only plain order-by of base table columns: " + element;
+                throw new IllegalConditionBeanOperationException(msg);
+            }
+            if (!columnInfo.isPrimary() && !columnInfo.isNotNull()) { // cannot seek after null value
+                String msg = "The keyset paging supports only not-null columns or primary key: " + element;
+                throw new IllegalConditionBeanOperationException(msg);
+            }
+            orderColumnSet.add(columnInfo.getColumnDbName());
+        }
+        final DBMeta dbmeta = getDBMeta();
+        boolean unique = dbmeta.hasPrimaryKey();
+        if (unique) {
+            for (ColumnInfo pkInfo : dbmeta.getPrimaryUniqueInfo().getUniqueColumnList()) {
+                if (!orderColumnSet.contains(pkInfo.getColumnDbName())) {
+                    unique = false;
+                    break;
+                }
+            }
+        }
+        if (!unique) { // cannot seek exactly if duplicate values exist
+            String msg = "The keyset paging needs unique order-by that contains primary key: orderBy=" + elementList;
+            throw new IllegalConditionBeanOperationException(msg);
+        }
+        return elementList;
+    }
+
+    protected List<String> extractKeysetPagingColumnList(List<OrderByElement> elementList) {
+        final List<String> columnList = new ArrayList<String>(elementList.size());
+        for (OrderByElement element : elementList) {
+            columnList.add(element.getColumnFullName() + " " + element.getAscDesc()); // e.g. dfloc.MEMBER_ID asc
+        }
+        return columnList;
+    }
+
+    protected void assertKeysetPagingTokenMatched(List<OrderByElement> elementList, KeysetPagingToken token) {
+        final List<String> columnList = extractKeysetPagingColumnList(elementList);
+        if (!columnList.equals(token.getOrderColumnList())) {
+            String msg = "The token of keyset paging does not match with the order-by:";
+            msg = msg + " orderBy=" + columnList + " token=" + token;
+            throw new IllegalArgumentException(msg);
+        }
+    }
+
+    protected String buildKeysetPagingCondition(List<OrderByElement> elementList, List<Object> keyValueList) {
+        final List<String> bindExpList = new ArrayList<String>(keyValueList.size());
+        for (Object keyValue : keyValueList) {
+            bindExpList.add(registerFreeParameterToThemeList("keyset", keyValue));
+        }
+        final StringBuilder sb = new StringBuilder();
+        if (isKeysetPagingRowValueAvailable(elementList)) {
+            // e.g. (dfloc.BIRTHDATE, dfloc.MEMBER_ID) > (?, ?)
+            final StringBuilder valueSb = new StringBuilder();
+            sb.append("(");
+            valueSb.append("(");
+            for (int i = 0; i < elementList.size(); i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                    valueSb.append(", ");
+                }
+                sb.append(elementList.get(i).getColumnFullName());
+                valueSb.append(bindExpList.get(i));
+            }
+            sb.append(")").append(elementList.get(0).isAsc() ? " > " : " < ");
+            sb.append(valueSb).append(")");
+            return sb.toString();
+        }
+        // e.g. (dfloc.BIRTHDATE < ? or (dfloc.BIRTHDATE = ? and dfloc.MEMBER_ID > ?))
+        sb.append("(");
+        for (int i = 0; i < elementList.size(); i++) {
+            if (i > 0) {
+                sb.append(" or (");
+                for (int j = 0; j < i; j++) {
+                    sb.append(elementList.get(j).getColumnFullName()).append(" = ").append(bindExpList.get(j));
+                    sb.append(" and ");
+                }
+            }
+            final OrderByElement element = elementList.get(i);
+            sb.append(element.getColumnFullName()).append(element.isAsc() ? " > " : " < ").append(bindExpList.get(i));
+            if (i > 0) {
+                sb.append(")");
+            }
+        }
+        sb.append(")");
+        return sb.toString();
+    }
+
+    protected boolean isKeysetPagingRowValueAvailable(List<OrderByElement> elementList) {
+        if (elementList.size() < 2 || !dbway().isRowValueComparisonSupported()) {
+            return false;
+        }
+        final boolean firstAsc = elementList.get(0).isAsc();
+        for (OrderByElement element : elementList) {
+            if (element.isAsc() != firstAsc) { // mixed direction cannot be row value
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isKeysetPagingEffective() {
+        return _keysetPagingEffective;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public KeysetPagingToken buildKeysetPagingToken(Entity lastEntity) {
+        assertObjectNotNull("lastEntity", lastEntity);
+        final List<OrderByElement> elementList = getOrderByComponent().getOrderByList();
+        final List<Object> keyValueList = new ArrayList<Object>(elementList.size());
+        for (OrderByElement element : elementList) {
+            final Object keyValue = element.getColumnInfo().read(lastEntity);
+            if (keyValue == null) { // the seek condition cannot handle null
+                String msg = "The keyset paging cannot seek after null value:";
+                msg = msg + " column=" + element.getColumnFullName() + " entity=" + lastEntity;
+                throw new IllegalStateException(msg);
+            }
+            keyValueList.add(keyValue);
+        }
+        return new KeysetPagingToken(extractKeysetPagingColumnList(elementList), keyValueList);
+    }
+
     // ===================================================================================
     //                                                                     Fetch Narrowing
     //                                                                     ===============
@@ -18,6 +18,8 @@ package org.seasar.dbflute.cbean.sqlclause;
 import java.util.List;
 import java.util.Map;
 
+import org.seasar.dbflute.Entity;
+import org.seasar.dbflute.cbean.KeysetPagingToken;
 import org.seasar.dbflute.cbean.ManualOrderBean;
 import org.seasar.dbflute.cbean.chelper.HpCBPurpose;
 import org.seasar.dbflute.cbean.chelper.HpDerivingSubQueryInfo;
@@ -726,6 +728,30 @@ public interface SqlClause {
      */
     boolean isFetchSizeSupported();
 
+    // ===================================================================================
+    //                                                                       Keyset Paging
+    //                                                                       =============
+    /**
+     * Register keyset paging by the current order-by columns. <br />
+     * The order-by should be registered ahead and it should contain all primary keys of base table
+     * to be unique order. The condition that seeks after the token's values is added to where clause.
+     * @param token The continuation token from the previous page. (NullAllowed: if null, first page)
+     */
+    void registerKeysetPaging(KeysetPagingToken token);
+
+    /**
+     * Is keyset paging effective?
+     * @return The determination, true or false.
+     */
+    boolean isKeysetPagingEffective();
+
+    /**
+     * Build the continuation token of keyset paging from the last entity of the current page.
+     * @param lastEntity The last entity of the selected list. (NotNull)
+     * @return The token for the next page. (NotNull)
+     */
+    KeysetPagingToken buildKeysetPagingToken(Entity lastEntity);
+
     // ===================================================================================
     //                                                                     Fetch Narrowing
     //                                                                     ===============
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.cbean.sqlclause.select;
+
+import java.util.Map;
+
+/**
+ * The fragment of built select clause, cached by the shape of select (table, relations, specified columns). <br />
+ * The maps are shared with condition-beans of the same shape so they should be treated as read-only.
+ * @author jflute
+ * @since 1.0.5N (2014/12/16 Tuesday)
+ */
+public class SelectClauseFragment {
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    protected final String _selectClause;
+    protected final Map<String, Map<String, Integer>> _selectIndexMap; // null allowed
+    protected final Map<String, String> _selectColumnKeyNameMap; // null allowed
+    protected final Map<String, String> _realColumnAliasMap; // null allowed
+    protected final Map<String, Map<String, String>> _specifiedOnQueryNameMap; // null allowed
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    /**
+     * @param selectClause The built select clause. (NotNull)
+     * @param selectIndexMap The map of select index. map:{entityNo = map:{selectColumnKeyName = selectIndex}} (NullAllowed)
+     * @param selectColumnKeyNameMap The map of select column key name. map:{onQueryAlias = selectColumnKeyName} (NullAllowed)
+     * @param realColumnAliasMap The map of real column and alias. map:{realColumnName = aliasName} (NullAllowed)
+     * @param specifiedOnQueryNameMap The map of on-query name for specified columns. map:{tableAliasName = map:{columnName = onQueryName}} (NullAllowed)
+     */
+    public SelectClauseFragment(String selectClause, Map<String, Map<String, Integer>> selectIndexMap,
+            Map<String, String> selectColumnKeyNameMap, Map<String, String> realColumnAliasMap,
+            Map<String, Map<String, String>> specifiedOnQueryNameMap) {
+        _selectClause = selectClause;
+        _selectIndexMap = selectIndexMap;
+        _selectColumnKeyNameMap = selectColumnKeyNameMap;
+        _realColumnAliasMap = realColumnAliasMap;
+        _specifiedOnQueryNameMap = specifiedOnQueryNameMap;
+    }
+
+    // ===================================================================================
+    //                                                                            Accessor
+    //                                                                            ========
+    public String getSelectClause() {
+        return _selectClause;
+    }
+
+    public Map<String, Map<String, Integer>> getSelectIndexMap() {
+        return _selectIndexMap;
+    }
+
+    public Map<String, String> getSelectColumnKeyNameMap() {
+        return _selectColumnKeyNameMap;
+    }
+
+    public Map<String, String> getRealColumnAliasMap() {
+        return _realColumnAliasMap;
+    }
+
+    public Map<String, Map<String, String>> getSpecifiedOnQueryNameMap() {
+        return _specifiedOnQueryNameMap;
+    }
+}
@@ -27,6 +27,7 @@ import org.seasar.dbflute.FunCustodial;
 import org.seasar.dbflute.dbmeta.accessory.DerivedMappable;
 import org.seasar.dbflute.dbmeta.accessory.EntityDerivedMap;
 import org.seasar.dbflute.dbmeta.accessory.EntityModifiedProperties;
+import org.seasar.dbflute.dbmeta.accessory.EntityPropertyIndex;
 import org.seasar.dbflute.dbmeta.accessory.EntityUniqueDrivenProperties;
 import org.seasar.dbflute.jdbc.ClassificationMeta;
 import org.seasar.dbflute.optional.OptionalProperty;
@@ -136,7 +137,7 @@ public abstract class AbstractEntity implements Entity, DerivedMappable, Seriali
     }
 
     protected EntityModifiedProperties newModifiedProperties() {
-        return new EntityModifiedProperties();
+        return new EntityModifiedProperties(mypropertyIndex());
     }
 
     protected void registerModifiedProperty(String propertyName) {
@@ -144,6 +145,22 @@ public abstract class AbstractEntity implements Entity, DerivedMappable, Seriali
         registerSpecifiedProperty(propertyName); // synchronize if exists, basically for user's manual call
     }
 
+    protected void registerModifiedProperty(int propertyIndex, String propertyName) { // called by generated setter
+        __modifiedProperties.addPropertyIndex(propertyIndex, propertyName);
+        if (__specifiedProperties != null) { // normally false, true if e.g. setting after selected
+            __specifiedProperties.addPropertyIndex(propertyIndex, propertyName);
+        }
+    }
+
+    /**
+     * Get the index of properties for bitmask of modified (specified, unique-driven) properties. <br />
+     * It should be shared per entity type, and same order as column order of the DB meta.
+     * @return The index of properties. (NullAllowed: if null, properties are kept by name)
+     */
+    protected EntityPropertyIndex mypropertyIndex() {
+        return null; // as default (overridden by generated entity)
+    }
+
     // -----------------------------------------------------
     //                                             Specified
     //                                             ---------
@@ -190,7 +207,7 @@ public abstract class AbstractEntity implements Entity, DerivedMappable, Seriali
     }
 
     protected EntityUniqueDrivenProperties newUniqueDrivenProperties() {
-        return new EntityUniqueDrivenProperties();
+        return new EntityUniqueDrivenProperties(mypropertyIndex());
     }
 
     // ===================================================================================
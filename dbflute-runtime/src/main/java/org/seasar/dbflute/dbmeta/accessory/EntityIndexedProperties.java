@@ -0,0 +1,341 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.dbmeta.accessory;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The set of entity properties as bitmask keyed by the index of property. (basically for Framework) <br />
+ * Properties in the index are kept as bits of long values (no hashing when registered by index),
+ * and others (or all if no index) are kept as property names. The set of names is provided as read-only view.
+ * @author jflute
+ * @since 1.0.5N (2014/12/19 Friday)
+ */
+public class EntityIndexedProperties implements Serializable {
+
+    // ===================================================================================
+    //                                                                          Definition
+    //                                                                          ==========
+    /** The serial version UID for object serialization. (Default) */
+    private static final long serialVersionUID = 1L;
+
+    protected static final int BITS_PER_WORD = 64;
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    /** The index of properties shared per entity type. (NullAllowed: if null, name-based only) */
+    protected final EntityPropertyIndex _propertyIndex;
+
+    /** The bitmask of properties whose index is less than 64. */
+    protected long _propertyBits;
+
+    /** The bitmask of properties whose index is 64 or more. (NullAllowed: lazy-loaded) */
+    protected long[] _extraPropertyBits;
+
+    /** The set of property names not in the index. (NullAllowed: lazy-loaded) */
+    protected Set<String> _propertyNameSet;
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    /**
+     * Constructor for name-based properties.
+     */
+    public EntityIndexedProperties() {
+        this(null);
+    }
+
+    /**
+     * @param propertyIndex The index of properties shared per entity type. (NullAllowed: if null, name-based only)
+     */
+    public EntityIndexedProperties(EntityPropertyIndex propertyIndex) {
+        _propertyIndex = propertyIndex;
+    }
+
+    // ===================================================================================
+    //                                                                        Registration
+    //                                                                        ============
+    /**
+     * Add property name. (according to Java Beans rule)
+     * @param propertyName The string for name. (NotNull)
+     */
+    public void addPropertyName(String propertyName) {
+        final int index = findIndex(propertyName);
+        if (index >= 0) {
+            setBit(index);
+        } else {
+            getPropertyNameSet().add(propertyName);
+        }
+    }
+
+    /**
+     * Add property by the index. (fast path for generated entity)
+     * @param index The index of the property in the property index. (NotMinus)
+     * @param propertyName The string for name used if no index. (NotNull)
+     */
+    public void addPropertyIndex(int index, String propertyName) {
+        if (_propertyIndex != null) {
+            setBit(index);
+        } else {
+            getPropertyNameSet().add(propertyName);
+        }
+    }
+
+    /**
+     * Remove property name from the set. (according to Java Beans rule)
+     * @param propertyName The string for name. (NotNull)
+     */
+    public void remove(String propertyName) {
+        final int index = findIndex(propertyName);
+        if (index >= 0) {
+            clearBit(index);
+        } else if (_propertyNameSet != null) {
+            _propertyNameSet.remove(propertyName);
+        }
+    }
+
+    /**
+     * Clear the set of properties.
+     */
+    public void clear() {
+        _propertyBits = 0L;
+        _extraPropertyBits = null;
+        if (_propertyNameSet != null) {
+            _propertyNameSet.clear();
+        }
+    }
+
+    /**
+     * Accept the properties. (after clearing this properties)
+     * @param properties The properties as copy-resource. (NotNull)
+     */
+    protected void doAccept(EntityIndexedProperties properties) {
+        clear();
+        if (_propertyIndex != null && _propertyIndex == properties._propertyIndex) { // same entity type
+            _propertyBits = properties._propertyBits;
+            _extraPropertyBits = properties._extraPropertyBits != null ? properties._extraPropertyBits.clone() : null;
+            if (properties._propertyNameSet != null && !properties._propertyNameSet.isEmpty()) {
+                getPropertyNameSet().addAll(properties._propertyNameSet);
+            }
+        } else {
+            for (String propertyName : properties.getPropertyNames()) {
+                addPropertyName(propertyName);
+            }
+        }
+    }
+
+    // ===================================================================================
+    //                                                                       Determination
+    //                                                                       =============
+    /**
+     * Does the set contain the property?
+     * @param propertyName The name of property. (NotNull)
+     * @return The determination, true or false.
+     */
+    public boolean containsProperty(String propertyName) {
+        final int index = findIndex(propertyName);
+        if (index >= 0) {
+            return hasBit(index);
+        }
+        return _propertyNameSet != null && _propertyNameSet.contains(propertyName);
+    }
+
+    /**
+     * Does the set contain the property of the index?
+     * @param index The index of the property in the property index. (NotMinus)
+     * @return The determination, true or false.
+     */
+    public boolean containsPropertyIndex(int index) {
+        return hasBit(index);
+    }
+
+    /**
+     * Is the set of properties empty?
+     * @return The determination, true or false.
+     */
+    public boolean isEmpty() {
+        return countBits() == 0 && (_propertyNameSet == null || _propertyNameSet.isEmpty());
+    }
+
+    /**
+     * Get the count of properties.
+     * @return The count of properties. (NotMinus)
+     */
+    public int size() {
+        return countBits() + (_propertyNameSet != null ? _propertyNameSet.size() : 0);
+    }
+
+    // ===================================================================================
+    //                                                                       Name Set View
+    //                                                                       =============
+    /**
+     * Get the set of properties as read-only view. <br />
+     * The properties in the index are iterated in order of the index, and others after them.
+     * @return The view of property names, read-only. (NotNull)
+     */
+    public Set<String> getPropertyNames() {
+        return new PropertyNameSetView();
+    }
+
+    protected class PropertyNameSetView extends AbstractSet<String> implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Iterator<String> iterator() {
+            return new PropertyNameIterator();
+        }
+
+        @Override
+        public int size() {
+            return EntityIndexedProperties.this.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return EntityIndexedProperties.this.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String && containsProperty((String) o);
+        }
+    }
+
+    protected class PropertyNameIterator implements Iterator<String> {
+
+        protected int _nextIndex = findNextBit(0); // -1 if no more bits
+        protected final Iterator<String> _nameIterator = _propertyNameSet != null ? _propertyNameSet.iterator() : null;
+
+        public boolean hasNext() {
+            return _nextIndex >= 0 || (_nameIterator != null && _nameIterator.hasNext());
+        }
+
+        public String next() {
+            if (_nextIndex >= 0) {
+                final String propertyName = _propertyIndex.getPropertyName(_nextIndex);
+                _nextIndex = findNextBit(_nextIndex + 1);
+                return propertyName;
+            }
+            if (_nameIterator != null) {
+                return _nameIterator.next();
+            }
+            throw new NoSuchElementException();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("The set of properties is read-only.");
+        }
+    }
+
+    // ===================================================================================
+    //                                                                        Bit Handling
+    //                                                                        ============
+    protected int findIndex(String propertyName) {
+        return _propertyIndex != null ? _propertyIndex.findIndex(propertyName) : -1;
+    }
+
+    protected void setBit(int index) {
+        if (index < BITS_PER_WORD) {
+            _propertyBits |= (1L << index);
+            return;
+        }
+        final int wordIndex = (index / BITS_PER_WORD) - 1;
+        if (_extraPropertyBits == null) {
+            _extraPropertyBits = new long[(_propertyIndex.size() - 1) / BITS_PER_WORD];
+        }
+        _extraPropertyBits[wordIndex] |= (1L << (index % BITS_PER_WORD));
+    }
+
+    protected void clearBit(int index) {
+        if (index < BITS_PER_WORD) {
+            _propertyBits &= ~(1L << index);
+            return;
+        }
+        if (_extraPropertyBits != null) {
+            _extraPropertyBits[(index / BITS_PER_WORD) - 1] &= ~(1L << (index % BITS_PER_WORD));
+        }
+    }
+
+    protected boolean hasBit(int index) {
+        if (index < BITS_PER_WORD) {
+            return (_propertyBits & (1L << index)) != 0L;
+        }
+        if (_extraPropertyBits == null) {
+            return false;
+        }
+        return (_extraPropertyBits[(index / BITS_PER_WORD) - 1] & (1L << (index % BITS_PER_WORD))) != 0L;
+    }
+
+    protected int countBits() {
+        int count = Long.bitCount(_propertyBits);
+        if (_extraPropertyBits != null) {
+            for (long word : _extraPropertyBits) {
+                count += Long.bitCount(word);
+            }
+        }
+        return count;
+    }
+
+    protected int findNextBit(int fromIndex) {
+        if (_propertyIndex == null) {
+            return -1;
+        }
+        final int size = _propertyIndex.size();
+        for (int index = fromIndex; index < size; index++) {
+            if (hasBit(index)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    protected Set<String> getPropertyNameSet() {
+        if (_propertyNameSet == null) {
+            _propertyNameSet = new LinkedHashSet<String>(2);
+        }
+        return _propertyNameSet;
+    }
+
+    // ===================================================================================
+    //                                                                            Accessor
+    //                                                                            ========
+    /**
+     * Get the bitmask of properties whose index is less than 64. (basically for Framework)
+     * @return The bitmask keyed by the index of property (same as column position of DB meta).
+     */
+    public long getPropertyBits() {
+        return _propertyBits;
+    }
+
+    /**
+     * Get the bitmask of properties whose index is 64 or more. (basically for Framework)
+     * @return The copied array of bitmask, first element is for index 64 to 127. (NullAllowed: if no bits)
+     */
+    public long[] getExtraPropertyBits() {
+        return _extraPropertyBits != null ? _extraPropertyBits.clone() : null;
+    }
+
+    public EntityPropertyIndex getPropertyIndex() {
+        return _propertyIndex;
+    }
+}
@@ -15,43 +15,28 @@
  */
 package org.seasar.dbflute.dbmeta.accessory;
 
-import java.io.Serializable;
-import java.util.Collections;
-import java.util.LinkedHashSet;
-import java.util.Set;
-
-import org.seasar.dbflute.util.DfCollectionUtil;
-
 /**
- * The modified properties of entity. (basically for Framework)
+ * The modified properties of entity. (basically for Framework) <br />
+ * The properties are kept as bitmask if the entity provides its property index.
  * @author jflute
  * @since 1.1.0 (2014/10/29 Monday)
  */
-public class EntityModifiedProperties implements Serializable {
+public class EntityModifiedProperties extends EntityIndexedProperties {
 
     /** The serial version UID for object serialization. (Default) */
     private static final long serialVersionUID = 1L;
 
-    /** The set of property names. (NullAllowed: lazy-loaded) */
-    protected Set<String> _propertyNameSet;
-
     /**
-     * Add property name. (according to Java Beans rule)
-     * @param propertyName The string for name. (NotNull)
+     * Constructor for name-based properties.
      */
-    public void addPropertyName(String propertyName) {
-        getPropertyNameSet().add(propertyName);
+    public EntityModifiedProperties() {
     }
 
     /**
-     * Get the set of properties.
-     * @return The set of properties, read-only. (NotNull)
+     * @param propertyIndex The index of properties shared per entity type. (NullAllowed: if null, name-based only)
      */
-    public Set<String> getPropertyNames() {
-        if (_propertyNameSet != null) {
-            return Collections.unmodifiableSet(_propertyNameSet);
-        }
-        return DfCollectionUtil.emptySet();
+    public EntityModifiedProperties(EntityPropertyIndex propertyIndex) {
+        super(propertyIndex);
     }
 
     /**
@@ -60,34 +45,7 @@ public class EntityModifiedProperties implements Serializable {
      * @return The determination, true or false.
      */
     public boolean isModifiedProperty(String propertyName) {
-        return _propertyNameSet != null && _propertyNameSet.contains(propertyName);
-    }
-
-    /**
-     * Is the set of properties empty?
-     * @return The determination, true or false.
-     */
-    public boolean isEmpty() {
-        return _propertyNameSet == null || getPropertyNameSet().isEmpty();
-    }
-
-    /**
-     * Clear the set of properties.
-     */
-    public void clear() {
-        if (_propertyNameSet != null) {
-            getPropertyNameSet().clear();
-        }
-    }
-
-    /**
-     * Remove property name from the set. (according to Java Beans rule)
-     * @param propertyName The string for name. (NotNull)
-     */
-    public void remove(String propertyName) {
-        if (_propertyNameSet != null) {
-            getPropertyNameSet().remove(propertyName);
-        }
+        return containsProperty(propertyName);
     }
 
     /**
@@ -95,21 +53,11 @@ public class EntityModifiedProperties implements Serializable {
      * @param properties The properties as copy-resource. (NotNull)
      */
     public void accept(EntityModifiedProperties properties) {
-        clear();
-        for (String propertyName : properties.getPropertyNames()) {
-            addPropertyName(propertyName);
-        }
-    }
-
-    protected Set<String> getPropertyNameSet() {
-        if (_propertyNameSet == null) {
-            _propertyNameSet = new LinkedHashSet<String>();
-        }
-        return _propertyNameSet;
+        doAccept(properties);
     }
 
     @Override
     public String toString() {
-        return "modifiedProp:" + _propertyNameSet;
+        return "modifiedProp:" + getPropertyNames();
     }
 }
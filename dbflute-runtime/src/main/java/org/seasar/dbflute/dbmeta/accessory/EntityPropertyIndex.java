@@ -0,0 +1,100 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.dbmeta.accessory;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The index of entity properties for bitmask of modified (or specified, unique-driven) properties. <br />
+ * It is shared per entity type, and the order is same as column order of the DB meta.
+ * @author jflute
+ * @since 1.0.5N (2014/12/19 Friday)
+ */
+public class EntityPropertyIndex implements Serializable {
+
+    // ===================================================================================
+    //                                                                          Definition
+    //                                                                          ==========
+    /** The serial version UID for object serialization. (Default) */
+    private static final long serialVersionUID = 1L;
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    /** The array of property names, index is position of the column. (NotNull) */
+    protected final String[] _propertyNames;
+
+    /** The map of index, key is property name. (NotNull) */
+    protected final Map<String, Integer> _indexMap;
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    /**
+     * @param propertyNames The array of property names according to Java Beans rule, same order as columns. (NotNull)
+     */
+    public EntityPropertyIndex(String[] propertyNames) {
+        if (propertyNames == null) {
+            throw new IllegalArgumentException("The argument 'propertyNames' should not be null.");
+        }
+        _propertyNames = propertyNames;
+        _indexMap = new HashMap<String, Integer>(propertyNames.length * 2);
+        for (int i = 0; i < propertyNames.length; i++) {
+            _indexMap.put(propertyNames[i], i);
+        }
+    }
+
+    // ===================================================================================
+    //                                                                       Index Finding
+    //                                                                       =============
+    /**
+     * Find the index of the property.
+     * @param propertyName The name of property according to Java Beans rule. (NotNull)
+     * @return The index of the property. (-1 if not found)
+     */
+    public int findIndex(String propertyName) {
+        final Integer index = _indexMap.get(propertyName);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Get the property name by the index.
+     * @param index The index of the property. (NotMinus, LessThanSize)
+     * @return The name of property. (NotNull)
+     */
+    public String getPropertyName(int index) {
+        return _propertyNames[index];
+    }
+
+    /**
+     * Get the size of properties.
+     * @return The count of properties. (NotMinus)
+     */
+    public int size() {
+        return _propertyNames.length;
+    }
+
+    // ===================================================================================
+    //                                                                      Basic Override
+    //                                                                      ==============
+    @Override
+    public String toString() {
+        return "propertyIndex:" + Arrays.asList(_propertyNames);
+    }
+}
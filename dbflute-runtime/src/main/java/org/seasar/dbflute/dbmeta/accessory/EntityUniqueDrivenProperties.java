@@ -15,60 +15,28 @@
  */
 package org.seasar.dbflute.dbmeta.accessory;
 
-import java.io.Serializable;
-import java.util.LinkedHashSet;
-import java.util.Set;
-
 /**
- * The unique-driven properties of entity. (basically for Framework)
+ * The unique-driven properties of entity. (basically for Framework) <br />
+ * The properties are kept as bitmask if the entity provides its property index.
  * @author jflute
  * @since 1.1.0 (2014/10/29 Monday)
  */
-public class EntityUniqueDrivenProperties implements Serializable {
+public class EntityUniqueDrivenProperties extends EntityIndexedProperties {
 
     /** The serial version UID for object serialization. (Default) */
     private static final long serialVersionUID = 1L;
 
-    /** The set of property names. (NullAllowed: lazy-loaded) */
-    protected Set<String> _propertyNameSet;
-
-    /**
-     * Add property name. (according to Java Beans rule)
-     * @param propertyName The string for name. (NotNull)
-     */
-    public void addPropertyName(String propertyName) {
-        getPropertyNameSet().add(propertyName);
-    }
-
-    /**
-     * Get the set of properties.
-     * @return The set of properties. (NotNull)
-     */
-    public Set<String> getPropertyNames() {
-        return getPropertyNameSet();
-    }
-
-    /**
-     * Is the set of properties empty?
-     * @return The determination, true or false.
-     */
-    public boolean isEmpty() {
-        return getPropertyNameSet().isEmpty();
-    }
-
     /**
-     * Clear the set of properties.
+     * Constructor for name-based properties.
      */
-    public void clear() {
-        getPropertyNameSet().clear();
+    public EntityUniqueDrivenProperties() {
     }
 
     /**
-     * Remove property name from the set. (according to Java Beans rule)
-     * @param propertyName The string for name. (NotNull)
+     * @param propertyIndex The index of properties shared per entity type. (NullAllowed: if null, name-based only)
      */
-    public void remove(String propertyName) {
-        getPropertyNameSet().remove(propertyName);
+    public EntityUniqueDrivenProperties(EntityPropertyIndex propertyIndex) {
+        super(propertyIndex);
     }
 
     /**
@@ -76,21 +44,11 @@ public class EntityUniqueDrivenProperties implements Serializable {
      * @param properties The properties as copy-resource. (NotNull)
      */
     public void accept(EntityModifiedProperties properties) {
-        clear();
-        for (String propertyName : properties.getPropertyNames()) {
-            addPropertyName(propertyName);
-        }
-    }
-
-    protected Set<String> getPropertyNameSet() {
-        if (_propertyNameSet == null) {
-            _propertyNameSet = new LinkedHashSet<String>(2);
-        }
-        return _propertyNameSet;
+        doAccept(properties);
     }
 
     @Override
     public String toString() {
-        return "uniqueDriven:" + _propertyNameSet;
+        return "uniqueDriven:" + getPropertyNames();
     }
 }
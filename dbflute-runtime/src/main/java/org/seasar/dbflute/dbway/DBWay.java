@@ -42,6 +42,16 @@ public interface DBWay {
      */
     String getIdentitySelectSql();
 
+    // ===================================================================================
+    //                                                                          Upsert Way
+    //                                                                          ==========
+    /**
+     * Build the SQL for upsert (insert or update by primary key) of one row.
+     * @param builder The builder of upsert SQL that has table and column info. (NotNull)
+     * @return The SQL for upsert. (NullAllowed: if native upsert is unsupported)
+     */
+    String buildUpsertSql(UpsertSqlBuilder builder);
+
     // ===================================================================================
     //                                                                         SQL Support
     //                                                                         ===========
@@ -49,6 +59,30 @@ public interface DBWay {
 
     boolean isLineCommentSupported();
 
+    /**
+     * Does the DB support multi-row VALUES of insert? e.g. insert into ... values (?, ?), (?, ?)
+     * @return The determination, true or false.
+     */
+    boolean isMultiRowValuesSupported();
+
+    /**
+     * Get the max count of bind parameters in one statement, e.g. for rows of multi-row VALUES.
+     * @return The max count of bind parameters. (NotMinus, NotZero: if unknown, conservative count)
+     */
+    int getMaxBindParameterCount();
+
+    /**
+     * Does the DB support comparison of row values? e.g. where (FOO, BAR) &gt; (?, ?)
+     * @return The determination, true or false.
+     */
+    boolean isRowValueComparisonSupported();
+
+    /**
+     * Does the DB support native upsert statement? e.g. merge, on conflict, on duplicate key update
+     * @return The determination, true or false.
+     */
+    boolean isUpsertStatementSupported();
+
     // ===================================================================================
     //                                                                        JDBC Support
     //                                                                        ============
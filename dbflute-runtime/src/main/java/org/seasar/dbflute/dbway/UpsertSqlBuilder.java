@@ -0,0 +1,305 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.dbway;
+
+import java.util.List;
+
+import org.seasar.dbflute.resource.DBFluteSystem;
+
+/**
+ * The builder of upsert (insert or update by primary key) SQL for one row. <br />
+ * It provides the standard forms, and each DB-way selects its own form.
+ * <pre>
+ * e.g. merge (Oracle, SQL Server, DB2, H2)
+ *  merge into MEMBER dst
+ *  using (select ? as MEMBER_ID, ? as MEMBER_NAME from dual) src
+ *     on (dst.MEMBER_ID = src.MEMBER_ID)
+ *   when matched then update set dst.MEMBER_NAME = src.MEMBER_NAME
+ *   when not matched then insert (MEMBER_ID, MEMBER_NAME) values (src.MEMBER_ID, src.MEMBER_NAME)
+ *
+ * e.g. on conflict (PostgreSQL)
+ *  insert into MEMBER as dst (MEMBER_ID, MEMBER_NAME) values (?, ?)
+ *   on conflict (MEMBER_ID) do update set MEMBER_NAME = excluded.MEMBER_NAME
+ * </pre>
+ * The parameters are always bound in order of the column list.
+ * @author jflute
+ * @since 1.0.5N (2014/12/18 Thursday)
+ */
+public class UpsertSqlBuilder {
+
+    // ===================================================================================
+    //                                                                          Definition
+    //                                                                          ==========
+    protected static final String TARGET_ALIAS = "dst";
+    protected static final String SOURCE_ALIAS = "src";
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    protected final String _tableSqlName;
+    protected final List<String> _columnList;
+    protected final List<String> _bindExpList;
+    protected final List<String> _primaryKeyList;
+    protected final List<String> _updateColumnList;
+    protected final String _versionNoColumn; // null allowed
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    /**
+     * @param tableSqlName The SQL name of the table. (NotNull)
+     * @param columnList The list of SQL name of bound columns, containing primary keys. (NotNull, NotEmpty)
+     * @param bindExpList The list of bind expression for the columns, same order as columns. e.g. ? (NotNull, NotEmpty)
+     * @param primaryKeyList The list of SQL name of primary keys. (NotNull, NotEmpty)
+     * @param updateColumnList The list of SQL name of columns set when the row exists. (NotNull, EmptyAllowed)
+     * @param versionNoColumn The SQL name of version-no column incremented when the row exists. (NullAllowed)
+     */
+    public UpsertSqlBuilder(String tableSqlName, List<String> columnList, List<String> bindExpList, List<String> primaryKeyList,
+            List<String> updateColumnList, String versionNoColumn) {
+        assertArgumentNotNull("tableSqlName", tableSqlName);
+        assertArgumentNotNull("columnList", columnList);
+        assertArgumentNotNull("bindExpList", bindExpList);
+        assertArgumentNotNull("primaryKeyList", primaryKeyList);
+        assertArgumentNotNull("updateColumnList", updateColumnList);
+        if (columnList.isEmpty() || primaryKeyList.isEmpty()) {
+            String msg = "The column list and primary key list should not be empty:";
+            msg = msg + " table=" + tableSqlName + " columns=" + columnList + " pk=" + primaryKeyList;
+            throw new IllegalArgumentException(msg);
+        }
+        if (columnList.size() != bindExpList.size()) {
+            String msg = "The bind expressions should be same size as the columns:";
+            msg = msg + " columns=" + columnList + " binds=" + bindExpList;
+            throw new IllegalArgumentException(msg);
+        }
+        _tableSqlName = tableSqlName;
+        _columnList = columnList;
+        _bindExpList = bindExpList;
+        _primaryKeyList = primaryKeyList;
+        _updateColumnList = updateColumnList;
+        _versionNoColumn = versionNoColumn;
+    }
+
+    // ===================================================================================
+    //                                                                               Merge
+    //                                                                               =====
+    /**
+     * Build the standard merge statement.
+     * @param sourceClause The clause of source row with the source alias. e.g. (select ? as FOO_ID from dual) src (NotNull)
+     * @param terminator The terminator of the statement. e.g. ; (NullAllowed: if no terminator)
+     * @return The SQL of merge. (NotNull)
+     */
+    public String buildMergeSql(String sourceClause, String terminator) {
+        final StringBuilder sb = new StringBuilder(256);
+        sb.append("merge into ").append(_tableSqlName).append(" ").append(TARGET_ALIAS);
+        sb.append(ln()).append("using ").append(sourceClause);
+        sb.append(ln()).append("   on (");
+        int pkIndex = 0;
+        for (String pk : _primaryKeyList) {
+            if (pkIndex > 0) {
+                sb.append(" and ");
+            }
+            sb.append(TARGET_ALIAS).append(".").append(pk).append(" = ").append(SOURCE_ALIAS).append(".").append(pk);
+            ++pkIndex;
+        }
+        sb.append(")");
+        if (!_updateColumnList.isEmpty() || _versionNoColumn != null) {
+            sb.append(ln()).append(" when matched then update set ");
+            int setIndex = 0;
+            for (String column : _updateColumnList) {
+                if (setIndex > 0) {
+                    sb.append(", ");
+                }
+                sb.append(TARGET_ALIAS).append(".").append(column).append(" = ").append(SOURCE_ALIAS).append(".").append(column);
+                ++setIndex;
+            }
+            if (_versionNoColumn != null) {
+                if (setIndex > 0) {
+                    sb.append(", ");
+                }
+                final String targetVersionNo = TARGET_ALIAS + "." + _versionNoColumn;
+                sb.append(targetVersionNo).append(" = ").append(targetVersionNo).append(" + 1");
+            }
+        }
+        sb.append(ln()).append(" when not matched then insert (");
+        final StringBuilder valuesSb = new StringBuilder(64);
+        int columnIndex = 0;
+        for (String column : _columnList) {
+            if (columnIndex > 0) {
+                sb.append(", ");
+                valuesSb.append(", ");
+            }
+            sb.append(column);
+            valuesSb.append(SOURCE_ALIAS).append(".").append(column);
+            ++columnIndex;
+        }
+        sb.append(") values (").append(valuesSb).append(")");
+        if (terminator != null) {
+            sb.append(terminator);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Build the source clause selecting the bind expressions as columns.
+     * @param dummyTable The dummy table for select. e.g. dual (NullAllowed: if no from clause is needed)
+     * @return The source clause with alias. e.g. (select ? as FOO_ID, ? as FOO_NAME from dual) src (NotNull)
+     */
+    public String buildSelectSourceClause(String dummyTable) {
+        final StringBuilder sb = new StringBuilder(128);
+        sb.append("(select ");
+        for (int i = 0; i < _columnList.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(_bindExpList.get(i)).append(" as ").append(_columnList.get(i));
+        }
+        if (dummyTable != null) {
+            sb.append(" from ").append(dummyTable);
+        }
+        sb.append(") ").append(SOURCE_ALIAS);
+        return sb.toString();
+    }
+
+    /**
+     * Build the source clause by row value constructor.
+     * @return The source clause with alias. e.g. (values (?, ?)) src (FOO_ID, FOO_NAME) (NotNull)
+     */
+    public String buildValuesSourceClause() {
+        final StringBuilder sb = new StringBuilder(128);
+        sb.append("(values (").append(joinComma(_bindExpList)).append(")) ");
+        sb.append(SOURCE_ALIAS).append(" (").append(joinComma(_columnList)).append(")");
+        return sb.toString();
+    }
+
+    // ===================================================================================
+    //                                                                         Insert Base
+    //                                                                         ===========
+    /**
+     * Build the insert statement followed by PostgreSQL's 'on conflict' clause.
+     * @return The SQL of insert with 'on conflict'. (NotNull)
+     */
+    public String buildInsertOnConflictSql() {
+        final StringBuilder sb = new StringBuilder(256);
+        sb.append("insert into ").append(_tableSqlName).append(" as ").append(TARGET_ALIAS);
+        sb.append(" (").append(joinComma(_columnList)).append(")");
+        sb.append(ln()).append(" values (").append(joinComma(_bindExpList)).append(")");
+        sb.append(ln()).append(" on conflict (").append(joinComma(_primaryKeyList)).append(")");
+        if (_updateColumnList.isEmpty() && _versionNoColumn == null) {
+            sb.append(" do nothing");
+            return sb.toString();
+        }
+        sb.append(" do update set ");
+        int setIndex = 0;
+        for (String column : _updateColumnList) {
+            if (setIndex > 0) {
+                sb.append(", ");
+            }
+            sb.append(column).append(" = excluded.").append(column);
+            ++setIndex;
+        }
+        if (_versionNoColumn != null) {
+            if (setIndex > 0) {
+                sb.append(", ");
+            }
+            sb.append(_versionNoColumn).append(" = ").append(TARGET_ALIAS).append(".").append(_versionNoColumn).append(" + 1");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Build the insert statement followed by MySQL's 'on duplicate key update' clause.
+     * @return The SQL of insert with 'on duplicate key update'. (NotNull)
+     */
+    public String buildInsertOnDuplicateKeySql() {
+        final StringBuilder sb = new StringBuilder(256);
+        sb.append("insert into ").append(_tableSqlName);
+        sb.append(" (").append(joinComma(_columnList)).append(")");
+        sb.append(ln()).append(" values (").append(joinComma(_bindExpList)).append(")");
+        sb.append(ln()).append(" on duplicate key update ");
+        int setIndex = 0;
+        for (String column : _updateColumnList) {
+            if (setIndex > 0) {
+                sb.append(", ");
+            }
+            sb.append(column).append(" = values(").append(column).append(")");
+            ++setIndex;
+        }
+        if (_versionNoColumn != null) {
+            if (setIndex > 0) {
+                sb.append(", ");
+            }
+            sb.append(_versionNoColumn).append(" = ").append(_versionNoColumn).append(" + 1");
+            ++setIndex;
+        }
+        if (setIndex == 0) { // primary keys only so nothing to update
+            final String firstPk = _primaryKeyList.get(0);
+            sb.append(firstPk).append(" = ").append(firstPk);
+        }
+        return sb.toString();
+    }
+
+    // ===================================================================================
+    //                                                                       Assist Helper
+    //                                                                       =============
+    protected String joinComma(List<String> elementList) {
+        final StringBuilder sb = new StringBuilder();
+        for (String element : elementList) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(element);
+        }
+        return sb.toString();
+    }
+
+    protected String ln() {
+        return DBFluteSystem.getBasicLn();
+    }
+
+    protected void assertArgumentNotNull(String name, Object value) {
+        if (value == null) {
+            String msg = "The argument '" + name + "' should not be null.";
+            throw new IllegalArgumentException(msg);
+        }
+    }
+
+    // ===================================================================================
+    //                                                                            Accessor
+    //                                                                            ========
+    public String getTableSqlName() {
+        return _tableSqlName;
+    }
+
+    public List<String> getColumnList() {
+        return _columnList;
+    }
+
+    public List<String> getBindExpList() {
+        return _bindExpList;
+    }
+
+    public List<String> getPrimaryKeyList() {
+        return _primaryKeyList;
+    }
+
+    public List<String> getUpdateColumnList() {
+        return _updateColumnList;
+    }
+
+    public String getVersionNoColumn() {
+        return _versionNoColumn;
+    }
+}
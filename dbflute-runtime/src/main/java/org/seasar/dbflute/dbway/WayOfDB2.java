@@ -47,6 +47,13 @@ public class WayOfDB2 implements DBWay, Serializable {
         return "values IDENTITY_VAL_LOCAL()";
     }
 
+    // ===================================================================================
+    //                                                                          Upsert Way
+    //                                                                          ==========
+    public String buildUpsertSql(UpsertSqlBuilder builder) {
+        return builder.buildMergeSql(builder.buildValuesSourceClause(), null);
+    }
+
     // ===================================================================================
     //                                                                         SQL Support
     //                                                                         ===========
@@ -58,6 +65,22 @@ public class WayOfDB2 implements DBWay, Serializable {
         return true;
     }
 
+    public boolean isMultiRowValuesSupported() {
+        return false;
+    }
+
+    public int getMaxBindParameterCount() {
+        return 2000; // unknown so conservative
+    }
+
+    public boolean isRowValueComparisonSupported() {
+        return false;
+    }
+
+    public boolean isUpsertStatementSupported() {
+        return true;
+    }
+
     // ===================================================================================
     //                                                                        JDBC Support
     //                                                                        ============
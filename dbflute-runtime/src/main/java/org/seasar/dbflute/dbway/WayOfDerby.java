@@ -45,6 +45,13 @@ public class WayOfDerby implements DBWay, Serializable {
         return "values IDENTITY_VAL_LOCAL()";
     }
 
+    // ===================================================================================
+    //                                                                          Upsert Way
+    //                                                                          ==========
+    public String buildUpsertSql(UpsertSqlBuilder builder) {
+        return null;
+    }
+
     // ===================================================================================
     //                                                                         SQL Support
     //                                                                         ===========
@@ -56,6 +63,22 @@ public class WayOfDerby implements DBWay, Serializable {
         return true;
     }
 
+    public boolean isMultiRowValuesSupported() {
+        return false;
+    }
+
+    public int getMaxBindParameterCount() {
+        return 2000; // unknown so conservative
+    }
+
+    public boolean isRowValueComparisonSupported() {
+        return false;
+    }
+
+    public boolean isUpsertStatementSupported() {
+        return false;
+    }
+
     // ===================================================================================
     //                                                                        JDBC Support
     //                                                                        ============
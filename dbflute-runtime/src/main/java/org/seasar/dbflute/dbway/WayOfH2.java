@@ -45,6 +45,13 @@ public class WayOfH2 implements DBWay, Serializable {
         return "CALL IDENTITY()";
     }
 
+    // ===================================================================================
+    //                                                                          Upsert Way
+    //                                                                          ==========
+    public String buildUpsertSql(UpsertSqlBuilder builder) {
+        return builder.buildMergeSql(builder.buildSelectSourceClause(null), null);
+    }
+
     // ===================================================================================
     //                                                                         SQL Support
     //                                                                         ===========
@@ -56,6 +63,22 @@ public class WayOfH2 implements DBWay, Serializable {
         return true;
     }
 
+    public boolean isMultiRowValuesSupported() {
+        return true;
+    }
+
+    public int getMaxBindParameterCount() {
+        return 2000; // unknown so conservative
+    }
+
+    public boolean isRowValueComparisonSupported() {
+        return false;
+    }
+
+    public boolean isUpsertStatementSupported() {
+        return true;
+    }
+
     // ===================================================================================
     //                                                                        JDBC Support
     //                                                                        ============
@@ -45,6 +45,13 @@ public class WayOfMSAccess implements DBWay, Serializable {
         return "SELECT @@IDENTITY";
     }
 
+    // ===================================================================================
+    //                                                                          Upsert Way
+    //                                                                          ==========
+    public String buildUpsertSql(UpsertSqlBuilder builder) {
+        return null;
+    }
+
     // ===================================================================================
     //                                                                         SQL Support
     //                                                                         ===========
@@ -56,6 +63,22 @@ public class WayOfMSAccess implements DBWay, Serializable {
         return false;
     }
 
+    public boolean isMultiRowValuesSupported() {
+        return false;
+    }
+
+    public int getMaxBindParameterCount() {
+        return 2000; // unknown so conservative
+    }
+
+    public boolean isRowValueComparisonSupported() {
+        return false;
+    }
+
+    public boolean isUpsertStatementSupported() {
+        return false;
+    }
+
     // ===================================================================================
     //                                                                        JDBC Support
     //                                                                        ============
@@ -64,6 +64,13 @@ public class WayOfMySQL implements DBWay, Serializable {
         return "SELECT LAST_INSERT_ID()";
     }
 
+    // ===================================================================================
+    //                                                                          Upsert Way
+    //                                                                          ==========
+    public String buildUpsertSql(UpsertSqlBuilder builder) {
+        return builder.buildInsertOnDuplicateKeySql();
+    }
+
     // ===================================================================================
     //                                                                         SQL Support
     //                                                                         ===========
@@ -75,6 +82,22 @@ public class WayOfMySQL implements DBWay, Serializable {
         return true;
     }
 
+    public boolean isMultiRowValuesSupported() {
+        return true;
+    }
+
+    public int getMaxBindParameterCount() {
+        return 65535;
+    }
+
+    public boolean isRowValueComparisonSupported() {
+        return true;
+    }
+
+    public boolean isUpsertStatementSupported() {
+        return true;
+    }
+
     // ===================================================================================
     //                                                                        JDBC Support
     //                                                                        ============
@@ -47,6 +47,13 @@ public class WayOfOracle implements DBWay, Serializable {
         return null;
     }
 
+    // ===================================================================================
+    //                                                                          Upsert Way
+    //                                                                          ==========
+    public String buildUpsertSql(UpsertSqlBuilder builder) {
+        return builder.buildMergeSql(builder.buildSelectSourceClause("dual"), null);
+    }
+
     // ===================================================================================
     //                                                                         SQL Support
     //                                                                         ===========
@@ -58,6 +65,22 @@ public class WayOfOracle implements DBWay, Serializable {
         return true;
     }
 
+    public boolean isMultiRowValuesSupported() {
+        return false;
+    }
+
+    public int getMaxBindParameterCount() {
+        return 65535;
+    }
+
+    public boolean isRowValueComparisonSupported() {
+        return false;
+    }
+
+    public boolean isUpsertStatementSupported() {
+        return true;
+    }
+
     // ===================================================================================
     //                                                                        JDBC Support
     //                                                                        ============
@@ -47,6 +47,13 @@ public class WayOfPostgreSQL implements DBWay, Serializable {
         return null;
     }
 
+    // ===================================================================================
+    //                                                                          Upsert Way
+    //                                                                          ==========
+    public String buildUpsertSql(UpsertSqlBuilder builder) {
+        return builder.buildInsertOnConflictSql(); // since 9.5
+    }
+
     // ===================================================================================
     //                                                                         SQL Support
     //                                                                         ===========
@@ -58,6 +65,22 @@ public class WayOfPostgreSQL implements DBWay, Serializable {
         return true;
     }
 
+    public boolean isMultiRowValuesSupported() {
+        return true;
+    }
+
+    public int getMaxBindParameterCount() {
+        return 32767;
+    }
+
+    public boolean isRowValueComparisonSupported() {
+        return true;
+    }
+
+    public boolean isUpsertStatementSupported() {
+        return true;
+    }
+
     // ===================================================================================
     //                                                                        JDBC Support
     //                                                                        ============
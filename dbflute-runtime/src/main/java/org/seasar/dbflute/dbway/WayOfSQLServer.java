@@ -59,6 +59,13 @@ public class WayOfSQLServer implements DBWay, Serializable {
         return "set identity_insert " + tableSqlName + " " + (insertOn ? "on" : "off");
     }
 
+    // ===================================================================================
+    //                                                                          Upsert Way
+    //                                                                          ==========
+    public String buildUpsertSql(UpsertSqlBuilder builder) {
+        return builder.buildMergeSql(builder.buildSelectSourceClause(null), ";"); // terminator is required
+    }
+
     // ===================================================================================
     //                                                                         SQL Support
     //                                                                         ===========
@@ -70,6 +77,22 @@ public class WayOfSQLServer implements DBWay, Serializable {
         return true;
     }
 
+    public boolean isMultiRowValuesSupported() {
+        return false;
+    }
+
+    public int getMaxBindParameterCount() {
+        return 2100;
+    }
+
+    public boolean isRowValueComparisonSupported() {
+        return false;
+    }
+
+    public boolean isUpsertStatementSupported() {
+        return true;
+    }
+
     // ===================================================================================
     //                                                                        JDBC Support
     //                                                                        ============
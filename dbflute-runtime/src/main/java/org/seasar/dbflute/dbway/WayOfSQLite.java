@@ -45,6 +45,13 @@ public class WayOfSQLite implements DBWay, Serializable {
         return "select last_insert_rowid()";
     }
 
+    // ===================================================================================
+    //                                                                          Upsert Way
+    //                                                                          ==========
+    public String buildUpsertSql(UpsertSqlBuilder builder) {
+        return null;
+    }
+
     // ===================================================================================
     //                                                                         SQL Support
     //                                                                         ===========
@@ -56,6 +63,22 @@ public class WayOfSQLite implements DBWay, Serializable {
         return true;
     }
 
+    public boolean isMultiRowValuesSupported() {
+        return false;
+    }
+
+    public int getMaxBindParameterCount() {
+        return 999; // as default of SQLITE_MAX_VARIABLE_NUMBER (old versions)
+    }
+
+    public boolean isRowValueComparisonSupported() {
+        return false;
+    }
+
+    public boolean isUpsertStatementSupported() {
+        return false;
+    }
+
     // ===================================================================================
     //                                                                        JDBC Support
     //                                                                        ============
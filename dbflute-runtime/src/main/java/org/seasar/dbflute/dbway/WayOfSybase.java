@@ -61,6 +61,13 @@ public class WayOfSybase implements DBWay, Serializable {
         return "set temporary option identity_insert = '" + settingValue + "'";
     }
 
+    // ===================================================================================
+    //                                                                          Upsert Way
+    //                                                                          ==========
+    public String buildUpsertSql(UpsertSqlBuilder builder) {
+        return null;
+    }
+
     // ===================================================================================
     //                                                                         SQL Support
     //                                                                         ===========
@@ -72,6 +79,22 @@ public class WayOfSybase implements DBWay, Serializable {
         return true;
     }
 
+    public boolean isMultiRowValuesSupported() {
+        return false;
+    }
+
+    public int getMaxBindParameterCount() {
+        return 2000; // unknown so conservative
+    }
+
+    public boolean isRowValueComparisonSupported() {
+        return false;
+    }
+
+    public boolean isUpsertStatementSupported() {
+        return false;
+    }
+
     // ===================================================================================
     //                                                                        JDBC Support
     //                                                                        ============
@@ -45,6 +45,13 @@ public class WayOfUnknown implements DBWay, Serializable {
         return null;
     }
 
+    // ===================================================================================
+    //                                                                          Upsert Way
+    //                                                                          ==========
+    public String buildUpsertSql(UpsertSqlBuilder builder) {
+        return null; // as default for unknown
+    }
+
     // ===================================================================================
     //                                                                         SQL Support
     //                                                                         ===========
@@ -56,6 +63,22 @@ public class WayOfUnknown implements DBWay, Serializable {
         return true; // as default for unknown
     }
 
+    public boolean isMultiRowValuesSupported() {
+        return false; // as default for unknown
+    }
+
+    public int getMaxBindParameterCount() {
+        return 2000; // as default for unknown
+    }
+
+    public boolean isRowValueComparisonSupported() {
+        return false; // as default for unknown
+    }
+
+    public boolean isUpsertStatementSupported() {
+        return false; // as default for unknown
+    }
+
     // ===================================================================================
     //                                                                        JDBC Support
     //                                                                        ============
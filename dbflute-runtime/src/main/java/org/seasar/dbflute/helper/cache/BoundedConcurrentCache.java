@@ -0,0 +1,174 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.helper.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The concurrent cache bounded by max size. <br />
+ * Reading is lock-free, and the oldest entry (by arrival) is evicted when the size is over the max,
+ * so the eviction order is approximately first-in first-out. <br />
+ * It also counts hits, misses and evictions for statistics.
+ * @param <KEY> The type of key.
+ * @param <VALUE> The type of value.
+ * @author jflute
+ * @since 1.0.5N (2014/12/06 Saturday)
+ */
+public class BoundedConcurrentCache<KEY, VALUE> {
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    protected final int _maxSize;
+    protected final ConcurrentHashMap<KEY, VALUE> _entryMap;
+    protected final ConcurrentLinkedQueue<KEY> _arrivalQueue = new ConcurrentLinkedQueue<KEY>();
+    protected final AtomicLong _hitCount = new AtomicLong();
+    protected final AtomicLong _missCount = new AtomicLong();
+    protected final AtomicLong _evictionCount = new AtomicLong();
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    /**
+     * @param maxSize The max size of cached entries. (NotMinus, NotZero)
+     */
+    public BoundedConcurrentCache(int maxSize) {
+        if (maxSize <= 0) {
+            String msg = "The argument 'maxSize' should be positive: " + maxSize;
+            throw new IllegalArgumentException(msg);
+        }
+        _maxSize = maxSize;
+        _entryMap = new ConcurrentHashMap<KEY, VALUE>(Math.min(maxSize, 256));
+    }
+
+    // ===================================================================================
+    //                                                                         Cache Entry
+    //                                                                         ===========
+    /**
+     * Get the cached value, counting as hit or miss.
+     * @param key The key of the entry. (NotNull)
+     * @return The cached value. (NullAllowed: when not found)
+     */
+    public VALUE get(KEY key) {
+        final VALUE value = _entryMap.get(key);
+        if (value != null) {
+            _hitCount.incrementAndGet();
+        } else {
+            _missCount.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * Find the cached value without statistics counting.
+     * @param key The key of the entry. (NotNull)
+     * @return The cached value. (NullAllowed: when not found)
+     */
+    public VALUE peek(KEY key) {
+        return _entryMap.get(key);
+    }
+
+    /**
+     * Put the value if absent, evicting the oldest entries when the size is over.
+     * @param key The key of the entry. (NotNull)
+     * @param value The value to be cached. (NotNull)
+     * @return The value actually cached, may be registered by other thread. (NotNull)
+     */
+    public VALUE put(KEY key, VALUE value) {
+        final VALUE existing = _entryMap.putIfAbsent(key, value);
+        if (existing != null) {
+            return existing;
+        }
+        _arrivalQueue.offer(key);
+        evictIfOver();
+        return value;
+    }
+
+    protected void evictIfOver() {
+        while (_entryMap.size() > _maxSize) {
+            final KEY oldest = _arrivalQueue.poll();
+            if (oldest == null) { // no way, just in case
+                break;
+            }
+            if (_entryMap.remove(oldest) != null) {
+                _evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Remove the entry. (not counted as eviction)
+     * @param key The key of the entry. (NotNull)
+     * @return The removed value. (NullAllowed: when not found)
+     */
+    public VALUE remove(KEY key) {
+        final VALUE removed = _entryMap.remove(key);
+        if (removed != null) {
+            _arrivalQueue.remove(key);
+        }
+        return removed;
+    }
+
+    public void clear() {
+        _entryMap.clear();
+        _arrivalQueue.clear();
+    }
+
+    // ===================================================================================
+    //                                                                          Statistics
+    //                                                                          ==========
+    public int size() {
+        return _entryMap.size();
+    }
+
+    public int getMaxSize() {
+        return _maxSize;
+    }
+
+    public long getHitCount() {
+        return _hitCount.get();
+    }
+
+    public long getMissCount() {
+        return _missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return _evictionCount.get();
+    }
+
+    public void resetStatistics() {
+        _hitCount.set(0);
+        _missCount.set(0);
+        _evictionCount.set(0);
+    }
+
+    // ===================================================================================
+    //                                                                      Basic Override
+    //                                                                      ==============
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("{size=").append(size()).append("/").append(_maxSize);
+        sb.append(", hit=").append(getHitCount());
+        sb.append(", miss=").append(getMissCount());
+        sb.append(", eviction=").append(getEvictionCount());
+        sb.append("}");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,530 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.helper.token.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.seasar.dbflute.helper.token.file.exception.FileTokenizingSQLHandlingFailureException;
+
+/**
+ * The tokenizer of token file by NIO buffers. <br />
+ * Bytes are read from the file channel into a direct buffer, decoded into a recycled char buffer,
+ * and parsed char by char, so no line string is built for parsing. <br />
+ * The row resource and its value list are recycled for next row. <br />
+ * Quoted values follow the CSV style: "a""b" means a"b, and they can contain delimiters and line separators.
+ * CR + LF (and CR only) is treated as LF.
+ * @author jflute
+ * @since 1.0.5N (2014/12/17 Wednesday)
+ */
+public class FileBufferTokenizer {
+
+    // ===================================================================================
+    //                                                                          Definition
+    //                                                                          ==========
+    /** The default size of byte (and char) buffer for reading. */
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    /** The minimum size of buffer, which can hold one character at least. */
+    protected static final int MIN_BUFFER_SIZE = 16;
+
+    /** The size of buffer to seek line separators for chunk boundaries. */
+    protected static final int SEEKING_BUFFER_SIZE = 8192;
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    protected final FileTokenizingOption _option;
+    protected final char _delimiter;
+    protected final Charset _charset;
+    protected int _bufferSize = DEFAULT_BUFFER_SIZE;
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    /**
+     * @param option The option for file-tokenizing. (NotNull, Required{delimiter as one character, encoding})
+     */
+    public FileBufferTokenizer(FileTokenizingOption option) {
+        if (option == null) {
+            String msg = "The argument 'option' should not be null.";
+            throw new IllegalArgumentException(msg);
+        }
+        final String delimiter = option.getDelimiter();
+        if (delimiter == null || delimiter.length() != 1) {
+            String msg = "The delimiter for buffer tokenizing should be one character: " + option;
+            throw new IllegalArgumentException(msg);
+        }
+        final String encoding = option.getEncoding();
+        if (encoding == null || encoding.trim().length() == 0) {
+            String msg = "The encoding for buffer tokenizing is required: " + option;
+            throw new IllegalArgumentException(msg);
+        }
+        _option = option;
+        _delimiter = delimiter.charAt(0);
+        _charset = Charset.forName(encoding);
+    }
+
+    /**
+     * @param bufferSize The size of byte (and char) buffer per thread. (NotMinus, 16 or more)
+     * @return this. (NotNull)
+     */
+    public FileBufferTokenizer bufferSize(int bufferSize) {
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            String msg = "The argument 'bufferSize' should be " + MIN_BUFFER_SIZE + " or more: " + bufferSize;
+            throw new IllegalArgumentException(msg);
+        }
+        _bufferSize = bufferSize;
+        return this;
+    }
+
+    // ===================================================================================
+    //                                                                            Tokenize
+    //                                                                            ========
+    /**
+     * Tokenize (read) the token data in the file channel.
+     * @param channel The channel of the file to read. (NotNull: not closed here)
+     * @param callback The callback for file-tokenizing. (NotNull)
+     * @throws IOException When the file reading failed.
+     * @throws FileTokenizingSQLHandlingFailureException When the SQL handling fails in the row handling process.
+     */
+    public void tokenize(FileChannel channel, FileTokenizingCallback callback) throws IOException {
+        if (channel == null || callback == null) {
+            String msg = "The arguments 'channel' and 'callback' should not be null: " + channel + ", " + callback;
+            throw new IllegalArgumentException(msg);
+        }
+        try {
+            if (_option.getParallelDegree() > 1) {
+                tokenizeInParallel(channel, callback);
+            } else {
+                final BufferTokenizingParser parser = createParser(callback, false);
+                if (_option.isBeginFirstLine()) {
+                    parser.beginFirstLine();
+                }
+                parseRange(channel, 0L, channel.size(), parser);
+            }
+        } catch (SQLException e) {
+            String msg = "SQL handling failed in the row handling process: option=" + _option;
+            throw new FileTokenizingSQLHandlingFailureException(msg, e);
+        }
+    }
+
+    protected BufferTokenizingParser createParser(FileTokenizingCallback callback, boolean parallel) {
+        return new BufferTokenizingParser(_delimiter, _option.isHandleEmptyAsNull(), parallel, callback);
+    }
+
+    // ===================================================================================
+    //                                                                            Parallel
+    //                                                                            ========
+    protected void tokenizeInParallel(final FileChannel channel, final FileTokenizingCallback callback) throws IOException,
+            SQLException {
+        assertLineSeparatorAsOneByte();
+        final long size = channel.size();
+
+        // header is parsed on the current thread
+        final FileTokenizingHeaderInfo headerInfo;
+        final long dataStart;
+        if (_option.isBeginFirstLine()) {
+            headerInfo = new FileTokenizingHeaderInfo(); // as empty
+            dataStart = 0L;
+        } else {
+            dataStart = seekNextLineStart(channel, 0L, size);
+            final BufferTokenizingParser headerParser = createParser(callback, true);
+            parseRange(channel, 0L, dataStart, headerParser);
+            headerInfo = headerParser.getHeaderInfo();
+        }
+        final int headerLineCount = _option.isBeginFirstLine() ? 0 : 1;
+        final long[] boundaries = prepareChunkBoundaries(channel, dataStart, size, _option.getParallelDegree());
+        final int chunkCount = boundaries.length - 1;
+        if (chunkCount == 0) {
+            return;
+        }
+
+        final ExecutorService service = Executors.newFixedThreadPool(chunkCount);
+        try {
+            // line numbers are derived from line separators in previous chunks
+            final List<Future<Integer>> countFutureList = new ArrayList<Future<Integer>>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                final long start = boundaries[i];
+                final long end = boundaries[i + 1];
+                countFutureList.add(service.submit(new Callable<Integer>() {
+                    public Integer call() throws IOException {
+                        return countLineSeparator(channel, start, end);
+                    }
+                }));
+            }
+            final List<Future<Integer>> parseFutureList = new ArrayList<Future<Integer>>(chunkCount);
+            int baseLineNumber = headerLineCount + 1;
+            for (int i = 0; i < chunkCount; i++) {
+                final long start = boundaries[i];
+                final long end = boundaries[i + 1];
+                final int lineNumber = baseLineNumber;
+                parseFutureList.add(service.submit(new Callable<Integer>() {
+                    public Integer call() throws IOException, SQLException {
+                        final BufferTokenizingParser parser = createParser(callback, true);
+                        parser.prepareChunk(headerInfo, lineNumber, lineNumber - headerLineCount);
+                        parseRange(channel, start, end, parser);
+                        return parser.getHandledRowCount();
+                    }
+                }));
+                baseLineNumber = baseLineNumber + getChunkResult(countFutureList.get(i));
+            }
+            for (Future<Integer> future : parseFutureList) {
+                getChunkResult(future);
+            }
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    protected void assertLineSeparatorAsOneByte() {
+        final byte[] bytes = "\n".getBytes(_charset);
+        if (bytes.length != 1 || bytes[0] != '\n') {
+            String msg = "The encoding for parallel tokenizing should be ASCII compatible: " + _option;
+            throw new IllegalArgumentException(msg);
+        }
+    }
+
+    protected long[] prepareChunkBoundaries(FileChannel channel, long dataStart, long size, int parallelDegree)
+            throws IOException {
+        final long chunkSize = Math.max((size - dataStart) / parallelDegree, 1L);
+        final List<Long> boundaryList = new ArrayList<Long>(parallelDegree + 1);
+        long start = dataStart;
+        while (start < size) {
+            boundaryList.add(start);
+            final long nominalEnd = start + chunkSize;
+            start = nominalEnd < size ? seekNextLineStart(channel, nominalEnd - 1, size) : size;
+        }
+        boundaryList.add(size);
+        final long[] boundaries = new long[boundaryList.size()];
+        for (int i = 0; i < boundaries.length; i++) {
+            boundaries[i] = boundaryList.get(i);
+        }
+        return boundaries;
+    }
+
+    protected long seekNextLineStart(FileChannel channel, long from, long size) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(SEEKING_BUFFER_SIZE);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            final int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position = position + read;
+        }
+        return size;
+    }
+
+    protected int countLineSeparator(FileChannel channel, long start, long end) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(_bufferSize);
+        int count = 0;
+        long position = start;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            final int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    ++count;
+                }
+            }
+            position = position + read;
+        }
+        return count;
+    }
+
+    protected int getChunkResult(Future<Integer> future) throws IOException, SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            String msg = "future.get() for tokenizing chunk was interrupted: " + future;
+            throw new IllegalStateException(msg, e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            String msg = "Failed to tokenize the chunk: " + future;
+            throw new IllegalStateException(msg, cause);
+        }
+    }
+
+    // ===================================================================================
+    //                                                                         Parse Range
+    //                                                                         ===========
+    protected void parseRange(FileChannel channel, long start, long end, BufferTokenizingParser parser)
+            throws IOException, SQLException {
+        final CharsetDecoder decoder = _charset.newDecoder();
+        decoder.onMalformedInput(CodingErrorAction.REPLACE); // same as reader
+        decoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+        final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(_bufferSize);
+        final CharBuffer charBuffer = CharBuffer.allocate(_bufferSize);
+        long position = start;
+        boolean endOfInput = false;
+        while (!endOfInput) {
+            final int readable = (int) Math.min(byteBuffer.remaining(), end - position);
+            if (readable > 0) {
+                final int savedLimit = byteBuffer.limit();
+                byteBuffer.limit(byteBuffer.position() + readable);
+                final int read = channel.read(byteBuffer, position);
+                byteBuffer.limit(savedLimit);
+                if (read < 0) {
+                    endOfInput = true;
+                } else {
+                    position = position + read;
+                }
+            }
+            if (position >= end) {
+                endOfInput = true;
+            }
+            byteBuffer.flip();
+            CoderResult result;
+            do {
+                result = decoder.decode(byteBuffer, charBuffer, endOfInput);
+                if (endOfInput && !result.isOverflow()) {
+                    result = decoder.flush(charBuffer);
+                }
+                charBuffer.flip();
+                parser.parse(charBuffer.array(), charBuffer.arrayOffset() + charBuffer.position(), charBuffer.remaining());
+                charBuffer.clear();
+            } while (result.isOverflow());
+            byteBuffer.compact();
+        }
+        parser.finish();
+    }
+
+    // ===================================================================================
+    //                                                                              Parser
+    //                                                                              ======
+    /**
+     * The state machine of parsing chars. (not thread-safe, one parser per thread)
+     */
+    protected static class BufferTokenizingParser {
+
+        protected static final int FIELD_START = 0;
+        protected static final int UNQUOTED = 1;
+        protected static final int QUOTED = 2;
+        protected static final int QUOTE_IN_QUOTED = 3;
+
+        protected final char _delimiter;
+        protected final boolean _handleEmptyAsNull;
+        protected final boolean _parallel; // quoted line separators are not allowed
+        protected final FileTokenizingCallback _callback;
+        protected final FileTokenizingRowResource _resource = new FileTokenizingRowResource(); // recycled
+        protected final List<String> _valueList = new ArrayList<String>(); // recycled
+        protected final StringBuilder _fieldBuilder = new StringBuilder(); // recycled
+        protected final StringBuilder _rowBuilder = new StringBuilder(); // recycled
+        protected FileTokenizingHeaderInfo _headerInfo; // null means header not parsed yet
+        protected int _state = FIELD_START;
+        protected boolean _rowStarted;
+        protected boolean _skipLineFeed; // after CR
+        protected int _lineNumber = 1;
+        protected int _rowLineNumber = 1;
+        protected int _rowNumber = 1;
+        protected int _handledRowCount;
+
+        public BufferTokenizingParser(char delimiter, boolean handleEmptyAsNull, boolean parallel,
+                FileTokenizingCallback callback) {
+            _delimiter = delimiter;
+            _handleEmptyAsNull = handleEmptyAsNull;
+            _parallel = parallel;
+            _callback = callback;
+        }
+
+        public void prepareChunk(FileTokenizingHeaderInfo headerInfo, int lineNumber, int rowNumber) {
+            _headerInfo = headerInfo;
+            _lineNumber = lineNumber;
+            _rowLineNumber = lineNumber;
+            _rowNumber = rowNumber;
+        }
+
+        public void parse(char[] chars, int offset, int length) throws IOException, SQLException {
+            final int end = offset + length;
+            for (int i = offset; i < end; i++) {
+                final char ch = chars[i];
+                if (_skipLineFeed) {
+                    _skipLineFeed = false;
+                    if (ch == '\n') { // CR + LF
+                        continue;
+                    }
+                }
+                if (ch == '\r' || ch == '\n') {
+                    _skipLineFeed = (ch == '\r');
+                    handleLineSeparator();
+                    continue;
+                }
+                _rowStarted = true;
+                _rowBuilder.append(ch);
+                switch (_state) {
+                case FIELD_START:
+                    if (ch == '"') {
+                        _state = QUOTED;
+                    } else if (ch == _delimiter) {
+                        endField();
+                    } else {
+                        _fieldBuilder.append(ch);
+                        _state = UNQUOTED;
+                    }
+                    break;
+                case UNQUOTED:
+                    if (ch == _delimiter) {
+                        endField();
+                    } else {
+                        _fieldBuilder.append(ch);
+                    }
+                    break;
+                case QUOTED:
+                    if (ch == '"') {
+                        _state = QUOTE_IN_QUOTED;
+                    } else {
+                        _fieldBuilder.append(ch);
+                    }
+                    break;
+                default: // QUOTE_IN_QUOTED
+                    if (ch == '"') { // escaped quote
+                        _fieldBuilder.append(ch);
+                        _state = QUOTED;
+                    } else if (ch == _delimiter) {
+                        endField();
+                    } else { // e.g. "foo"bar, treated as plain chars leniently
+                        _fieldBuilder.append(ch);
+                        _state = UNQUOTED;
+                    }
+                }
+            }
+        }
+
+        protected void handleLineSeparator() throws IOException, SQLException {
+            ++_lineNumber;
+            if (_state == QUOTED) { // line separator in value
+                if (_parallel) {
+                    String msg = "The quoted line separator is not allowed in parallel tokenizing: line=" + _rowLineNumber;
+                    throw new IllegalStateException(msg);
+                }
+                _rowStarted = true;
+                _fieldBuilder.append('\n');
+                _rowBuilder.append('\n');
+                return;
+            }
+            endField();
+            endRow();
+        }
+
+        public void finish() throws IOException, SQLException {
+            if (_state == QUOTED && _parallel) {
+                String msg = "The quoted value is not closed in the chunk: line=" + _rowLineNumber;
+                throw new IllegalStateException(msg);
+            }
+            if (_rowStarted) {
+                endField();
+                endRow();
+            }
+        }
+
+        protected void endField() {
+            if (_handleEmptyAsNull && _fieldBuilder.length() == 0) {
+                _valueList.add(null);
+            } else {
+                _valueList.add(_fieldBuilder.toString());
+            }
+            _fieldBuilder.setLength(0);
+            _state = FIELD_START;
+        }
+
+        protected void endRow() throws IOException, SQLException {
+            try {
+                if (_headerInfo == null) {
+                    _headerInfo = createHeaderInfo(); // first line is header
+                } else {
+                    _resource.setHeaderInfo(_headerInfo);
+                    _resource.setValueList(_valueList);
+                    _resource.setRowStringSource(_rowBuilder);
+                    _resource.setRowNumber(_rowNumber);
+                    _resource.setLineNumber(_rowLineNumber);
+                    _callback.handleRow(_resource);
+                    ++_rowNumber;
+                    ++_handledRowCount;
+                }
+            } finally {
+                _valueList.clear();
+                _rowBuilder.setLength(0);
+                _rowStarted = false;
+                _rowLineNumber = _lineNumber;
+            }
+        }
+
+        protected FileTokenizingHeaderInfo createHeaderInfo() {
+            final FileTokenizingHeaderInfo headerInfo = new FileTokenizingHeaderInfo();
+            for (String value : _valueList) {
+                headerInfo.addColumnName(value != null ? value.trim() : ""); // trimming is header only
+            }
+            headerInfo.setColumnNameRowString(_rowBuilder.toString());
+            return headerInfo;
+        }
+
+        public void beginFirstLine() {
+            _headerInfo = new FileTokenizingHeaderInfo(); // as empty
+        }
+
+        public FileTokenizingHeaderInfo getHeaderInfo() {
+            return _headerInfo;
+        }
+
+        public int getHandledRowCount() {
+            return _handledRowCount;
+        }
+
+        @Override
+        public String toString() {
+            return "{line=" + _lineNumber + ", row=" + _rowNumber + ", state=" + _state + ", values="
+                    + _valueList + "}";
+        }
+    }
+}
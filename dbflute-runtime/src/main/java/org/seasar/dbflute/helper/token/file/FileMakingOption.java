@@ -48,6 +48,9 @@ public class FileMakingOption {
     /** The header info of file-making. (NotRequired) */
     protected FileMakingHeaderInfo _headerInfo;
 
+    /** Does it derive the header from meta data of the result set? (NotRequired: only for result set) */
+    protected boolean _headerInfoByResultSet;
+
     // ===================================================================================
     //                                                                         Easy-to-Use
     //                                                                         ===========
@@ -139,6 +142,15 @@ public class FileMakingOption {
         return this;
     }
 
+    /**
+     * Derive the header info from column labels of the result set. (only for making from result set)
+     * @return this. (NotNull)
+     */
+    public FileMakingOption headerInfoByResultSet() {
+        _headerInfoByResultSet = true;
+        return this;
+    }
+
     // ===================================================================================
     //                                                                      Basic Override
     //                                                                      ==============
@@ -189,4 +201,8 @@ public class FileMakingOption {
     public void setFileMakingHeaderInfo(FileMakingHeaderInfo headerInfo) {
         _headerInfo = headerInfo;
     }
-}
\ No newline at end of file
+
+    public boolean isHeaderInfoByResultSet() {
+        return _headerInfoByResultSet;
+    }
+}
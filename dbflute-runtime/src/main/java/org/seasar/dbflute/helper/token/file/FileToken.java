@@ -26,6 +26,9 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -42,6 +45,9 @@ import org.seasar.dbflute.helper.token.file.exception.FileTokenizingSQLHandlingF
 import org.seasar.dbflute.helper.token.line.LineMakingOption;
 import org.seasar.dbflute.helper.token.line.LineToken;
 import org.seasar.dbflute.helper.token.line.LineTokenizingOption;
+import org.seasar.dbflute.jdbc.ValueType;
+import org.seasar.dbflute.s2dao.valuetype.TnValueTypes;
+import org.seasar.dbflute.util.DfTypeUtil;
 import org.seasar.dbflute.util.Srl;
 
 /**
@@ -257,6 +263,51 @@ public class FileToken {
         }
     }
 
+    /**
+     * Tokenize (read) the token data in the specified file by NIO buffers. (for big files) <br />
+     * Values are parsed from a decoded char buffer without line strings,
+     * and the row resource (also its value list) is recycled for next row. <br />
+     * Quoted values follow the CSV style, and the delimiter should be one character.
+     * If the option has parallel degree, chunks of the file are tokenized in parallel.
+     * <pre>
+     * File tsvFile = ... <span style="color: #3F7E5E">// input file</span>
+     * FileToken fileToken = new FileToken();
+     * fileToken.tokenizeByBuffer(tsvFile.getPath(), new FileTokenizingCallback() {
+     *     public void handleRow(FileTokenizingRowResource resource) {
+     *         ... = resource.<span style="color: #AD4747">getValueList()</span>;
+     *     }
+     * }, new FileTokenizingOption().delimitateByTab().encodeAsUTF8().parallelByChunk(4));
+     * </pre>
+     * @param filePath The path of file name to read. (NotNull)
+     * @param callback The callback for file-tokenizing. (NotNull: should be thread-safe if parallel)
+     * @param option The option for file-tokenizing. (NotNull, Required{delimiter, encoding})
+     * @throws FileNotFoundException When the file was not found.
+     * @throws IOException When the file reading failed.
+     * @throws FileTokenizingSQLHandlingFailureException When the SQL handling fails in the row handling process.
+     */
+    public void tokenizeByBuffer(String filePath, FileTokenizingCallback callback, FileTokenizingOption option)
+            throws FileNotFoundException, IOException {
+        assertStringNotNullAndNotTrimmedEmpty("filePath", filePath);
+        assertObjectNotNull("callback", callback);
+        assertObjectNotNull("option", option);
+        final FileBufferTokenizer tokenizer = createFileBufferTokenizer(option);
+        FileInputStream fis = null;
+        try {
+            fis = new FileInputStream(filePath);
+            tokenizer.tokenize(fis.getChannel(), callback);
+        } finally {
+            if (fis != null) {
+                try {
+                    fis.close(); // also closes the channel
+                } catch (IOException ignored) {}
+            }
+        }
+    }
+
+    protected FileBufferTokenizer createFileBufferTokenizer(FileTokenizingOption option) {
+        return new FileBufferTokenizer(option);
+    }
+
     protected ValueLineInfo arrangeValueList(final String lineString, String delimiter) {
         final List<String> valueList = new ArrayList<String>();
 
@@ -681,6 +732,173 @@ public class FileToken {
         throw new FileMakingInvalidValueCountException(msg);
     }
 
+    // ===================================================================================
+    //                                                              Make (from Result Set)
+    //                                                              ======================
+    /**
+     * Make (write) token file from the result set directly. <br />
+     * Column values are converted by value types and written into a recycled line buffer,
+     * so no entity and no value list is created per row. (e.g. for big extracts by outside-SQL cursor)
+     * <pre>
+     * memberBhv.outsideSql().cursorHandling().selectCursor(path, pmb, new CursorHandler() {
+     *     public Object handle(ResultSet rs) throws SQLException {
+     *         try {
+     *             return fileToken.<span style="color: #AD4747">makeFromResultSet</span>(tsvFile, rs, option);
+     *         } catch (IOException e) {
+     *             ...
+     *         }
+     *     }
+     * });
+     * </pre>
+     * @param filePath The path of token file to write. (NotNull)
+     * @param rs The result set that has first pointer. (NotNull)
+     * @param option The option for file-making. (NotNull, Required: delimiter, encoding)
+     * @return The count of written data rows.
+     * @throws FileNotFoundException When the file was not found.
+     * @throws IOException When the file writing failed.
+     * @throws SQLException When it fails to handle the result set.
+     * @throws FileMakingInvalidValueCountException When the column count of the result set does not match the header.
+     */
+    public int makeFromResultSet(String filePath, ResultSet rs, FileMakingOption option) throws FileNotFoundException, IOException,
+            SQLException {
+        assertStringNotNullAndNotTrimmedEmpty("filePath", filePath);
+        FileOutputStream fos = null;
+        try {
+            fos = new FileOutputStream(filePath);
+            return doMakeFromResultSet(fos, rs, option);
+        } finally {
+            if (fos != null) {
+                try {
+                    fos.close(); // basically no needed but just in case
+                } catch (IOException ignored) {}
+            }
+        }
+    }
+
+    /**
+     * Make (write) token file from the result set directly. <br />
+     * The stream is closed after writing. (close() called finally)
+     * @param ous The output stream for writing. This stream is closed after writing automatically. (NotNull)
+     * @param rs The result set that has first pointer. (NotNull)
+     * @param option The option for file-making. (NotNull, Required: delimiter, encoding)
+     * @return The count of written data rows.
+     * @throws IOException When the file writing failed.
+     * @throws SQLException When it fails to handle the result set.
+     * @throws FileMakingInvalidValueCountException When the column count of the result set does not match the header.
+     */
+    public int makeFromResultSet(OutputStream ous, ResultSet rs, FileMakingOption option) throws IOException, SQLException {
+        return doMakeFromResultSet(ous, rs, option);
+    }
+
+    protected int doMakeFromResultSet(OutputStream ous, ResultSet rs, FileMakingOption option) throws IOException, SQLException {
+        assertObjectNotNull("ous", ous);
+        assertObjectNotNull("rs", rs);
+        assertObjectNotNull("option", option);
+        assertMakingDelimiter(option);
+        assertMakingEncoding(option);
+
+        Writer writer = null;
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(ous, option.getEncoding()));
+            final Set<String> doneMarkSet = new HashSet<String>(2);
+            final ResultSetMetaData metaData = rs.getMetaData();
+            final int columnCount = metaData.getColumnCount();
+
+            // write header
+            final List<String> columnNameList = prepareResultSetHeader(metaData, option);
+            if (columnNameList != null) {
+                checkResultSetColumnCount(option, columnNameList, metaData);
+                doWriterHeader(writer, columnNameList, option, doneMarkSet);
+            }
+
+            // write data row
+            final ValueType[] valueTypes = prepareResultSetValueTypes(metaData);
+            final LineMakingOption lineOption = prepareWritingLineOption(option);
+            final String delimiter = lineOption.getDelimiter();
+            final String lineSep = prepareWritingLineSeparator(option);
+            final StringBuilder lineBuffer = new StringBuilder(); // recycled for all rows
+            char[] charBuffer = new char[256]; // recycled, extended if it needs
+            int rowCount = 0;
+            while (rs.next()) {
+                lineBuffer.setLength(0);
+                if (doneMarkSet.contains(FIRST_LINE_DONE_MARK)) { // second or more line
+                    lineBuffer.append(lineSep);
+                }
+                for (int i = 0; i < columnCount; i++) {
+                    if (i > 0) {
+                        lineBuffer.append(delimiter);
+                    }
+                    final Object value = valueTypes[i].getValue(rs, i + 1);
+                    _lineToken.appendValue(lineBuffer, convertResultSetValue(value), lineOption);
+                }
+                final int length = lineBuffer.length();
+                if (charBuffer.length < length) {
+                    charBuffer = new char[Math.max(length, charBuffer.length * 2)];
+                }
+                lineBuffer.getChars(0, length, charBuffer, 0);
+                writer.write(charBuffer, 0, length);
+                doneMarkSet.add(FIRST_LINE_DONE_MARK);
+                ++rowCount;
+            }
+            writer.flush();
+            return rowCount;
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+
+    protected List<String> prepareResultSetHeader(ResultSetMetaData metaData, FileMakingOption option) throws SQLException {
+        final FileMakingHeaderInfo headerInfo = option.getFileMakingHeaderInfo();
+        if (headerInfo != null) {
+            final List<String> columnNameList = headerInfo.getColumnNameList();
+            if (columnNameList != null && !columnNameList.isEmpty()) {
+                return columnNameList;
+            }
+        }
+        if (option.isHeaderInfoByResultSet()) {
+            final int columnCount = metaData.getColumnCount();
+            final List<String> columnNameList = new ArrayList<String>(columnCount);
+            for (int i = 1; i <= columnCount; i++) {
+                columnNameList.add(metaData.getColumnLabel(i));
+            }
+            return columnNameList;
+        }
+        return null; // no header
+    }
+
+    protected void checkResultSetColumnCount(FileMakingOption option, List<String> columnNameList, ResultSetMetaData metaData)
+            throws SQLException {
+        if (option.isSuppressValueCountCheck()) {
+            return;
+        }
+        final int columnCount = metaData.getColumnCount();
+        if (columnNameList.size() != columnCount) {
+            final List<String> labelList = new ArrayList<String>(columnCount);
+            for (int i = 1; i <= columnCount; i++) {
+                labelList.add(metaData.getColumnLabel(i));
+            }
+            throwFileMakingInvalidValueCountException(columnNameList, labelList);
+        }
+    }
+
+    protected ValueType[] prepareResultSetValueTypes(ResultSetMetaData metaData) throws SQLException {
+        final int columnCount = metaData.getColumnCount();
+        final ValueType[] valueTypes = new ValueType[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            valueTypes[i] = TnValueTypes.getValueType(metaData.getColumnType(i + 1));
+        }
+        return valueTypes;
+    }
+
+    protected String convertResultSetValue(Object value) {
+        if (value instanceof BigDecimal) { // not to be exponential expression
+            return ((BigDecimal) value).toPlainString();
+        }
+        return DfTypeUtil.toString(value); // date, binary as default format
+    }
+
     // ===================================================================================
     //                                                                       Assert Helper
     //                                                                       =============
@@ -32,6 +32,7 @@ public class FileTokenizingOption {
     protected String _encoding;
     protected boolean _beginFirstLine;
     protected boolean _handleEmptyAsNull;
+    protected int _parallelDegree;
 
     // =====================================================================================
     //                                                                           Easy-to-Use
@@ -82,6 +83,22 @@ public class FileTokenizingOption {
         return this;
     }
 
+    /**
+     * Tokenize the file by chunks in parallel. (only for buffer tokenizing) <br />
+     * The values should not contain quoted line separators,
+     * and the callback is called concurrently so it should be thread-safe.
+     * @param parallelDegree The count of threads to tokenize chunks. (NotMinus, NotZero)
+     * @return this. (NotNull)
+     */
+    public FileTokenizingOption parallelByChunk(int parallelDegree) {
+        if (parallelDegree <= 0) {
+            String msg = "The argument 'parallelDegree' should be plus: " + parallelDegree;
+            throw new IllegalArgumentException(msg);
+        }
+        _parallelDegree = parallelDegree;
+        return this;
+    }
+
     // ===================================================================================
     //                                                                      Basic Override
     //                                                                      ==============
@@ -116,4 +133,8 @@ public class FileTokenizingOption {
     public boolean isHandleEmptyAsNull() {
         return _handleEmptyAsNull;
     }
-}
\ No newline at end of file
+
+    public int getParallelDegree() {
+        return _parallelDegree;
+    }
+}
@@ -32,6 +32,7 @@ public class FileTokenizingRowResource {
     protected FileTokenizingHeaderInfo _headerInfo;
     protected List<String> _valueList;
     protected String _rowString;
+    protected CharSequence _rowStringSource; // converted lazily, e.g. recycled buffer
     protected int _rowNumber;
     protected int _lineNumber;
 
@@ -69,7 +70,7 @@ public class FileTokenizingRowResource {
     //                                                                      ==============
     @Override
     public String toString() {
-        return "{" + _lineNumber + ", row=" + _rowNumber + ": " + _rowString + "}";
+        return "{" + _lineNumber + ", row=" + _rowNumber + ": " + getRowString() + "}";
     }
 
     // =====================================================================================
@@ -106,11 +107,20 @@ public class FileTokenizingRowResource {
      * @return The string of row. (NotNull in callback)
      */
     public String getRowString() {
+        if (_rowString == null && _rowStringSource != null) {
+            _rowString = _rowStringSource.toString();
+        }
         return _rowString;
     }
 
     public void setRowString(String rowString) {
         _rowString = rowString;
+        _rowStringSource = null;
+    }
+
+    public void setRowStringSource(CharSequence rowStringSource) {
+        _rowString = null;
+        _rowStringSource = rowStringSource;
     }
 
     /**
@@ -19,8 +19,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
-import org.seasar.dbflute.util.Srl;
-
 /**
  * @author jflute
  */
@@ -70,25 +68,56 @@ public class LineToken {
     protected String createLineString(Collection<String> valueList, String delimiter, boolean quoteAll, boolean quoteMinimamlly,
             boolean trimSpace) {
         final StringBuilder sb = new StringBuilder();
+        boolean first = true;
         for (String value : valueList) {
-            value = (value != null ? value : "");
-            if (trimSpace) {
-                value = value.trim();
-            }
-            if (quoteAll) {
-                value = Srl.replace(value, "\"", "\"\"");
-                sb.append(delimiter).append("\"").append(value).append("\"");
-            } else if (quoteMinimamlly && needsQuote(value, delimiter)) {
-                value = Srl.replace(value, "\"", "\"\"");
-                sb.append(delimiter).append("\"").append(value).append("\"");
+            if (first) {
+                first = false;
             } else {
-                sb.append(delimiter).append(value);
+                sb.append(delimiter);
             }
+            appendValue(sb, value, delimiter, quoteAll, quoteMinimamlly, trimSpace);
         }
-        sb.delete(0, delimiter.length());
         return sb.toString();
     }
 
+    /**
+     * Append the value to the line buffer with quoting by the option. (no delimiter is appended) <br />
+     * This is for a caller that builds lines into its own recycled buffer.
+     * @param sb The buffer of line to be appended. (NotNull)
+     * @param value The value of the column. (NullAllowed: treated as empty)
+     * @param lineMakingOption The option of line-making. (NotNull, Required: delimiter)
+     */
+    public void appendValue(StringBuilder sb, String value, LineMakingOption lineMakingOption) {
+        appendValue(sb, value, lineMakingOption.getDelimiter(), lineMakingOption.isQuoteAll(),
+                lineMakingOption.isQuoteMinimally(), lineMakingOption.isTrimSpace());
+    }
+
+    protected void appendValue(StringBuilder sb, String value, String delimiter, boolean quoteAll, boolean quoteMinimamlly,
+            boolean trimSpace) {
+        value = (value != null ? value : "");
+        if (trimSpace) {
+            value = value.trim();
+        }
+        if (quoteAll || (quoteMinimamlly && needsQuote(value, delimiter))) {
+            appendQuotedValue(sb, value);
+        } else {
+            sb.append(value);
+        }
+    }
+
+    protected void appendQuotedValue(StringBuilder sb, String value) {
+        sb.append('"');
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            final char ch = value.charAt(i);
+            if (ch == '"') { // escaped as double quotation
+                sb.append('"');
+            }
+            sb.append(ch);
+        }
+        sb.append('"');
+    }
+
     protected boolean needsQuote(String value, String delimiter) {
         return value.contains("\"") || value.contains("\r") || value.contains("\n") || value.contains(delimiter);
     }
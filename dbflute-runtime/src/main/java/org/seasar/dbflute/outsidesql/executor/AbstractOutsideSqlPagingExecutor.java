@@ -16,9 +16,11 @@
 package org.seasar.dbflute.outsidesql.executor;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.seasar.dbflute.DBDef;
 import org.seasar.dbflute.bhv.core.BehaviorCommandInvoker;
+import org.seasar.dbflute.cbean.ConcurrentPagingHandler;
 import org.seasar.dbflute.cbean.ListResultBean;
 import org.seasar.dbflute.cbean.PagingBean;
 import org.seasar.dbflute.cbean.PagingHandler;
@@ -205,6 +207,107 @@ public abstract class AbstractOutsideSqlPagingExecutor<BEHAVIOR> {
         return pmb.createPagingInvoker(_tableDbName);
     }
 
+    // -----------------------------------------------------
+    //                                      Concurrent Count
+    //                                      ----------------
+    /**
+     * Select page by the outside-SQL, selecting the count concurrently if the executor is configured. <br />
+     * The count is selected by the count parameter-bean on the executor's thread (by separate connection)
+     * while the page is selected by the parameter-bean, so both beans should have the same parameters.
+     * It is same as selectPage(path, pmb, entityType) if no executor for concurrent count.
+     * <pre>
+     * SimpleMemberPmb pmb = new SimpleMemberPmb();
+     * pmb.setMemberName_PrefixSearch("S");
+     * pmb.paging(20, 3);
+     * SimpleMemberPmb countPmb = new SimpleMemberPmb(); <span style="color: #3F7E5E">// not shared with the page select</span>
+     * countPmb.setMemberName_PrefixSearch("S");
+     * countPmb.paging(20, 3);
+     * PagingResultBean&lt;SimpleMember&gt; page
+     *     = memberBhv.outsideSql().manualPaging().<span style="color: #DD4747">selectPage</span>(path, pmb, countPmb, entityType);
+     * </pre>
+     * @param <ENTITY> The type of entity.
+     * @param path The path of SQL that executes count and paging. (NotNull)
+     * @param pmb The bean of paging parameter for the page select. (NotNull)
+     * @param countPmb The bean of paging parameter for the count select, not same instance as pmb. (NotNull)
+     * @param entityType The type of result entity. (NotNull)
+     * @return The result bean of paging. (NotNull)
+     * @exception org.seasar.dbflute.exception.OutsideSqlNotFoundException When the outside-SQL is not found.
+     * @exception org.seasar.dbflute.exception.DangerousResultSizeException When the result size is over the specified safety size.
+     */
+    public <ENTITY> PagingResultBean<ENTITY> selectPage(String path, PagingBean pmb, PagingBean countPmb,
+            Class<ENTITY> entityType) {
+        assertCountParameterBeanValid(pmb, countPmb);
+        final Executor countExecutor = getConcurrentPagingCountExecutor();
+        if (countExecutor == null) { // sequential as default
+            return doSelectPage(path, pmb, entityType);
+        }
+        return doSelectPageConcurrently(path, pmb, countPmb, countExecutor, entityType);
+    }
+
+    protected Executor getConcurrentPagingCountExecutor() { // customize point
+        return _behaviorCommandInvoker.getConcurrentPagingCountExecutor(); // null allowed
+    }
+
+    protected <ENTITY> PagingResultBean<ENTITY> doSelectPageConcurrently(String path, PagingBean pmb,
+            PagingBean countPmb, Executor countExecutor, Class<ENTITY> entityType) {
+        if (path == null) {
+            String msg = "The argument 'path' of outside-SQL should not be null.";
+            throw new IllegalArgumentException(msg);
+        }
+        if (entityType == null) {
+            String msg = "The argument 'entityType' for result should not be null: path=" + path;
+            throw new IllegalArgumentException(msg);
+        }
+        try {
+            final PagingHandler<ENTITY> handler = createConcurrentPagingHandler(path, pmb, countPmb, entityType);
+            final PagingInvoker<ENTITY> invoker = createPagingInvoker(pmb);
+            invoker.setConcurrentCountExecutor(countExecutor);
+            return invoker.invokePaging(handler);
+        } catch (PagingOverSafetySizeException e) {
+            createBhvExThrower().throwDangerousResultSizeException(pmb, e);
+            return null; // unreachable
+        }
+    }
+
+    protected <ENTITY> PagingHandler<ENTITY> createConcurrentPagingHandler(String path, final PagingBean pmb,
+            PagingBean countPmb, Class<ENTITY> entityType) {
+        final PagingHandler<ENTITY> pagingHandler = createPagingHandler(path, pmb, entityType);
+        final PagingHandler<ENTITY> countHandler = createPagingHandler(path, countPmb, entityType);
+        return new ConcurrentPagingHandler<ENTITY>() {
+            public PagingBean getPagingBean() {
+                return pmb;
+            }
+
+            public int count() { // e.g. count later
+                return pagingHandler.count();
+            }
+
+            public int countConcurrently() { // on the executor's thread
+                return countHandler.count();
+            }
+
+            public List<ENTITY> paging() {
+                return pagingHandler.paging();
+            }
+        };
+    }
+
+    protected void assertCountParameterBeanValid(PagingBean pmb, PagingBean countPmb) {
+        if (pmb == null || countPmb == null) {
+            String msg = "The argument 'pmb' and 'countPmb' should not be null: pmb=" + pmb + ", countPmb=" + countPmb;
+            throw new IllegalArgumentException(msg);
+        }
+        if (pmb == countPmb) { // the paging flag of the bean is switched by each select
+            String msg = "The argument 'countPmb' should be other instance than 'pmb': " + pmb;
+            throw new IllegalArgumentException(msg);
+        }
+        if (!pmb.getClass().equals(countPmb.getClass())) {
+            String msg = "The argument 'countPmb' should be same type as 'pmb':";
+            msg = msg + " pmb=" + pmb.getClass().getName() + ", countPmb=" + countPmb.getClass().getName();
+            throw new IllegalArgumentException(msg);
+        }
+    }
+
     protected void setupScrollableCursorIfNeeds() {
         if (!_outsideSqlOption.isAutoPaging()) {
             return;
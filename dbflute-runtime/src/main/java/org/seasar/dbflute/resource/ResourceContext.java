@@ -295,13 +295,29 @@ public class ResourceContext {
     //                                         Select Column
     //                                         -------------
     public static Map<String, String> createSelectColumnMap(ResultSet rs) throws SQLException {
-        final ResultSetMetaData rsmd = rs.getMetaData();
-        final int count = rsmd.getColumnCount();
-        final Map<String, String> selectColumnKeyNameMap = getSelectColumnKeyNameMap();
+        final String[] columnNames = extractSelectColumnNames(rs);
 
         // flexible for resolving non-compilable connectors and reservation words
         final Map<String, String> columnMap = StringKeyMap.createAsFlexible();
 
+        for (String columnName : columnNames) {
+            columnMap.put(columnName, columnName);
+        }
+        return columnMap;
+    }
+
+    /**
+     * Extract the names of selected columns from result set meta data. <br />
+     * The on-query names are switched to column DB names if it uses select index.
+     * @param rs The result set of JDBC. (NotNull)
+     * @return The array of real column names in JDBC order. (NotNull)
+     * @throws SQLException
+     */
+    public static String[] extractSelectColumnNames(ResultSet rs) throws SQLException {
+        final ResultSetMetaData rsmd = rs.getMetaData();
+        final int count = rsmd.getColumnCount();
+        final Map<String, String> selectColumnKeyNameMap = getSelectColumnKeyNameMap();
+        final String[] columnNames = new String[count];
         for (int i = 0; i < count; ++i) {
             String columnLabel = rsmd.getColumnLabel(i + 1);
             final int dotIndex = columnLabel.lastIndexOf('.');
@@ -319,9 +335,9 @@ public class ResourceContext {
             } else {
                 realColumnName = columnLabel;
             }
-            columnMap.put(realColumnName, realColumnName);
+            columnNames[i] = realColumnName;
         }
-        return columnMap;
+        return columnNames;
     }
 
     protected static Map<String, String> getSelectColumnKeyNameMap() {
@@ -34,6 +34,8 @@ import org.seasar.dbflute.s2dao.rowcreator.TnRelationKey;
 import org.seasar.dbflute.s2dao.rowcreator.TnRelationRowCache;
 import org.seasar.dbflute.s2dao.rowcreator.TnRelationRowCreationResource;
 import org.seasar.dbflute.s2dao.rowcreator.TnRelationSelector;
+import org.seasar.dbflute.s2dao.rowcreator.TnRowMappingPlan;
+import org.seasar.dbflute.s2dao.rowcreator.TnRowMappingPlan.TnPlannedColumns;
 import org.seasar.dbflute.s2dao.rowcreator.impl.TnRelationRowCreatorImpl;
 import org.seasar.dbflute.s2dao.rshandler.TnBeanListResultSetHandler;
 import org.seasar.dbflute.util.DfReflectionUtil;
@@ -92,15 +94,28 @@ public class TnRelationRowCreatorExtension extends TnRelationRowCreatorImpl {
     //                                                             =======================
     @Override
     protected void setupRelationAllValue(TnRelationRowCreationResource res) throws SQLException {
-        final Map<String, TnPropertyMapping> propertyCacheElement = res.extractPropertyCacheElement();
-        for (Entry<String, TnPropertyMapping> entry : propertyCacheElement.entrySet()) {
-            final TnPropertyMapping pt = entry.getValue();
-            res.setCurrentPropertyType(pt);
-            if (!isValidRelationPerPropertyLoop(res)) { // no way unless the method is overridden
-                res.clearRowInstance();
-                return;
+        final TnPlannedColumns planned = findRelationPlannedColumns(res);
+        if (planned != null) { // mainly here if condition-bean select
+            final int size = planned.size();
+            for (int i = 0; i < size; i++) { // index-driven, no map lookup
+                res.setCurrentPropertyType(planned.getMapping(i));
+                if (!isValidRelationPerPropertyLoop(res)) { // no way unless the method is overridden
+                    res.clearRowInstance();
+                    return;
+                }
+                registerPlannedRelationValue(res, planned, i);
+            }
+        } else {
+            final Map<String, TnPropertyMapping> propertyCacheElement = res.extractPropertyCacheElement();
+            for (Entry<String, TnPropertyMapping> entry : propertyCacheElement.entrySet()) {
+                final TnPropertyMapping pt = entry.getValue();
+                res.setCurrentPropertyType(pt);
+                if (!isValidRelationPerPropertyLoop(res)) { // no way unless the method is overridden
+                    res.clearRowInstance();
+                    return;
+                }
+                setupRelationProperty(res);
             }
-            setupRelationProperty(res);
         }
         if (!isValidRelationAfterPropertyLoop(res)) { // e.g. when all values are null
             res.clearRowInstance();
@@ -143,6 +158,23 @@ public class TnRelationRowCreatorExtension extends TnRelationRowCreatorImpl {
         handleRelationValueRegistration(res, mapping, value);
     }
 
+    protected TnPlannedColumns findRelationPlannedColumns(TnRelationRowCreationResource res) {
+        final TnRowMappingPlan mappingPlan = res.getMappingPlan();
+        return mappingPlan != null ? mappingPlan.findRelationPlannedColumns(res.getRelationNoSuffix()) : null;
+    }
+
+    protected void registerPlannedRelationValue(TnRelationRowCreationResource res, TnPlannedColumns planned, int index)
+            throws SQLException {
+        final String columnName = planned.getColumnName(index); // already has relation suffix
+        final Object value;
+        if (res.containsRelationKeyColumn(columnName)) { // #RELKEY
+            value = res.extractRelationKeyValue(columnName);
+        } else {
+            value = planned.getValue(res.getResultSet(), index);
+        }
+        handleRelationValueRegistration(res, planned.getMapping(index), value);
+    }
+
     protected void handleRelationValueRegistration(TnRelationRowCreationResource res, TnPropertyMapping mapping, Object value) {
         if (value != null) {
             res.incrementValidValueCount();
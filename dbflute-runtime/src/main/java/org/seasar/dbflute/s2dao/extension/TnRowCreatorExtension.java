@@ -41,6 +41,8 @@ import org.seasar.dbflute.resource.InternalMapContext;
 import org.seasar.dbflute.resource.ResourceContext;
 import org.seasar.dbflute.s2dao.metadata.TnBeanMetaData;
 import org.seasar.dbflute.s2dao.metadata.TnPropertyMapping;
+import org.seasar.dbflute.s2dao.rowcreator.TnRowMappingPlan;
+import org.seasar.dbflute.s2dao.rowcreator.TnRowMappingPlan.TnPlannedColumns;
 import org.seasar.dbflute.s2dao.rowcreator.impl.TnRowCreatorImpl;
 import org.seasar.dbflute.s2dao.valuetype.TnValueTypes;
 import org.seasar.dbflute.util.DfTypeUtil;
@@ -190,6 +192,75 @@ public class TnRowCreatorExtension extends TnRowCreatorImpl {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public Object createRow(ResultSet rs, Map<String, Map<String, Integer>> selectIndexMap, TnRowMappingPlan mappingPlan,
+            Class<?> beanClass) throws SQLException {
+        final TnPlannedColumns planned = mappingPlan.getBasePlannedColumns();
+        final int size = planned.size();
+        if (size == 0) {
+            String msg = "The propertyCache should not be empty: bean=" + beanClass.getName();
+            throw new IllegalStateException(msg);
+        }
+
+        // temporary variable, for exception message, debug message
+        TnPropertyMapping mapping = null;
+        Object selectedValue = null;
+        ColumnInfo columnInfo = null;
+
+        final Object row;
+        final DBMeta dbmeta;
+        if (_fixedDBMeta != null) {
+            if (_creatableByDBMeta) { // mainly here
+                row = _fixedDBMeta.newEntity();
+            } else { // e.g. manual-extended entity
+                row = newBean(beanClass);
+            }
+            dbmeta = _fixedDBMeta;
+        } else { // e.g. manual-created bean of outsideSql
+            row = newBean(beanClass);
+            dbmeta = findCachedDBMeta(row); // find just in case
+        }
+        try {
+            if (dbmeta != null) { // mainly here
+                final boolean isEntity = row instanceof Entity; // almost always true
+                final Entity entityRow = isEntity ? (Entity) row : null;
+                for (int i = 0; i < size; i++) { // index-driven, no map lookup
+                    mapping = planned.getMapping(i);
+                    selectedValue = planned.getValue(rs, i);
+                    columnInfo = mapping.getEntityColumnInfo();
+                    if (columnInfo != null && isEntity) {
+                        columnInfo.write(entityRow, selectedValue);
+                    } else {
+                        mapping.getPropertyAccessor().setValue(row, selectedValue);
+                    }
+                }
+                if (canHandleDerivedMap(row)) {
+                    processDerivedMap(rs, selectIndexMap, mappingPlan.getPropertyCache(), row);
+                }
+            } else { // not DBFlute entity
+                for (int i = 0; i < size; i++) {
+                    mapping = planned.getMapping(i);
+                    selectedValue = planned.getValue(rs, i);
+                    mapping.getPropertyAccessor().setValue(row, selectedValue);
+                }
+            }
+            return row;
+        } catch (ClassCastException e) {
+            throwMappingClassCastException(row, dbmeta, mapping, selectedValue, e);
+            return null; // unreachable
+        } catch (SQLException e) {
+            if (_log.isDebugEnabled()) {
+                final String propertyName = mapping != null ? mapping.getPropertyName() : null;
+                String msg = "Failed to get selected values while resultSet handling:";
+                msg = msg + " target=" + DfTypeUtil.toClassTitle(beanClass) + "." + propertyName;
+                _log.debug(msg);
+            }
+            throw e;
+        }
+    }
+
     protected boolean canHandleDerivedMap(final Object row) {
         return row instanceof DerivedMappable && ConditionBeanContext.isExistConditionBeanOnThread();
     }
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.s2dao.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.seasar.dbflute.jdbc.PlainPreparedStatementWrapper;
+
+/**
+ * The prepared statement cached in the statement cache. <br />
+ * The method 'close()' releases it to the cache instead of closing really,
+ * and the statement options changed in the use are restored when it is reused.
+ * @author jflute
+ * @since 1.0.5N (2014/12/16 Tuesday)
+ */
+public class TnCachedPreparedStatement extends PlainPreparedStatementWrapper {
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    protected final TnPreparedStatementCache _statementCache;
+    protected final Connection _cachedConnection;
+    protected final String _statementKey;
+    protected final int _initialQueryTimeout;
+    protected final int _initialFetchSize;
+    protected final int _initialMaxRows;
+    protected volatile boolean _inUse = true; // registered when used
+    protected boolean _optionModified;
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    public TnCachedPreparedStatement(TnPreparedStatementCache statementCache, Connection cachedConnection,
+            String statementKey, PreparedStatement actualStatement) {
+        super(actualStatement);
+        _statementCache = statementCache;
+        _cachedConnection = cachedConnection;
+        _statementKey = statementKey;
+        try {
+            _initialQueryTimeout = actualStatement.getQueryTimeout();
+            _initialFetchSize = actualStatement.getFetchSize();
+            _initialMaxRows = actualStatement.getMaxRows();
+        } catch (SQLException e) {
+            String msg = "Failed to get the initial options of the statement: " + actualStatement;
+            throw new IllegalStateException(msg, e);
+        }
+    }
+
+    // ===================================================================================
+    //                                                                           Use State
+    //                                                                           =========
+    public boolean isInUse() {
+        return _inUse;
+    }
+
+    public void markInUse() {
+        _inUse = true;
+    }
+
+    public void markIdle() {
+        _inUse = false;
+    }
+
+    public boolean isActualClosed() {
+        try {
+            return _actualStatement.isClosed();
+        } catch (SQLException ignored) {
+            return true; // treated as broken
+        }
+    }
+
+    /**
+     * Restore the statement options to initial values if they were changed in the previous use.
+     * @throws SQLException When it fails to set the options.
+     */
+    public void restoreInitialOptions() throws SQLException {
+        if (!_optionModified) {
+            return;
+        }
+        _actualStatement.setQueryTimeout(_initialQueryTimeout);
+        _actualStatement.setFetchSize(_initialFetchSize);
+        _actualStatement.setMaxRows(_initialMaxRows);
+        _optionModified = false;
+    }
+
+    public void closeActualQuietly() {
+        try {
+            _actualStatement.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    // ===================================================================================
+    //                                                                      Implementation
+    //                                                                      ==============
+    @Override
+    public void close() throws SQLException {
+        if (!_inUse) { // already released
+            return;
+        }
+        try {
+            _actualStatement.clearParameters();
+            _actualStatement.clearBatch();
+        } catch (SQLException e) { // cannot reuse it
+            _statementCache.discard(this);
+            _inUse = false;
+            _actualStatement.close();
+            return;
+        }
+        if (!_statementCache.release(this)) { // e.g. evicted while in-use
+            _inUse = false;
+            _actualStatement.close();
+        }
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return !_inUse || _actualStatement.isClosed();
+    }
+
+    @Override
+    public void setQueryTimeout(int queryTimeout) throws SQLException {
+        _optionModified = true;
+        super.setQueryTimeout(queryTimeout);
+    }
+
+    @Override
+    public void setFetchSize(int fetchSize) throws SQLException {
+        _optionModified = true;
+        super.setFetchSize(fetchSize);
+    }
+
+    @Override
+    public void setMaxRows(int maxRows) throws SQLException {
+        _optionModified = true;
+        super.setMaxRows(maxRows);
+    }
+
+    // ===================================================================================
+    //                                                                            Accessor
+    //                                                                            ========
+    public Connection getCachedConnection() {
+        return _cachedConnection;
+    }
+
+    public String getStatementKey() {
+        return _statementKey;
+    }
+}
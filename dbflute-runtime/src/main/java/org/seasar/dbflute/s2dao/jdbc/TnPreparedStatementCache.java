@@ -0,0 +1,386 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.s2dao.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The cache of prepared statements per connection. <br />
+ * Statements are keyed by SQL and result set options in each connection,
+ * and the least recently used statement is closed when the size is over. <br />
+ * Cached statements are closed together when their connection is closed by the handler,
+ * found closed (checked when a new connection comes) or evicted from the cache. <br />
+ * Only evictions by the max sizes are counted as eviction in the statistics.
+ * @author jflute
+ * @since 1.0.5N (2014/12/16 Tuesday)
+ */
+public class TnPreparedStatementCache {
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    /** The max size of cached statements per connection. */
+    protected final int _statementMaxSize;
+
+    /** The max size of connections that have cached statements. */
+    protected final int _connectionMaxSize;
+
+    /** The map of statement pool keyed by connection, the order is access-order. (NotNull) */
+    protected final Map<Connection, StatementPool> _poolMap;
+
+    protected final AtomicLong _hitCount = new AtomicLong();
+    protected final AtomicLong _missCount = new AtomicLong();
+    protected final AtomicLong _evictionCount = new AtomicLong();
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    /**
+     * @param statementMaxSize The max size of cached statements per connection. (NotMinus, NotZero)
+     * @param connectionMaxSize The max size of connections that have cached statements. (NotMinus, NotZero)
+     */
+    public TnPreparedStatementCache(int statementMaxSize, int connectionMaxSize) {
+        if (statementMaxSize <= 0) {
+            String msg = "The argument 'statementMaxSize' should be positive: " + statementMaxSize;
+            throw new IllegalArgumentException(msg);
+        }
+        if (connectionMaxSize <= 0) {
+            String msg = "The argument 'connectionMaxSize' should be positive: " + connectionMaxSize;
+            throw new IllegalArgumentException(msg);
+        }
+        _statementMaxSize = statementMaxSize;
+        _connectionMaxSize = connectionMaxSize;
+        _poolMap = new LinkedHashMap<Connection, StatementPool>(16, 0.75f, true); // connection uses identity equals
+    }
+
+    // ===================================================================================
+    //                                                                       Statement Key
+    //                                                                       =============
+    public String buildStatementKey(String sql, int resultSetType, int resultSetConcurrency) {
+        return resultSetType + ":" + resultSetConcurrency + ":" + sql;
+    }
+
+    // ===================================================================================
+    //                                                                            Checkout
+    //                                                                            ========
+    /**
+     * Check out the cached statement that is not used now, counting as hit or miss.
+     * @param conn The connection that the statement belongs to. (NotNull)
+     * @param statementKey The key of statement built by this cache. (NotNull)
+     * @return The cached statement marked as in-use. (NullAllowed: when not found or in-use)
+     */
+    public TnCachedPreparedStatement checkout(Connection conn, String statementKey) {
+        final TnCachedPreparedStatement statement;
+        synchronized (this) {
+            final StatementPool pool = _poolMap.get(conn);
+            statement = pool != null ? pool.checkout(statementKey) : null;
+        }
+        if (statement != null) {
+            _hitCount.incrementAndGet();
+        } else {
+            _missCount.incrementAndGet();
+        }
+        return statement;
+    }
+
+    /**
+     * Register the prepared statement as cached statement that is in-use.
+     * @param conn The connection that the statement belongs to. (NotNull)
+     * @param statementKey The key of statement built by this cache. (NotNull)
+     * @param actualStatement The actual prepared statement. (NotNull)
+     * @return The cached statement wrapping the actual one. (NullAllowed: when the same key is in-use, not cached)
+     */
+    public TnCachedPreparedStatement register(Connection conn, String statementKey, PreparedStatement actualStatement) {
+        final List<TnCachedPreparedStatement> purgedList = new ArrayList<TnCachedPreparedStatement>();
+        final List<TnCachedPreparedStatement> evictedList = new ArrayList<TnCachedPreparedStatement>();
+        final TnCachedPreparedStatement statement;
+        synchronized (this) {
+            StatementPool pool = _poolMap.get(conn);
+            if (pool == null) {
+                sweepClosedConnection(purgedList); // new connection comes so old ones may be closed
+                pool = new StatementPool();
+                _poolMap.put(conn, pool);
+                evictOverConnection(evictedList);
+            }
+            if (pool.contains(statementKey)) { // e.g. nested execution of same SQL
+                statement = null;
+            } else {
+                statement = createCachedPreparedStatement(conn, statementKey, actualStatement);
+                pool.register(statementKey, statement, evictedList);
+            }
+        }
+        closePurged(purgedList);
+        closeEvicted(evictedList);
+        return statement;
+    }
+
+    protected TnCachedPreparedStatement createCachedPreparedStatement(Connection conn, String statementKey,
+            PreparedStatement actualStatement) {
+        return new TnCachedPreparedStatement(this, conn, statementKey, actualStatement);
+    }
+
+    // ===================================================================================
+    //                                                                             Release
+    //                                                                             =======
+    /**
+     * Release the statement to the cache, called when the cached statement is closed.
+     * @param statement The cached statement to be released. (NotNull)
+     * @return Is the statement kept in the cache? (false: should be closed really)
+     */
+    public boolean release(TnCachedPreparedStatement statement) {
+        synchronized (this) {
+            final StatementPool pool = _poolMap.get(statement.getCachedConnection());
+            if (pool == null || !pool.isRegistered(statement)) { // evicted while in-use
+                return false;
+            }
+            statement.markIdle();
+            return true;
+        }
+    }
+
+    /**
+     * Discard the statement from the cache without closing, e.g. it cannot be reused.
+     * @param statement The cached statement to be discarded. (NotNull)
+     */
+    public void discard(TnCachedPreparedStatement statement) {
+        synchronized (this) {
+            final StatementPool pool = _poolMap.get(statement.getCachedConnection());
+            if (pool != null && pool.isRegistered(statement)) {
+                pool.remove(statement.getStatementKey());
+            }
+        }
+    }
+
+    // ===================================================================================
+    //                                                                               Purge
+    //                                                                               =====
+    /**
+     * Close the cached statements of the connection, e.g. before closing the connection.
+     * @param conn The connection that the statements belong to. (NotNull)
+     */
+    public void closeStatements(Connection conn) {
+        final List<TnCachedPreparedStatement> purgedList = new ArrayList<TnCachedPreparedStatement>();
+        synchronized (this) {
+            final StatementPool pool = _poolMap.remove(conn);
+            if (pool != null) {
+                pool.evictAll(purgedList);
+            }
+        }
+        closePurged(purgedList);
+    }
+
+    /**
+     * Close the cached statements of the connection if it has been really closed. <br />
+     * Called after the connection is closed (or returned to the pool). A connection still open
+     * after closing (e.g. managed by transaction) keeps the statements for the next use.
+     * @param conn The connection that has been closed. (NotNull)
+     * @return Have the statements been closed? (false: the connection is still open)
+     */
+    public boolean closeStatementsIfClosed(Connection conn) {
+        if (!isClosedConnection(conn)) {
+            return false;
+        }
+        closeStatements(conn);
+        return true;
+    }
+
+    /**
+     * Close all cached statements.
+     */
+    public void clear() {
+        final List<TnCachedPreparedStatement> purgedList = new ArrayList<TnCachedPreparedStatement>();
+        synchronized (this) {
+            for (StatementPool pool : _poolMap.values()) {
+                pool.evictAll(purgedList);
+            }
+            _poolMap.clear();
+        }
+        closePurged(purgedList);
+    }
+
+    protected void sweepClosedConnection(List<TnCachedPreparedStatement> purgedList) {
+        final Iterator<Entry<Connection, StatementPool>> ite = _poolMap.entrySet().iterator();
+        while (ite.hasNext()) {
+            final Entry<Connection, StatementPool> entry = ite.next();
+            if (isClosedConnection(entry.getKey())) {
+                entry.getValue().evictAll(purgedList);
+                ite.remove();
+            }
+        }
+    }
+
+    protected boolean isClosedConnection(Connection conn) {
+        try {
+            return conn.isClosed();
+        } catch (SQLException ignored) {
+            return true; // treated as broken
+        }
+    }
+
+    protected void evictOverConnection(List<TnCachedPreparedStatement> evictedList) {
+        final Iterator<StatementPool> ite = _poolMap.values().iterator();
+        while (_poolMap.size() > _connectionMaxSize && ite.hasNext()) {
+            ite.next().evictAll(evictedList); // least recently used first
+            ite.remove();
+        }
+    }
+
+    protected void closeEvicted(List<TnCachedPreparedStatement> evictedList) { // by max sizes
+        _evictionCount.addAndGet(evictedList.size());
+        closePurged(evictedList);
+    }
+
+    protected void closePurged(List<TnCachedPreparedStatement> purgedList) { // not counted as eviction
+        for (TnCachedPreparedStatement purged : purgedList) {
+            if (!purged.isInUse()) { // in-use statement is closed when released
+                purged.closeActualQuietly();
+            }
+        }
+    }
+
+    // ===================================================================================
+    //                                                                      Statement Pool
+    //                                                                      ==============
+    /**
+     * The pool of statements in one connection, should be used in synchronized scope.
+     */
+    protected class StatementPool {
+
+        protected final Map<String, TnCachedPreparedStatement> _statementMap;
+
+        public StatementPool() {
+            _statementMap = new LinkedHashMap<String, TnCachedPreparedStatement>(16, 0.75f, true);
+        }
+
+        public TnCachedPreparedStatement checkout(String statementKey) {
+            final TnCachedPreparedStatement statement = _statementMap.get(statementKey);
+            if (statement == null || statement.isInUse()) {
+                return null;
+            }
+            if (statement.isActualClosed()) { // e.g. closed by driver
+                _statementMap.remove(statementKey);
+                return null;
+            }
+            statement.markInUse();
+            return statement;
+        }
+
+        public boolean contains(String statementKey) {
+            return _statementMap.containsKey(statementKey);
+        }
+
+        public boolean isRegistered(TnCachedPreparedStatement statement) {
+            return _statementMap.get(statement.getStatementKey()) == statement;
+        }
+
+        public void register(String statementKey, TnCachedPreparedStatement statement,
+                List<TnCachedPreparedStatement> evictedList) {
+            _statementMap.put(statementKey, statement);
+            final Iterator<TnCachedPreparedStatement> ite = _statementMap.values().iterator();
+            while (_statementMap.size() > _statementMaxSize && ite.hasNext()) {
+                evictedList.add(ite.next()); // least recently used first
+                ite.remove();
+            }
+        }
+
+        public void remove(String statementKey) {
+            _statementMap.remove(statementKey);
+        }
+
+        public void evictAll(List<TnCachedPreparedStatement> evictedList) {
+            evictedList.addAll(_statementMap.values());
+            _statementMap.clear();
+        }
+
+        public int size() {
+            return _statementMap.size();
+        }
+    }
+
+    // ===================================================================================
+    //                                                                          Statistics
+    //                                                                          ==========
+    public synchronized int size() {
+        int size = 0;
+        for (StatementPool pool : _poolMap.values()) {
+            size = size + pool.size();
+        }
+        return size;
+    }
+
+    public synchronized int connectionSize() {
+        return _poolMap.size();
+    }
+
+    public int getStatementMaxSize() {
+        return _statementMaxSize;
+    }
+
+    public int getConnectionMaxSize() {
+        return _connectionMaxSize;
+    }
+
+    public long getHitCount() {
+        return _hitCount.get();
+    }
+
+    public long getMissCount() {
+        return _missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return _evictionCount.get();
+    }
+
+    /**
+     * @return The rate of hit in all checkouts, between 0.0 and 1.0. (0.0 if no checkout yet)
+     */
+    public double getHitRate() {
+        final long hit = getHitCount();
+        final long total = hit + getMissCount();
+        return total > 0 ? (double) hit / total : 0.0;
+    }
+
+    public void resetStatistics() {
+        _hitCount.set(0);
+        _missCount.set(0);
+        _evictionCount.set(0);
+    }
+
+    // ===================================================================================
+    //                                                                      Basic Override
+    //                                                                      ==============
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("{size=").append(size()).append("/").append(_statementMaxSize);
+        sb.append(", connection=").append(connectionSize()).append("/").append(_connectionMaxSize);
+        sb.append(", hit=").append(getHitCount());
+        sb.append(", miss=").append(getMissCount());
+        sb.append(", eviction=").append(getEvictionCount());
+        sb.append("}");
+        return sb.toString();
+    }
+}
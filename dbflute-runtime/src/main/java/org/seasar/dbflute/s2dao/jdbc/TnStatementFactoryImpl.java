@@ -57,6 +57,7 @@ public class TnStatementFactoryImpl implements StatementFactory {
     protected Integer _entitySelectFetchSize;
     protected boolean _usePagingByCursorSkipSynchronizedFetchSize;
     protected Integer _fixedPagingByCursorSkipSynchronizedFetchSize;
+    protected TnPreparedStatementCache _preparedStatementCache; // null means no cache (default)
 
     // ===================================================================================
     //                                                                         Constructor
@@ -74,7 +75,12 @@ public class TnStatementFactoryImpl implements StatementFactory {
         if (isInternalDebugEnabled()) {
             _log.debug("...Preparing statement:(sql, " + resultSetType + ", " + resultSetConcurrency + ")");
         }
-        final PreparedStatement ps = prepareStatement(conn, sql, resultSetType, resultSetConcurrency);
+        final PreparedStatement ps;
+        if (_preparedStatementCache != null) {
+            ps = prepareCachedStatement(conn, sql, resultSetType, resultSetConcurrency);
+        } else {
+            ps = prepareStatement(conn, sql, resultSetType, resultSetConcurrency);
+        }
         reflectStatementOptions(ps, config);
         return ps;
     }
@@ -90,6 +96,49 @@ public class TnStatementFactoryImpl implements StatementFactory {
         }
     }
 
+    // -----------------------------------------------------
+    //                                       Statement Cache
+    //                                       ---------------
+    protected PreparedStatement prepareCachedStatement(Connection conn, String sql, int resultSetType,
+            int resultSetConcurrency) {
+        final TnPreparedStatementCache cache = _preparedStatementCache;
+        final String statementKey = cache.buildStatementKey(sql, resultSetType, resultSetConcurrency);
+        final TnCachedPreparedStatement cached = cache.checkout(conn, statementKey);
+        if (cached != null) {
+            if (isInternalDebugEnabled()) {
+                _log.debug("...Reusing cached statement: " + cache);
+            }
+            restoreInitialOptions(cached); // options are reflected again later
+            return cached;
+        }
+        final PreparedStatement ps = prepareStatement(conn, sql, resultSetType, resultSetConcurrency);
+        final TnCachedPreparedStatement registered = cache.register(conn, statementKey, ps);
+        return registered != null ? registered : ps; // not cached if same statement is in-use
+    }
+
+    protected void restoreInitialOptions(TnCachedPreparedStatement cached) {
+        try {
+            cached.restoreInitialOptions();
+        } catch (SQLException e) {
+            final SQLExceptionResource resource = createSQLExceptionResource();
+            resource.setNotice("Failed to restore the options of the cached statement.");
+            handleSQLException(e, resource);
+        }
+    }
+
+    /**
+     * Release the cached statements of the connection closed by the handler. <br />
+     * They are closed if the connection has been really closed (or returned to the pool),
+     * and kept if it is still open, e.g. the close is ignored in a transaction.
+     * @param conn The connection that has been closed. (NotNull)
+     */
+    public void releaseCachedStatements(Connection conn) {
+        final TnPreparedStatementCache cache = _preparedStatementCache;
+        if (cache != null) {
+            cache.closeStatementsIfClosed(conn);
+        }
+    }
+
     // -----------------------------------------------------
     //                                       StatementConfig
     //                                       ---------------
@@ -469,4 +518,32 @@ public class TnStatementFactoryImpl implements StatementFactory {
     public void setFixedPagingByCursorSkipSynchronizedFetchSize(Integer fixedPagingByCursorSkipSynchronizedFetchSize) {
         _fixedPagingByCursorSkipSynchronizedFetchSize = fixedPagingByCursorSkipSynchronizedFetchSize;
     }
+
+    /**
+     * Get the cache of prepared statements, e.g. for statistics.
+     * @return The cache of prepared statements. (NullAllowed: when no cache)
+     */
+    public TnPreparedStatementCache getPreparedStatementCache() {
+        return _preparedStatementCache;
+    }
+
+    /**
+     * Set the max size of cached prepared statements per connection.
+     * @param preparedStatementCacheSize The max size of cached statements. (NullAllowed: if null or zero, no cache)
+     */
+    public void setPreparedStatementCacheSize(Integer preparedStatementCacheSize) {
+        if (preparedStatementCacheSize != null && preparedStatementCacheSize > 0) {
+            _preparedStatementCache = createPreparedStatementCache(preparedStatementCacheSize);
+        } else {
+            _preparedStatementCache = null;
+        }
+    }
+
+    protected TnPreparedStatementCache createPreparedStatementCache(int statementMaxSize) {
+        return new TnPreparedStatementCache(statementMaxSize, getPreparedStatementCacheConnectionMaxSize());
+    }
+
+    protected int getPreparedStatementCacheConnectionMaxSize() { // customize point
+        return 100;
+    }
 }
@@ -17,12 +17,12 @@ package org.seasar.dbflute.s2dao.rowcreator;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.seasar.dbflute.jdbc.ValueType;
-import org.seasar.dbflute.resource.ResourceContext;
 import org.seasar.dbflute.s2dao.metadata.TnPropertyType;
 import org.seasar.dbflute.s2dao.metadata.TnRelationPropertyType;
 import org.seasar.dbflute.s2dao.rowcreator.impl.TnRelationKeyCompound;
@@ -31,7 +31,9 @@ import org.seasar.dbflute.s2dao.rowcreator.impl.TnRelationKeySimple;
 
 /**
  * The cache of relation row. <br />
- * This is not thread safe so you should create per one select.
+ * This is not thread safe so you should create per one select. <br />
+ * The key columns of each relation are resolved on the first row (as slot),
+ * and the rows are cached in open-addressing table per relation.
  * @author modified by jflute (originated in S2Dao)
  */
 public class TnRelationRowCache {
@@ -44,8 +46,8 @@ public class TnRelationRowCache {
     // ===================================================================================
     //                                                                           Attribute
     //                                                                           =========
-    /** The list of row map. map:{relationPath = map:{relationKey = row}} (NotNull: if canCache is true) */
-    protected final Map<String, Map<TnRelationKey, Object>> _rowMap;
+    /** The map of relation slot. map:{relationNoSuffix = slot} (NotNull: if canCache is true) */
+    protected final Map<String, TnRelationSlot> _slotMap;
 
     /** Can the relation row cache? */
     protected final boolean _canCache;
@@ -58,7 +60,7 @@ public class TnRelationRowCache {
      * @param canCache Can the relation row cache?
      */
     public TnRelationRowCache(int relSize, boolean canCache) {
-        _rowMap = canCache ? new HashMap<String, Map<TnRelationKey, Object>>(relSize) : null;
+        _slotMap = canCache ? new HashMap<String, TnRelationSlot>(relSize) : null;
         _canCache = canCache;
     }
 
@@ -75,11 +77,11 @@ public class TnRelationRowCache {
         if (!_canCache) {
             return null;
         }
-        final Map<TnRelationKey, Object> elementMap = _rowMap.get(relationNoSuffix);
-        if (elementMap == null) {
+        final TnRelationSlot slot = _slotMap.get(relationNoSuffix);
+        if (slot == null) {
             return null;
         }
-        return elementMap.get(relKey);
+        return slot.getRow(relKey);
     }
 
     /**
@@ -92,12 +94,12 @@ public class TnRelationRowCache {
         if (!_canCache) {
             return;
         }
-        Map<TnRelationKey, Object> elementMap = _rowMap.get(relationNoSuffix);
-        if (elementMap == null) {
-            elementMap = new HashMap<TnRelationKey, Object>();
-            _rowMap.put(relationNoSuffix, elementMap);
+        TnRelationSlot slot = _slotMap.get(relationNoSuffix);
+        if (slot == null) { // basically no way because key creation prepares it
+            slot = new TnRelationSlot();
+            _slotMap.put(relationNoSuffix, slot);
         }
-        elementMap.put(relKey, relationRow);
+        slot.putRow(relKey, relationRow);
     }
 
     // ===================================================================================
@@ -119,84 +121,238 @@ public class TnRelationRowCache {
         if (!_canCache) {
             return EMPTY_KEY;
         }
+        // the select resources are fixed in one select so the key columns are resolved only once
+        final TnRelationSlot slot = prepareSlot(rpt, selectColumnMap, selectIndexMap, relationNoSuffix);
         final TnRelationKey relKey;
         if (rpt.hasSimpleUniqueKey()) {
-            relKey = doCreateRelationKeySimple(rs, rpt, selectColumnMap, selectIndexMap, relationNoSuffix);
+            relKey = doCreateRelationKeySimple(rs, slot);
         } else if (rpt.hasCompoundUniqueKey()) {
-            relKey = doCreateRelationKeyCompound(rs, rpt, selectColumnMap, selectIndexMap, relationNoSuffix);
+            relKey = doCreateRelationKeyCompound(rs, slot);
         } else { // empty
             relKey = null; // treated as no data of the relation
         }
         return relKey;
     }
 
-    protected TnRelationKey doCreateRelationKeySimple(ResultSet rs, TnRelationPropertyType rpt, Map<String, String> selectColumnMap,
+    protected TnRelationKey doCreateRelationKeySimple(ResultSet rs, TnRelationSlot slot) throws SQLException {
+        final Object keyValue = slot.getKeyValue(rs, 0);
+        return keyValue != null ? new TnRelationKeySimple(slot.getColumnKeyName(0), keyValue) : null;
+    }
+
+    protected TnRelationKey doCreateRelationKeyCompound(ResultSet rs, TnRelationSlot slot) throws SQLException {
+        final int keySize = slot.getKeySize();
+        final Object[] keyValues = new Object[keySize];
+        for (int i = 0; i < keySize; i++) {
+            final Object keyValue = slot.getKeyValue(rs, i);
+            if (keyValue == null) {
+                return null; // if either one is null, treated as no data
+            }
+            keyValues[i] = keyValue;
+        }
+        return keySize > 0 ? new TnRelationKeyCompound(slot.getColumnKeyNames(), keyValues) : null;
+    }
+
+    // -----------------------------------------------------
+    //                                         Slot Handling
+    //                                         -------------
+    protected TnRelationSlot prepareSlot(TnRelationPropertyType rpt, Map<String, String> selectColumnMap,
             Map<String, Map<String, Integer>> selectIndexMap, String relationNoSuffix) throws SQLException {
-        final TnPropertyType pt = rpt.getSimpleUniquePropertyType();
-        final String columnKeyName = buildColumnKeyName(pt, relationNoSuffix);
-        final Object keyValue = setupKeyElement(rs, rpt, selectColumnMap, selectIndexMap, columnKeyName, pt, relationNoSuffix);
-        return keyValue != null ? new TnRelationKeySimple(columnKeyName, keyValue) : null;
+        TnRelationSlot slot = _slotMap.get(relationNoSuffix);
+        if (slot == null) {
+            slot = new TnRelationSlot();
+            _slotMap.put(relationNoSuffix, slot);
+        }
+        if (!slot.isKeyPrepared()) {
+            prepareKeyColumn(slot, rpt, selectColumnMap, selectIndexMap, relationNoSuffix);
+        }
+        return slot;
     }
 
-    protected TnRelationKey doCreateRelationKeyCompound(ResultSet rs, TnRelationPropertyType rpt, Map<String, String> selectColumnMap,
+    protected void prepareKeyColumn(TnRelationSlot slot, TnRelationPropertyType rpt, Map<String, String> selectColumnMap,
             Map<String, Map<String, Integer>> selectIndexMap, String relationNoSuffix) throws SQLException {
-        final List<TnPropertyType> uniquePropertyTypeList = rpt.getUniquePropertyTypeList();
-        Map<String, Object> relKeyValues = null;
-        for (TnPropertyType pt : uniquePropertyTypeList) {
+        final List<TnPropertyType> uniquePropertyTypeList;
+        if (rpt.hasSimpleUniqueKey()) {
+            uniquePropertyTypeList = Collections.singletonList(rpt.getSimpleUniquePropertyType());
+        } else if (rpt.hasCompoundUniqueKey()) {
+            uniquePropertyTypeList = rpt.getUniquePropertyTypeList();
+        } else {
+            uniquePropertyTypeList = Collections.emptyList();
+        }
+        final int keySize = uniquePropertyTypeList.size();
+        final String[] columnKeyNames = new String[keySize];
+        final ValueType[] valueTypes = new ValueType[keySize];
+        final int[] selectIndexes = new int[keySize];
+        for (int i = 0; i < keySize; i++) {
+            final TnPropertyType pt = uniquePropertyTypeList.get(i);
             final String columnKeyName = buildColumnKeyName(pt, relationNoSuffix);
-            final Object keyValue = setupKeyElement(rs, rpt, selectColumnMap, selectIndexMap, columnKeyName, pt, relationNoSuffix);
-            if (keyValue == null) {
-                if (relKeyValues != null) {
-                    relKeyValues.clear();
-                }
-                break; // if either one is null, treated as no data
-            }
-            if (relKeyValues == null) { // lazy-load for performance
-                relKeyValues = new HashMap<String, Object>(uniquePropertyTypeList.size());
-            }
-            relKeyValues.put(columnKeyName, keyValue);
+            columnKeyNames[i] = columnKeyName;
+            valueTypes[i] = pt.getValueType();
+            selectIndexes[i] = resolveKeySelectIndex(selectColumnMap, selectIndexMap, columnKeyName, relationNoSuffix);
         }
-        return (relKeyValues != null && !relKeyValues.isEmpty()) ? new TnRelationKeyCompound(relKeyValues) : null;
+        slot.prepareKey(columnKeyNames, valueTypes, selectIndexes);
     }
 
     protected String buildColumnKeyName(TnPropertyType pt, String relationNoSuffix) {
         return pt.getColumnDbName() + relationNoSuffix;
     }
 
-    protected Object setupKeyElement(ResultSet rs, TnRelationPropertyType rpt, Map<String, String> selectColumnMap,
-            Map<String, Map<String, Integer>> selectIndexMap, String columnKeyName, TnPropertyType pt, String relationNoSuffix)
-            throws SQLException {
-        if (isOutOfRelationSelectIndex(relationNoSuffix, columnKeyName, selectIndexMap)) {
-            // basically unreachable, same reason with next if statement, check just in case
-            return null;
+    /**
+     * Resolve the select index of the key column.
+     * @param selectColumnMap The name map of select column. (NotNull)
+     * @param selectIndexMap The map of select index. (NullAllowed)
+     * @param columnKeyName The key name of the column. e.g. FOO_0 (NotNull)
+     * @param relationNoSuffix The suffix of relation No. (NotNull)
+     * @return The select index (1 origin), or {@link TnRelationSlot#BY_NAME}, {@link TnRelationSlot#NOT_SELECTED}.
+     * @throws SQLException
+     */
+    protected int resolveKeySelectIndex(Map<String, String> selectColumnMap, Map<String, Map<String, Integer>> selectIndexMap,
+            String columnKeyName, String relationNoSuffix) throws SQLException {
+        if (selectIndexMap != null) {
+            final Map<String, Integer> innerMap = selectIndexMap.get(relationNoSuffix);
+            final Integer selectIndex = innerMap != null ? innerMap.get(columnKeyName) : null;
+            if (selectIndex == null) {
+                // basically unreachable, same reason with next if statement, check just in case
+                return TnRelationSlot.NOT_SELECTED;
+            }
+            if (!selectColumnMap.containsKey(columnKeyName)) { // basically unreachable
+                return TnRelationSlot.NOT_SELECTED;
+            }
+            return selectIndex;
         }
         if (!selectColumnMap.containsKey(columnKeyName)) {
             // basically unreachable
             // because the referred column (basically PK or FK) must exist
             // if the relation's select clause is specified
+            return TnRelationSlot.NOT_SELECTED;
+        }
+        return TnRelationSlot.BY_NAME;
+    }
+
+    // ===================================================================================
+    //                                                                       Relation Slot
+    //                                                                       =============
+    /**
+     * The slot of one relation location, which has resolved key columns and open-addressing row table. <br />
+     * The row table uses linear probing with power-of-two capacity,
+     * keys and rows are held in flat arrays to avoid entry objects per row.
+     */
+    public static class TnRelationSlot {
+
+        public static final int BY_NAME = 0;
+        public static final int NOT_SELECTED = -1;
+        protected static final int INITIAL_CAPACITY = 16;
+
+        protected String[] _columnKeyNames; // null until prepared
+        protected ValueType[] _valueTypes;
+        protected int[] _selectIndexes;
+
+        protected TnRelationKey[] _keys; // lazy-loaded
+        protected Object[] _rows;
+        protected int _rowCount;
+
+        public boolean isKeyPrepared() {
+            return _columnKeyNames != null;
+        }
+
+        public void prepareKey(String[] columnKeyNames, ValueType[] valueTypes, int[] selectIndexes) {
+            _valueTypes = valueTypes;
+            _selectIndexes = selectIndexes;
+            _columnKeyNames = columnKeyNames; // last as prepared mark
+        }
+
+        public int getKeySize() {
+            return _columnKeyNames.length;
+        }
+
+        public String[] getColumnKeyNames() {
+            return _columnKeyNames;
+        }
+
+        public String getColumnKeyName(int keyIndex) {
+            return _columnKeyNames[keyIndex];
+        }
+
+        public Object getKeyValue(ResultSet rs, int keyIndex) throws SQLException {
+            final int selectIndex = _selectIndexes[keyIndex];
+            if (selectIndex > 0) {
+                return _valueTypes[keyIndex].getValue(rs, selectIndex);
+            } else if (selectIndex == BY_NAME) {
+                return _valueTypes[keyIndex].getValue(rs, _columnKeyNames[keyIndex]);
+            }
+            return null; // not selected
+        }
+
+        public Object getRow(TnRelationKey relKey) {
+            if (_keys == null) {
+                return null;
+            }
+            final int mask = _keys.length - 1;
+            int index = spread(relKey.hashCode()) & mask;
+            TnRelationKey current;
+            while ((current = _keys[index]) != null) {
+                if (current.equals(relKey)) {
+                    return _rows[index];
+                }
+                index = (index + 1) & mask;
+            }
             return null;
         }
-        final ValueType valueType = pt.getValueType();
-        final Object value;
-        if (selectIndexMap != null) {
-            value = ResourceContext.getRelationValue(rs, relationNoSuffix, columnKeyName, valueType, selectIndexMap);
-        } else {
-            value = valueType.getValue(rs, columnKeyName);
+
+        public void putRow(TnRelationKey relKey, Object relationRow) {
+            if (_keys == null) {
+                _keys = new TnRelationKey[INITIAL_CAPACITY];
+                _rows = new Object[INITIAL_CAPACITY];
+            } else if ((_rowCount + 1) * 2 > _keys.length) { // load factor 0.5
+                resize();
+            }
+            if (doPutRow(_keys, _rows, relKey, relationRow)) {
+                ++_rowCount;
+            }
         }
-        // null-able when the referred column data is null
-        // (treated as no relation data)
-        return value;
-    }
 
-    protected boolean isOutOfRelationSelectIndex(String relationNoSuffix, String columnDbName,
-            Map<String, Map<String, Integer>> selectIndexMap) throws SQLException {
-        return ResourceContext.isOutOfRelationSelectIndex(relationNoSuffix, columnDbName, selectIndexMap);
+        protected boolean doPutRow(TnRelationKey[] keys, Object[] rows, TnRelationKey relKey, Object relationRow) {
+            final int mask = keys.length - 1;
+            int index = spread(relKey.hashCode()) & mask;
+            TnRelationKey current;
+            while ((current = keys[index]) != null) {
+                if (current.equals(relKey)) {
+                    rows[index] = relationRow;
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            keys[index] = relKey;
+            rows[index] = relationRow;
+            return true;
+        }
+
+        protected void resize() {
+            final TnRelationKey[] oldKeys = _keys;
+            final Object[] oldRows = _rows;
+            final TnRelationKey[] newKeys = new TnRelationKey[oldKeys.length * 2];
+            final Object[] newRows = new Object[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    doPutRow(newKeys, newRows, oldKeys[i], oldRows[i]);
+                }
+            }
+            _keys = newKeys;
+            _rows = newRows;
+        }
+
+        protected static int spread(int hashCode) {
+            return hashCode ^ (hashCode >>> 16);
+        }
+
+        public int getRowCount() {
+            return _rowCount;
+        }
     }
 
     // ===================================================================================
     //                                                                            Accessor
     //                                                                            ========
-    public Map<String, Map<TnRelationKey, Object>> getRowMap() {
-        return _rowMap;
+    public Map<String, TnRelationSlot> getSlotMap() {
+        return _slotMap;
     }
 }
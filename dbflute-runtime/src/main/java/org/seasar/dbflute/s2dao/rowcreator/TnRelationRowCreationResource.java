@@ -65,6 +65,9 @@ public class TnRelationRowCreationResource {
     /** The selector of relation. (NotNull) */
     protected TnRelationSelector _relSelector;
 
+    /** The plan of row mapping, which has planned columns of relations. (NullAllowed: if null, mapping by property cache) */
+    protected TnRowMappingPlan _mappingPlan;
+
     /** The suffix of base object. (NotNull, EmptyAllowed: empty means base relation is base point) */
     protected String _baseSuffix;
 
@@ -474,6 +477,14 @@ public class TnRelationRowCreationResource {
         this._relRowCache = relRowCache;
     }
 
+    public TnRowMappingPlan getMappingPlan() {
+        return _mappingPlan;
+    }
+
+    public void setMappingPlan(TnRowMappingPlan mappingPlan) {
+        _mappingPlan = mappingPlan;
+    }
+
     public String getBaseSuffix() {
         return _baseSuffix;
     }
@@ -38,13 +38,14 @@ public interface TnRelationRowCreator {
      * @param relPropCache The map of relation property cache. map:{relationNoSuffix = map:{columnName = PropertyMapping}} (NotNull)
      * @param relRowCache The cache of relation row. (NotNull)
      * @param relSelector The selector of relation, which can determines e.g. is it not-selected relation?. (NotNull)
+     * @param mappingPlan The plan of row mapping that has prepared relation. (NullAllowed: if null, mapping by property cache)
      * @return The created row of the relation. (NullAllowed: if null, no data about the relation)
      * @throws SQLException
      */
     Object createRelationRow(ResultSet rs, TnRelationPropertyType rpt, Map<String, String> selectColumnMap,
             Map<String, Map<String, Integer>> selectIndexMap, TnRelationKey relKey,
-            Map<String, Map<String, TnPropertyMapping>> relPropCache, TnRelationRowCache relRowCache, TnRelationSelector relSelector)
-            throws SQLException;
+            Map<String, Map<String, TnPropertyMapping>> relPropCache, TnRelationRowCache relRowCache, TnRelationSelector relSelector,
+            TnRowMappingPlan mappingPlan) throws SQLException;
 
     /**
      * Create relation property cache.
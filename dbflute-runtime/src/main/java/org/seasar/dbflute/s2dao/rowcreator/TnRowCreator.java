@@ -39,6 +39,19 @@ public interface TnRowCreator {
     Object createRow(ResultSet rs, Map<String, Map<String, Integer>> selectIndexMap, Map<String, TnPropertyMapping> columnPropertyTypeMap,
             Class<?> beanClass) throws SQLException;
 
+    /**
+     * Create row instance of base point table by the mapping plan. <br />
+     * The values are got by the planned JDBC indexes so it is faster than the map way.
+     * @param rs Result set. (NotNull)
+     * @param selectIndexMap The map of select index. map:{entityNo(e.g. loc00 or _0_3) = map:{selectColumnKeyName = selectIndex}} (NullAllowed)
+     * @param mappingPlan The plan of row mapping that has prepared base point. (NotNull)
+     * @param beanClass Bean class. (NotNull)
+     * @return The created row. (NotNull)
+     * @throws SQLException
+     */
+    Object createRow(ResultSet rs, Map<String, Map<String, Integer>> selectIndexMap, TnRowMappingPlan mappingPlan, Class<?> beanClass)
+            throws SQLException;
+
     /**
      * Create property cache as map. <br />
      * The map key is column DB-name or alias name when derived-referrer.
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.s2dao.rowcreator;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.seasar.dbflute.cbean.sqlclause.SqlClause;
+import org.seasar.dbflute.helper.StringKeyMap;
+import org.seasar.dbflute.jdbc.ValueType;
+import org.seasar.dbflute.s2dao.metadata.TnPropertyMapping;
+
+/**
+ * The plan of row mapping, which resolves each selected column to a fixed JDBC index and a value type. <br />
+ * It is created once per select column layout and reused by same layout selects,
+ * so the row loop is index-driven array walk without map lookups. <br />
+ * This is immutable after preparation so it can be shared between threads.
+ * @author jflute
+ * @since 1.0.5N (2014/12/07 Sunday)
+ */
+public class TnRowMappingPlan {
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    /** The array of selected column names (mapped to DB names), in JDBC order. (NotNull) */
+    protected final String[] _selectColumnNames;
+
+    /** The name map of select column. map:{flexibleName = columnDbName} (NotNull) */
+    protected final Map<String, String> _selectColumnMap;
+
+    /** The map of JDBC index (1 origin) for the select column. map:{flexibleName = index} (NotNull) */
+    protected final Map<String, Integer> _columnIndexMap;
+
+    /** The property cache of base point row. map:{columnName = PropertyMapping} (NotNull after preparation) */
+    protected Map<String, TnPropertyMapping> _propertyCache;
+
+    /** The planned columns of base point row. (NotNull after preparation) */
+    protected TnPlannedColumns _basePlannedColumns;
+
+    /** The property cache of relation. map:{relationNoSuffix = map:{columnName = PropertyMapping}} (NullAllowed: no relation loop) */
+    protected Map<String, Map<String, TnPropertyMapping>> _relPropCache;
+
+    /** The planned columns of relation. map:{relationNoSuffix = planned columns} (NullAllowed: no relation loop) */
+    protected Map<String, TnPlannedColumns> _relPlannedColumnsMap;
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    /**
+     * @param selectColumnNames The array of selected column names (mapped to DB names), in JDBC order. (NotNull)
+     */
+    public TnRowMappingPlan(String[] selectColumnNames) {
+        _selectColumnNames = selectColumnNames;
+        _selectColumnMap = StringKeyMap.createAsFlexible(); // same as ResourceContext
+        _columnIndexMap = StringKeyMap.createAsFlexible();
+        for (int i = 0; i < selectColumnNames.length; i++) {
+            final String columnName = selectColumnNames[i];
+            _selectColumnMap.put(columnName, columnName);
+            if (!_columnIndexMap.containsKey(columnName)) { // first column wins as getXxx(name) of JDBC
+                _columnIndexMap.put(columnName, i + 1);
+            }
+        }
+    }
+
+    /**
+     * Build the key of plan cache for the select column layout.
+     * @param selectColumnNames The array of selected column names, in JDBC order. (NotNull)
+     * @param selectIndexMap The map of select index. (NullAllowed)
+     * @param relationLoop Does it have relation loop?
+     * @return The string key of layout. (NotNull)
+     */
+    public static String buildLayoutKey(String[] selectColumnNames, Map<String, Map<String, Integer>> selectIndexMap, boolean relationLoop) {
+        final StringBuilder sb = new StringBuilder(selectColumnNames.length * 16);
+        sb.append(selectIndexMap != null ? "idx" : "nm").append(relationLoop ? ":rel" : ":loc");
+        for (String columnName : selectColumnNames) {
+            sb.append(",").append(columnName);
+        }
+        return sb.toString();
+    }
+
+    // ===================================================================================
+    //                                                                         Preparation
+    //                                                                         ===========
+    /**
+     * Prepare the base point row of the plan.
+     * @param propertyCache The property cache of base point row. map:{columnName = PropertyMapping} (NotNull)
+     * @param selectIndexMap The map of select index. (NullAllowed)
+     */
+    public void prepareBasePoint(Map<String, TnPropertyMapping> propertyCache, Map<String, Map<String, Integer>> selectIndexMap) {
+        _propertyCache = propertyCache;
+        _basePlannedColumns = createPlannedColumns(SqlClause.BASE_POINT_HANDLING_ENTITY_NO, propertyCache, selectIndexMap);
+    }
+
+    /**
+     * Prepare the relation rows of the plan.
+     * @param relPropCache The property cache of relation. map:{relationNoSuffix = map:{columnName = PropertyMapping}} (NotNull)
+     * @param selectIndexMap The map of select index. (NullAllowed)
+     */
+    public void prepareRelation(Map<String, Map<String, TnPropertyMapping>> relPropCache, Map<String, Map<String, Integer>> selectIndexMap) {
+        _relPropCache = relPropCache;
+        final Map<String, TnPlannedColumns> plannedMap = new HashMap<String, TnPlannedColumns>(relPropCache.size());
+        for (Entry<String, Map<String, TnPropertyMapping>> entry : relPropCache.entrySet()) {
+            final String relationNoSuffix = entry.getKey();
+            plannedMap.put(relationNoSuffix, createPlannedColumns(relationNoSuffix, entry.getValue(), selectIndexMap));
+        }
+        _relPlannedColumnsMap = plannedMap;
+    }
+
+    protected TnPlannedColumns createPlannedColumns(String entityNo, Map<String, TnPropertyMapping> propertyCache,
+            Map<String, Map<String, Integer>> selectIndexMap) {
+        final int size = propertyCache.size();
+        final String[] columnNames = new String[size];
+        final TnPropertyMapping[] mappings = new TnPropertyMapping[size];
+        final ValueType[] valueTypes = new ValueType[size];
+        final int[] selectIndexes = new int[size];
+        final Map<String, Integer> indexElementMap = selectIndexMap != null ? selectIndexMap.get(entityNo) : null;
+        int index = 0;
+        for (Entry<String, TnPropertyMapping> entry : propertyCache.entrySet()) {
+            final String columnName = entry.getKey();
+            final TnPropertyMapping mapping = entry.getValue();
+            columnNames[index] = columnName;
+            mappings[index] = mapping;
+            valueTypes[index] = mapping.getValueType();
+            selectIndexes[index] = resolveSelectIndex(columnName, indexElementMap);
+            ++index;
+        }
+        return new TnPlannedColumns(columnNames, mappings, valueTypes, selectIndexes);
+    }
+
+    protected int resolveSelectIndex(String columnName, Map<String, Integer> indexElementMap) {
+        if (indexElementMap != null) { // use select index (basically ConditionBean)
+            final Integer selectIndex = indexElementMap.get(columnName);
+            if (selectIndex != null) {
+                return selectIndex;
+            }
+        }
+        final Integer columnIndex = _columnIndexMap.get(columnName);
+        return columnIndex != null ? columnIndex : -1; // -1 means getting by name
+    }
+
+    // ===================================================================================
+    //                                                                     Planned Columns
+    //                                                                     ===============
+    /**
+     * The planned columns of one row (entity), arrays in property cache order.
+     */
+    public static class TnPlannedColumns {
+
+        protected final String[] _columnNames;
+        protected final TnPropertyMapping[] _mappings;
+        protected final ValueType[] _valueTypes;
+        protected final int[] _selectIndexes; // 1 origin, -1 means by name
+
+        public TnPlannedColumns(String[] columnNames, TnPropertyMapping[] mappings, ValueType[] valueTypes, int[] selectIndexes) {
+            _columnNames = columnNames;
+            _mappings = mappings;
+            _valueTypes = valueTypes;
+            _selectIndexes = selectIndexes;
+        }
+
+        public int size() {
+            return _columnNames.length;
+        }
+
+        public String getColumnName(int index) {
+            return _columnNames[index];
+        }
+
+        public TnPropertyMapping getMapping(int index) {
+            return _mappings[index];
+        }
+
+        public Object getValue(ResultSet rs, int index) throws SQLException {
+            final int selectIndex = _selectIndexes[index];
+            if (selectIndex > 0) {
+                return _valueTypes[index].getValue(rs, selectIndex);
+            } else { // basically no way, just in case
+                return _valueTypes[index].getValue(rs, _columnNames[index]);
+            }
+        }
+    }
+
+    // ===================================================================================
+    //                                                                            Accessor
+    //                                                                            ========
+    public String[] getSelectColumnNames() {
+        return _selectColumnNames;
+    }
+
+    public Map<String, String> getSelectColumnMap() {
+        return _selectColumnMap;
+    }
+
+    public Map<String, TnPropertyMapping> getPropertyCache() {
+        return _propertyCache;
+    }
+
+    public TnPlannedColumns getBasePlannedColumns() {
+        return _basePlannedColumns;
+    }
+
+    public boolean isRelationPrepared() {
+        return _relPropCache != null;
+    }
+
+    public Map<String, Map<String, TnPropertyMapping>> getRelPropCache() {
+        return _relPropCache;
+    }
+
+    public TnPlannedColumns findRelationPlannedColumns(String relationNoSuffix) {
+        return _relPlannedColumnsMap != null ? _relPlannedColumnsMap.get(relationNoSuffix) : null;
+    }
+}
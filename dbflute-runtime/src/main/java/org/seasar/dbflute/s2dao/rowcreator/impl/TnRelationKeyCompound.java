@@ -15,33 +15,71 @@
  */
 package org.seasar.dbflute.s2dao.rowcreator.impl;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import org.seasar.dbflute.s2dao.rowcreator.TnRelationKey;
 
 /**
+ * The relation key for compound unique key. <br />
+ * The column labels are shared by all keys of the same relation,
+ * so only the array of key values is created per row.
  * @author modified by jflute (originated in S2Dao)
  */
 public final class TnRelationKeyCompound implements TnRelationKey {
 
-    private final Map<String, Object> _relKeyValues;
+    private final String[] _columnLabels;
+    private final Object[] _keyValues;
     private final int _hashCode;
 
     public TnRelationKeyCompound(Map<String, Object> relKeyValues) {
-        _relKeyValues = relKeyValues;
-        _hashCode = relKeyValues.hashCode();
+        _columnLabels = new String[relKeyValues.size()];
+        _keyValues = new Object[relKeyValues.size()];
+        int index = 0;
+        for (Entry<String, Object> entry : relKeyValues.entrySet()) {
+            _columnLabels[index] = entry.getKey();
+            _keyValues[index] = entry.getValue();
+            ++index;
+        }
+        _hashCode = Arrays.hashCode(_keyValues);
+    }
+
+    /**
+     * @param columnLabels The array of column label, shared with other keys of the relation. (NotNull)
+     * @param keyValues The array of key value, same order as labels. (NotNull, NotNullElement)
+     */
+    public TnRelationKeyCompound(String[] columnLabels, Object[] keyValues) {
+        _columnLabels = columnLabels;
+        _keyValues = keyValues;
+        _hashCode = Arrays.hashCode(keyValues);
     }
 
     public Map<String, Object> getRelKeyValues() {
-        return _relKeyValues;
+        final Map<String, Object> relKeyValues = new LinkedHashMap<String, Object>(_columnLabels.length);
+        for (int i = 0; i < _columnLabels.length; i++) {
+            relKeyValues.put(_columnLabels[i], _keyValues[i]);
+        }
+        return relKeyValues;
     }
 
     public boolean containsColumn(String columnLabel) {
-        return _relKeyValues.containsKey(columnLabel);
+        return indexOf(columnLabel) >= 0;
     }
 
     public Object extractKeyValue(String columnLabel) {
-        return _relKeyValues.get(columnLabel);
+        final int index = indexOf(columnLabel);
+        return index >= 0 ? _keyValues[index] : null;
+    }
+
+    private int indexOf(String columnLabel) {
+        for (int i = 0; i < _columnLabels.length; i++) { // small so simple loop
+            if (_columnLabels[i].equals(columnLabel)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     @Override
@@ -54,11 +92,12 @@ public final class TnRelationKeyCompound implements TnRelationKey {
         if (!(o instanceof TnRelationKeyCompound)) {
             return false;
         }
-        return _relKeyValues.equals(((TnRelationKeyCompound) o)._relKeyValues);
+        final TnRelationKeyCompound other = (TnRelationKeyCompound) o;
+        return _hashCode == other._hashCode && Arrays.equals(_keyValues, other._keyValues);
     }
 
     @Override
     public String toString() {
-        return _relKeyValues.toString();
+        return getRelKeyValues().toString();
     }
 }
@@ -31,6 +31,7 @@ import org.seasar.dbflute.s2dao.rowcreator.TnRelationRowCache;
 import org.seasar.dbflute.s2dao.rowcreator.TnRelationRowCreationResource;
 import org.seasar.dbflute.s2dao.rowcreator.TnRelationRowCreator;
 import org.seasar.dbflute.s2dao.rowcreator.TnRelationSelector;
+import org.seasar.dbflute.s2dao.rowcreator.TnRowMappingPlan;
 
 /**
  * The implementation as S2Dao of creator of relation row. <br />
@@ -54,21 +55,22 @@ public abstract class TnRelationRowCreatorImpl implements TnRelationRowCreator {
      */
     public Object createRelationRow(ResultSet rs, TnRelationPropertyType rpt, Map<String, String> selectColumnMap,
             Map<String, Map<String, Integer>> selectIndexMap, TnRelationKey relKey,
-            Map<String, Map<String, TnPropertyMapping>> relPropCache, TnRelationRowCache relRowCache, TnRelationSelector relSelector)
-            throws SQLException {
+            Map<String, Map<String, TnPropertyMapping>> relPropCache, TnRelationRowCache relRowCache, TnRelationSelector relSelector,
+            TnRowMappingPlan mappingPlan) throws SQLException {
         // - - - - - - - 
         // Entry Point!
         // - - - - - - -
         final TnRelationRowCreationResource res = createResourceForRow(rs, rpt // basic resource
                 , selectColumnMap, selectIndexMap // select resource
-                , relKey, relPropCache, relRowCache, relSelector); // relation resource
+                , relKey, relPropCache, relRowCache, relSelector // relation resource
+                , mappingPlan); // planned mapping
         return createRelationRow(res);
     }
 
     protected TnRelationRowCreationResource createResourceForRow(ResultSet rs, TnRelationPropertyType rpt,
             Map<String, String> selectColumnMap, Map<String, Map<String, Integer>> selectIndexMap, TnRelationKey relKey,
-            Map<String, Map<String, TnPropertyMapping>> relPropCache, TnRelationRowCache relRowCache, TnRelationSelector relSelector)
-            throws SQLException {
+            Map<String, Map<String, TnPropertyMapping>> relPropCache, TnRelationRowCache relRowCache, TnRelationSelector relSelector,
+            TnRowMappingPlan mappingPlan) throws SQLException {
         // the resource class is already customized for DBFlute
         final TnRelationRowCreationResource res = new TnRelationRowCreationResource();
         res.setResultSet(rs);
@@ -79,6 +81,7 @@ public abstract class TnRelationRowCreatorImpl implements TnRelationRowCreator {
         res.setRelPropCache(relPropCache);
         res.setRelRowCache(relRowCache);
         res.setRelationSelector(relSelector);
+        res.setMappingPlan(mappingPlan);
         res.setBaseSuffix(""); // as base point
         res.setRelationNoSuffix(rpt.getRelationNoSuffixPart()); // as first level relation
         res.setLimitRelationNestLevel(getLimitRelationNestLevel());
@@ -31,6 +31,7 @@ import org.seasar.dbflute.s2dao.rowcreator.TnRelationRowCache;
 import org.seasar.dbflute.s2dao.rowcreator.TnRelationRowCreator;
 import org.seasar.dbflute.s2dao.rowcreator.TnRelationSelector;
 import org.seasar.dbflute.s2dao.rowcreator.TnRowCreator;
+import org.seasar.dbflute.s2dao.rowcreator.TnRowMappingPlan;
 
 /**
  * @author modified by jflute (originated in S2Dao)
@@ -109,6 +110,20 @@ public abstract class TnAbstractBeanResultSetHandler implements TnResultSetHandl
         return _rowCreator.createRow(rs, selectIndexMap, propertyCache, beanClass);
     }
 
+    /**
+     * Create base point row by the mapping plan.
+     * @param rs Result set. (NotNull)
+     * @param selectIndexMap The map of select index. map:{entityNo(e.g. loc00 or _0_3) = map:{selectColumnKeyName = selectIndex}} (NullAllowed)
+     * @param mappingPlan The plan of row mapping that has prepared base point. (NotNull)
+     * @return The created row. (NotNull)
+     * @throws SQLException
+     */
+    protected Object createRow(ResultSet rs, Map<String, Map<String, Integer>> selectIndexMap, TnRowMappingPlan mappingPlan)
+            throws SQLException {
+        final Class<?> beanClass = _beanMetaData.getBeanClass();
+        return _rowCreator.createRow(rs, selectIndexMap, mappingPlan, beanClass);
+    }
+
     /**
      * Create relation row.
      * @param rs Result set. (NotNull)
@@ -119,16 +134,18 @@ public abstract class TnAbstractBeanResultSetHandler implements TnResultSetHandl
      * @param relPropCache The map of relation property cache. map:{relationNoSuffix = map:{columnName = PropertyMapping}} (NotNull)
      * @param relRowCache The cache of relation row. (NotNull)
      * @param relSelector The selector of relation, which can determines e.g. is it not-selected relation?. (NotNull)
+     * @param mappingPlan The plan of row mapping that has prepared relation. (NullAllowed: if null, mapping by property cache)
      * @return Created relation row. (NullAllowed)
      * @throws SQLException
      */
     protected Object createRelationRow(ResultSet rs, TnRelationPropertyType rpt, Map<String, String> selectColumnMap,
             Map<String, Map<String, Integer>> selectIndexMap, TnRelationKey relKey,
-            Map<String, Map<String, TnPropertyMapping>> relPropCache, TnRelationRowCache relRowCache, TnRelationSelector relSelector)
-            throws SQLException {
+            Map<String, Map<String, TnPropertyMapping>> relPropCache, TnRelationRowCache relRowCache, TnRelationSelector relSelector,
+            TnRowMappingPlan mappingPlan) throws SQLException {
         return _relationRowCreator.createRelationRow(rs, rpt // basic resource
                 , selectColumnMap, selectIndexMap // select resource
-                , relKey, relPropCache, relRowCache, relSelector); // relation resource
+                , relKey, relPropCache, relRowCache, relSelector // relation resource
+                , mappingPlan); // planned mapping
     }
 
     /**
@@ -160,6 +177,10 @@ public abstract class TnAbstractBeanResultSetHandler implements TnResultSetHandl
         return ResourceContext.createSelectColumnMap(rs);
     }
 
+    protected String[] extractSelectColumnNames(ResultSet rs) throws SQLException {
+        return ResourceContext.extractSelectColumnNames(rs);
+    }
+
     // ===================================================================================
     //                                                                            Accessor
     //                                                                            ========
@@ -25,6 +25,7 @@ import org.seasar.dbflute.cbean.ConditionBean;
 import org.seasar.dbflute.cbean.ConditionBeanContext;
 import org.seasar.dbflute.cbean.sqlclause.SqlClause;
 import org.seasar.dbflute.dbmeta.accessory.DomainEntity;
+import org.seasar.dbflute.helper.cache.BoundedConcurrentCache;
 import org.seasar.dbflute.outsidesql.OutsideSqlContext;
 import org.seasar.dbflute.resource.ResourceContext;
 import org.seasar.dbflute.s2dao.extension.TnRelationRowCreatorExtension;
@@ -36,12 +37,25 @@ import org.seasar.dbflute.s2dao.rowcreator.TnRelationRowCache;
 import org.seasar.dbflute.s2dao.rowcreator.TnRelationRowCreator;
 import org.seasar.dbflute.s2dao.rowcreator.TnRelationSelector;
 import org.seasar.dbflute.s2dao.rowcreator.TnRowCreator;
+import org.seasar.dbflute.s2dao.rowcreator.TnRowMappingPlan;
 
 /**
  * @author modified by jflute (originated in S2Dao)
  */
 public class TnBeanListResultSetHandler extends TnAbstractBeanResultSetHandler {
 
+    // ===================================================================================
+    //                                                                          Definition
+    //                                                                          ==========
+    /** The default max size of mapping plan cache per handler. */
+    public static final int DEFAULT_MAPPING_PLAN_CACHE_SIZE = 32;
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    /** The cache of mapping plan keyed by select column layout. (NotNull) */
+    protected final BoundedConcurrentCache<String, TnRowMappingPlan> _mappingPlanCache = createMappingPlanCache();
+
     // ===================================================================================
     //                                                                         Constructor
     //                                                                         ===========
@@ -76,8 +90,8 @@ public class TnBeanListResultSetHandler extends TnAbstractBeanResultSetHandler {
 
     protected void mappingBean(ResultSet rs, BeanRowHandler handler) throws SQLException {
         // lazy initialization because if the result is zero, the resources are unused
+        TnRowMappingPlan mappingPlan = null;
         Map<String, String> selectColumnMap = null;
-        Map<String, TnPropertyMapping> propertyCache = null;
         Map<String, Map<String, TnPropertyMapping>> relPropCache = null; // key is relationNoSuffix, columnName
         TnRelationRowCache relRowCache = null;
         TnRelationSelector relSelector = null;
@@ -106,15 +120,17 @@ public class TnBeanListResultSetHandler extends TnAbstractBeanResultSetHandler {
         final Map<String, Map<String, Integer>> selectIndexMap = ResourceContext.getSelectIndexMap(); // null allowed
 
         while (rs.next()) {
-            if (selectColumnMap == null) {
-                selectColumnMap = createSelectColumnMap(rs);
-            }
-            if (propertyCache == null) {
-                propertyCache = createPropertyCache(selectColumnMap, selectIndexMap);
+            if (mappingPlan == null) {
+                if (!skipRelationLoop) {
+                    relSelector = createRelationSelector(hasCB);
+                }
+                mappingPlan = prepareMappingPlan(rs, selectIndexMap, relSelector);
+                selectColumnMap = mappingPlan.getSelectColumnMap();
+                relPropCache = mappingPlan.getRelPropCache(); // null if no relation loop
             }
 
-            // create row instance of base table by row property cache
-            final Object row = createRow(rs, selectIndexMap, propertyCache);
+            // create row instance of base table by row mapping plan
+            final Object row = createRow(rs, selectIndexMap, mappingPlan);
 
             if (skipRelationLoop) {
                 adjustCreatedRow(row, checkNonSp, basePointBmd);
@@ -122,12 +138,6 @@ public class TnBeanListResultSetHandler extends TnAbstractBeanResultSetHandler {
                 continue;
             }
 
-            if (relSelector == null) {
-                relSelector = createRelationSelector(hasCB);
-            }
-            if (relPropCache == null) {
-                relPropCache = createRelationPropertyCache(selectColumnMap, selectIndexMap, relSelector);
-            }
             if (relRowCache == null) {
                 relRowCache = createRelationRowCache(hasCB, cb);
             }
@@ -136,13 +146,55 @@ public class TnBeanListResultSetHandler extends TnAbstractBeanResultSetHandler {
                 if (relSelector.isNonSelectedRelation(rpt.getRelationNoSuffixPart())) {
                     continue;
                 }
-                mappingFirstRelation(rs, row, rpt, selectColumnMap, selectIndexMap, relPropCache, relRowCache, relSelector);
+                mappingFirstRelation(rs, row, rpt, selectColumnMap, selectIndexMap, relPropCache, relRowCache, relSelector, mappingPlan);
             }
             adjustCreatedRow(row, checkNonSp, basePointBmd);
             handler.handle(row);
         }
     }
 
+    // -----------------------------------------------------
+    //                                          Mapping Plan
+    //                                          ------------
+    /**
+     * Prepare the plan of row mapping for the select column layout of the result set. <br />
+     * The plan is cached by the layout so same shape selects skip property cache creation.
+     * @param rs The result set of JDBC, which is already on the first row. (NotNull)
+     * @param selectIndexMap The map of select index. map:{entityNo(e.g. loc00 or _0_3) = map:{selectColumnKeyName = selectIndex}} (NullAllowed)
+     * @param relSelector The selector of relation. (NullAllowed: if null, no relation loop)
+     * @return The prepared plan, might be cached one. (NotNull)
+     * @throws SQLException
+     */
+    protected TnRowMappingPlan prepareMappingPlan(ResultSet rs, Map<String, Map<String, Integer>> selectIndexMap,
+            TnRelationSelector relSelector) throws SQLException {
+        final String[] selectColumnNames = extractSelectColumnNames(rs);
+        final boolean relationLoop = relSelector != null;
+        final String layoutKey = TnRowMappingPlan.buildLayoutKey(selectColumnNames, selectIndexMap, relationLoop);
+        final TnRowMappingPlan cachedPlan = _mappingPlanCache.get(layoutKey);
+        if (cachedPlan != null) {
+            return cachedPlan;
+        }
+        final TnRowMappingPlan mappingPlan = new TnRowMappingPlan(selectColumnNames);
+        final Map<String, String> selectColumnMap = mappingPlan.getSelectColumnMap();
+        mappingPlan.prepareBasePoint(createPropertyCache(selectColumnMap, selectIndexMap), selectIndexMap);
+        if (relationLoop) {
+            mappingPlan.prepareRelation(createRelationPropertyCache(selectColumnMap, selectIndexMap, relSelector), selectIndexMap);
+        }
+        return _mappingPlanCache.put(layoutKey, mappingPlan); // completely prepared before sharing
+    }
+
+    protected BoundedConcurrentCache<String, TnRowMappingPlan> createMappingPlanCache() { // extension point
+        return new BoundedConcurrentCache<String, TnRowMappingPlan>(DEFAULT_MAPPING_PLAN_CACHE_SIZE);
+    }
+
+    /**
+     * Get the cache of mapping plan, e.g. for statistics (hit, miss, eviction).
+     * @return The cache instance. (NotNull)
+     */
+    public BoundedConcurrentCache<String, TnRowMappingPlan> getMappingPlanCache() {
+        return _mappingPlanCache;
+    }
+
     /**
      * Create the selector of relation.
      * @param hasCB Does the select have condition-bean? 
@@ -227,11 +279,12 @@ public class TnBeanListResultSetHandler extends TnAbstractBeanResultSetHandler {
      * @param relPropCache The map of relation property cache. (NotNull) 
      * @param relRowCache The cache of relation row. (NotNull)
      * @param relSelector The selector of relation, which can determines e.g. is it not-selected relation?. (NotNull)
+     * @param mappingPlan The plan of row mapping that has prepared relation. (NullAllowed: if null, mapping by property cache)
      * @throws SQLException
      */
     protected void mappingFirstRelation(ResultSet rs, Object row, TnRelationPropertyType rpt, Map<String, String> selectColumnMap,
             Map<String, Map<String, Integer>> selectIndexMap, Map<String, Map<String, TnPropertyMapping>> relPropCache,
-            TnRelationRowCache relRowCache, TnRelationSelector relSelector) throws SQLException {
+            TnRelationRowCache relRowCache, TnRelationSelector relSelector, TnRowMappingPlan mappingPlan) throws SQLException {
         final String relationNoSuffix = getFirstLevelRelationPath(rpt);
         final TnRelationKey relKey = relRowCache.createRelationKey(rs, rpt // basic resource
                 , selectColumnMap, selectIndexMap // select resource
@@ -245,7 +298,8 @@ public class TnBeanListResultSetHandler extends TnAbstractBeanResultSetHandler {
             if (relationRow == null) { // when no cache
                 relationRow = createRelationRow(rs, rpt // basic resource
                         , selectColumnMap, selectIndexMap // select resource
-                        , relKey, relPropCache, relRowCache, relSelector); // relation resource
+                        , relKey, relPropCache, relRowCache, relSelector // relation resource
+                        , mappingPlan); // planned mapping
                 if (relationRow != null) { // is new created relation row
                     adjustCreatedRelationRow(relationRow, relationNoSuffix, relSelector, rpt);
                     if (canUseRelationCache) {
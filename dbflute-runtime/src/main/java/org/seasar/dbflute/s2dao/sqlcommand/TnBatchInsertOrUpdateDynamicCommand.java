@@ -0,0 +1,140 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.s2dao.sqlcommand;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.seasar.dbflute.DBDef;
+import org.seasar.dbflute.bhv.InsertOption;
+import org.seasar.dbflute.cbean.ConditionBean;
+import org.seasar.dbflute.dbmeta.info.ColumnInfo;
+import org.seasar.dbflute.dbway.UpsertSqlBuilder;
+import org.seasar.dbflute.helper.StringSet;
+import org.seasar.dbflute.jdbc.StatementFactory;
+import org.seasar.dbflute.resource.ResourceContext;
+import org.seasar.dbflute.s2dao.metadata.TnBeanMetaData;
+import org.seasar.dbflute.s2dao.metadata.TnPropertyType;
+import org.seasar.dbflute.s2dao.sqlhandler.TnBatchInsertHandler;
+import org.seasar.dbflute.s2dao.sqlhandler.TnBatchInsertOrUpdateHandler;
+
+/**
+ * The dynamic command of batch insert-or-update by native upsert statement of the DB.
+ * @author jflute
+ * @since 1.0.5N (2014/12/18 Thursday)
+ */
+public class TnBatchInsertOrUpdateDynamicCommand extends TnBatchInsertDynamicCommand {
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    public TnBatchInsertOrUpdateDynamicCommand(DataSource dataSource, StatementFactory statementFactory) {
+        super(dataSource, statementFactory);
+    }
+
+    // ===================================================================================
+    //                                                                       Insert Column
+    //                                                                       =============
+    @Override
+    protected TnPropertyType[] createInsertPropertyTypes(TnBeanMetaData bmd, Object bean, String[] propertyNames,
+            InsertOption<ConditionBean> option) {
+        if (0 == propertyNames.length) {
+            String msg = "The property name was not found in the bean: " + bean;
+            throw new IllegalStateException(msg);
+        }
+        final List<TnPropertyType> typeList = new ArrayList<TnPropertyType>();
+        final Set<?> modifiedSet = getModifiedPropertyNames(bean);
+        final String timestampProp = bmd.getTimestampPropertyName();
+        final String versionNoProp = bmd.getVersionNoPropertyName();
+        for (int i = 0; i < propertyNames.length; ++i) {
+            final TnPropertyType pt = bmd.getPropertyType(propertyNames[i]);
+            if (pt.isPrimaryKey()) { // always bound because it is the key of upsert
+                typeList.add(pt);
+            } else {
+                if (isOptimisticLockProperty(timestampProp, versionNoProp, pt) // OptimisticLock
+                        || isSpecifiedProperty(bean, option, modifiedSet, pt)) { // Specified
+                    typeList.add(pt);
+                }
+            }
+        }
+        return typeList.toArray(new TnPropertyType[typeList.size()]);
+    }
+
+    // ===================================================================================
+    //                                                                          Upsert SQL
+    //                                                                          ==========
+    @Override
+    protected String createInsertSql(TnBeanMetaData bmd, TnPropertyType[] propertyTypes, InsertOption<ConditionBean> option) {
+        final String tableDbName = _targetDBMeta.getTableDbName();
+        final Set<String> insertOnlyColumnSet = extractInsertOnlyCommonColumnSet();
+        final String versionNoProp = bmd.getVersionNoPropertyName();
+        final List<String> columnList = new ArrayList<String>(propertyTypes.length);
+        final List<String> bindExpList = new ArrayList<String>(propertyTypes.length);
+        final List<String> primaryKeyList = new ArrayList<String>(2);
+        final List<String> updateColumnList = new ArrayList<String>(propertyTypes.length);
+        String versionNoColumn = null;
+        for (TnPropertyType pt : propertyTypes) {
+            final String columnSqlName = pt.getColumnSqlName().toString();
+            final String columnDbName = pt.getColumnDbName();
+            columnList.add(columnSqlName);
+            bindExpList.add(encryptIfNeeds(tableDbName, columnDbName, "?"));
+            if (pt.isPrimaryKey()) {
+                primaryKeyList.add(columnSqlName);
+            } else if (pt.getPropertyName().equalsIgnoreCase(versionNoProp)) {
+                versionNoColumn = columnSqlName; // incremented when updated
+            } else if (!insertOnlyColumnSet.contains(columnDbName)) { // e.g. REGISTER_DATETIME is kept
+                updateColumnList.add(columnSqlName);
+            }
+        }
+        final UpsertSqlBuilder builder = createUpsertSqlBuilder(columnList, bindExpList, primaryKeyList, updateColumnList,
+                versionNoColumn);
+        final DBDef currentDBDef = ResourceContext.currentDBDef();
+        final String sql = currentDBDef.dbway().buildUpsertSql(builder);
+        if (sql == null) {
+            String msg = "The DB does not support native upsert statement: " + currentDBDef + ", table=" + tableDbName;
+            throw new IllegalStateException(msg);
+        }
+        return sql;
+    }
+
+    protected Set<String> extractInsertOnlyCommonColumnSet() {
+        final StringSet columnSet = StringSet.createAsFlexible();
+        for (ColumnInfo columnInfo : _targetDBMeta.getCommonColumnInfoBeforeInsertList()) {
+            columnSet.add(columnInfo.getColumnDbName());
+        }
+        for (ColumnInfo columnInfo : _targetDBMeta.getCommonColumnInfoBeforeUpdateList()) {
+            columnSet.remove(columnInfo.getColumnDbName());
+        }
+        return columnSet;
+    }
+
+    protected UpsertSqlBuilder createUpsertSqlBuilder(List<String> columnList, List<String> bindExpList, List<String> primaryKeyList,
+            List<String> updateColumnList, String versionNoColumn) {
+        final String tableSqlName = _targetDBMeta.getTableSqlName().toString();
+        return new UpsertSqlBuilder(tableSqlName, columnList, bindExpList, primaryKeyList, updateColumnList, versionNoColumn);
+    }
+
+    // ===================================================================================
+    //                                                                             Handler
+    //                                                                             =======
+    @Override
+    protected TnBatchInsertHandler newBatchInsertHandler(TnPropertyType[] boundPropTypes, String sql) {
+        return new TnBatchInsertOrUpdateHandler(_dataSource, _statementFactory, sql, _beanMetaData, boundPropTypes);
+    }
+}
@@ -49,6 +49,7 @@ import org.seasar.dbflute.resource.InternalMapContext;
 import org.seasar.dbflute.resource.ManualThreadDataSourceHandler;
 import org.seasar.dbflute.resource.ResourceContext;
 import org.seasar.dbflute.s2dao.extension.TnSqlLogRegistry;
+import org.seasar.dbflute.s2dao.jdbc.TnStatementFactoryImpl;
 import org.seasar.dbflute.s2dao.valuetype.TnValueTypes;
 import org.seasar.dbflute.twowaysql.DisplaySqlBuilder;
 
@@ -701,6 +702,13 @@ public abstract class TnAbstractBasicSqlHandler {
             resource.setNotice("Failed to close the database connection.");
             handleSQLException(e, resource);
         }
+        releaseCachedStatements(conn);
+    }
+
+    protected void releaseCachedStatements(Connection conn) { // closed or returned to the pool
+        if (_statementFactory instanceof TnStatementFactoryImpl) {
+            ((TnStatementFactoryImpl) _statementFactory).releaseCachedStatements(conn);
+        }
     }
 
     // ===================================================================================
@@ -18,8 +18,12 @@ package org.seasar.dbflute.s2dao.sqlhandler;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 import javax.sql.DataSource;
 
@@ -33,9 +37,11 @@ import org.seasar.dbflute.exception.EntityDuplicatedException;
 import org.seasar.dbflute.exception.handler.SQLExceptionResource;
 import org.seasar.dbflute.jdbc.SqlLogInfo;
 import org.seasar.dbflute.jdbc.StatementFactory;
+import org.seasar.dbflute.jdbc.ValueType;
 import org.seasar.dbflute.resource.ResourceContext;
 import org.seasar.dbflute.s2dao.metadata.TnBeanMetaData;
 import org.seasar.dbflute.s2dao.metadata.TnPropertyType;
+import org.seasar.dbflute.util.DfCollectionUtil;
 
 /**
  * @author modified by jflute (originated in S2Dao)
@@ -48,6 +54,9 @@ public abstract class TnAbstractBatchHandler extends TnAbstractEntityHandler {
     /** Log instance. */
     private static final Log _log = LogFactory.getLog(TnAbstractBatchHandler.class);
 
+    /** The pattern of select keyword as a token, not matched with e.g. SELECTED_FLG. */
+    protected static final Pattern SELECT_KEYWORD_PATTERN = Pattern.compile("\\bselect\\b");
+
     // ===================================================================================
     //                                                                           Attribute
     //                                                                           =========
@@ -90,16 +99,15 @@ public abstract class TnAbstractBatchHandler extends TnAbstractEntityHandler {
         try {
             processBefore(conn, beanList);
             RuntimeException sqlEx = null;
-            final PreparedStatement ps = prepareStatement(conn);
+            final String rowValues = isBatchMultiRowValues() ? extractMultiRowValues() : null;
+            final PreparedStatement ps = rowValues == null ? prepareStatement(conn) : null;
             int[] result = null;
             try {
-                for (Object bean : beanList) {
-                    processBatchBefore(bean);
-                    prepareBatchElement(conn, ps, bean);
+                if (rowValues != null) {
+                    result = executeMultiRowValues(conn, beanList, rowValues);
+                } else {
+                    result = executeFlushedBatch(conn, ps, beanList);
                 }
-                handleBatchLogging(); // last scope handling
-                result = executeBatch(ps, beanList);
-                handleBatchUpdateResultWithOptimisticLock(ps, beanList, result);
             } catch (RuntimeException e) {
                 // not SQLFailureException because
                 // a wrapper of JDBC may throw an other exception
@@ -123,6 +131,48 @@ public abstract class TnAbstractBatchHandler extends TnAbstractEntityHandler {
         }
     }
 
+    // -----------------------------------------------------
+    //                                         Flushed Batch
+    //                                         -------------
+    protected int[] executeFlushedBatch(Connection conn, PreparedStatement ps, List<?> beanList) {
+        final Integer flushSize = getBatchFlushSize();
+        if (flushSize == null || flushSize <= 0 || flushSize >= beanList.size()) { // no flush
+            return executeBatchChunk(conn, ps, beanList);
+        }
+        final int[] result = new int[beanList.size()];
+        int resultIndex = 0;
+        for (List<?> chunkList : DfCollectionUtil.splitByLimit(beanList, flushSize)) {
+            final int[] chunkResult = executeBatchChunk(conn, ps, chunkList);
+            System.arraycopy(chunkResult, 0, result, resultIndex, chunkResult.length);
+            resultIndex = resultIndex + chunkResult.length;
+        }
+        if (resultIndex < result.length) { // basically no way, but drivers may return short result
+            final int[] shortResult = new int[resultIndex];
+            System.arraycopy(result, 0, shortResult, 0, resultIndex);
+            return shortResult;
+        }
+        return result;
+    }
+
+    protected int[] executeBatchChunk(Connection conn, PreparedStatement ps, List<?> chunkList) {
+        for (Object bean : chunkList) {
+            processBatchBefore(bean);
+            prepareBatchElement(conn, ps, bean);
+        }
+        handleBatchLogging(); // last scope handling (per chunk)
+        final int[] chunkResult = executeBatch(ps, chunkList);
+        handleBatchUpdateResultWithOptimisticLock(ps, chunkList, chunkResult);
+        return chunkResult;
+    }
+
+    /**
+     * Get the size of entities per execution of batch.
+     * @return The size of flush. (NullAllowed: if null and minus, means no flush)
+     */
+    protected Integer getBatchFlushSize() {
+        return null; // as default
+    }
+
     protected void prepareBatchElement(Connection conn, PreparedStatement ps, Object bean) {
         setupBindVariables(bean);
         final Object[] bindVariables = _bindVariables;
@@ -131,6 +181,117 @@ public abstract class TnAbstractBatchHandler extends TnAbstractEntityHandler {
         addBatch(ps);
     }
 
+    // -----------------------------------------------------
+    //                                      Multi-Row Values
+    //                                      ----------------
+    protected boolean isBatchMultiRowValues() {
+        return false; // as default
+    }
+
+    /**
+     * Extract the VALUES part for one row from the SQL, e.g. '(?, ?, ?)'.
+     * @return The VALUES part for one row. (NullAllowed: when the SQL cannot be rewritten)
+     */
+    protected String extractMultiRowValues() {
+        final String lowerSql = _sql.toLowerCase();
+        final int valuesIndex = lowerSql.lastIndexOf("values");
+        if (valuesIndex < 0 || SELECT_KEYWORD_PATTERN.matcher(lowerSql).find()) { // e.g. insert ... select
+            return null;
+        }
+        final String rowValues = _sql.substring(valuesIndex + "values".length()).trim();
+        if (!rowValues.startsWith("(") || !rowValues.endsWith(")")) {
+            return null;
+        }
+        if (countBindMark(rowValues) != countBindMark(_sql)) { // bind variables exist except VALUES
+            return null;
+        }
+        return rowValues;
+    }
+
+    protected int countBindMark(String sql) {
+        int count = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            if (sql.charAt(i) == '?') {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    protected int[] executeMultiRowValues(Connection conn, List<?> beanList, String rowValues) {
+        final int rowSize = determineMultiRowValuesSize(rowValues);
+        final int[] result = new int[beanList.size()];
+        int resultIndex = 0;
+        PreparedStatement ps = null;
+        int preparedRowCount = -1;
+        try {
+            for (List<?> chunkList : DfCollectionUtil.splitByLimit(beanList, rowSize)) {
+                final int rowCount = chunkList.size();
+                if (ps == null || preparedRowCount != rowCount) { // first or last chunk
+                    close(ps);
+                    ps = null;
+                    ps = _statementFactory.createPreparedStatement(conn, buildMultiRowValuesSql(rowValues, rowCount));
+                    preparedRowCount = rowCount;
+                }
+                final List<Object> argList = new ArrayList<Object>();
+                final List<ValueType> valueTypeList = new ArrayList<ValueType>();
+                for (Object bean : chunkList) {
+                    processBatchBefore(bean);
+                    setupBindVariables(bean);
+                    final Object[] bindVariables = _bindVariables;
+                    logSql(bindVariables, getArgTypes(bindVariables));
+                    argList.addAll(Arrays.asList(bindVariables));
+                    valueTypeList.addAll(Arrays.asList(_bindVariableValueTypes));
+                }
+                final Object[] args = argList.toArray();
+                bindArgs(conn, ps, args, valueTypeList.toArray(new ValueType[valueTypeList.size()]));
+                handleBatchLogging(); // last scope handling (per chunk)
+                final int updateCount = executeUpdate(ps);
+                // update count per row is unknown if the total count is different
+                final int oneResult = updateCount == rowCount ? 1 : Statement.SUCCESS_NO_INFO;
+                Arrays.fill(result, resultIndex, resultIndex + rowCount, oneResult);
+                resultIndex = resultIndex + rowCount;
+            }
+        } finally {
+            close(ps);
+        }
+        return result;
+    }
+
+    protected String buildMultiRowValuesSql(String rowValues, int rowCount) {
+        final String lowerSql = _sql.toLowerCase();
+        final int valuesIndex = lowerSql.lastIndexOf("values");
+        final StringBuilder sb = new StringBuilder(_sql.length() + (rowValues.length() + 2) * rowCount);
+        sb.append(_sql.substring(0, valuesIndex)).append("values ");
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(rowValues);
+        }
+        return sb.toString();
+    }
+
+    protected int determineMultiRowValuesSize(String rowValues) {
+        final Integer flushSize = getBatchFlushSize();
+        final int rowSize = flushSize != null && flushSize > 0 ? flushSize : getDefaultMultiRowValuesSize();
+        final int columnCount = countBindMark(rowValues);
+        if (columnCount == 0) { // no way, just in case
+            return rowSize;
+        }
+        // e.g. flush size 1000 with 40 columns is over the limit of bind parameters
+        final int limitRowSize = Math.max(getMaxBindParameterCount() / columnCount, 1);
+        return Math.min(rowSize, limitRowSize);
+    }
+
+    protected int getDefaultMultiRowValuesSize() {
+        return 100;
+    }
+
+    protected int getMaxBindParameterCount() {
+        return ResourceContext.currentDBDef().dbway().getMaxBindParameterCount();
+    }
+
     // ===================================================================================
     //                                                                         SQL Logging
     //                                                                         ===========
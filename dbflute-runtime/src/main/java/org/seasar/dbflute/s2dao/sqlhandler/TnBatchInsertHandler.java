@@ -20,6 +20,7 @@ import java.sql.Connection;
 import javax.sql.DataSource;
 
 import org.seasar.dbflute.jdbc.StatementFactory;
+import org.seasar.dbflute.resource.ResourceContext;
 import org.seasar.dbflute.s2dao.metadata.TnBeanMetaData;
 import org.seasar.dbflute.s2dao.metadata.TnPropertyType;
 
@@ -50,6 +51,19 @@ public class TnBatchInsertHandler extends TnAbstractBatchHandler {
         return _insertOption != null ? _insertOption.getBatchInsertLoggingLimit() : null;
     }
 
+    @Override
+    protected Integer getBatchFlushSize() {
+        return _insertOption != null ? _insertOption.getBatchInsertFlushSize() : null;
+    }
+
+    @Override
+    protected boolean isBatchMultiRowValues() {
+        if (_insertOption == null || !_insertOption.isBatchInsertMultiRowValues()) {
+            return false;
+        }
+        return ResourceContext.currentDBDef().dbway().isMultiRowValuesSupported();
+    }
+
     @Override
     protected void processBefore(Connection conn, Object beanList) {
         super.processBefore(conn, beanList);
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.s2dao.sqlhandler;
+
+import javax.sql.DataSource;
+
+import org.seasar.dbflute.jdbc.StatementFactory;
+import org.seasar.dbflute.s2dao.metadata.TnBeanMetaData;
+import org.seasar.dbflute.s2dao.metadata.TnPropertyType;
+
+/**
+ * The handler of batch insert-or-update by native upsert statement. <br />
+ * The statement is executed as JDBC batch of one row per element.
+ * @author jflute
+ * @since 1.0.5N (2014/12/18 Thursday)
+ */
+public class TnBatchInsertOrUpdateHandler extends TnBatchInsertHandler {
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    public TnBatchInsertOrUpdateHandler(DataSource dataSource, StatementFactory statementFactory, String sql,
+            TnBeanMetaData beanMetaData, TnPropertyType[] boundPropTypes) {
+        super(dataSource, statementFactory, sql, beanMetaData, boundPropTypes);
+    }
+
+    // ===================================================================================
+    //                                                                            Override
+    //                                                                            ========
+    @Override
+    protected boolean isBatchMultiRowValues() {
+        return false; // the upsert statement cannot be rewritten to multi-row values
+    }
+
+    @Override
+    protected void processBatchSuccess(Object bean, int index) {
+        // the version no of updated row is incremented in the DB
+        // so it cannot be reflected to the entity (the timestamp is same as bound value)
+        updateTimestampIfNeed(bean, index);
+    }
+
+    @Override
+    protected String getBatchUpdateSQLFailureProcessTitle() {
+        return "batch insert-or-update";
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.twowaysql.node;
+
+import java.lang.reflect.Method;
+
+import org.seasar.dbflute.helper.beans.DfPropertyDesc;
+import org.seasar.dbflute.util.DfTypeUtil;
+
+/**
+ * The compiled expression of IF comment, which is evaluated by {@link IfCommentEvaluator}. <br />
+ * This is immutable except resolved accessors (benign race) so it can be cached on the node.
+ * @author jflute
+ * @since 1.0.5N (2014/12/15 Monday)
+ */
+public class IfCommentCompiledExpression {
+
+    // ===================================================================================
+    //                                                                          Definition
+    //                                                                          ==========
+    public static final int CONNECTOR_NONE = 0;
+    public static final int CONNECTOR_AND = 1;
+    public static final int CONNECTOR_OR = 2;
+
+    public static final int OPERATOR_STAND_ALONE = 0;
+    public static final int OPERATOR_EQUAL = 1;
+    public static final int OPERATOR_NOT_EQUAL = 2;
+    public static final int OPERATOR_GREATER_THAN = 3;
+    public static final int OPERATOR_LESS_THAN = 4;
+    public static final int OPERATOR_GREATER_EQUAL = 5;
+    public static final int OPERATOR_LESS_EQUAL = 6;
+
+    // ===================================================================================
+    //                                                                           Attribute
+    //                                                                           =========
+    protected final String _expression;
+    protected final int _connector;
+    protected final CompiledClause[] _clauses;
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    public IfCommentCompiledExpression(String expression, int connector, CompiledClause[] clauses) {
+        _expression = expression;
+        _connector = connector;
+        _clauses = clauses;
+    }
+
+    // ===================================================================================
+    //                                                                     Compiled Clause
+    //                                                                     ===============
+    public static class CompiledClause {
+
+        protected final String _booleanClause;
+        protected final int _operator;
+        protected final CompiledPiece _leftPiece; // or stand-alone piece
+        protected final CompiledPiece _rightPiece; // null if stand-alone
+        protected final boolean _booleanNot; // only for stand-alone
+
+        public CompiledClause(String booleanClause, int operator, CompiledPiece leftPiece, CompiledPiece rightPiece,
+                boolean booleanNot) {
+            _booleanClause = booleanClause;
+            _operator = operator;
+            _leftPiece = leftPiece;
+            _rightPiece = rightPiece;
+            _booleanNot = booleanNot;
+        }
+
+        public String getBooleanClause() {
+            return _booleanClause;
+        }
+
+        public int getOperator() {
+            return _operator;
+        }
+
+        public CompiledPiece getLeftPiece() {
+            return _leftPiece;
+        }
+
+        public CompiledPiece getRightPiece() {
+            return _rightPiece;
+        }
+
+        public boolean isBooleanNot() {
+            return _booleanNot;
+        }
+    }
+
+    // ===================================================================================
+    //                                                                      Compiled Piece
+    //                                                                      ==============
+    public static class CompiledPiece {
+
+        protected final boolean _literal;
+        protected final Object _literalValue; // null allowed
+        protected final String _firstName; // null if literal
+        protected final PropertyStep[] _propertySteps; // null if literal
+
+        protected CompiledPiece(boolean literal, Object literalValue, String firstName, PropertyStep[] propertySteps) {
+            _literal = literal;
+            _literalValue = literalValue;
+            _firstName = firstName;
+            _propertySteps = propertySteps;
+        }
+
+        public static CompiledPiece createLiteral(Object literalValue) {
+            return new CompiledPiece(true, literalValue, null, null);
+        }
+
+        public static CompiledPiece createProperty(String firstName, PropertyStep[] propertySteps) {
+            return new CompiledPiece(false, null, firstName, propertySteps);
+        }
+
+        public boolean isLiteral() {
+            return _literal;
+        }
+
+        public Object getLiteralValue() {
+            return _literalValue;
+        }
+
+        public String getFirstName() {
+            return _firstName;
+        }
+
+        public PropertyStep[] getPropertySteps() {
+            return _propertySteps;
+        }
+    }
+
+    // ===================================================================================
+    //                                                                       Property Step
+    //                                                                       =============
+    public static class PropertyStep {
+
+        protected final String _property;
+        protected final String _methodName; // null if not method
+        protected final String _listIndexExp; // null if not list index
+        protected final Integer _listIndex; // null if not list index or not number
+        protected volatile ResolvedAccessor _resolvedAccessor; // for the latest bean type
+
+        public PropertyStep(String property) {
+            _property = property;
+            if (property.endsWith(IfCommentEvaluator.METHOD_SUFFIX)) {
+                _methodName = property.substring(0, property.length() - IfCommentEvaluator.METHOD_SUFFIX.length());
+            } else {
+                _methodName = null;
+            }
+            if (property.startsWith("get(") && property.endsWith(")")) {
+                _listIndexExp = property.substring("get(".length(), property.length() - ")".length());
+                Integer listIndex;
+                try {
+                    listIndex = DfTypeUtil.toInteger(_listIndexExp);
+                } catch (NumberFormatException ignored) { // handled when evaluated
+                    listIndex = null;
+                }
+                _listIndex = listIndex;
+            } else {
+                _listIndexExp = null;
+                _listIndex = null;
+            }
+        }
+
+        public String getProperty() {
+            return _property;
+        }
+
+        public String getMethodName() {
+            return _methodName;
+        }
+
+        public String getListIndexExp() {
+            return _listIndexExp;
+        }
+
+        public Integer getListIndex() {
+            return _listIndex;
+        }
+
+        public ResolvedAccessor getResolvedAccessor() {
+            return _resolvedAccessor;
+        }
+
+        public void setResolvedAccessor(ResolvedAccessor resolvedAccessor) {
+            _resolvedAccessor = resolvedAccessor;
+        }
+    }
+
+    /**
+     * The accessor of the property resolved for the bean type. <br />
+     * Both property and method are null if the property is not bean's one. (e.g. map key)
+     */
+    public static class ResolvedAccessor {
+
+        protected final Class<?> _beanType;
+        protected final DfPropertyDesc _propertyDesc; // null allowed
+        protected final Method _method; // null allowed
+
+        public ResolvedAccessor(Class<?> beanType, DfPropertyDesc propertyDesc, Method method) {
+            _beanType = beanType;
+            _propertyDesc = propertyDesc;
+            _method = method;
+        }
+
+        public Class<?> getBeanType() {
+            return _beanType;
+        }
+
+        public DfPropertyDesc getPropertyDesc() {
+            return _propertyDesc;
+        }
+
+        public Method getMethod() {
+            return _method;
+        }
+    }
+
+    // ===================================================================================
+    //                                                                      Basic Override
+    //                                                                      ==============
+    @Override
+    public String toString() {
+        return DfTypeUtil.toClassTitle(this) + ":{" + _expression + "}";
+    }
+
+    // ===================================================================================
+    //                                                                            Accessor
+    //                                                                            ========
+    public String getExpression() {
+        return _expression;
+    }
+
+    public int getConnector() {
+        return _connector;
+    }
+
+    public CompiledClause[] getClauses() {
+        return _clauses;
+    }
+}
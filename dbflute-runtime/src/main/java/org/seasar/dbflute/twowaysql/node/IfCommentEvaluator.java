@@ -42,7 +42,12 @@ import org.seasar.dbflute.twowaysql.exception.IfCommentNullPointerException;
 import org.seasar.dbflute.twowaysql.exception.IfCommentPropertyReadFailureException;
 import org.seasar.dbflute.twowaysql.exception.IfCommentUnsupportedExpressionException;
 import org.seasar.dbflute.twowaysql.exception.IfCommentUnsupportedTypeComparisonException;
+import org.seasar.dbflute.twowaysql.node.IfCommentCompiledExpression.CompiledClause;
+import org.seasar.dbflute.twowaysql.node.IfCommentCompiledExpression.CompiledPiece;
+import org.seasar.dbflute.twowaysql.node.IfCommentCompiledExpression.PropertyStep;
+import org.seasar.dbflute.twowaysql.node.IfCommentCompiledExpression.ResolvedAccessor;
 import org.seasar.dbflute.twowaysql.pmbean.MapParameterBean;
+import org.seasar.dbflute.util.DfCollectionUtil;
 import org.seasar.dbflute.util.DfReflectionUtil;
 import org.seasar.dbflute.util.DfReflectionUtil.ReflectionFailureException;
 import org.seasar.dbflute.util.DfTypeUtil;
@@ -122,27 +127,35 @@ public class IfCommentEvaluator {
     //                                                                              Accept
     //                                                                              ======
     public boolean evaluate() {
-        assertExpression();
-        if (_expression.contains(AND)) {
-            final List<String> splitList = splitList(_expression, AND);
-            for (String booleanClause : splitList) {
-                final boolean result = evaluateBooleanClause(booleanClause);
+        return evaluate(compile());
+    }
+
+    /**
+     * Evaluate the compiled expression by the parameters of this evaluator.
+     * @param compiled The compiled expression of the same expression as this. (NotNull)
+     * @return The determination of the expression.
+     */
+    public boolean evaluate(IfCommentCompiledExpression compiled) {
+        final CompiledClause[] clauses = compiled.getClauses();
+        final int connector = compiled.getConnector();
+        if (connector == IfCommentCompiledExpression.CONNECTOR_AND) {
+            for (CompiledClause clause : clauses) {
+                final boolean result = evaluateBooleanClause(clause);
                 if (!result) {
                     return false;
                 }
             }
             return true;
-        } else if (_expression.contains(OR)) {
-            final List<String> splitList = splitList(_expression, OR);
-            for (String booleanClause : splitList) {
-                final boolean result = evaluateBooleanClause(booleanClause);
+        } else if (connector == IfCommentCompiledExpression.CONNECTOR_OR) {
+            for (CompiledClause clause : clauses) {
+                final boolean result = evaluateBooleanClause(clause);
                 if (result) {
                     return true;
                 }
             }
             return false;
         } else {
-            return evaluateBooleanClause(_expression);
+            return evaluateBooleanClause(clauses[0]);
         }
     }
 
@@ -168,160 +181,76 @@ public class IfCommentEvaluator {
         }
     }
 
-    protected boolean evaluateBooleanClause(final String booleanClause) {
+    // ===================================================================================
+    //                                                                             Compile
+    //                                                                             =======
+    /**
+     * Compile the expression to the tree of clauses and pieces, which can be cached and reused.
+     * @return The compiled expression. (NotNull)
+     */
+    public IfCommentCompiledExpression compile() {
+        assertExpression();
+        final int connector;
+        final List<String> booleanClauseList;
+        if (_expression.contains(AND)) {
+            connector = IfCommentCompiledExpression.CONNECTOR_AND;
+            booleanClauseList = splitList(_expression, AND);
+        } else if (_expression.contains(OR)) {
+            connector = IfCommentCompiledExpression.CONNECTOR_OR;
+            booleanClauseList = splitList(_expression, OR);
+        } else {
+            connector = IfCommentCompiledExpression.CONNECTOR_NONE;
+            booleanClauseList = DfCollectionUtil.newArrayList(_expression);
+        }
+        final CompiledClause[] clauses = new CompiledClause[booleanClauseList.size()];
+        for (int i = 0; i < clauses.length; i++) {
+            clauses[i] = compileBooleanClause(booleanClauseList.get(i));
+        }
+        return new IfCommentCompiledExpression(_expression, connector, clauses);
+    }
+
+    protected CompiledClause compileBooleanClause(String booleanClause) {
         if (booleanClause.contains(EQUAL)) {
-            return evaluateCompareClause(booleanClause, EQUAL, new OperandEvaluator() {
-                public boolean evaluate(Object leftResult, Object rightResult) {
-                    if (leftResult instanceof Number && rightResult instanceof Number) {
-                        leftResult = new BigDecimal(leftResult.toString());
-                        rightResult = new BigDecimal(rightResult.toString());
-                    }
-                    assertCompareType(leftResult, rightResult, booleanClause);
-                    return leftResult != null ? leftResult.equals(rightResult) : rightResult == null;
-                }
-            });
+            return compileCompareClause(booleanClause, EQUAL, IfCommentCompiledExpression.OPERATOR_EQUAL);
         } else if (booleanClause.contains(NOT_EQUAL)) {
-            return evaluateCompareClause(booleanClause, NOT_EQUAL, new OperandEvaluator() {
-                public boolean evaluate(Object leftResult, Object rightResult) {
-                    if (leftResult instanceof Number && rightResult instanceof Number) {
-                        leftResult = new BigDecimal(leftResult.toString());
-                        rightResult = new BigDecimal(rightResult.toString());
-                    }
-                    assertCompareType(leftResult, rightResult, booleanClause);
-                    return leftResult != null ? !leftResult.equals(rightResult) : rightResult != null;
-                }
-            });
+            return compileCompareClause(booleanClause, NOT_EQUAL, IfCommentCompiledExpression.OPERATOR_NOT_EQUAL);
         } else if (booleanClause.contains(GREATER_THAN)) {
-            return evaluateCompareClause(booleanClause, GREATER_THAN, new OperandEvaluator() {
-                public boolean evaluate(Object leftResult, Object rightResult) {
-                    if (leftResult == null) {
-                        return false;
-                    }
-                    if (rightResult == null) {
-                        return true;
-                    }
-                    return compareLeftRight(leftResult, rightResult, new ComparaDeterminer() {
-                        public boolean compare(int compareResult) {
-                            return compareResult > 0;
-                        }
-                    }, booleanClause);
-                }
-            });
+            return compileCompareClause(booleanClause, GREATER_THAN, IfCommentCompiledExpression.OPERATOR_GREATER_THAN);
         } else if (booleanClause.contains(LESS_THAN)) {
-            return evaluateCompareClause(booleanClause, LESS_THAN, new OperandEvaluator() {
-                public boolean evaluate(Object leftResult, Object rightResult) {
-                    if (leftResult == null) {
-                        return true;
-                    }
-                    if (rightResult == null) {
-                        return false;
-                    }
-                    return compareLeftRight(leftResult, rightResult, new ComparaDeterminer() {
-                        public boolean compare(int compareResult) {
-                            return compareResult < 0;
-                        }
-                    }, booleanClause);
-                }
-            });
+            return compileCompareClause(booleanClause, LESS_THAN, IfCommentCompiledExpression.OPERATOR_LESS_THAN);
         } else if (booleanClause.contains(GREATER_EQUAL)) {
-            return evaluateCompareClause(booleanClause, GREATER_EQUAL, new OperandEvaluator() {
-                public boolean evaluate(Object leftResult, Object rightResult) {
-                    if (leftResult == null) {
-                        return rightResult == null;
-                    }
-                    if (rightResult == null) {
-                        return true;
-                    }
-                    return compareLeftRight(leftResult, rightResult, new ComparaDeterminer() {
-                        public boolean compare(int compareResult) {
-                            return compareResult >= 0;
-                        }
-                    }, booleanClause);
-                }
-            });
+            return compileCompareClause(booleanClause, GREATER_EQUAL, IfCommentCompiledExpression.OPERATOR_GREATER_EQUAL);
         } else if (booleanClause.contains(LESS_EQUAL)) {
-            return evaluateCompareClause(booleanClause, LESS_EQUAL, new OperandEvaluator() {
-                public boolean evaluate(Object leftResult, Object rightResult) {
-                    if (leftResult == null) {
-                        return true;
-                    }
-                    if (rightResult == null) {
-                        return false;
-                    }
-                    return compareLeftRight(leftResult, rightResult, new ComparaDeterminer() {
-                        public boolean compare(int compareResult) {
-                            return compareResult <= 0;
-                        }
-                    }, booleanClause);
-                }
-            });
-        } else {
-            return evaluateStandAloneValue(booleanClause);
-        }
-    }
-
-    protected boolean compareLeftRight(Object leftResult, Object rightResult, ComparaDeterminer determiner, String booleanClause) {
-        assertCompareType(leftResult, rightResult, booleanClause);
-        if (leftResult instanceof Date) {
-            final Date leftDate = (Date) leftResult;
-            final Date rightDate = (Date) rightResult;
-            return determiner.compare(leftDate.compareTo(rightDate));
-        } else if (leftResult instanceof Number) {
-            final Number leftNumber = (Number) leftResult;
-            final BigDecimal leftDecimal = new BigDecimal(leftNumber.toString());
-            final Number rightNumber = (Number) rightResult;
-            final BigDecimal rightDecimal = new BigDecimal(rightNumber.toString());
-            return determiner.compare(leftDecimal.compareTo(rightDecimal));
+            return compileCompareClause(booleanClause, LESS_EQUAL, IfCommentCompiledExpression.OPERATOR_LESS_EQUAL);
         } else {
-            throwIfCommentUnsupportedTypeComparisonException(leftResult, rightResult, booleanClause);
-            return false; // unreachable
-        }
-    }
-
-    protected void assertCompareType(Object leftResult, Object rightResult, String booleanClause) {
-        if (leftResult != null && rightResult != null && leftResult instanceof Date) {
-            if (!(rightResult instanceof Date)) {
-                throwIfCommentDifferentTypeComparisonException(leftResult, rightResult, booleanClause);
-            }
-        } else if (leftResult != null && rightResult != null && leftResult instanceof Number) {
-            if (!(rightResult instanceof Number)) {
-                throwIfCommentDifferentTypeComparisonException(leftResult, rightResult, booleanClause);
-            }
+            return compileStandAloneClause(booleanClause);
         }
     }
 
-    protected static interface ComparaDeterminer {
-        boolean compare(int compareResult);
-    }
-
-    protected boolean evaluateCompareClause(String booleanClause, String operand, OperandEvaluator evaluator) {
+    protected CompiledClause compileCompareClause(String booleanClause, String operand, int operator) {
         final String left = booleanClause.substring(0, booleanClause.indexOf(operand)).trim();
         final String right = booleanClause.substring(booleanClause.indexOf(operand) + operand.length()).trim();
-        final Object leftResult = evaluateComparePiece(left, null);
-        final Object rightResult = evaluateComparePiece(right, null);
-        return evaluator.evaluate(leftResult, rightResult);
+        final CompiledPiece leftPiece = compileComparePiece(left);
+        final CompiledPiece rightPiece = compileComparePiece(right);
+        return new CompiledClause(booleanClause, operator, leftPiece, rightPiece, false);
     }
 
-    protected static interface OperandEvaluator {
-        boolean evaluate(Object leftResult, Object rightRight);
-    }
-
-    protected Object evaluateComparePiece(String piece, Object leftResult) {
+    protected CompiledPiece compileComparePiece(String piece) {
         piece = piece.trim();
         if (!startsWithParameterBean(piece)) {
             if ("null".equalsIgnoreCase(piece)) {
-                return null;
+                return CompiledPiece.createLiteral(null);
             }
             if ("true".equalsIgnoreCase(piece)) {
-                return true;
+                return CompiledPiece.createLiteral(true);
             }
             if ("false".equalsIgnoreCase(piece)) {
-                return false;
+                return CompiledPiece.createLiteral(false);
             }
             final String quote = "'";
             final int qlen = "'".length();
             if (piece.startsWith(quote) && piece.endsWith(quote)) {
-                return piece.substring(qlen, piece.length() - qlen);
+                return CompiledPiece.createLiteral(piece.substring(qlen, piece.length() - qlen));
             }
             final String dateMark = "date ";
             if (piece.toLowerCase().startsWith(dateMark)) {
@@ -329,46 +258,155 @@ public class IfCommentEvaluator {
                 if (rearValue.startsWith(quote) && rearValue.endsWith(quote)) {
                     final String literal = rearValue.substring(qlen, rearValue.length() - qlen).trim();
                     try {
-                        return DfTypeUtil.toTimestamp(literal);
+                        return CompiledPiece.createLiteral(DfTypeUtil.toTimestamp(literal));
                     } catch (ParseTimestampException ignored) {}
                 }
             }
             try {
-                return DfTypeUtil.toBigDecimal(piece);
+                return CompiledPiece.createLiteral(DfTypeUtil.toBigDecimal(piece));
             } catch (NumberFormatException ignored) {}
         }
-        final List<String> propertyList = new ArrayList<String>();
-        String preProperty = setupPropertyList(piece, propertyList);
-        Object baseObject = findBaseObject(preProperty);
-        for (String property : propertyList) {
-            baseObject = processOneProperty(baseObject, preProperty, property);
-            preProperty = property;
-        }
-        return baseObject;
+        return compilePropertyPiece(piece);
     }
 
-    protected boolean evaluateStandAloneValue(String piece) {
-        piece = piece.trim();
+    protected CompiledClause compileStandAloneClause(String booleanClause) {
+        String piece = booleanClause.trim();
         boolean not = false;
         if (piece.startsWith(BOOLEAN_NOT)) {
             not = true;
             piece = piece.substring(BOOLEAN_NOT.length());
         }
-        if (!startsWithParameterBean(piece)) {
-            if ("true".equalsIgnoreCase(piece)) {
-                return not ? false : true;
+        final CompiledPiece compiledPiece;
+        if (!startsWithParameterBean(piece) && "true".equalsIgnoreCase(piece)) {
+            compiledPiece = CompiledPiece.createLiteral(true);
+        } else if (!startsWithParameterBean(piece) && "false".equalsIgnoreCase(piece)) {
+            compiledPiece = CompiledPiece.createLiteral(false);
+        } else {
+            compiledPiece = compilePropertyPiece(piece);
+        }
+        final int operator = IfCommentCompiledExpression.OPERATOR_STAND_ALONE;
+        return new CompiledClause(booleanClause, operator, compiledPiece, null, not);
+    }
+
+    protected CompiledPiece compilePropertyPiece(String piece) {
+        final List<String> propertyList = new ArrayList<String>();
+        final String firstName = setupPropertyList(piece, propertyList);
+        final PropertyStep[] propertySteps = new PropertyStep[propertyList.size()];
+        for (int i = 0; i < propertySteps.length; i++) {
+            propertySteps[i] = new PropertyStep(propertyList.get(i));
+        }
+        return CompiledPiece.createProperty(firstName, propertySteps);
+    }
+
+    // ===================================================================================
+    //                                                                            Evaluate
+    //                                                                            ========
+    protected boolean evaluateBooleanClause(CompiledClause clause) {
+        final int operator = clause.getOperator();
+        if (operator == IfCommentCompiledExpression.OPERATOR_STAND_ALONE) {
+            return evaluateStandAloneValue(clause);
+        }
+        final String booleanClause = clause.getBooleanClause();
+        Object leftResult = evaluateComparePiece(clause.getLeftPiece());
+        Object rightResult = evaluateComparePiece(clause.getRightPiece());
+        switch (operator) {
+        case IfCommentCompiledExpression.OPERATOR_EQUAL:
+            if (leftResult instanceof Number && rightResult instanceof Number) {
+                leftResult = new BigDecimal(leftResult.toString());
+                rightResult = new BigDecimal(rightResult.toString());
             }
-            if ("false".equalsIgnoreCase(piece)) {
-                return not ? true : false;
+            assertCompareType(leftResult, rightResult, booleanClause);
+            return leftResult != null ? leftResult.equals(rightResult) : rightResult == null;
+        case IfCommentCompiledExpression.OPERATOR_NOT_EQUAL:
+            if (leftResult instanceof Number && rightResult instanceof Number) {
+                leftResult = new BigDecimal(leftResult.toString());
+                rightResult = new BigDecimal(rightResult.toString());
+            }
+            assertCompareType(leftResult, rightResult, booleanClause);
+            return leftResult != null ? !leftResult.equals(rightResult) : rightResult != null;
+        case IfCommentCompiledExpression.OPERATOR_GREATER_THAN:
+            if (leftResult == null) {
+                return false;
+            }
+            if (rightResult == null) {
+                return true;
+            }
+            return compareLeftRight(leftResult, rightResult, booleanClause) > 0;
+        case IfCommentCompiledExpression.OPERATOR_LESS_THAN:
+            if (leftResult == null) {
+                return true;
+            }
+            if (rightResult == null) {
+                return false;
             }
+            return compareLeftRight(leftResult, rightResult, booleanClause) < 0;
+        case IfCommentCompiledExpression.OPERATOR_GREATER_EQUAL:
+            if (leftResult == null) {
+                return rightResult == null;
+            }
+            if (rightResult == null) {
+                return true;
+            }
+            return compareLeftRight(leftResult, rightResult, booleanClause) >= 0;
+        case IfCommentCompiledExpression.OPERATOR_LESS_EQUAL:
+            if (leftResult == null) {
+                return true;
+            }
+            if (rightResult == null) {
+                return false;
+            }
+            return compareLeftRight(leftResult, rightResult, booleanClause) <= 0;
+        default:
+            String msg = "Unknown operator: " + operator + " in " + booleanClause;
+            throw new IllegalStateException(msg);
         }
-        final List<String> propertyList = new ArrayList<String>();
-        String preProperty = setupPropertyList(piece, propertyList);
-        Object baseObject = findBaseObject(preProperty);
-        for (String property : propertyList) {
-            baseObject = processOneProperty(baseObject, preProperty, property);
-            preProperty = property;
+    }
+
+    protected int compareLeftRight(Object leftResult, Object rightResult, String booleanClause) {
+        assertCompareType(leftResult, rightResult, booleanClause);
+        if (leftResult instanceof Date) {
+            final Date leftDate = (Date) leftResult;
+            final Date rightDate = (Date) rightResult;
+            return leftDate.compareTo(rightDate);
+        } else if (leftResult instanceof Number) {
+            final Number leftNumber = (Number) leftResult;
+            final BigDecimal leftDecimal = new BigDecimal(leftNumber.toString());
+            final Number rightNumber = (Number) rightResult;
+            final BigDecimal rightDecimal = new BigDecimal(rightNumber.toString());
+            return leftDecimal.compareTo(rightDecimal);
+        } else {
+            throwIfCommentUnsupportedTypeComparisonException(leftResult, rightResult, booleanClause);
+            return 0; // unreachable
+        }
+    }
+
+    protected void assertCompareType(Object leftResult, Object rightResult, String booleanClause) {
+        if (leftResult != null && rightResult != null && leftResult instanceof Date) {
+            if (!(rightResult instanceof Date)) {
+                throwIfCommentDifferentTypeComparisonException(leftResult, rightResult, booleanClause);
+            }
+        } else if (leftResult != null && rightResult != null && leftResult instanceof Number) {
+            if (!(rightResult instanceof Number)) {
+                throwIfCommentDifferentTypeComparisonException(leftResult, rightResult, booleanClause);
+            }
         }
+    }
+
+    protected Object evaluateComparePiece(CompiledPiece piece) {
+        if (piece.isLiteral()) {
+            return piece.getLiteralValue();
+        }
+        return evaluatePropertyPiece(piece);
+    }
+
+    protected boolean evaluateStandAloneValue(CompiledClause clause) {
+        final CompiledPiece piece = clause.getLeftPiece();
+        final boolean not = clause.isBooleanNot();
+        if (piece.isLiteral()) {
+            final boolean result = (Boolean) piece.getLiteralValue();
+            return not ? !result : result;
+        }
+        final Object baseObject = evaluatePropertyPiece(piece);
         if (baseObject == null) {
             throwIfCommentNotBooleanResultException();
         }
@@ -376,6 +414,18 @@ public class IfCommentEvaluator {
         return not ? !result : result;
     }
 
+    protected Object evaluatePropertyPiece(CompiledPiece piece) {
+        final String firstName = piece.getFirstName();
+        assertFirstName(firstName);
+        String preProperty = firstName;
+        Object baseObject = findBaseObject(firstName);
+        for (PropertyStep step : piece.getPropertySteps()) {
+            baseObject = processOneProperty(baseObject, preProperty, step);
+            preProperty = step.getProperty();
+        }
+        return baseObject;
+    }
+
     protected boolean startsWithParameterBean(String piece) {
         return piece.startsWith("pmb");
     }
@@ -391,8 +441,7 @@ public class IfCommentEvaluator {
         for (int i = 0; i < splitList.size(); i++) {
             final String token = splitList.get(i);
             if (i == 0) {
-                assertFirstName(token);
-                firstName = token;
+                firstName = token; // asserted when evaluated (depends on parameters)
                 continue;
             }
             propertyList.add(token);
@@ -417,13 +466,13 @@ public class IfCommentEvaluator {
         NodeUtil.throwLoopCurrentVariableOutOfForCommentException(_expression, _specifiedSql);
     }
 
-    protected Object processOneProperty(Object baseObject, String firstProperty, String property) {
+    protected Object processOneProperty(Object baseObject, String firstProperty, PropertyStep step) {
         if (baseObject == null) {
             throwIfCommentNullPointerException(firstProperty);
         }
-        final DfBeanDesc beanDesc = DfBeanDescFactory.getBeanDesc(baseObject.getClass());
-        if (beanDesc.hasPropertyDesc(property)) { // main case
-            final DfPropertyDesc propertyDesc = beanDesc.getPropertyDesc(property);
+        final ResolvedAccessor accessor = findResolvedAccessor(baseObject, step);
+        final DfPropertyDesc propertyDesc = accessor.getPropertyDesc();
+        if (propertyDesc != null) { // main case
             try {
                 return propertyDesc.getValue(baseObject);
             } catch (DfBeanIllegalPropertyException e) {
@@ -431,19 +480,16 @@ public class IfCommentEvaluator {
                 return null; // unreachable
             }
         }
-        if (property.endsWith(METHOD_SUFFIX)) { // sub-main case
-            final String methodName = property.substring(0, property.length() - METHOD_SUFFIX.length());
+        final Method method = accessor.getMethod();
+        if (method != null) { // sub-main case
             try {
-                final Method method = beanDesc.getMethod(methodName);
                 return DfReflectionUtil.invoke(method, baseObject, (Object[]) null);
-            } catch (DfBeanMethodNotFoundException e) {
-                throwIfCommentNotFoundMethodException(baseObject, methodName);
-                return null; // unreachable
             } catch (ReflectionFailureException e) {
-                throwIfCommentMethodInvocationFailureException(baseObject, methodName, e);
+                throwIfCommentMethodInvocationFailureException(baseObject, step.getMethodName(), e);
                 return null; // unreachable
             }
         }
+        final String property = step.getProperty();
         if (MapParameterBean.class.isInstance(baseObject)) { // used by union-query internally
             // if the key does not exist, it does not process
             // (different specification with Map)
@@ -458,11 +504,11 @@ public class IfCommentEvaluator {
             return map.get(property);
         }
         if (List.class.isInstance(baseObject)) {
-            if (property.startsWith("get(") && property.endsWith(")")) {
+            final String exp = step.getListIndexExp();
+            if (exp != null) {
                 final List<?> list = (List<?>) baseObject;
-                final String exp = Srl.extractScopeFirst(property, "get(", ")").getContent();
                 try {
-                    final Integer index = DfTypeUtil.toInteger(exp);
+                    final Integer index = step.getListIndex() != null ? step.getListIndex() : DfTypeUtil.toInteger(exp);
                     return list.get(index);
                 } catch (NumberFormatException e) {
                     throwIfCommentListIndexNotNumberException(list, exp, e);
@@ -477,6 +523,39 @@ public class IfCommentEvaluator {
         return null; // unreachable
     }
 
+    /**
+     * Find the accessor resolved for the type of the base object. <br />
+     * It is resolved once per bean type and cached on the step, so basically no bean-desc search after warm-up.
+     * @param baseObject The base object of the property. (NotNull)
+     * @param step The step of the property. (NotNull)
+     * @return The resolved accessor. (NotNull)
+     */
+    protected ResolvedAccessor findResolvedAccessor(Object baseObject, PropertyStep step) {
+        final Class<?> beanType = baseObject.getClass();
+        final ResolvedAccessor cached = step.getResolvedAccessor();
+        if (cached != null && cached.getBeanType() == beanType) {
+            return cached;
+        }
+        final DfBeanDesc beanDesc = DfBeanDescFactory.getBeanDesc(beanType);
+        final String property = step.getProperty();
+        final ResolvedAccessor accessor;
+        if (beanDesc.hasPropertyDesc(property)) {
+            accessor = new ResolvedAccessor(beanType, beanDesc.getPropertyDesc(property), null);
+        } else if (step.getMethodName() != null) {
+            final String methodName = step.getMethodName();
+            try {
+                accessor = new ResolvedAccessor(beanType, null, beanDesc.getMethod(methodName));
+            } catch (DfBeanMethodNotFoundException e) {
+                throwIfCommentNotFoundMethodException(baseObject, methodName);
+                return null; // unreachable
+            }
+        } else {
+            accessor = new ResolvedAccessor(beanType, null, null); // e.g. map key, list index
+        }
+        step.setResolvedAccessor(accessor);
+        return accessor;
+    }
+
     // ===================================================================================
     //                                                                         Base Object
     //                                                                         ===========
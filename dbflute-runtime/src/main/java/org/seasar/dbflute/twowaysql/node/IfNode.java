@@ -35,6 +35,7 @@ public class IfNode extends ScopeNode implements LoopAcceptable, SqlConnectorAdj
     protected final String _expression;
     protected final String _specifiedSql;
     protected ElseNode _elseNode; // lazy setting
+    protected volatile IfCommentCompiledExpression _compiledExpression; // compiled when first evaluation
 
     // ===================================================================================
     //                                                                         Constructor
@@ -57,7 +58,7 @@ public class IfNode extends ScopeNode implements LoopAcceptable, SqlConnectorAdj
 
     protected void doAcceptByEvaluator(CommandContext ctx, LoopInfo loopInfo) {
         final IfCommentEvaluator evaluator = createIfCommentEvaluator(ctx, loopInfo);
-        final boolean result = evaluator.evaluate();
+        final boolean result = evaluator.evaluate(prepareCompiledExpression(evaluator));
         if (result) {
             processAcceptingChildren(ctx, loopInfo);
             ctx.setEnabled(true);
@@ -70,6 +71,15 @@ public class IfNode extends ScopeNode implements LoopAcceptable, SqlConnectorAdj
         }
     }
 
+    protected IfCommentCompiledExpression prepareCompiledExpression(IfCommentEvaluator evaluator) {
+        IfCommentCompiledExpression compiled = _compiledExpression;
+        if (compiled == null) { // no lock because compiled expressions are the same
+            compiled = evaluator.compile(); // also asserts the expression
+            _compiledExpression = compiled;
+        }
+        return compiled;
+    }
+
     protected IfCommentEvaluator createIfCommentEvaluator(final CommandContext ctx, final LoopInfo loopInfo) {
         return new IfCommentEvaluator(new ParameterFinder() {
             public Object find(String name) {
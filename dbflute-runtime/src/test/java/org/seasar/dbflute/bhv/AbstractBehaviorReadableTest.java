@@ -0,0 +1,519 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.bhv;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.seasar.dbflute.Entity;
+import org.seasar.dbflute.cbean.ConditionBean;
+import org.seasar.dbflute.cbean.EntityRowHandler;
+import org.seasar.dbflute.cbean.PagingBean;
+import org.seasar.dbflute.cbean.PagingHandler;
+import org.seasar.dbflute.cbean.PagingInvoker;
+import org.seasar.dbflute.cbean.PagingResultBean;
+import org.seasar.dbflute.cbean.sqlclause.SqlClause;
+import org.seasar.dbflute.cbean.sqlclause.SqlClauseDefault;
+import org.seasar.dbflute.exception.IllegalBehaviorStateException;
+import org.seasar.dbflute.exception.IllegalConditionBeanOperationException;
+import org.seasar.dbflute.mock.MockBehavior;
+import org.seasar.dbflute.mock.MockBehaviorSelector;
+import org.seasar.dbflute.mock.MockConditionBean;
+import org.seasar.dbflute.mock.MockEntity;
+import org.seasar.dbflute.unit.core.PlainTestCase;
+
+/**
+ * @author jflute
+ * @since 1.0.5N (2014/12/21 Sunday)
+ */
+public class AbstractBehaviorReadableTest extends PlainTestCase {
+
+    // ===================================================================================
+    //                                                                        Split Select
+    //                                                                        ============
+    public void test_xselectLoadReferrerList_split_serial() throws Exception {
+        // ## Arrange ##
+        ChunkBehavior bhv = new ChunkBehavior();
+        LoadReferrerOption<MockConditionBean, MockEntity> option = new LoadReferrerOption<MockConditionBean, MockEntity>();
+        option.enableSplitSelect(3);
+
+        // ## Act ##
+        List<MockEntity> referrerList = bhv.xselectLoadReferrerList(createKeySet(10), option, new MemberCallback());
+
+        // ## Assert ##
+        assertEquals(newArrayList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), extractMemberIdList(referrerList));
+        assertEquals(4, bhv._chunkCount.get());
+    }
+
+    public void test_xselectLoadReferrerList_split_parallel_mergeOrder() throws Exception {
+        // ## Arrange ##
+        ChunkBehavior bhv = new ChunkBehavior();
+        bhv._sleepFirstChunk = true; // first chunk finishes last
+        LoadReferrerOption<MockConditionBean, MockEntity> option = new LoadReferrerOption<MockConditionBean, MockEntity>();
+        option.enableParallelSplitSelect(2, 3);
+
+        // ## Act ##
+        List<MockEntity> referrerList = bhv.xselectLoadReferrerList(createKeySet(11), option, new MemberCallback());
+
+        // ## Assert ##
+        assertEquals(newArrayList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11), extractMemberIdList(referrerList));
+        assertEquals(6, bhv._chunkCount.get());
+        assertTrue(bhv._maxRunning.get() <= 3);
+        for (String threadName : bhv._threadNameSet) {
+            assertTrue(threadName, threadName.startsWith("dbflute-loadReferrer-"));
+        }
+    }
+
+    public void test_xselectLoadReferrerList_split_parallel_specifiedExecutor() throws Exception {
+        // ## Arrange ##
+        ChunkBehavior bhv = new ChunkBehavior();
+        ExecutorService executor = Executors.newFixedThreadPool(2, new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "app-pool");
+            }
+        });
+        LoadReferrerOption<MockConditionBean, MockEntity> option = new LoadReferrerOption<MockConditionBean, MockEntity>();
+        option.enableParallelSplitSelect(2, 4).parallelExecutor(executor);
+
+        // ## Act ##
+        try {
+            List<MockEntity> referrerList = bhv.xselectLoadReferrerList(createKeySet(8), option, new MemberCallback());
+
+            // ## Assert ##
+            assertEquals(newArrayList(1, 2, 3, 4, 5, 6, 7, 8), extractMemberIdList(referrerList));
+            assertEquals(newLinkedHashSet("app-pool"), bhv._threadNameSet);
+            assertFalse(executor.isShutdown()); // application-managed
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void test_xselectLoadReferrerList_split_parallel_failure() throws Exception {
+        // ## Arrange ##
+        ChunkBehavior bhv = new ChunkBehavior();
+        bhv._failureKey = 5;
+        LoadReferrerOption<MockConditionBean, MockEntity> option = new LoadReferrerOption<MockConditionBean, MockEntity>();
+        option.enableParallelSplitSelect(2, 2);
+
+        // ## Act ##
+        try {
+            bhv.xselectLoadReferrerList(createKeySet(20), option, new MemberCallback());
+
+            // ## Assert ##
+            fail();
+        } catch (IllegalStateException e) {
+            log(e.getMessage());
+            assertEquals("Failed chunk: 5", e.getMessage());
+        }
+        assertTrue(bhv._chunkCount.get() < 10); // remaining chunks are not selected
+        assertEquals(0, bhv._running.get()); // not left running
+    }
+
+    // ===================================================================================
+    //                                                                    Streaming Select
+    //                                                                    ================
+    public void test_helpLoadReferrerInternally_streaming_group() throws Exception {
+        // ## Arrange ##
+        StreamBehavior bhv = new StreamBehavior();
+        StreamCallback callback = new StreamCallback(newArrayList(1, 1, 3, 3, 3)); // ordered by FK
+        List<MockEntity> localList = newArrayList(createMember(1), createMember(2), createMember(3));
+        final List<String> groupList = new ArrayList<String>();
+        LoadReferrerOption<MockConditionBean, MockEntity> option = new LoadReferrerOption<MockConditionBean, MockEntity>();
+        option.setReferrerGroupHandler(new ReferrerGroupHandler<MockEntity, MockEntity>() {
+            public void handle(MockEntity localEntity, List<MockEntity> referrerList) { // typed local entity
+                groupList.add(localEntity.getMemberId() + ":" + referrerList.size());
+            }
+        });
+
+        // ## Act ##
+        NestedReferrerListGateway<MockEntity> gateway = bhv.helpLoadReferrerInternally(localList, option, callback);
+
+        // ## Assert ##
+        assertEquals(newArrayList("1:2", "3:3", "2:0"), groupList); // no referrer at last
+        assertEquals(1, callback._cursorCount);
+        try {
+            gateway.withNestedReferrer(new ReferrerListHandler<MockEntity>() {
+                public void handle(List<MockEntity> referrerList) {
+                    fail();
+                }
+            });
+            fail();
+        } catch (IllegalBehaviorStateException e) {
+            log(e.getMessage());
+            assertContains(e.getMessage(), "memberList");
+        }
+    }
+
+    public void test_helpLoadReferrerInternally_streaming_notOrdered() throws Exception {
+        // ## Arrange ##
+        StreamBehavior bhv = new StreamBehavior();
+        StreamCallback callback = new StreamCallback(newArrayList(1, 3, 1));
+        List<MockEntity> localList = newArrayList(createMember(1), createMember(3));
+        LoadReferrerOption<MockConditionBean, MockEntity> option = new LoadReferrerOption<MockConditionBean, MockEntity>();
+        option.setReferrerGroupHandler(new ReferrerGroupHandler<MockEntity, MockEntity>() {
+            public void handle(MockEntity localEntity, List<MockEntity> referrerList) {
+            }
+        });
+
+        // ## Act ##
+        try {
+            bhv.helpLoadReferrerInternally(localList, option, callback);
+
+            // ## Assert ##
+            fail();
+        } catch (IllegalStateException e) {
+            log(e.getMessage());
+        }
+    }
+
+    public void test_helpLoadReferrerInternally_streaming_emptyLocal() throws Exception {
+        // ## Arrange ##
+        StreamBehavior bhv = new StreamBehavior();
+        StreamCallback callback = new StreamCallback(new ArrayList<Integer>());
+        LoadReferrerOption<MockConditionBean, MockEntity> option = new LoadReferrerOption<MockConditionBean, MockEntity>();
+        option.setReferrerGroupHandler(new ReferrerGroupHandler<MockEntity, MockEntity>() {
+            public void handle(MockEntity localEntity, List<MockEntity> referrerList) {
+                fail();
+            }
+        });
+
+        // ## Act ##
+        NestedReferrerListGateway<MockEntity> gateway = bhv.helpLoadReferrerInternally(new ArrayList<MockEntity>(), option,
+                callback);
+
+        // ## Assert ##
+        assertEquals(0, callback._cursorCount);
+        try {
+            gateway.withNestedReferrer(new ReferrerListHandler<MockEntity>() {
+                public void handle(List<MockEntity> referrerList) {
+                }
+            });
+            fail();
+        } catch (IllegalBehaviorStateException e) {
+            log(e.getMessage());
+        }
+    }
+
+    // ===================================================================================
+    //                                                                         Page Select
+    //                                                                         ===========
+    public void test_doSelectPage_setupper_concurrentCount() throws Exception {
+        // ## Arrange ##
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        PageBehavior bhv = new PageBehavior();
+        bhv._countExecutor = executor;
+        final List<MockConditionBean> setupList = new ArrayList<MockConditionBean>();
+
+        // ## Act ##
+        PagingResultBean<MockEntity> page;
+        try {
+            page = bhv.doSelectPage(new ConditionBeanSetupper<MockConditionBean>() {
+                public void setup(MockConditionBean cb) {
+                    setupList.add(cb);
+                }
+            }, MockEntity.class);
+        } finally {
+            executor.shutdown();
+        }
+
+        // ## Assert ##
+        assertEquals(3, page.getAllRecordCount());
+        assertEquals(2, setupList.size());
+        assertNotSame(setupList.get(0), setupList.get(1));
+        assertSame(setupList.get(0), bhv._pagingCB); // page by first bean
+        assertSame(setupList.get(1), bhv._countCB); // count by own bean
+        assertNotSame(Thread.currentThread(), bhv._countThread);
+    }
+
+    public void test_doSelectPage_setupper_noExecutor() throws Exception {
+        // ## Arrange ##
+        PageBehavior bhv = new PageBehavior();
+        final List<MockConditionBean> setupList = new ArrayList<MockConditionBean>();
+
+        // ## Act ##
+        PagingResultBean<MockEntity> page = bhv.doSelectPage(new ConditionBeanSetupper<MockConditionBean>() {
+            public void setup(MockConditionBean cb) {
+                setupList.add(cb);
+            }
+        }, MockEntity.class);
+
+        // ## Assert ##
+        assertEquals(3, page.getAllRecordCount());
+        assertEquals(1, setupList.size()); // sequential by one bean
+        assertSame(setupList.get(0), bhv._pagingCB);
+        assertSame(setupList.get(0), bhv._countCB);
+        assertSame(Thread.currentThread(), bhv._countThread);
+    }
+
+    public void test_doSelectPage_keysetPaging() throws Exception {
+        // ## Arrange ##
+        PageBehavior bhv = new PageBehavior();
+        PagingMockCB cb = new PagingMockCB() {
+            @Override
+            public SqlClause getSqlClause() {
+                return new SqlClauseDefault("MEMBER") {
+                    @Override
+                    public boolean isKeysetPagingEffective() {
+                        return true;
+                    }
+                };
+            }
+        };
+
+        // ## Act ##
+        try {
+            bhv.doSelectPage(cb, MockEntity.class);
+            // ## Assert ##
+            fail();
+        } catch (IllegalConditionBeanOperationException e) {
+            // OK
+            log(e.getMessage());
+        }
+        assertNull(bhv._pagingCB);
+        assertNull(bhv._countCB);
+    }
+
+    // ===================================================================================
+    //                                                                         Test Helper
+    //                                                                         ===========
+    protected Set<Integer> createKeySet(int size) {
+        Set<Integer> keySet = new LinkedHashSet<Integer>();
+        for (int i = 1; i <= size; i++) {
+            keySet.add(i);
+        }
+        return keySet;
+    }
+
+    protected List<Integer> extractMemberIdList(List<MockEntity> entityList) {
+        List<Integer> memberIdList = new ArrayList<Integer>();
+        for (MockEntity entity : entityList) {
+            memberIdList.add(entity.getMemberId());
+        }
+        return memberIdList;
+    }
+
+    protected MockEntity createMember(Integer memberId) {
+        MockEntity entity = new MockEntity();
+        entity.setMemberId(memberId);
+        return entity;
+    }
+
+    protected static class PageBehavior extends MockBehavior {
+
+        protected Executor _countExecutor;
+        protected volatile MockConditionBean _pagingCB;
+        protected volatile MockConditionBean _countCB;
+        protected volatile Thread _countThread;
+
+        @Override
+        public MockConditionBean newConditionBean() {
+            return new PagingMockCB();
+        }
+
+        @Override
+        protected Executor getConcurrentPagingCountExecutor() {
+            return _countExecutor;
+        }
+
+        @Override
+        protected <RESULT extends MockEntity> PagingHandler<RESULT> createPagingHandler(final MockConditionBean cb,
+                Class<? extends RESULT> entityType) {
+            return new PagingHandler<RESULT>() {
+                public PagingBean getPagingBean() {
+                    return cb;
+                }
+
+                public int count() {
+                    _countCB = cb;
+                    _countThread = Thread.currentThread();
+                    return 3;
+                }
+
+                public List<RESULT> paging() {
+                    _pagingCB = cb;
+                    return new ArrayList<RESULT>();
+                }
+            };
+        }
+
+        @Override
+        protected <RESULT extends MockEntity> PagingInvoker<RESULT> createPagingInvoker(MockConditionBean cb) {
+            return new PagingInvoker<RESULT>(getTableDbName());
+        }
+    }
+
+    protected static class PagingMockCB extends MockConditionBean {
+
+        protected final SqlClause _sqlClause = new SqlClauseDefault("MEMBER");
+
+        @Override
+        public SqlClause getSqlClause() {
+            return _sqlClause;
+        }
+
+        @Override
+        public boolean isFetchScopeEffective() {
+            return true;
+        }
+
+        @Override
+        public int getFetchSize() {
+            return 20;
+        }
+
+        @Override
+        public int getFetchPageNumber() {
+            return 1;
+        }
+    }
+
+    protected static class StreamBehavior extends MockBehavior {
+
+        public StreamBehavior() {
+            setBehaviorSelector(new MockBehaviorSelector());
+        }
+
+        @Override
+        protected <LOCAL_ENTITY extends Entity, KEY, REFERRER_CB extends ConditionBean, REFERRER_ENTITY extends Entity> // generic
+        void xprepareLoadReferrerCB(REFERRER_CB cb, Collection<KEY> pkList,
+                LoadReferrerOption<REFERRER_CB, REFERRER_ENTITY> loadReferrerOption,
+                InternalLoadReferrerCallback<LOCAL_ENTITY, KEY, REFERRER_CB, REFERRER_ENTITY> callback) {
+            // no condition-bean work
+        }
+    }
+
+    protected static class StreamCallback extends MemberCallback {
+
+        protected final List<Integer> _fkList;
+        protected int _cursorCount;
+
+        public StreamCallback(List<Integer> fkList) {
+            _fkList = fkList;
+        }
+
+        @Override
+        public void cusRfLs(MockConditionBean cb, EntityRowHandler<MockEntity> handler) {
+            ++_cursorCount;
+            for (Integer fk : _fkList) { // as selected rows
+                MockEntity referrer = new MockEntity();
+                referrer.setMemberId(fk);
+                handler.handle(referrer);
+            }
+        }
+    }
+
+    protected static class ChunkBehavior extends MockBehavior {
+
+        protected final AtomicInteger _chunkCount = new AtomicInteger();
+        protected final AtomicInteger _running = new AtomicInteger();
+        protected final AtomicInteger _maxRunning = new AtomicInteger();
+        protected final Set<String> _threadNameSet = new LinkedHashSet<String>();
+        protected boolean _sleepFirstChunk;
+        protected Integer _failureKey;
+
+        @SuppressWarnings("unchecked")
+        @Override
+        protected <LOCAL_ENTITY extends Entity, KEY, REFERRER_CB extends ConditionBean, REFERRER_ENTITY extends Entity> // generic
+        List<REFERRER_ENTITY> xselectLoadReferrerChunk(REFERRER_CB cb, Collection<KEY> pkList, LoadReferrerOption<REFERRER_CB, REFERRER_ENTITY> loadReferrerOption,
+                InternalLoadReferrerCallback<LOCAL_ENTITY, KEY, REFERRER_CB, REFERRER_ENTITY> callback) {
+            _chunkCount.incrementAndGet();
+            final int running = _running.incrementAndGet();
+            synchronized (this) {
+                _threadNameSet.add(Thread.currentThread().getName());
+                if (_maxRunning.get() < running) {
+                    _maxRunning.set(running);
+                }
+            }
+            try {
+                if (_sleepFirstChunk && pkList.contains(1)) {
+                    sleep(200);
+                }
+                final List<MockEntity> referrerList = new ArrayList<MockEntity>();
+                for (KEY key : pkList) {
+                    if (key.equals(_failureKey)) {
+                        throw new IllegalStateException("Failed chunk: " + key);
+                    }
+                    final MockEntity entity = new MockEntity();
+                    entity.setMemberId((Integer) key);
+                    referrerList.add(entity);
+                }
+                sleep(10);
+                return (List<REFERRER_ENTITY>) referrerList;
+            } finally {
+                _running.decrementAndGet();
+            }
+        }
+
+        protected void sleep(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    protected static class MemberCallback implements
+            AbstractBehaviorReadable.InternalLoadReferrerCallback<MockEntity, Integer, MockConditionBean, MockEntity> {
+
+        public Integer getPKVal(MockEntity entity) {
+            return entity.getMemberId();
+        }
+
+        public void setRfLs(MockEntity entity, List<MockEntity> referrerList) {
+        }
+
+        public MockConditionBean newMyCB() {
+            return new MockConditionBean();
+        }
+
+        public void qyFKIn(MockConditionBean cb, Collection<Integer> pkList) {
+        }
+
+        public void qyOdFKAsc(MockConditionBean cb) {
+        }
+
+        public void spFKCol(MockConditionBean cb) {
+        }
+
+        public List<MockEntity> selRfLs(MockConditionBean cb) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void cusRfLs(MockConditionBean cb, EntityRowHandler<MockEntity> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        public Integer getFKVal(MockEntity entity) {
+            return entity.getMemberId();
+        }
+
+        public void setlcEt(MockEntity referrerEntity, MockEntity localEntity) {
+        }
+
+        public String getRfPrNm() {
+            return "memberList";
+        }
+    }
+}
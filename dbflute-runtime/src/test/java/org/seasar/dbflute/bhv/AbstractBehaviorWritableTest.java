@@ -0,0 +1,340 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.bhv;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.seasar.dbflute.Entity;
+import org.seasar.dbflute.cbean.ConditionBean;
+import org.seasar.dbflute.cbean.SpecifyQuery;
+import org.seasar.dbflute.dbmeta.DBMeta;
+import org.seasar.dbflute.dbmeta.info.ColumnInfo;
+import org.seasar.dbflute.dbmeta.info.UniqueInfo;
+import org.seasar.dbflute.exception.BatchEntityAlreadyUpdatedException;
+import org.seasar.dbflute.mock.MockBehavior;
+import org.seasar.dbflute.mock.MockColumnInfo;
+import org.seasar.dbflute.mock.MockConditionBean;
+import org.seasar.dbflute.mock.MockDBMeta;
+import org.seasar.dbflute.mock.MockEntity;
+import org.seasar.dbflute.unit.core.PlainTestCase;
+
+/**
+ * @author jflute
+ * @since 1.0.5N (2014/12/21 Sunday)
+ */
+public class AbstractBehaviorWritableTest extends PlainTestCase {
+
+    // ===================================================================================
+    //                                                              Batch Insert or Update
+    //                                                              ======================
+    public void test_doBatchInsertOrUpdate_groupedByModifiedProperties() throws Exception {
+        // ## Arrange ##
+        WritableBehavior bhv = new WritableBehavior();
+        List<MockEntity> entityList = new ArrayList<MockEntity>();
+        entityList.add(createMember(1, "MEMBER_NAME"));
+        entityList.add(createMember(2, "MEMBER_NAME", "BIRTHDATE"));
+        entityList.add(createMember(null, "MEMBER_NAME")); // no primary key so one by one
+        entityList.add(createMember(4, "MEMBER_NAME"));
+        InsertOption<MockConditionBean> option = new InsertOption<MockConditionBean>();
+
+        // ## Act ##
+        int[] resultArray = bhv.doBatchInsertOrUpdate(entityList, option, null);
+
+        // ## Assert ##
+        assertEquals(4, resultArray.length);
+        assertEquals(10, resultArray[0]);
+        assertEquals(20, resultArray[1]);
+        assertEquals(1, resultArray[2]);
+        assertEquals(40, resultArray[3]);
+        assertEquals(2, bhv._upsertedGroupList.size());
+        assertEquals(newArrayList(entityList.get(0), entityList.get(3)), bhv._upsertedGroupList.get(0));
+        assertEquals(newArrayList(entityList.get(1)), bhv._upsertedGroupList.get(1));
+        assertEquals(newHashSet("MEMBER_NAME"), bhv._upsertedColumnList.get(0)); // no birthdate (not null-cleared)
+        assertEquals(newHashSet("MEMBER_NAME", "BIRTHDATE"), bhv._upsertedColumnList.get(1));
+        assertEquals(newArrayList(entityList.get(2)), bhv._oneByOneList);
+        assertFalse(option.hasSpecifiedInsertColumn()); // not to leave the last group's columns
+    }
+
+    public void test_doBatchInsertOrUpdate_specifiedColumn() throws Exception {
+        // ## Arrange ##
+        WritableBehavior bhv = new WritableBehavior();
+        List<MockEntity> entityList = new ArrayList<MockEntity>();
+        entityList.add(createMember(1, "MEMBER_NAME"));
+        entityList.add(createMember(2, "MEMBER_NAME", "BIRTHDATE"));
+        InsertOption<MockConditionBean> option = new InsertOption<MockConditionBean>();
+        option.specify(new SpecifyQuery<MockConditionBean>() {
+            public void specify(MockConditionBean cb) {
+            }
+        });
+
+        // ## Act ##
+        int[] resultArray = bhv.doBatchInsertOrUpdate(entityList, option, null);
+
+        // ## Assert ##
+        assertEquals(10, resultArray[0]);
+        assertEquals(20, resultArray[1]);
+        assertEquals(1, bhv._upsertedGroupList.size()); // same columns by application
+        assertEquals(entityList, bhv._upsertedGroupList.get(0));
+        assertTrue(option.hasSpecifiedInsertColumn());
+    }
+
+    public void test_doBatchInsertOrUpdate_filteredInGroup() throws Exception {
+        // ## Arrange ##
+        WritableBehavior bhv = new WritableBehavior() {
+            @Override
+            protected boolean processBeforeInsert(Entity entity, InsertOption<? extends ConditionBean> option) {
+                return !((MockEntity) entity).getMemberId().equals(2); // filtered
+            }
+        };
+        List<MockEntity> entityList = new ArrayList<MockEntity>();
+        entityList.add(createMember(1, "MEMBER_NAME", "BIRTHDATE"));
+        entityList.add(createMember(2, "MEMBER_NAME"));
+        entityList.add(createMember(3, "MEMBER_NAME"));
+
+        // ## Act ##
+        int[] resultArray = bhv.doBatchInsertOrUpdate(entityList, null, null);
+
+        // ## Assert ##
+        assertEquals(10, resultArray[0]);
+        assertEquals(0, resultArray[1]); // not executed
+        assertEquals(30, resultArray[2]);
+    }
+
+    // ===================================================================================
+    //                                                               Batch Update Grouping
+    //                                                               =====================
+    public void test_doBatchUpdate_groupedByModifiedProperties() throws Exception {
+        // ## Arrange ##
+        WritableBehavior bhv = new WritableBehavior();
+        List<MockEntity> entityList = new ArrayList<MockEntity>();
+        entityList.add(createMember(1, "MEMBER_NAME"));
+        entityList.add(createMember(2, "BIRTHDATE"));
+        entityList.add(createMember(3, "MEMBER_NAME"));
+        entityList.add(createMember(4, "MEMBER_NAME", "BIRTHDATE"));
+        UpdateOption<MockConditionBean> option = new UpdateOption<MockConditionBean>();
+        option.groupBatchUpdateByModifiedProperties();
+
+        // ## Act ##
+        int[] resultArray = bhv.doBatchUpdate(entityList, option);
+
+        // ## Assert ##
+        assertEquals(4, resultArray.length);
+        assertEquals(10, resultArray[0]); // same order as the list across groups
+        assertEquals(20, resultArray[1]);
+        assertEquals(30, resultArray[2]);
+        assertEquals(40, resultArray[3]);
+        assertEquals(3, bhv._updatedGroupList.size());
+        assertEquals(newArrayList(entityList.get(0), entityList.get(2)), bhv._updatedGroupList.get(0));
+        assertEquals(newArrayList(entityList.get(1)), bhv._updatedGroupList.get(1));
+        assertEquals(newArrayList(entityList.get(3)), bhv._updatedGroupList.get(2));
+        assertEquals(newHashSet("MEMBER_NAME"), bhv._updatedColumnList.get(0));
+        assertEquals(newHashSet("BIRTHDATE"), bhv._updatedColumnList.get(1));
+        assertEquals(newHashSet("MEMBER_NAME", "BIRTHDATE"), bhv._updatedColumnList.get(2));
+        assertFalse(option.hasSpecifiedUpdateColumn()); // not to leave the last group's columns
+    }
+
+    public void test_doBatchUpdate_groupedByGeneratorOption() throws Exception {
+        // ## Arrange ##
+        WritableBehavior bhv = new WritableBehavior() {
+            @Override
+            protected boolean isBatchUpdateColumnModifiedPropertiesGrouped() {
+                return true;
+            }
+        };
+        List<MockEntity> entityList = new ArrayList<MockEntity>();
+        entityList.add(createMember(1, "MEMBER_NAME"));
+        entityList.add(createMember(2, "BIRTHDATE"));
+        UpdateOption<MockConditionBean> option = new UpdateOption<MockConditionBean>();
+
+        // ## Act ##
+        int[] resultArray = bhv.doBatchUpdate(entityList, option);
+
+        // ## Assert ##
+        assertEquals(10, resultArray[0]);
+        assertEquals(20, resultArray[1]);
+        assertEquals(2, bhv._updatedGroupList.size());
+        assertFalse(option.isBatchUpdateGroupedByModifiedProperties()); // application's option is not changed
+    }
+
+    public void test_doBatchUpdate_optimisticLockFailureInLaterGroup() throws Exception {
+        // ## Arrange ##
+        WritableBehavior bhv = new WritableBehavior();
+        bhv._failureGroupIndex = 1;
+        List<MockEntity> entityList = new ArrayList<MockEntity>();
+        entityList.add(createMember(1, "MEMBER_NAME"));
+        entityList.add(createMember(2, "BIRTHDATE"));
+        entityList.add(createMember(3, "MEMBER_NAME", "BIRTHDATE"));
+        UpdateOption<MockConditionBean> option = new UpdateOption<MockConditionBean>();
+        option.groupBatchUpdateByModifiedProperties();
+
+        // ## Act ##
+        try {
+            bhv.doBatchUpdate(entityList, option);
+            // ## Assert ##
+            fail();
+        } catch (BatchEntityAlreadyUpdatedException e) {
+            // OK
+            log(e.getMessage());
+            assertEquals(entityList.get(1), e.getBean());
+        }
+        assertEquals(2, bhv._updatedGroupList.size()); // first group executed, third not
+        assertEquals(newArrayList(entityList.get(0)), bhv._updatedGroupList.get(0));
+        assertFalse(option.hasSpecifiedUpdateColumn());
+    }
+
+    // ===================================================================================
+    //                                                                         Test Helper
+    //                                                                         ===========
+    protected MockEntity createMember(Integer memberId, String... modifiedProps) {
+        WritableEntity entity = new WritableEntity();
+        entity.setMemberId(memberId);
+        for (String prop : modifiedProps) {
+            entity._modifiedSet.add(prop);
+        }
+        return entity;
+    }
+
+    protected static class WritableBehavior extends MockBehavior {
+
+        protected final DBMeta _dbmeta = new WritableDBMeta();
+        protected final List<List<Entity>> _upsertedGroupList = new ArrayList<List<Entity>>();
+        protected final List<Set<String>> _upsertedColumnList = new ArrayList<Set<String>>();
+        protected final List<Entity> _oneByOneList = new ArrayList<Entity>();
+        protected final List<List<Entity>> _updatedGroupList = new ArrayList<List<Entity>>();
+        protected final List<Set<String>> _updatedColumnList = new ArrayList<Set<String>>();
+        protected int _failureGroupIndex = -1;
+
+        @Override
+        public DBMeta getDBMeta() {
+            return _dbmeta;
+        }
+
+        @Override
+        protected boolean isBatchInsertOrUpdateNativeAvailable(InsertOption<MockConditionBean> option) {
+            return true;
+        }
+
+        @Override
+        protected void helpInsertOrUpdateOneByOne(MockEntity entity, InsertOption<MockConditionBean> insertOption,
+                UpdateOption<MockConditionBean> updateOption) {
+            _oneByOneList.add(entity);
+        }
+
+        @Override
+        protected void prepareInsertOption(InsertOption<MockConditionBean> option) {
+            // no resolution of specified columns because of no real condition-bean
+        }
+
+        @Override
+        protected void frameworkFilterEntityOfInsert(Entity entity, InsertOption<? extends ConditionBean> option) {
+            // no sequence and common columns
+        }
+
+        @Override
+        protected void prepareUpdateOption(UpdateOption<MockConditionBean> option) {
+            // no resolution of specified columns because of no real condition-bean
+        }
+
+        @Override
+        protected void frameworkFilterEntityOfUpdate(Entity entity, UpdateOption<? extends ConditionBean> option) {
+            // no common columns
+        }
+
+        @Override
+        protected int[] delegateBatchUpdateGroup(List<? extends Entity> processedList,
+                UpdateOption<? extends ConditionBean> option, boolean nonstrict) {
+            final int groupIndex = _updatedGroupList.size();
+            _updatedGroupList.add(new ArrayList<Entity>(processedList));
+            _updatedColumnList.add(option.xgatherUpdateColumnModifiedProperties(processedList, processedList.get(0)));
+            if (groupIndex == _failureGroupIndex) { // e.g. version no is already updated
+                throw new BatchEntityAlreadyUpdatedException(processedList.get(0), 0, 0);
+            }
+            return createResultArray(processedList);
+        }
+
+        @Override
+        protected int[] delegateBatchInsertOrUpdate(List<? extends Entity> processedList,
+                InsertOption<? extends ConditionBean> option) {
+            _upsertedGroupList.add(new ArrayList<Entity>(processedList));
+            _upsertedColumnList.add(option.xgatherInsertColumnModifiedProperties(processedList, processedList.get(0)));
+            return createResultArray(processedList);
+        }
+
+        protected int[] createResultArray(List<? extends Entity> processedList) {
+            final int[] resultArray = new int[processedList.size()];
+            for (int i = 0; i < processedList.size(); i++) {
+                resultArray[i] = ((MockEntity) processedList.get(i)).getMemberId() * 10;
+            }
+            return resultArray;
+        }
+    }
+
+    protected static class WritableEntity extends MockEntity {
+
+        protected final Set<String> _modifiedSet = new LinkedHashSet<String>();
+
+        @Override
+        public DBMeta getDBMeta() {
+            return WritableDBMeta.INSTANCE;
+        }
+
+        @Override
+        public Set<String> mymodifiedProperties() {
+            return _modifiedSet;
+        }
+    }
+
+    protected static class WritableDBMeta extends MockDBMeta {
+
+        protected static final WritableDBMeta INSTANCE = new WritableDBMeta();
+
+        protected final List<ColumnInfo> _columnInfoList = new ArrayList<ColumnInfo>();
+        {
+            _columnInfoList.add(new MockColumnInfo(this, "MEMBER_ID", true));
+            _columnInfoList.add(new MockColumnInfo(this, "MEMBER_NAME", false));
+            _columnInfoList.add(new MockColumnInfo(this, "BIRTHDATE", false, false));
+        }
+
+        @Override
+        public String getTableDbName() {
+            return "MEMBER";
+        }
+
+        @Override
+        public List<ColumnInfo> getColumnInfoList() {
+            return _columnInfoList;
+        }
+
+        @Override
+        public boolean hasPrimaryKey() {
+            return true;
+        }
+
+        @Override
+        public UniqueInfo getPrimaryUniqueInfo() {
+            return new UniqueInfo(this, newArrayList(_columnInfoList.get(0)), true);
+        }
+
+        protected static <ELEMENT> List<ELEMENT> newArrayList(ELEMENT element) {
+            final List<ELEMENT> list = new ArrayList<ELEMENT>();
+            list.add(element);
+            return list;
+        }
+    }
+}
@@ -413,18 +413,121 @@ public class BehaviorCommandInvokerTest extends PlainTestCase {
         };
     }
 
-    protected static class ExecutionCreationCount {
+    protected static class ExecutionCreationCount { // creation of other keys runs concurrently
         protected int _count;
 
-        public void increment() {
+        public synchronized void increment() {
             ++_count;
         }
 
-        public int count() {
+        public synchronized int count() {
             return _count;
         }
     }
 
+    public void test_getOrCreateSqlExecution_statistics() {
+        // ## Arrange ##
+        BehaviorCommandInvoker invoker = new BehaviorCommandInvoker() {
+            @Override
+            protected void toBeDisposable() {
+            }
+        };
+        SqlExecutionCreator creator = createMockExecutionCreator();
+
+        // ## Act ##
+        SqlExecution first = invoker.getOrCreateSqlExecution("foo", creator);
+        SqlExecution second = invoker.getSqlExecution("foo");
+        invoker.getSqlExecution("foo");
+        invoker.getOrCreateSqlExecution("bar", creator);
+
+        // ## Assert ##
+        assertSame(first, second);
+        assertNull(invoker.getSqlExecution("qux"));
+        assertEquals(2, invoker.getExecutionCacheSize());
+        assertEquals(2L, invoker.getExecutionCacheHitCount());
+        assertEquals(2L, invoker.getExecutionCacheMissCount());
+        assertEquals(0L, invoker.getExecutionCacheEvictionCount());
+        assertTrue(invoker.getExecutionCreationTimeMap().containsKey("foo"));
+        assertTrue(invoker.getExecutionCreationTimeMap().containsKey("bar"));
+    }
+
+    public void test_getOrCreateSqlExecution_evictLeastRecentlyUsed() {
+        // ## Arrange ##
+        BehaviorCommandInvoker invoker = new BehaviorCommandInvoker() {
+            @Override
+            protected void toBeDisposable() {
+            }
+        };
+        invoker.setExecutionCacheMaxSize(2);
+        SqlExecutionCreator creator = createMockExecutionCreator();
+        invoker.getOrCreateSqlExecution("foo", creator);
+        invoker.getOrCreateSqlExecution("bar", creator);
+        invoker.getSqlExecution("foo"); // bar becomes oldest
+
+        // ## Act ##
+        invoker.getOrCreateSqlExecution("qux", creator);
+
+        // ## Assert ##
+        assertEquals(2, invoker.getExecutionCacheSize());
+        assertNotNull(invoker.getSqlExecution("foo"));
+        assertNull(invoker.getSqlExecution("bar"));
+        assertNotNull(invoker.getSqlExecution("qux"));
+        assertEquals(1L, invoker.getExecutionCacheEvictionCount());
+    }
+
+    public void test_getOrCreateSqlExecution_failureRetry() {
+        // ## Arrange ##
+        BehaviorCommandInvoker invoker = new BehaviorCommandInvoker() {
+            @Override
+            protected void toBeDisposable() {
+            }
+        };
+        SqlExecutionCreator failure = new SqlExecutionCreator() {
+            public SqlExecution createSqlExecution() {
+                throw new IllegalStateException("foo");
+            }
+        };
+
+        // ## Act ##
+        try {
+            invoker.getOrCreateSqlExecution("foo", failure);
+            // ## Assert ##
+            fail();
+        } catch (IllegalStateException e) {
+            // OK
+            log(e.getMessage());
+        }
+        assertTrue(invoker.isExecutionCacheEmpty());
+        assertNotNull(invoker.getOrCreateSqlExecution("foo", createMockExecutionCreator()));
+
+        SqlExecutionCreator error = new SqlExecutionCreator() {
+            public SqlExecution createSqlExecution() {
+                throw new ExceptionInInitializerError("bar");
+            }
+        };
+        try {
+            invoker.getOrCreateSqlExecution("bar", error);
+            fail();
+        } catch (ExceptionInInitializerError e) {
+            // OK
+            log(e.getMessage());
+        }
+        assertNull(invoker.getSqlExecution("bar"));
+        assertNotNull(invoker.getOrCreateSqlExecution("bar", createMockExecutionCreator()));
+    }
+
+    protected SqlExecutionCreator createMockExecutionCreator() {
+        return new SqlExecutionCreator() {
+            public SqlExecution createSqlExecution() {
+                return new SqlExecution() {
+                    public Object execute(Object[] args) {
+                        return null;
+                    }
+                };
+            }
+        };
+    }
+
     public void test_clearContext() {
         // ## Arrange ##
         BehaviorCommandInvoker invoker = new BehaviorCommandInvoker();
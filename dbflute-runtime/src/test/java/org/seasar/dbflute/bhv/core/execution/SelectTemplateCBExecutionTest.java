@@ -0,0 +1,481 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.bhv.core.execution;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.seasar.dbflute.Entity;
+import org.seasar.dbflute.cbean.AbstractConditionQuery;
+import org.seasar.dbflute.cbean.ConditionBean;
+import org.seasar.dbflute.cbean.ConditionBeanTemplate;
+import org.seasar.dbflute.cbean.ConditionBeanTemplate.BindSlot;
+import org.seasar.dbflute.cbean.ConditionQuery;
+import org.seasar.dbflute.cbean.ckey.ConditionKey;
+import org.seasar.dbflute.cbean.coption.LikeSearchOption;
+import org.seasar.dbflute.cbean.cvalue.ConditionValue;
+import org.seasar.dbflute.cbean.sqlclause.SqlClause;
+import org.seasar.dbflute.cbean.sqlclause.SqlClauseDefault;
+import org.seasar.dbflute.dbmeta.DBMeta;
+import org.seasar.dbflute.dbmeta.DBMetaProvider;
+import org.seasar.dbflute.dbmeta.info.ColumnInfo;
+import org.seasar.dbflute.dbmeta.info.ForeignInfo;
+import org.seasar.dbflute.dbmeta.name.TableSqlName;
+import org.seasar.dbflute.dbmeta.property.PropertyGateway;
+import org.seasar.dbflute.dbmeta.property.PropertyMethodFinder;
+import org.seasar.dbflute.mock.MockColumnInfo;
+import org.seasar.dbflute.mock.MockConditionBean;
+import org.seasar.dbflute.mock.MockDBMeta;
+import org.seasar.dbflute.mock.MockDBMetaProvider;
+import org.seasar.dbflute.resource.ResourceContext;
+import org.seasar.dbflute.s2dao.jdbc.TnResultSetHandler;
+import org.seasar.dbflute.s2dao.jdbc.TnStatementFactoryImpl;
+import org.seasar.dbflute.twowaysql.SqlAnalyzer;
+import org.seasar.dbflute.twowaysql.context.CommandContext;
+import org.seasar.dbflute.twowaysql.factory.SqlAnalyzerFactory;
+import org.seasar.dbflute.unit.core.PlainTestCase;
+
+/**
+ * @author jflute
+ * @since 1.0.5N (2014/12/21 Sunday)
+ */
+public class SelectTemplateCBExecutionTest extends PlainTestCase {
+
+    // ===================================================================================
+    //                                                                            Settings
+    //                                                                            ========
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        ResourceContext context = new ResourceContext();
+        context.setSqlAnalyzerFactory(new SqlAnalyzerFactory() {
+            public SqlAnalyzer create(String sql, boolean blockNullParameter) {
+                return new SqlAnalyzer(sql, blockNullParameter);
+            }
+        });
+        ResourceContext.setResourceContextOnThread(context);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ResourceContext.clearResourceContextOnThread();
+        super.tearDown();
+    }
+
+    // ===================================================================================
+    //                                                                             Prepare
+    //                                                                             =======
+    public void test_doPrepareTemplate_slots() throws Exception {
+        // ## Arrange ##
+        MemberCB cb = createConditionedCB("Pixy", "S", newArrayList(1, 2), 3);
+        ConditionBeanTemplate template = new ConditionBeanTemplate(cb);
+        TemplateExecution execution = createExecution();
+
+        // ## Act ##
+        execution.doPrepareTemplate(template, new Object[] { cb });
+
+        // ## Assert ##
+        assertTrue(template.isPrepared());
+        String preparedSql = template.getPreparedSql();
+        log(preparedSql);
+        assertFalse(preparedSql.contains("/*pmb."));
+        assertContains(preparedSql, "left outer join MEMBER_STATUS");
+        List<BindSlot> slotList = template.getSlotList();
+        log(slotList);
+        assertEquals(4, slotList.size());
+        BindSlot equalSlot = findSlot(slotList, "memberName_Equal");
+        assertEquals(1, equalSlot.getBindCount());
+        assertFalse(equalSlot.isInScope());
+        assertNull(equalSlot.getLikeSearchOption());
+        BindSlot likeSlot = findSlot(slotList, "memberName_LikeSearch");
+        assertEquals(1, likeSlot.getBindCount());
+        assertNotNull(likeSlot.getLikeSearchOption()); // to convert re-bound value
+        BindSlot inScopeSlot = findSlot(slotList, "memberId_InScope");
+        assertEquals(2, inScopeSlot.getBindCount());
+        assertTrue(inScopeSlot.isInScope());
+        BindSlot relationSlot = findSlot(slotList, "memberStatus.displayOrder_GreaterThan");
+        assertEquals(1, relationSlot.getBindCount());
+        int bindIndex = 0;
+        for (BindSlot slot : slotList) { // ordered by position in SQL
+            assertEquals(bindIndex, slot.getBindIndex());
+            bindIndex = bindIndex + slot.getBindCount();
+        }
+        assertEquals(5, template.getBindVariableTypes().length);
+    }
+
+    public void test_doPrepareTemplate_rebound() throws Exception {
+        // ## Arrange ##
+        MemberCB cb = createConditionedCB("Pixy", "S", newArrayList(1, 2), 3);
+        ConditionBeanTemplate template = new ConditionBeanTemplate(cb);
+        TemplateExecution execution = createExecution();
+        execution.doPrepareTemplate(template, new Object[] { cb });
+        Map<String, Object> parameterMap = new LinkedHashMap<String, Object>();
+        parameterMap.put("memberName_Equal", "Stojkovic");
+        parameterMap.put("memberName_LikeSearch", "Sto%");
+        parameterMap.put("memberId_InScope", newArrayList(7, 8));
+        parameterMap.put("memberStatus.displayOrder_GreaterThan", 9);
+
+        // ## Act ##
+        Object[] reboundVariables = template.bind(parameterMap).buildBindVariables();
+
+        // ## Assert ##
+        MemberCB expectedCB = createConditionedCB("Stojkovic", "Sto%", newArrayList(7, 8), 9);
+        String expectedTwoWaySql = expectedCB.getSqlClause().getClause();
+        CommandContext ctx = execution.applyTwoWaySql(expectedCB, expectedTwoWaySql);
+        log(ctx.getSql());
+        assertEquals(ctx.getSql(), template.getPreparedSql()); // same shape
+        assertEquals(newArrayList(ctx.getBindVariables()), newArrayList(reboundVariables));
+        assertEquals("Sto|%%", reboundVariables[findSlot(template.getSlotList(), "memberName_LikeSearch").getBindIndex()]);
+    }
+
+    // ===================================================================================
+    //                                                                         Test Helper
+    //                                                                         ===========
+    protected MemberCB createConditionedCB(String name, String likeName, List<Integer> idList, Integer displayOrder) {
+        MemberCB cb = new MemberCB();
+        cb.query().setMemberName_Equal(name);
+        cb.query().setMemberName_LikeSearch(likeName, new LikeSearchOption().likePrefix());
+        cb.query().setMemberId_InScope(idList);
+        cb.query().queryMemberStatus().setDisplayOrder_GreaterThan(displayOrder);
+        return cb;
+    }
+
+    protected BindSlot findSlot(List<BindSlot> slotList, String slotName) {
+        for (BindSlot slot : slotList) {
+            if (slot.getSlotName().equals(slotName)) {
+                return slot;
+            }
+        }
+        throw new IllegalStateException("Not found the slot: " + slotName + " in " + slotList);
+    }
+
+    protected TemplateExecution createExecution() {
+        Map<String, Class<?>> argNameTypeMap = new LinkedHashMap<String, Class<?>>();
+        argNameTypeMap.put("pmb", MemberCB.class);
+        DataSource dataSource = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { DataSource.class }, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        throw new UnsupportedOperationException("not executed: " + method.getName());
+                    }
+                });
+        TnResultSetHandler handler = new TnResultSetHandler() {
+            public Object handle(ResultSet rs) throws SQLException {
+                return null;
+            }
+        };
+        return new TemplateExecution(dataSource, argNameTypeMap, handler);
+    }
+
+    protected static class TemplateExecution extends SelectTemplateCBExecution {
+
+        public TemplateExecution(DataSource dataSource, Map<String, Class<?>> argNameTypeMap,
+                TnResultSetHandler resultSetHandler) {
+            super(dataSource, new TnStatementFactoryImpl(), argNameTypeMap, resultSetHandler);
+        }
+
+        public CommandContext applyTwoWaySql(ConditionBean cb, String twoWaySql) { // as plain select by CB
+            final Object[] cbArgs = new Object[] { cb };
+            return apply(analyzeTwoWaySql(twoWaySql), cbArgs, getArgNames(cbArgs), getArgTypes(cbArgs));
+        }
+    }
+
+    protected static final MemberDBMeta MEMBER_DBMETA = new MemberDBMeta();
+    protected static final MemberStatusDBMeta MEMBER_STATUS_DBMETA = new MemberStatusDBMeta();
+    protected static final DBMetaProvider DBMETA_PROVIDER = new MockDBMetaProvider() {
+        @Override
+        public DBMeta provideDBMeta(String tableFlexibleName) {
+            return "MEMBER_STATUS".equalsIgnoreCase(tableFlexibleName) ? MEMBER_STATUS_DBMETA : MEMBER_DBMETA;
+        }
+
+        @Override
+        public DBMeta provideDBMetaChecked(String tableFlexibleName) {
+            return provideDBMeta(tableFlexibleName);
+        }
+    };
+
+    public static class MemberCB extends MockConditionBean {
+
+        protected final SqlClause _sqlClause;
+        {
+            final SqlClauseDefault sqlClause = new SqlClauseDefault("MEMBER");
+            sqlClause.dbmetaProvider(DBMETA_PROVIDER);
+            _sqlClause = sqlClause;
+        }
+        protected MemberCQ _conditionQuery;
+
+        @Override
+        public SqlClause getSqlClause() {
+            return _sqlClause;
+        }
+
+        @Override
+        public String getTableDbName() {
+            return "MEMBER";
+        }
+
+        @Override
+        public DBMeta getDBMeta() {
+            return MEMBER_DBMETA;
+        }
+
+        public MemberCQ query() {
+            return getConditionQuery();
+        }
+
+        public MemberCQ getConditionQuery() { // as generated condition-bean
+            if (_conditionQuery == null) {
+                _conditionQuery = new MemberCQ(null, _sqlClause, _sqlClause.getBasePointAliasName(), 0);
+                _conditionQuery.xsetBaseCB(this);
+            }
+            return _conditionQuery;
+        }
+
+        @Override
+        public ConditionQuery localCQ() {
+            return getConditionQuery();
+        }
+
+        public String getSelectHint() { // hint properties as abstract condition-bean
+            return _sqlClause.getSelectHint();
+        }
+
+        public String getFromBaseTableHint() {
+            return _sqlClause.getFromBaseTableHint();
+        }
+
+        public String getFromHint() {
+            return _sqlClause.getFromHint();
+        }
+
+        public String getSqlSuffix() {
+            return _sqlClause.getSqlSuffix();
+        }
+    }
+
+    public static class MemberCQ extends AbstractConditionQuery {
+
+        protected ConditionValue _memberId;
+        protected ConditionValue _memberName;
+        protected MemberStatusCQ _conditionQueryMemberStatus;
+
+        public MemberCQ(ConditionQuery referrerQuery, SqlClause sqlClause, String aliasName, int nestLevel) {
+            super(referrerQuery, sqlClause, aliasName, nestLevel);
+        }
+
+        public void setMemberId_InScope(List<Integer> memberIdList) {
+            regINS(ConditionKey.CK_IN_SCOPE, memberIdList, getMemberId(), "MEMBER_ID");
+        }
+
+        public void setMemberName_Equal(String memberName) {
+            regQ(ConditionKey.CK_EQUAL, memberName, getMemberName(), "MEMBER_NAME");
+        }
+
+        public void setMemberName_LikeSearch(String memberName, LikeSearchOption option) {
+            regLSQ(ConditionKey.CK_LIKE_SEARCH, memberName, getMemberName(), "MEMBER_NAME", option);
+        }
+
+        public MemberStatusCQ queryMemberStatus() {
+            if (_conditionQueryMemberStatus == null) {
+                final String relationPath = xgetRelationPath() + "_0";
+                final MemberStatusCQ cq = new MemberStatusCQ(this, xgetSqlClause(), xresolveJAN(relationPath, 1), 1);
+                cq.xsetBaseCB(_baseCB);
+                cq.xsetForeignPropertyName("memberStatus");
+                cq.xsetRelationPath(relationPath);
+                final Map<String, String> joinOnMap = new LinkedHashMap<String, String>();
+                joinOnMap.put("MEMBER_STATUS_CODE", "MEMBER_STATUS_CODE");
+                registerOuterJoin(cq, joinOnMap, "memberStatus");
+                _conditionQueryMemberStatus = cq;
+            }
+            return _conditionQueryMemberStatus;
+        }
+
+        public ConditionValue getMemberId() {
+            if (_memberId == null) {
+                _memberId = nCV();
+            }
+            return _memberId;
+        }
+
+        public ConditionValue getMemberName() {
+            if (_memberName == null) {
+                _memberName = nCV();
+            }
+            return _memberName;
+        }
+
+        public MemberStatusCQ getConditionQueryMemberStatus() {
+            return queryMemberStatus();
+        }
+
+        public String getTableDbName() {
+            return "MEMBER";
+        }
+
+        @Override
+        protected DBMetaProvider xgetDBMetaProvider() {
+            return DBMETA_PROVIDER;
+        }
+
+        @Override
+        protected Map<String, Object> xfindFixedConditionDynamicParameterMap(String property) {
+            return null;
+        }
+
+        @Override
+        protected void reflectRelationOnUnionQuery(ConditionQuery baseQueryAsSuper, ConditionQuery unionQueryAsSuper) {
+        }
+    }
+
+    public static class MemberStatusCQ extends AbstractConditionQuery {
+
+        protected ConditionValue _displayOrder;
+
+        public MemberStatusCQ(ConditionQuery referrerQuery, SqlClause sqlClause, String aliasName, int nestLevel) {
+            super(referrerQuery, sqlClause, aliasName, nestLevel);
+        }
+
+        public void setDisplayOrder_GreaterThan(Integer displayOrder) {
+            regQ(ConditionKey.CK_GREATER_THAN, displayOrder, getDisplayOrder(), "DISPLAY_ORDER");
+        }
+
+        public ConditionValue getDisplayOrder() {
+            if (_displayOrder == null) {
+                _displayOrder = nCV();
+            }
+            return _displayOrder;
+        }
+
+        public String getTableDbName() {
+            return "MEMBER_STATUS";
+        }
+
+        @Override
+        protected DBMetaProvider xgetDBMetaProvider() {
+            return DBMETA_PROVIDER;
+        }
+
+        @Override
+        protected Map<String, Object> xfindFixedConditionDynamicParameterMap(String property) {
+            return null;
+        }
+
+        @Override
+        protected void reflectRelationOnUnionQuery(ConditionQuery baseQueryAsSuper, ConditionQuery unionQueryAsSuper) {
+        }
+    }
+
+    protected static class MemberDBMeta extends MockDBMeta {
+
+        protected final List<ColumnInfo> _columnInfoList = new ArrayList<ColumnInfo>();
+        {
+            _columnInfoList.add(new MockColumnInfo(this, "MEMBER_ID", "memberId", Integer.class, true));
+            _columnInfoList.add(new MockColumnInfo(this, "MEMBER_NAME", "memberName", String.class, false));
+            _columnInfoList.add(new MockColumnInfo(this, "MEMBER_STATUS_CODE", "memberStatusCode", String.class, false));
+        }
+        protected ForeignInfo _memberStatusInfo;
+
+        @Override
+        public String getTableDbName() {
+            return "MEMBER";
+        }
+
+        @Override
+        public TableSqlName getTableSqlName() {
+            return new TableSqlName("MEMBER", "MEMBER");
+        }
+
+        @Override
+        public List<ColumnInfo> getColumnInfoList() {
+            return _columnInfoList;
+        }
+
+        @Override
+        public boolean hasPrimaryKey() {
+            return true;
+        }
+
+        @Override
+        public PropertyGateway findForeignPropertyGateway(String foreignPropertyName) {
+            return new PropertyGateway() { // no entity in this test
+                public Object read(Entity entity) {
+                    return null;
+                }
+
+                public void write(Entity entity, Object value) {
+                }
+            };
+        }
+
+        @Override
+        public ForeignInfo findForeignInfo(String foreignPropName) {
+            if (_memberStatusInfo == null) {
+                final Map<ColumnInfo, ColumnInfo> columnMap = new LinkedHashMap<ColumnInfo, ColumnInfo>();
+                columnMap.put(_columnInfoList.get(2), MEMBER_STATUS_DBMETA.getColumnInfoList().get(0));
+                _memberStatusInfo = new ForeignInfo("FK_MEMBER_STATUS", "memberStatus", this, MEMBER_STATUS_DBMETA, columnMap,
+                        0, Object.class, false, false, false, false, null, Collections.<String> emptyList(), false, null,
+                        new PropertyMethodFinder() { // no entity property in this test
+                            public Method findReadMethod(Class<?> beanType, String propertyName, Class<?> propertyType) {
+                                return null;
+                            }
+
+                            public Method findWriteMethod(Class<?> beanType, String propertyName, Class<?> propertyType) {
+                                return null;
+                            }
+                        });
+            }
+            return _memberStatusInfo;
+        }
+    }
+
+    protected static class MemberStatusDBMeta extends MockDBMeta {
+
+        protected final List<ColumnInfo> _columnInfoList = new ArrayList<ColumnInfo>();
+        {
+            _columnInfoList.add(new MockColumnInfo(this, "MEMBER_STATUS_CODE", "memberStatusCode", String.class, true));
+            _columnInfoList.add(new MockColumnInfo(this, "DISPLAY_ORDER", "displayOrder", Integer.class, false));
+        }
+
+        @Override
+        public String getTableDbName() {
+            return "MEMBER_STATUS";
+        }
+
+        @Override
+        public TableSqlName getTableSqlName() {
+            return new TableSqlName("MEMBER_STATUS", "MEMBER_STATUS");
+        }
+
+        @Override
+        public List<ColumnInfo> getColumnInfoList() {
+            return _columnInfoList;
+        }
+
+        @Override
+        public boolean hasPrimaryKey() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.bhv.core.supplement;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.seasar.dbflute.Entity;
+import org.seasar.dbflute.dbmeta.info.ColumnInfo;
+import org.seasar.dbflute.mock.MockColumnInfo;
+import org.seasar.dbflute.mock.MockDBMeta;
+import org.seasar.dbflute.mock.MockEntity;
+import org.seasar.dbflute.unit.core.PlainTestCase;
+
+/**
+ * @author jflute
+ * @since 1.0.5N (2014/12/17 Wednesday)
+ */
+public class EntityCacheTest extends PlainTestCase {
+
+    // ===================================================================================
+    //                                                                        Entity Cache
+    //                                                                        ============
+    public void test_findEntity_copied() {
+        // ## Arrange ##
+        EntityCache cache = createCache(10, 60000L);
+        MemberDBMeta dbmeta = new MemberDBMeta();
+        assertNull(cache.findEntity(dbmeta, new Object[] { 3 }, MockEntity.class));
+        long version = cache.prepareVersion("MEMBER");
+        MockEntity selected = createMember(3, "Stojkovic");
+        cache.registerEntity(dbmeta, new Object[] { 3 }, selected, version);
+        selected.setMemberName("changed after select");
+
+        // ## Act ##
+        MockEntity first = cache.findEntity(dbmeta, new Object[] { 3 }, MockEntity.class);
+        first.setMemberName("changed by caller");
+        MockEntity second = cache.findEntity(dbmeta, new Object[] { 3 }, MockEntity.class);
+
+        // ## Assert ##
+        assertNotSame(first, second);
+        assertEquals(Integer.valueOf(3), second.getMemberId());
+        assertEquals("Stojkovic", second.getMemberName());
+        EntityCache.TableEntityCache tableCache = cache.getTableCache("member");
+        log(tableCache);
+        assertEquals(2L, tableCache.getHitCount());
+        assertEquals(1L, tableCache.getMissCount());
+    }
+
+    public void test_findEntity_notTarget() {
+        // ## Arrange ##
+        EntityCache cache = createCache(10, 60000L);
+        MemberDBMeta dbmeta = new MemberDBMeta() {
+            @Override
+            public String getTableDbName() {
+                return "PURCHASE";
+            }
+        };
+
+        // ## Act ##
+        cache.registerEntity(dbmeta, new Object[] { 3 }, createMember(3, "Stojkovic"), cache.prepareVersion("PURCHASE"));
+
+        // ## Assert ##
+        assertFalse(cache.isCacheTarget("PURCHASE"));
+        assertTrue(cache.isCacheTarget("MEMBER"));
+        assertEquals(-1L, cache.prepareVersion("PURCHASE"));
+        assertNull(cache.findEntity(dbmeta, new Object[] { 3 }, MockEntity.class));
+    }
+
+    // ===================================================================================
+    //                                                                        Invalidation
+    //                                                                        ============
+    public void test_invalidateTable() {
+        // ## Arrange ##
+        EntityCache cache = createCache(10, 60000L);
+        MemberDBMeta dbmeta = new MemberDBMeta();
+        cache.registerEntity(dbmeta, new Object[] { 3 }, createMember(3, "Stojkovic"), cache.prepareVersion("MEMBER"));
+
+        // ## Act ##
+        cache.invalidateTable("MEMBER");
+
+        // ## Assert ##
+        assertNull(cache.findEntity(dbmeta, new Object[] { 3 }, MockEntity.class));
+        assertEquals(1L, cache.getTableCache("MEMBER").getInvalidationCount());
+    }
+
+    public void test_registerEntity_writtenWhileSelecting() {
+        // ## Arrange ##
+        EntityCache cache = createCache(10, 60000L);
+        MemberDBMeta dbmeta = new MemberDBMeta();
+        long version = cache.prepareVersion("MEMBER");
+        cache.invalidateAll(); // e.g. update by other thread
+
+        // ## Act ##
+        cache.registerEntity(dbmeta, new Object[] { 3 }, createMember(3, "Stojkovic"), version);
+
+        // ## Assert ##
+        assertEquals(0, cache.getTableCache("MEMBER").size());
+        assertNull(cache.findEntity(dbmeta, new Object[] { 3 }, MockEntity.class));
+    }
+
+    // ===================================================================================
+    //                                                                       Writing Table
+    //                                                                       =============
+    public void test_reflectWriting_otherThreadCachedBeforeCommit() throws Exception {
+        // ## Arrange ##
+        final EntityCache cache = createCache(10, 60000L);
+        final MemberDBMeta dbmeta = new MemberDBMeta();
+        cache.reflectWriting("MEMBER"); // update statement ends (not committed yet)
+        assertTrue(cache.isWritingTable("MEMBER"));
+        Thread other = new Thread(new Runnable() {
+            public void run() { // other thread selects old value before commit
+                assertFalse(cache.isWritingTable("MEMBER"));
+                long version = cache.prepareVersion("MEMBER");
+                cache.registerEntity(dbmeta, new Object[] { 3 }, createMember(3, "old"), version);
+            }
+        });
+        other.start();
+        other.join();
+        assertNotNull(cache.findEntity(dbmeta, new Object[] { 3 }, MockEntity.class)); // stale
+
+        // ## Act ##
+        cache.reflectCompletion(); // after commit
+
+        // ## Assert ##
+        assertNull(cache.findEntity(dbmeta, new Object[] { 3 }, MockEntity.class));
+        assertFalse(cache.isWritingTable("MEMBER"));
+        assertEquals(2L, cache.getTableCache("MEMBER").getInvalidationCount());
+    }
+
+    public void test_reflectWriting_notTarget() {
+        // ## Arrange ##
+        EntityCache cache = createCache(10, 60000L);
+
+        // ## Act ##
+        cache.reflectWriting("PURCHASE");
+
+        // ## Assert ##
+        assertFalse(cache.isWritingTable("PURCHASE"));
+        cache.reflectCompletion(); // no exception
+    }
+
+    public void test_reflectWritingAll() {
+        // ## Arrange ##
+        EntityCache cache = createCache(10, 60000L);
+
+        // ## Act ##
+        cache.reflectWritingAll();
+
+        // ## Assert ##
+        assertTrue(cache.isWritingTable("MEMBER"));
+        cache.reflectCompletion();
+        assertFalse(cache.isWritingTable("MEMBER"));
+    }
+
+    public void test_isWritingTable_expired() {
+        // ## Arrange ##
+        final long[] current = new long[] { 1000L };
+        EntityCache cache = new EntityCache(prepareTableSizeMap(10), 500L) {
+            @Override
+            protected long currentTimeMillis() {
+                return current[0];
+            }
+        };
+        cache.reflectWriting("MEMBER"); // and completion is not reflected
+
+        // ## Act ##
+        current[0] = 1500L;
+        boolean alive = cache.isWritingTable("MEMBER");
+        current[0] = 1501L;
+        boolean expired = cache.isWritingTable("MEMBER");
+
+        // ## Assert ##
+        assertTrue(alive);
+        assertFalse(expired);
+    }
+
+    // ===================================================================================
+    //                                                                     Size and Expire
+    //                                                                     ===============
+    public void test_registerEntity_evictLeastRecentlyUsed() {
+        // ## Arrange ##
+        EntityCache cache = createCache(2, 60000L);
+        MemberDBMeta dbmeta = new MemberDBMeta();
+        cache.registerEntity(dbmeta, new Object[] { 1 }, createMember(1, "foo"), cache.prepareVersion("MEMBER"));
+        cache.registerEntity(dbmeta, new Object[] { 2 }, createMember(2, "bar"), cache.prepareVersion("MEMBER"));
+        assertNotNull(cache.findEntity(dbmeta, new Object[] { 1 }, MockEntity.class)); // 2 becomes eldest
+
+        // ## Act ##
+        cache.registerEntity(dbmeta, new Object[] { 3 }, createMember(3, "qux"), cache.prepareVersion("MEMBER"));
+
+        // ## Assert ##
+        assertNotNull(cache.findEntity(dbmeta, new Object[] { 1 }, MockEntity.class));
+        assertNull(cache.findEntity(dbmeta, new Object[] { 2 }, MockEntity.class));
+        assertNotNull(cache.findEntity(dbmeta, new Object[] { 3 }, MockEntity.class));
+        assertEquals(1L, cache.getEvictionCount());
+    }
+
+    public void test_findEntity_expired() {
+        // ## Arrange ##
+        final long[] current = new long[] { 1000L };
+        EntityCache cache = new EntityCache(prepareTableSizeMap(10), 500L) {
+            @Override
+            protected long currentTimeMillis() {
+                return current[0];
+            }
+        };
+        MemberDBMeta dbmeta = new MemberDBMeta();
+        cache.registerEntity(dbmeta, new Object[] { 3 }, createMember(3, "Stojkovic"), cache.prepareVersion("MEMBER"));
+
+        // ## Act ##
+        current[0] = 1499L;
+        MockEntity alive = cache.findEntity(dbmeta, new Object[] { 3 }, MockEntity.class);
+        current[0] = 1500L;
+        MockEntity expired = cache.findEntity(dbmeta, new Object[] { 3 }, MockEntity.class);
+
+        // ## Assert ##
+        assertNotNull(alive);
+        assertNull(expired);
+    }
+
+    // ===================================================================================
+    //                                                                         Test Helper
+    //                                                                         ===========
+    protected EntityCache createCache(int maxSize, long timeToLive) {
+        return new EntityCache(prepareTableSizeMap(maxSize), timeToLive);
+    }
+
+    protected Map<String, Integer> prepareTableSizeMap(int maxSize) {
+        Map<String, Integer> tableSizeMap = new LinkedHashMap<String, Integer>();
+        tableSizeMap.put("MEMBER", maxSize);
+        return tableSizeMap;
+    }
+
+    protected MockEntity createMember(Integer memberId, String memberName) {
+        MockEntity member = new MockEntity();
+        member.setMemberId(memberId);
+        member.setMemberName(memberName);
+        return member;
+    }
+
+    protected static class MemberDBMeta extends MockDBMeta {
+
+        protected final List<ColumnInfo> _columnInfoList = new ArrayList<ColumnInfo>();
+        {
+            _columnInfoList.add(new MockColumnInfo(this, "MEMBER_ID", true) {
+                @SuppressWarnings("unchecked")
+                @Override
+                public <PROPERTY> PROPERTY read(Entity entity) {
+                    return (PROPERTY) ((MockEntity) entity).getMemberId();
+                }
+
+                @Override
+                public void write(Entity entity, Object value) {
+                    ((MockEntity) entity).setMemberId((Integer) value);
+                }
+            });
+            _columnInfoList.add(new MockColumnInfo(this, "MEMBER_NAME", false) {
+                @SuppressWarnings("unchecked")
+                @Override
+                public <PROPERTY> PROPERTY read(Entity entity) {
+                    return (PROPERTY) ((MockEntity) entity).getMemberName();
+                }
+
+                @Override
+                public void write(Entity entity, Object value) {
+                    ((MockEntity) entity).setMemberName((String) value);
+                }
+            });
+        }
+
+        @Override
+        public String getTableDbName() {
+            return "MEMBER";
+        }
+
+        @Override
+        public List<ColumnInfo> getColumnInfoList() {
+            return _columnInfoList;
+        }
+    }
+}
@@ -23,6 +23,7 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -198,6 +199,57 @@ public class SequenceCacheTest extends PlainTestCase {
         assertEquals(4, executor.getCount());
     }
 
+    // ===================================================================================
+    //                                                                            Prefetch
+    //                                                                            ========
+    public void test_nextval_prefetch() {
+        // ## Arrange ##
+        int incrementSize = 8;
+        SequenceCache cache = createSequenceCache(incrementSize, Long.class);
+        final List<String> markList = new ArrayList<String>();
+        cache.setPrefetchExecutor(new Executor() {
+            public void execute(Runnable command) {
+                markList.add("prefetch");
+                command.run(); // synchronously for test
+            }
+        });
+        LongResultExecutor executor = new LongResultExecutor(incrementSize);
+
+        // ## Act & Assert ##
+        for (int i = 1; i <= 5; i++) {
+            assertEquals(i, convertLongToInteger(cache.nextval(executor)));
+        }
+        assertEquals(1, executor.getCount());
+        assertEquals(0, markList.size());
+        assertEquals(6, convertLongToInteger(cache.nextval(executor))); // remaining 2 <= watermark 2
+        assertEquals(2, executor.getCount());
+        assertEquals(1, markList.size());
+        assertEquals(7, convertLongToInteger(cache.nextval(executor)));
+        assertEquals(8, convertLongToInteger(cache.nextval(executor)));
+        assertEquals(9, convertLongToInteger(cache.nextval(executor))); // from prefetched block
+        assertEquals(2, executor.getCount());
+        assertEquals(1, markList.size());
+    }
+
+    public void test_nextval_overLong() {
+        // ## Arrange ##
+        SequenceCache cache = createSequenceCache(3, BigDecimal.class);
+        final BigDecimal base = new BigDecimal(Long.MAX_VALUE).add(BigDecimal.TEN);
+        SequenceRealExecutor executor = new SequenceRealExecutor() {
+            public Object execute() {
+                return base;
+            }
+        };
+
+        // ## Act ##
+        Object first = cache.nextval(executor);
+        Object second = cache.nextval(executor);
+
+        // ## Assert ##
+        assertEquals(base, first);
+        assertEquals(base.add(BigDecimal.ONE), second);
+    }
+
     // ===================================================================================
     //                                                                         Thread Safe
     //                                                                         ===========
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.cbean;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.seasar.dbflute.cbean.ConditionBeanTemplate.BindSlot;
+import org.seasar.dbflute.cbean.coption.LikeSearchOption;
+import org.seasar.dbflute.cbean.sqlclause.SqlClause;
+import org.seasar.dbflute.cbean.sqlclause.SqlClauseDefault;
+import org.seasar.dbflute.dbmeta.DBMeta;
+import org.seasar.dbflute.dbmeta.info.ColumnInfo;
+import org.seasar.dbflute.exception.IllegalConditionBeanOperationException;
+import org.seasar.dbflute.helper.StringSet;
+import org.seasar.dbflute.mock.MockColumnInfo;
+import org.seasar.dbflute.mock.MockConditionBean;
+import org.seasar.dbflute.mock.MockDBMeta;
+import org.seasar.dbflute.mock.MockDBMetaProvider;
+import org.seasar.dbflute.unit.core.PlainTestCase;
+
+/**
+ * @author jflute
+ * @since 1.0.5N (2014/12/21 Sunday)
+ */
+public class ConditionBeanTemplateTest extends PlainTestCase {
+
+    // ===================================================================================
+    //                                                                         Constructor
+    //                                                                         ===========
+    public void test_constructor_basic() throws Exception {
+        // ## Arrange ##
+        MemberCB cb = new MemberCB();
+
+        // ## Act ##
+        ConditionBeanTemplate template = new ConditionBeanTemplate(cb);
+
+        // ## Assert ##
+        log(template.getTwoWaySql());
+        assertContains(template.getTwoWaySql(), "MEMBER_NAME");
+        assertEquals("MEMBER", template.getTableDbName());
+        assertFalse(template.isPrepared());
+        assertTrue(template.getSlotList().isEmpty());
+    }
+
+    public void test_constructor_compactResult() throws Exception {
+        // ## Arrange ##
+        MemberCB cb = new MemberCB() {
+            @Override
+            public boolean isCompactResultEnabled() {
+                return true;
+            }
+        };
+
+        // ## Act ##
+        try {
+            new ConditionBeanTemplate(cb);
+            // ## Assert ##
+            fail();
+        } catch (IllegalConditionBeanOperationException e) {
+            // OK
+            log(e.getMessage());
+        }
+    }
+
+    // ===================================================================================
+    //                                                                           Slot Name
+    //                                                                           =========
+    public void test_xderiveSlotName_basic() throws Exception {
+        // ## Arrange ##
+        ConditionBeanTemplate template = new ConditionBeanTemplate(new MemberCB());
+        Set<String> nameSet = StringSet.createAsFlexible();
+
+        // ## Act & Assert ##
+        assertEquals("memberName_Equal",
+                template.xderiveSlotName("pmb.conditionQuery.memberName.fixed.query.equal", nameSet));
+        assertEquals("memberName_LikeSearch",
+                template.xderiveSlotName("pmb.conditionQuery.memberName.varying.likeSearch.likeSearch0", nameSet));
+        assertEquals("memberStatus.displayOrder_GreaterThan", template.xderiveSlotName(
+                "pmb.conditionQuery.conditionQueryMemberStatus.displayOrder.fixed.query.greaterThan", nameSet));
+        assertEquals("sqlClause.pagingBindingLimit", template.xderiveSlotName("pmb.sqlClause.pagingBindingLimit", nameSet));
+    }
+
+    public void test_xderiveSlotName_duplicate() throws Exception {
+        // ## Arrange ##
+        ConditionBeanTemplate template = new ConditionBeanTemplate(new MemberCB());
+        Set<String> nameSet = StringSet.createAsFlexible();
+        nameSet.add("memberName_Equal");
+
+        // ## Act ##
+        String second = template.xderiveSlotName("pmb.conditionQuery.memberName.fixed.query.equal", nameSet);
+        nameSet.add(second);
+        String third = template.xderiveSlotName("pmb.conditionQuery.memberName.fixed.query.equal", nameSet);
+
+        // ## Assert ##
+        assertEquals("memberName_Equal2", second);
+        assertEquals("memberName_Equal3", third);
+    }
+
+    // ===================================================================================
+    //                                                                                Bind
+    //                                                                                ====
+    public void test_bind_prepared() throws Exception {
+        // ## Arrange ##
+        ConditionBeanTemplate template = createPreparedTemplate();
+        Map<String, Object> parameterMap = new LinkedHashMap<String, Object>();
+        parameterMap.put("MEMBER_NAME_LIKESEARCH", "S%o"); // flexible
+        parameterMap.put("memberId_InScope", newArrayList(7, null, 8));
+
+        // ## Act ##
+        Object[] bindVariables = template.bind(parameterMap).buildBindVariables();
+
+        // ## Assert ##
+        assertEquals(4, bindVariables.length);
+        assertEquals("S|%o%", bindVariables[0]);
+        assertEquals(7, bindVariables[1]);
+        assertEquals(8, bindVariables[2]);
+        assertEquals(20, bindVariables[3]); // prepared
+        assertEquals(1, template.bind().buildBindVariables()[1]); // not changed
+    }
+
+    public void test_bind_bean() throws Exception {
+        // ## Arrange ##
+        ConditionBeanTemplate template = createPreparedTemplate();
+        MemberParameter parameter = new MemberParameter();
+        parameter.setMemberNameLikeSearch("Sto");
+
+        // ## Act ##
+        Object[] bindVariables = template.bindBean(parameter).buildBindVariables();
+
+        // ## Assert ##
+        assertEquals("Sto%", bindVariables[0]);
+        assertEquals(1, bindVariables[1]); // null property is not bound
+    }
+
+    public void test_bind_illegal() throws Exception {
+        // ## Arrange ##
+        ConditionBeanTemplate template = createPreparedTemplate();
+        Map<String, Object> nullMap = new LinkedHashMap<String, Object>();
+        nullMap.put("memberName_LikeSearch", null);
+        Map<String, Object> unknownMap = new LinkedHashMap<String, Object>();
+        unknownMap.put("birthdate_Equal", "1970");
+        Map<String, Object> sizeMap = new LinkedHashMap<String, Object>();
+        sizeMap.put("memberId_InScope", newArrayList(7, 8, 9));
+
+        // ## Act & Assert ##
+        try {
+            template.bind(nullMap);
+            fail();
+        } catch (IllegalArgumentException e) {
+            log(e.getMessage());
+        }
+        try {
+            template.bind(unknownMap).buildBindVariables();
+            fail();
+        } catch (IllegalArgumentException e) {
+            log(e.getMessage());
+        }
+        try {
+            template.bind(sizeMap).buildBindVariables();
+            fail();
+        } catch (IllegalArgumentException e) {
+            log(e.getMessage());
+        }
+    }
+
+    public void test_bind_notPrepared() throws Exception {
+        // ## Arrange ##
+        ConditionBeanTemplate template = new ConditionBeanTemplate(new MemberCB());
+
+        // ## Act ##
+        try {
+            template.bind().buildBindVariables();
+            // ## Assert ##
+            fail();
+        } catch (IllegalStateException e) {
+            // OK
+            log(e.getMessage());
+        }
+    }
+
+    // ===================================================================================
+    //                                                                         Test Helper
+    //                                                                         ===========
+    protected ConditionBeanTemplate createPreparedTemplate() {
+        ConditionBeanTemplate template = new ConditionBeanTemplate(new MemberCB());
+        List<BindSlot> slotList = new ArrayList<BindSlot>();
+        LikeSearchOption option = new LikeSearchOption().likePrefix();
+        slotList.add(new BindSlot("memberName_LikeSearch", "pmb.conditionQuery.memberName.varying.likeSearch.likeSearch0",
+                0, 1, false, option));
+        slotList.add(new BindSlot("memberId_InScope", "pmb.conditionQuery.memberId.varying.inScope.inScope0", 1, 2, true,
+                null));
+        slotList.add(new BindSlot("sqlClause.pagingBindingLimit", "pmb.sqlClause.pagingBindingLimit", 3, 1, false, null));
+        Object[] preparedVariables = new Object[] { "Pixy%", 1, 2, 20 };
+        Class<?>[] types = new Class<?>[] { String.class, Integer.class, Integer.class, Integer.class };
+        template.xacceptPrepared("select ... where MEMBER_NAME like ? escape '|' and MEMBER_ID in (?, ?) limit ?",
+                slotList, preparedVariables, types);
+        template.xacceptPrepared("ignored", slotList, preparedVariables, types); // first wins
+        assertTrue(template.isPrepared());
+        assertEquals(3, template.getSlotList().size());
+        assertContains(template.getPreparedSql(), "MEMBER_ID in (?, ?)");
+        return template;
+    }
+
+    public static class MemberParameter {
+
+        protected String _memberNameLikeSearch;
+        protected List<Integer> _memberIdInScope;
+
+        public String getMemberNameLikeSearch() {
+            return _memberNameLikeSearch;
+        }
+
+        public void setMemberNameLikeSearch(String memberNameLikeSearch) {
+            _memberNameLikeSearch = memberNameLikeSearch;
+        }
+
+        public List<Integer> getMemberIdInScope() {
+            return _memberIdInScope;
+        }
+
+        public void setMemberIdInScope(List<Integer> memberIdInScope) {
+            _memberIdInScope = memberIdInScope;
+        }
+    }
+
+    protected static class MemberCB extends MockConditionBean {
+
+        protected final SqlClause _sqlClause;
+        {
+            final DBMeta dbmeta = new MemberDBMeta();
+            final SqlClauseDefault sqlClause = new SqlClauseDefault("MEMBER");
+            sqlClause.dbmetaProvider(new MockDBMetaProvider() {
+                @Override
+                public DBMeta provideDBMeta(String tableFlexibleName) {
+                    return dbmeta;
+                }
+
+                @Override
+                public DBMeta provideDBMetaChecked(String tableFlexibleName) {
+                    return dbmeta;
+                }
+            });
+            _sqlClause = sqlClause;
+        }
+
+        @Override
+        public SqlClause getSqlClause() {
+            return _sqlClause;
+        }
+
+        @Override
+        public String getTableDbName() {
+            return "MEMBER";
+        }
+    }
+
+    protected static class MemberDBMeta extends MockDBMeta {
+
+        protected final List<ColumnInfo> _columnInfoList = new ArrayList<ColumnInfo>();
+        {
+            _columnInfoList.add(new MockColumnInfo(this, "MEMBER_ID", true));
+            _columnInfoList.add(new MockColumnInfo(this, "MEMBER_NAME", false));
+        }
+
+        @Override
+        public String getTableDbName() {
+            return "MEMBER";
+        }
+
+        @Override
+        public List<ColumnInfo> getColumnInfoList() {
+            return _columnInfoList;
+        }
+
+        @Override
+        public boolean hasPrimaryKey() {
+            return true;
+        }
+    }
+}
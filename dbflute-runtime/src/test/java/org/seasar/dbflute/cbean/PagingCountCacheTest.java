@@ -0,0 +1,224 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.cbean;
+
+import org.seasar.dbflute.unit.core.PlainTestCase;
+
+/**
+ * @author jflute
+ * @since 1.0.5N (2014/12/17 Wednesday)
+ */
+public class PagingCountCacheTest extends PlainTestCase {
+
+    protected static final String MEMBER_FINGERPRINT = "MEMBER:select count(*) from MEMBER dfloc"
+            + " left outer join MEMBER_STATUS dfrel_0 on dfloc.MEMBER_STATUS_CODE = dfrel_0.MEMBER_STATUS_CODE"
+            + " where exists (select sub1loc.MEMBER_ID from PURCHASE sub1loc where sub1loc.MEMBER_ID = dfloc.MEMBER_ID)";
+
+    // ===================================================================================
+    //                                                                         Count Cache
+    //                                                                         ===========
+    public void test_findCount_basic() throws Exception {
+        // ## Arrange ##
+        PagingCountCache cache = new PagingCountCache(10, 60000L);
+
+        // ## Act ##
+        Integer first = cache.findCount(MEMBER_FINGERPRINT);
+        cache.registerCount(cache.prepareEntry(MEMBER_FINGERPRINT), 123);
+        Integer second = cache.findCount(MEMBER_FINGERPRINT);
+
+        // ## Assert ##
+        assertNull(first);
+        assertEquals(Integer.valueOf(123), second);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertNull(cache.findCount("MEMBER:select count(*) from MEMBER dfloc where dfloc.MEMBER_ID = 3"));
+    }
+
+    public void test_findCount_expired() throws Exception {
+        // ## Arrange ##
+        final long[] current = new long[] { 1000L };
+        PagingCountCache cache = new PagingCountCache(10, 500L) {
+            @Override
+            protected long currentTimeMillis() {
+                return current[0];
+            }
+        };
+        cache.registerCount(cache.prepareEntry(MEMBER_FINGERPRINT), 123);
+
+        // ## Act & Assert ##
+        current[0] = 1499L;
+        assertEquals(Integer.valueOf(123), cache.findCount(MEMBER_FINGERPRINT));
+        current[0] = 1500L;
+        assertNull(cache.findCount(MEMBER_FINGERPRINT));
+        assertEquals(0, cache.size());
+    }
+
+    // ===================================================================================
+    //                                                                        Invalidation
+    //                                                                        ============
+    public void test_invalidateTable_referred() throws Exception {
+        // ## Arrange ##
+        PagingCountCache cache = new PagingCountCache(10, 60000L);
+        cache.registerCount(cache.prepareEntry(MEMBER_FINGERPRINT), 123);
+
+        // ## Act ##
+        cache.invalidateTable("PRODUCT");
+
+        // ## Assert ##
+        assertEquals(Integer.valueOf(123), cache.findCount(MEMBER_FINGERPRINT));
+        cache.invalidateTable("purchase"); // in sub-query
+        assertNull(cache.findCount(MEMBER_FINGERPRINT));
+
+        cache.registerCount(cache.prepareEntry(MEMBER_FINGERPRINT), 124);
+        assertEquals(Integer.valueOf(124), cache.findCount(MEMBER_FINGERPRINT));
+        cache.invalidateTable("MEMBER_STATUS"); // joined
+        assertNull(cache.findCount(MEMBER_FINGERPRINT));
+        assertEquals(3, cache.getInvalidationCount());
+    }
+
+    public void test_invalidateTable_whileCounting() throws Exception {
+        // ## Arrange ##
+        PagingCountCache cache = new PagingCountCache(10, 60000L);
+        PagingCountCache.CountEntry entry = cache.prepareEntry(MEMBER_FINGERPRINT);
+
+        // ## Act ##
+        cache.invalidateTable("MEMBER"); // written during the count select
+        cache.registerCount(entry, 123);
+
+        // ## Assert ##
+        assertEquals(0, cache.size());
+        assertNull(cache.findCount(MEMBER_FINGERPRINT));
+    }
+
+    public void test_invalidateAll() throws Exception {
+        // ## Arrange ##
+        PagingCountCache cache = new PagingCountCache(10, 60000L);
+        PagingCountCache.CountEntry entry = cache.prepareEntry(MEMBER_FINGERPRINT);
+        cache.registerCount(cache.prepareEntry(MEMBER_FINGERPRINT), 123);
+
+        // ## Act ##
+        cache.invalidateAll();
+
+        // ## Assert ##
+        assertNull(cache.findCount(MEMBER_FINGERPRINT));
+        cache.registerCount(entry, 124); // prepared before the invalidation
+        assertNull(cache.findCount(MEMBER_FINGERPRINT));
+    }
+
+    // ===================================================================================
+    //                                                                       Writing Table
+    //                                                                       =============
+    public void test_reflectWriting_otherThreadCountedBeforeCommit() throws Exception {
+        // ## Arrange ##
+        final PagingCountCache cache = new PagingCountCache(10, 60000L);
+        cache.reflectWriting("member"); // insert statement ends (not committed yet)
+        Thread other = new Thread(new Runnable() {
+            public void run() { // other thread counts committed rows before commit
+                assertFalse(cache.isWritingTable("MEMBER"));
+                cache.registerCount(cache.prepareEntry(MEMBER_FINGERPRINT), 123);
+            }
+        });
+        other.start();
+        other.join();
+        assertEquals(1, cache.size()); // old count
+
+        // ## Act ##
+        cache.reflectCompletion(); // after commit
+
+        // ## Assert ##
+        assertFalse(cache.isWritingTable("MEMBER"));
+        assertNull(cache.findCount(MEMBER_FINGERPRINT));
+        assertEquals(2, cache.getInvalidationCount());
+    }
+
+    public void test_reflectWriting_uncommittedCountNotShared() throws Exception {
+        // ## Arrange ##
+        final PagingCountCache cache = new PagingCountCache(10, 60000L);
+        cache.reflectWriting("PURCHASE"); // in sub-query, not committed yet
+        final Integer[] otherFound = new Integer[1];
+        Thread committedCounter = new Thread(new Runnable() {
+            public void run() { // other thread counts committed rows
+                cache.registerCount(cache.prepareEntry(MEMBER_FINGERPRINT), 123);
+            }
+        });
+        committedCounter.start();
+        committedCounter.join();
+
+        // ## Act ##
+        Integer found = cache.findCount(MEMBER_FINGERPRINT);
+        PagingCountCache.CountEntry entry = cache.prepareEntry(MEMBER_FINGERPRINT);
+        cache.registerCount(entry, 124); // contains uncommitted rows
+
+        // ## Assert ##
+        assertNull(found); // committed count is not for the writing thread
+        assertTrue(entry.isUncommitted());
+        Thread otherFinder = new Thread(new Runnable() {
+            public void run() {
+                otherFound[0] = cache.findCount(MEMBER_FINGERPRINT);
+            }
+        });
+        otherFinder.start();
+        otherFinder.join();
+        assertEquals(Integer.valueOf(123), otherFound[0]); // not uncommitted count
+        cache.reflectCompletion(); // rollback
+        assertNull(cache.findCount(MEMBER_FINGERPRINT));
+    }
+
+    public void test_reflectWritingAll() throws Exception {
+        // ## Arrange ##
+        PagingCountCache cache = new PagingCountCache(10, 60000L);
+
+        // ## Act ##
+        cache.reflectWritingAll();
+
+        // ## Assert ##
+        assertTrue(cache.isWritingTable("MEMBER"));
+        assertTrue(cache.prepareEntry(MEMBER_FINGERPRINT).isUncommitted());
+        cache.reflectCompletion();
+        assertFalse(cache.isWritingTable("MEMBER"));
+        assertEquals(2, cache.getInvalidationCount());
+    }
+
+    public void test_isWritingTable_expired() throws Exception {
+        // ## Arrange ##
+        final long[] current = new long[] { 1000L };
+        PagingCountCache cache = new PagingCountCache(10, 500L) {
+            @Override
+            protected long currentTimeMillis() {
+                return current[0];
+            }
+        };
+        cache.reflectWriting("MEMBER"); // and completion is not reflected
+
+        // ## Act ##
+        current[0] = 1500L;
+        boolean alive = cache.isWritingTable("MEMBER");
+        current[0] = 1501L;
+        boolean expired = cache.isWritingTable("MEMBER");
+
+        // ## Assert ##
+        assertTrue(alive);
+        assertFalse(expired);
+    }
+
+    public void test_normalizeTableName() throws Exception {
+        PagingCountCache cache = new PagingCountCache(10, 60000L);
+        assertEquals("MEMBER", cache.normalizeTableName("member"));
+        assertEquals("MEMBER", cache.normalizeTableName("EXAMPLEDB.MEMBER"));
+        assertEquals("MEMBER", cache.normalizeTableName("\"MEMBER\""));
+        assertEquals("MEMBER", cache.normalizeTableName("[dbo].[MEMBER]"));
+    }
+}
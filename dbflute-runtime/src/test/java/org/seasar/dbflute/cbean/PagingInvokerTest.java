@@ -16,7 +16,13 @@
 package org.seasar.dbflute.cbean;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.seasar.dbflute.mock.MockColumnInfo;
 import org.seasar.dbflute.unit.core.PlainTestCase;
@@ -421,6 +427,299 @@ public class PagingInvokerTest extends PlainTestCase {
         assertEquals("count", markList.get(1));
     }
 
+    public void test_invokePaging_concurrentCount() throws Exception {
+        // ## Arrange ##
+        final List<String> selectedList = new ArrayList<String>();
+        fillList(selectedList, 20);
+        final SimplePagingBean pagingBean = new SimplePagingBean();
+        pagingBean.getSqlClause().registerOrderBy("aaa", true, new MockColumnInfo());
+        pagingBean.fetchFirst(20);
+        PagingInvoker<String> tgt = createTarget();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        tgt.setConcurrentCountExecutor(executor);
+        final Thread currentThread = Thread.currentThread();
+        final CountDownLatch pagingLatch = new CountDownLatch(1);
+
+        // ## Act ##
+        final List<String> markList = Collections.synchronizedList(new ArrayList<String>());
+        PagingResultBean<String> rb;
+        try {
+            rb = tgt.invokePaging(new ConcurrentPagingHandler<String>() {
+                public PagingBean getPagingBean() {
+                    return pagingBean;
+                }
+
+                public int count() {
+                    markList.add("count");
+                    return 60;
+                }
+
+                public int countConcurrently() {
+                    assertNotSame(currentThread, Thread.currentThread());
+                    try {
+                        // proves the two selects run at the same time
+                        assertTrue(pagingLatch.await(10, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    markList.add("countConcurrently");
+                    return 60;
+                }
+
+                public List<String> paging() {
+                    assertSame(currentThread, Thread.currentThread());
+                    markList.add("paging");
+                    pagingLatch.countDown();
+                    return selectedList;
+                }
+            });
+        } finally {
+            executor.shutdown();
+        }
+
+        // ## Assert ##
+        assertEquals(20, rb.size());
+        assertEquals(60, rb.getAllRecordCount());
+        assertEquals(3, rb.getAllPageCount());
+        assertEquals(newArrayList("paging", "countConcurrently"), markList);
+    }
+
+    public void test_invokePaging_concurrentCount_noExecutor() {
+        // ## Arrange ##
+        final List<String> selectedList = new ArrayList<String>();
+        fillList(selectedList, 20);
+        final SimplePagingBean pagingBean = new SimplePagingBean();
+        pagingBean.fetchFirst(20);
+        PagingInvoker<String> tgt = createTarget();
+
+        // ## Act ##
+        final List<String> markList = new ArrayList<String>();
+        PagingResultBean<String> rb = tgt.invokePaging(new ConcurrentPagingHandler<String>() {
+            public PagingBean getPagingBean() {
+                return pagingBean;
+            }
+
+            public int count() {
+                markList.add("count");
+                return 60;
+            }
+
+            public int countConcurrently() {
+                markList.add("countConcurrently");
+                return 60;
+            }
+
+            public List<String> paging() {
+                markList.add("paging");
+                return selectedList;
+            }
+        });
+
+        // ## Assert ##
+        assertEquals(60, rb.getAllRecordCount());
+        assertEquals(newArrayList("count", "paging"), markList);
+    }
+
+    public void test_invokePaging_concurrentCount_failure() {
+        // ## Arrange ##
+        final SimplePagingBean pagingBean = new SimplePagingBean();
+        pagingBean.fetchFirst(20);
+        PagingInvoker<String> tgt = createTarget();
+        tgt.setConcurrentCountExecutor(new Executor() {
+            public void execute(Runnable command) {
+                command.run(); // synchronous for test
+            }
+        });
+
+        // ## Act ##
+        try {
+            tgt.invokePaging(new ConcurrentPagingHandler<String>() {
+                public PagingBean getPagingBean() {
+                    return pagingBean;
+                }
+
+                public int count() {
+                    return 0;
+                }
+
+                public int countConcurrently() {
+                    throw new IllegalStateException("count failure");
+                }
+
+                public List<String> paging() {
+                    return new ArrayList<String>();
+                }
+            });
+            // ## Assert ##
+            fail();
+        } catch (IllegalStateException e) {
+            // OK
+            log(e.getMessage());
+            assertEquals("count failure", e.getMessage());
+        }
+    }
+
+    public void test_invokePaging_concurrentCount_pagingError() throws Exception {
+        // ## Arrange ##
+        final SimplePagingBean pagingBean = new SimplePagingBean();
+        pagingBean.fetchFirst(20);
+        PagingInvoker<String> tgt = createTarget();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        tgt.setConcurrentCountExecutor(executor);
+        final CountDownLatch countStartedLatch = new CountDownLatch(1);
+        final CountDownLatch countInterruptedLatch = new CountDownLatch(1);
+
+        // ## Act ##
+        try {
+            tgt.invokePaging(new ConcurrentPagingHandler<String>() {
+                public PagingBean getPagingBean() {
+                    return pagingBean;
+                }
+
+                public int count() {
+                    return 0;
+                }
+
+                public int countConcurrently() {
+                    countStartedLatch.countDown();
+                    try {
+                        Thread.sleep(10000L); // until cancelled
+                    } catch (InterruptedException e) {
+                        countInterruptedLatch.countDown();
+                    }
+                    return 0;
+                }
+
+                public List<String> paging() {
+                    try {
+                        assertTrue(countStartedLatch.await(10, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    throw new PagingErrorForTest("paging error");
+                }
+            });
+            // ## Assert ##
+            fail();
+        } catch (PagingErrorForTest e) {
+            // OK
+            log(e.getMessage());
+            assertTrue(countInterruptedLatch.await(10, TimeUnit.SECONDS)); // cancelled even if error
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    protected static class PagingErrorForTest extends Error {
+
+        private static final long serialVersionUID = 1L;
+
+        public PagingErrorForTest(String msg) {
+            super(msg);
+        }
+    }
+
+    public void test_invokePaging_concurrentCount_countCache() {
+        // ## Arrange ##
+        final List<String> selectedList = new ArrayList<String>();
+        fillList(selectedList, 20);
+        final SimplePagingBean pagingBean = new SimplePagingBean();
+        pagingBean.fetchFirst(20);
+        PagingInvoker<String> tgt = createTarget();
+        tgt.setConcurrentCountExecutor(new Executor() {
+            public void execute(Runnable command) {
+                command.run(); // synchronous for test
+            }
+        });
+        PagingCountCache cache = new PagingCountCache(10, 60000L) {
+            @Override
+            public String buildFingerprint(PagingBean pagingBean) {
+                return "MEMBER:select count(*) from MEMBER dfloc";
+            }
+        };
+        tgt.setPagingCountCache(cache);
+        final List<String> markList = new ArrayList<String>();
+        PagingHandler<String> handler = new ConcurrentPagingHandler<String>() {
+            public PagingBean getPagingBean() {
+                return pagingBean;
+            }
+
+            public int count() {
+                markList.add("count");
+                return 60;
+            }
+
+            public int countConcurrently() {
+                markList.add("countConcurrently");
+                return 60;
+            }
+
+            public List<String> paging() {
+                markList.add("paging");
+                return selectedList;
+            }
+        };
+
+        // ## Act ##
+        PagingResultBean<String> firstRb = tgt.invokePaging(handler);
+        pagingBean.fetchPage(2);
+        PagingResultBean<String> secondRb = tgt.invokePaging(handler);
+
+        // ## Assert ##
+        assertEquals(60, firstRb.getAllRecordCount());
+        assertEquals(60, secondRb.getAllRecordCount());
+        assertEquals(newArrayList("countConcurrently", "paging", "paging"), markList);
+        assertEquals(1, cache.getHitCount());
+    }
+
+    public void test_invokePaging_countCache() {
+        // ## Arrange ##
+        final List<String> selectedList = new ArrayList<String>();
+        fillList(selectedList, 20);
+        final SimplePagingBean pagingBean = new SimplePagingBean();
+        pagingBean.fetchFirst(20);
+        PagingInvoker<String> tgt = createTarget();
+        PagingCountCache cache = new PagingCountCache(10, 60000L) {
+            @Override
+            public String buildFingerprint(PagingBean pagingBean) {
+                return "MEMBER:select count(*) from MEMBER dfloc";
+            }
+        };
+        tgt.setPagingCountCache(cache);
+        final List<String> markList = new ArrayList<String>();
+        PagingHandler<String> handler = new PagingHandler<String>() {
+            public PagingBean getPagingBean() {
+                return pagingBean;
+            }
+
+            public int count() {
+                markList.add("count");
+                return 60;
+            }
+
+            public List<String> paging() {
+                markList.add("paging");
+                return selectedList;
+            }
+        };
+
+        // ## Act ##
+        PagingResultBean<String> firstRb = tgt.invokePaging(handler);
+        pagingBean.fetchPage(2);
+        PagingResultBean<String> secondRb = tgt.invokePaging(handler);
+        cache.invalidateTable("MEMBER");
+        pagingBean.fetchPage(3);
+        PagingResultBean<String> thirdRb = tgt.invokePaging(handler);
+
+        // ## Assert ##
+        assertEquals(60, firstRb.getAllRecordCount());
+        assertEquals(60, secondRb.getAllRecordCount());
+        assertEquals(2, secondRb.getCurrentPageNumber());
+        assertEquals(60, thirdRb.getAllRecordCount());
+        assertEquals(newArrayList("count", "paging", "paging", "count", "paging"), markList);
+        assertEquals(1, cache.getHitCount());
+    }
+
     // ===================================================================================
     //                                                       isNecessaryToReadCountLater()
     //                                                       =============================
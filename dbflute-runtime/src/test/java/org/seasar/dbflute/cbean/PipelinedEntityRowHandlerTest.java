@@ -0,0 +1,198 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.cbean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.seasar.dbflute.unit.core.PlainTestCase;
+
+/**
+ * @author jflute
+ * @since 1.0.5N (2014/12/17 Wednesday)
+ */
+public class PipelinedEntityRowHandlerTest extends PlainTestCase {
+
+    // ===================================================================================
+    //                                                                               Basic
+    //                                                                               =====
+    public void test_handle_singleWorker_keepsOrder() {
+        // ## Arrange ##
+        final List<String> handledList = new ArrayList<String>();
+        final Thread callerThread = Thread.currentThread();
+        final List<Thread> workerThreadList = Collections.synchronizedList(new ArrayList<Thread>());
+        PipelinedEntityRowHandler<String> pipeline = new PipelinedEntityRowHandler<String>(
+                new EntityRowHandler<String>() {
+                    public void handle(String entity) {
+                        workerThreadList.add(Thread.currentThread());
+                        handledList.add(entity);
+                    }
+                }, 2, 1, 3);
+
+        // ## Act ##
+        pipeline.start();
+        for (int i = 0; i < 10; i++) {
+            pipeline.handle("row" + i);
+        }
+        pipeline.finish();
+
+        // ## Assert ##
+        assertEquals(10, handledList.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("row" + i, handledList.get(i));
+        }
+        for (Thread workerThread : workerThreadList) {
+            assertNotSame(callerThread, workerThread);
+        }
+    }
+
+    public void test_handle_multipleWorkers() {
+        // ## Arrange ##
+        final List<Integer> handledList = Collections.synchronizedList(new ArrayList<Integer>());
+        PipelinedEntityRowHandler<Integer> pipeline = new PipelinedEntityRowHandler<Integer>(
+                new EntityRowHandler<Integer>() {
+                    public void handle(Integer entity) {
+                        handledList.add(entity);
+                    }
+                }, 4, 3, 5);
+
+        // ## Act ##
+        pipeline.start();
+        for (int i = 0; i < 101; i++) {
+            pipeline.handle(i);
+        }
+        pipeline.finish();
+
+        // ## Assert ##
+        assertEquals(101, handledList.size());
+        final List<Integer> sortedList = new ArrayList<Integer>(handledList);
+        Collections.sort(sortedList);
+        for (int i = 0; i < 101; i++) {
+            assertEquals(Integer.valueOf(i), sortedList.get(i));
+        }
+    }
+
+    public void test_handle_backPressure() throws Exception {
+        // ## Arrange ##
+        final CountDownLatch latch = new CountDownLatch(1);
+        PipelinedEntityRowHandler<String> pipeline = new PipelinedEntityRowHandler<String>(
+                new EntityRowHandler<String>() {
+                    public void handle(String entity) {
+                        try {
+                            latch.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }, 1, 1, 1);
+        pipeline.start();
+        pipeline.handle("first"); // taken by the worker, blocked
+        Thread.sleep(200L);
+        pipeline.handle("second"); // queued
+
+        // ## Act ##
+        final long before = System.currentTimeMillis();
+        new Thread(new Runnable() {
+            public void run() {
+                try {
+                    Thread.sleep(300L);
+                } catch (InterruptedException ignored) {}
+                latch.countDown();
+            }
+        }).start();
+        pipeline.handle("third"); // waits for the queue space
+        final long waited = System.currentTimeMillis() - before;
+        pipeline.finish();
+
+        // ## Assert ##
+        log("waited: " + waited);
+        assertTrue(waited >= 200L);
+    }
+
+    // ===================================================================================
+    //                                                                             Failure
+    //                                                                             =======
+    public void test_handle_workerFailure_thrownOnCaller() {
+        // ## Arrange ##
+        PipelinedEntityRowHandler<Integer> pipeline = new PipelinedEntityRowHandler<Integer>(
+                new EntityRowHandler<Integer>() {
+                    public void handle(Integer entity) {
+                        if (entity == 3) {
+                            throw new IllegalStateException("handling failure");
+                        }
+                    }
+                }, 1, 1, 1);
+
+        // ## Act ##
+        pipeline.start();
+        try {
+            for (int i = 0; i < 1000; i++) {
+                pipeline.handle(i);
+            }
+            pipeline.finish();
+
+            // ## Assert ##
+            fail();
+        } catch (IllegalStateException e) {
+            log(e.getMessage());
+            assertEquals("handling failure", e.getMessage());
+        } finally {
+            pipeline.cancel();
+        }
+    }
+
+    public void test_cancel_stopsWorkers() throws Exception {
+        // ## Arrange ##
+        final List<String> handledList = Collections.synchronizedList(new ArrayList<String>());
+        PipelinedEntityRowHandler<String> pipeline = new PipelinedEntityRowHandler<String>(
+                new EntityRowHandler<String>() {
+                    public void handle(String entity) {
+                        handledList.add(entity);
+                    }
+                }, 10, 2, 100);
+        pipeline.start();
+        pipeline.handle("first"); // stays in the current batch
+
+        // ## Act ##
+        pipeline.cancel(); // e.g. fetching failed
+
+        // ## Assert ##
+        Thread.sleep(200L);
+        assertTrue(handledList.isEmpty());
+    }
+
+    public void test_handle_notStarted() {
+        // ## Arrange ##
+        PipelinedEntityRowHandler<String> pipeline = new PipelinedEntityRowHandler<String>(
+                new EntityRowHandler<String>() {
+                    public void handle(String entity) {
+                    }
+                }, 1, 1, 1);
+
+        // ## Act ##
+        try {
+            pipeline.handle("first");
+
+            // ## Assert ##
+            fail();
+        } catch (IllegalStateException e) {
+            log(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.cbean.compact;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.seasar.dbflute.Entity;
+import org.seasar.dbflute.cbean.CompactListResultBean;
+import org.seasar.dbflute.dbmeta.DBMeta;
+import org.seasar.dbflute.dbmeta.info.ColumnInfo;
+import org.seasar.dbflute.mock.MockColumnInfo;
+import org.seasar.dbflute.mock.MockDBMeta;
+import org.seasar.dbflute.mock.MockEntity;
+import org.seasar.dbflute.unit.core.PlainTestCase;
+
+/**
+ * @author jflute
+ * @since 1.0.5N (2014/12/20 Saturday)
+ */
+public class CompactEntityListTest extends PlainTestCase {
+
+    // ===================================================================================
+    //                                                                         Materialize
+    //                                                                         ===========
+    public void test_materialize_basic() {
+        // ## Arrange ##
+        CompactEntityList<CompactMember> compactList = createCompactList();
+        compactList.addEntity(createMember(1, "Stojkovic", 100L, "12.5"));
+        compactList.addEntity(createMember(2, null, null, null));
+        compactList.addEntity(createMember(3, "Stojkovic", 300L, "0.5"));
+        compactList.trimToSize();
+
+        // ## Act ##
+        CompactMember first = compactList.get(0);
+        CompactMember second = compactList.get(1);
+
+        // ## Assert ##
+        assertEquals(3, compactList.size());
+        assertEquals(Integer.valueOf(1), first.getMemberId());
+        assertEquals("Stojkovic", first.getMemberName());
+        assertEquals(Long.valueOf(100L), first.getPoint());
+        assertEquals(new BigDecimal("12.5"), first.getAmount());
+        assertTrue(first.createdBySelect());
+        assertNull(second.getMemberName());
+        assertNull(second.getPoint());
+        assertNotSame(first, compactList.get(0)); // materialized at every access
+        List<Integer> idList = new ArrayList<Integer>();
+        for (CompactMember member : compactList) {
+            idList.add(member.getMemberId());
+        }
+        assertEquals(newArrayList(1, 2, 3), idList);
+        CompactStringColumn nameColumn = (CompactStringColumn) compactList.getColumn(findColumn(compactList, "MEMBER_NAME"));
+        assertEquals(1, nameColumn.getDictionarySize());
+        assertEquals(-1, nameColumn.getCode(1));
+    }
+
+    public void test_materialize_specified() {
+        // ## Arrange ##
+        CompactEntityList<CompactMember> compactList = createCompactList();
+        CompactMember selected = createMember(1, null, 100L, "12.5"); // point and amount are not specified
+        selected.setSpecifiedPropertyNames(newLinkedHashSet("MEMBER_ID", "MEMBER_NAME"));
+        compactList.addEntity(selected);
+
+        // ## Act ##
+        CompactMember member = compactList.get(0);
+
+        // ## Assert ##
+        assertEquals(Integer.valueOf(1), member.getMemberId());
+        assertEquals(newLinkedHashSet("MEMBER_ID", "MEMBER_NAME"), member.myspecifiedProperties());
+        assertNull(member.getPoint());
+        assertTrue(compactList.getColumn(findColumn(compactList, "POINT")).isNull(0)); // not read
+    }
+
+    public void test_readOnly() {
+        // ## Arrange ##
+        CompactEntityList<CompactMember> compactList = createCompactList();
+        compactList.addEntity(createMember(1, "Stojkovic", 100L, "12.5"));
+
+        // ## Act ##
+        // ## Assert ##
+        try {
+            compactList.add(createMember(2, "Pixy", 200L, "1"));
+            fail();
+        } catch (UnsupportedOperationException e) {
+            log(e.getMessage());
+        }
+        try {
+            compactList.get(1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            log(e.getMessage());
+        }
+    }
+
+    public void test_serialize() throws Exception {
+        // ## Arrange ##
+        CompactEntityList<CompactMember> compactList = createCompactList();
+        compactList.addEntity(createMember(1, "Stojkovic", 100L, "12.5"));
+        compactList.trimToSize();
+
+        // ## Act ##
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ObjectOutputStream(out).writeObject(compactList);
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()));
+        @SuppressWarnings("unchecked")
+        CompactEntityList<CompactMember> deserialized = (CompactEntityList<CompactMember>) in.readObject();
+
+        // ## Assert ##
+        assertEquals("Stojkovic", deserialized.get(0).getMemberName());
+    }
+
+    // ===================================================================================
+    //                                                                      Extract Column
+    //                                                                      ==============
+    public void test_extractColumn_noMaterializing() {
+        // ## Arrange ##
+        CompactEntityList<CompactMember> compactList = createCompactList();
+        compactList.addEntity(createMember(1, "Stojkovic", Long.MAX_VALUE, "12.5"));
+        compactList.addEntity(createMember(2, null, null, null));
+        compactList.addEntity(createMember(3, "Pixy", 1L, "0.5"));
+        compactList.addEntity(createMember(4, "Stojkovic", 2L, "1"));
+        CompactListResultBean<CompactMember> rb = new CompactListResultBean<CompactMember>();
+        rb.setSelectedList(compactList);
+        CompactMember.materializedCount = 0;
+        DBMeta dbmeta = compactList.getDBMeta();
+
+        // ## Act ##
+        List<String> nameList = rb.extractColumnList(findColumn(compactList, "MEMBER_NAME"));
+        Set<String> nameSet = rb.extractColumnSet(findColumn(compactList, "MEMBER_NAME"));
+        BigDecimal idSum = rb.sumColumn(findColumn(compactList, "MEMBER_ID"));
+        BigDecimal pointSum = rb.sumColumn(findColumn(compactList, "POINT"));
+        BigDecimal amountSum = rb.sumColumn(findColumn(compactList, "AMOUNT"));
+
+        // ## Assert ##
+        assertEquals(newArrayList("Stojkovic", "Pixy", "Stojkovic"), nameList);
+        assertEquals(newLinkedHashSet("Stojkovic", "Pixy"), nameSet);
+        assertEquals(new BigDecimal("10"), idSum);
+        assertEquals(BigDecimal.valueOf(Long.MAX_VALUE).add(new BigDecimal("3")), pointSum); // over long
+        assertEquals(new BigDecimal("14.0"), amountSum);
+        assertEquals(0, CompactMember.materializedCount);
+        CompactLongColumn pointColumn = (CompactLongColumn) rb.getCompactColumn(findColumn(compactList, "POINT"));
+        assertEquals(1L, pointColumn.getLong(2));
+        assertEquals(4, rb.size());
+        try {
+            rb.sumColumn(findColumn(compactList, "MEMBER_NAME"));
+            fail();
+        } catch (IllegalStateException e) {
+            log(e.getMessage());
+        }
+        try {
+            rb.extractColumnList(new MockColumnInfo(dbmeta, "NOT_EXISTS", false));
+            fail();
+        } catch (IllegalArgumentException e) {
+            log(e.getMessage());
+        }
+    }
+
+    // ===================================================================================
+    //                                                                         Test Helper
+    //                                                                         ===========
+    protected CompactEntityList<CompactMember> createCompactList() {
+        return new CompactEntityList<CompactMember>(new CompactMember().getDBMeta(), CompactMember.class);
+    }
+
+    protected CompactMember createMember(Integer memberId, String memberName, Long point, String amount) {
+        CompactMember member = new CompactMember();
+        member.setMemberId(memberId);
+        member.setMemberName(memberName);
+        member.setPoint(point);
+        member.setAmount(amount != null ? new BigDecimal(amount) : null);
+        return member;
+    }
+
+    protected ColumnInfo findColumn(CompactEntityList<CompactMember> compactList, String columnDbName) {
+        for (ColumnInfo columnInfo : compactList.getDBMeta().getColumnInfoList()) {
+            if (columnInfo.getColumnDbName().equals(columnDbName)) {
+                return columnInfo;
+            }
+        }
+        throw new IllegalStateException("Not found the column: " + columnDbName);
+    }
+
+    public static class CompactMember extends MockEntity {
+
+        protected static final CompactMemberDBMeta DBMETA = new CompactMemberDBMeta();
+        protected static int materializedCount;
+
+        protected Long _point;
+        protected BigDecimal _amount;
+        protected Set<String> _specifiedPropertyNames = new LinkedHashSet<String>();
+        protected boolean _createdBySelect;
+
+        public CompactMember() {
+            ++materializedCount;
+        }
+
+        @Override
+        public DBMeta getDBMeta() {
+            return DBMETA;
+        }
+
+        @Override
+        public void modifiedToSpecified() {
+            _specifiedPropertyNames = new LinkedHashSet<String>(newSpecified());
+        }
+
+        protected Set<String> newSpecified() { // all written columns
+            Set<String> set = new LinkedHashSet<String>();
+            set.add("MEMBER_ID");
+            set.add("MEMBER_NAME");
+            return set;
+        }
+
+        @Override
+        public Set<String> myspecifiedProperties() {
+            return _specifiedPropertyNames;
+        }
+
+        @Override
+        public void markAsSelect() {
+            _createdBySelect = true;
+        }
+
+        @Override
+        public boolean createdBySelect() {
+            return _createdBySelect;
+        }
+
+        public Long getPoint() {
+            return _point;
+        }
+
+        public void setPoint(Long point) {
+            _point = point;
+        }
+
+        public BigDecimal getAmount() {
+            return _amount;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            _amount = amount;
+        }
+
+        public void setSpecifiedPropertyNames(Set<String> specifiedPropertyNames) {
+            _specifiedPropertyNames = specifiedPropertyNames;
+        }
+    }
+
+    protected static class CompactMemberDBMeta extends MockDBMeta {
+
+        protected final List<ColumnInfo> _columnInfoList = new ArrayList<ColumnInfo>();
+        {
+            _columnInfoList.add(new TypedColumnInfo(this, "MEMBER_ID", Integer.class) {
+                @Override
+                protected Object doRead(CompactMember member) {
+                    return member.getMemberId();
+                }
+
+                @Override
+                protected void doWrite(CompactMember member, Object value) {
+                    member.setMemberId((Integer) value);
+                }
+            });
+            _columnInfoList.add(new TypedColumnInfo(this, "MEMBER_NAME", String.class) {
+                @Override
+                protected Object doRead(CompactMember member) {
+                    return member.getMemberName();
+                }
+
+                @Override
+                protected void doWrite(CompactMember member, Object value) {
+                    member.setMemberName((String) value);
+                }
+            });
+            _columnInfoList.add(new TypedColumnInfo(this, "POINT", Long.class) {
+                @Override
+                protected Object doRead(CompactMember member) {
+                    return member.getPoint();
+                }
+
+                @Override
+                protected void doWrite(CompactMember member, Object value) {
+                    member.setPoint((Long) value);
+                }
+            });
+            _columnInfoList.add(new TypedColumnInfo(this, "AMOUNT", BigDecimal.class) {
+                @Override
+                protected Object doRead(CompactMember member) {
+                    return member.getAmount();
+                }
+
+                @Override
+                protected void doWrite(CompactMember member, Object value) {
+                    member.setAmount((BigDecimal) value);
+                }
+            });
+        }
+
+        @Override
+        public String getTableDbName() {
+            return "MEMBER";
+        }
+
+        @Override
+        public List<ColumnInfo> getColumnInfoList() {
+            return _columnInfoList;
+        }
+    }
+
+    protected static abstract class TypedColumnInfo extends MockColumnInfo {
+
+        protected final Class<?> _accessType;
+
+        public TypedColumnInfo(DBMeta dbmeta, String columnDbName, Class<?> accessType) {
+            super(dbmeta, columnDbName, "MEMBER_ID".equals(columnDbName));
+            _accessType = accessType;
+        }
+
+        @Override
+        public Class<?> getPropertyAccessType() {
+            return _accessType;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <PROPERTY> PROPERTY read(Entity entity) {
+            return (PROPERTY) doRead((CompactMember) entity);
+        }
+
+        protected abstract Object doRead(CompactMember member);
+
+        @Override
+        public void write(Entity entity, Object value) {
+            doWrite((CompactMember) entity, value);
+        }
+
+        protected abstract void doWrite(CompactMember member, Object value);
+    }
+}
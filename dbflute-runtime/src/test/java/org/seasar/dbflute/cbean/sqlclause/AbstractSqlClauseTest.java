@@ -0,0 +1,298 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.cbean.sqlclause;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.seasar.dbflute.cbean.KeysetPagingToken;
+import org.seasar.dbflute.cbean.chelper.HpDerivingSubQueryInfo;
+import org.seasar.dbflute.cbean.sqlclause.select.SelectClauseFragment;
+import org.seasar.dbflute.dbmeta.DBMeta;
+import org.seasar.dbflute.dbmeta.DBMetaProvider;
+import org.seasar.dbflute.dbmeta.info.ColumnInfo;
+import org.seasar.dbflute.dbmeta.info.UniqueInfo;
+import org.seasar.dbflute.exception.IllegalConditionBeanOperationException;
+import org.seasar.dbflute.helper.cache.BoundedConcurrentCache;
+import org.seasar.dbflute.mock.MockColumnInfo;
+import org.seasar.dbflute.mock.MockDBMeta;
+import org.seasar.dbflute.mock.MockDBMetaProvider;
+import org.seasar.dbflute.unit.core.PlainTestCase;
+
+/**
+ * @author jflute
+ * @since 1.0.5N (2014/12/16 Tuesday)
+ */
+public class AbstractSqlClauseTest extends PlainTestCase {
+
+    // ===================================================================================
+    //                                                                      Fragment Cache
+    //                                                                      ==============
+    public void test_getSelectClause_fragmentCache_sameShape() throws Exception {
+        // ## Arrange ##
+        DBMetaProvider provider = createMemberDBMetaProvider();
+        BoundedConcurrentCache<String, SelectClauseFragment> cache = AbstractSqlClause.getSelectClauseFragmentCache();
+        SqlClauseDefault first = new SqlClauseDefault("MEMBER");
+        first.dbmetaProvider(provider);
+        SqlClauseDefault second = new SqlClauseDefault("MEMBER");
+        second.dbmetaProvider(provider);
+
+        // ## Act ##
+        long hitCount = cache.getHitCount();
+        String firstClause = first.getSelectClause();
+        String secondClause = second.getSelectClause();
+
+        // ## Assert ##
+        log(secondClause);
+        assertEquals(firstClause, secondClause);
+        assertEquals(hitCount + 1, cache.getHitCount());
+        Map<String, Map<String, Integer>> selectIndexMap = second.getSelectIndexMap();
+        assertEquals(first.getSelectIndexMap(), selectIndexMap);
+        assertEquals(Integer.valueOf(1), selectIndexMap.get("loc00").get("MEMBER_ID"));
+        assertEquals(Integer.valueOf(2), selectIndexMap.get("loc00").get("MEMBER_NAME"));
+        assertEquals("MEMBER_NAME", second.getSelectColumnKeyNameMap().get("MEMBER_NAME"));
+        assertEquals("MEMBER_NAME", second.getSelectClauseRealColumnAliasMap().get("dfloc.MEMBER_NAME"));
+    }
+
+    public void test_getSelectClause_fragmentCache_differentShape() throws Exception {
+        // ## Arrange ##
+        DBMetaProvider provider = createMemberDBMetaProvider();
+        SqlClauseDefault plain = new SqlClauseDefault("MEMBER");
+        plain.dbmetaProvider(provider);
+        SqlClauseDefault pkOnly = new SqlClauseDefault("MEMBER");
+        pkOnly.dbmetaProvider(provider);
+        pkOnly.enablePKOnlySelectForcedly();
+
+        // ## Act ##
+        String plainClause = plain.getSelectClause();
+        String pkOnlyClause = pkOnly.getSelectClause();
+
+        // ## Assert ##
+        log(plainClause);
+        log(pkOnlyClause);
+        assertTrue(plainClause.contains("MEMBER_NAME"));
+        assertFalse(pkOnlyClause.contains("MEMBER_NAME"));
+        assertNull(pkOnly.getSelectIndexMap().get("loc00").get("MEMBER_NAME"));
+        assertFalse(plain.buildSelectClauseFragmentKey().equals(pkOnly.buildSelectClauseFragmentKey()));
+    }
+
+    public void test_getSelectClause_fragmentCache_rebuiltShapeNotShared() throws Exception {
+        // ## Arrange ##
+        BoundedConcurrentCache<String, SelectClauseFragment> cache = AbstractSqlClause.getSelectClauseFragmentCache();
+        SqlClauseDefault sqlClause = createMemberSqlClause(new SqlClauseDefault("MEMBER"));
+        String plainKey = sqlClause.buildSelectClauseFragmentKey();
+        cache.remove(plainKey); // to be built by this clause
+        sqlClause.getSelectClause();
+        SelectClauseFragment plainFragment = cache.peek(plainKey);
+        Map<String, String> cachedAliasMap = plainFragment.getRealColumnAliasMap();
+        Map<String, String> expectedAliasMap = new HashMap<String, String>(cachedAliasMap);
+
+        // ## Act ##
+        String derivedQuery = "(select max(sub1loc.PURCHASE_PRICE) from PURCHASE sub1loc"
+                + " where sub1loc.MEMBER_ID = dfloc.MEMBER_ID) as HIGHEST_PURCHASE_PRICE";
+        sqlClause.specifyDerivingSubQuery(new HpDerivingSubQueryInfo("max", "HIGHEST_PURCHASE_PRICE", derivedQuery, null));
+        String derivedClause = sqlClause.getSelectClause(); // rebuilt with different shape
+
+        // ## Assert ##
+        log(derivedClause);
+        assertContains(derivedClause, "HIGHEST_PURCHASE_PRICE");
+        assertEquals("HIGHEST_PURCHASE_PRICE", sqlClause.getSelectClauseRealColumnAliasMap().get("HIGHEST_PURCHASE_PRICE"));
+        assertSame(plainFragment, cache.peek(plainKey));
+        assertEquals(expectedAliasMap, cachedAliasMap); // not changed by the rebuilt clause
+        try {
+            cachedAliasMap.put("dfloc.FOO", "FOO");
+            // ## Assert ##
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // OK
+            log(e.getMessage());
+        }
+    }
+
+    // ===================================================================================
+    //                                                                       Keyset Paging
+    //                                                                       =============
+    public void test_registerKeysetPaging_expanded() throws Exception {
+        // ## Arrange ##
+        SqlClauseDefault sqlClause = createMemberSqlClause(new SqlClauseDefault("MEMBER"));
+        sqlClause.registerOrderBy("dfloc.MEMBER_NAME", false, findColumn(sqlClause, "MEMBER_NAME"));
+        sqlClause.registerOrderBy("dfloc.MEMBER_ID", true, findColumn(sqlClause, "MEMBER_ID"));
+        List<String> columnList = newArrayList("dfloc.MEMBER_NAME desc", "dfloc.MEMBER_ID asc");
+        KeysetPagingToken token = new KeysetPagingToken(columnList, newArrayList((Object) "Stojkovic", 3));
+
+        // ## Act ##
+        sqlClause.registerKeysetPaging(token);
+
+        // ## Assert ##
+        assertTrue(sqlClause.isKeysetPagingEffective());
+        String whereClause = sqlClause.getWhereClause();
+        log(whereClause);
+        String firstExp = "/*pmb.conditionQuery.freePrmMap.keyset.get(0)*/null";
+        String secondExp = "/*pmb.conditionQuery.freePrmMap.keyset.get(1)*/null";
+        assertContains(whereClause, "(dfloc.MEMBER_NAME < " + firstExp + " or (dfloc.MEMBER_NAME = " + firstExp
+                + " and dfloc.MEMBER_ID > " + secondExp + "))");
+        assertEquals(newArrayList((Object) "Stojkovic", 3), sqlClause.getFreeParameterMap().get("keyset"));
+    }
+
+    public void test_registerKeysetPaging_rowValue() throws Exception {
+        // ## Arrange ##
+        SqlClausePostgreSql sqlClause = createMemberSqlClause(new SqlClausePostgreSql("MEMBER"));
+        sqlClause.registerOrderBy("dfloc.MEMBER_NAME", true, findColumn(sqlClause, "MEMBER_NAME"));
+        sqlClause.registerOrderBy("dfloc.MEMBER_ID", true, findColumn(sqlClause, "MEMBER_ID"));
+        List<String> columnList = newArrayList("dfloc.MEMBER_NAME asc", "dfloc.MEMBER_ID asc");
+        KeysetPagingToken token = new KeysetPagingToken(columnList, newArrayList((Object) "Stojkovic", 3));
+
+        // ## Act ##
+        sqlClause.registerKeysetPaging(token);
+
+        // ## Assert ##
+        String whereClause = sqlClause.getWhereClause();
+        log(whereClause);
+        assertContains(whereClause, "(dfloc.MEMBER_NAME, dfloc.MEMBER_ID) > (/*pmb.conditionQuery.freePrmMap.keyset.get(0)*/null"
+                + ", /*pmb.conditionQuery.freePrmMap.keyset.get(1)*/null)");
+    }
+
+    public void test_registerKeysetPaging_firstPage() throws Exception {
+        // ## Arrange ##
+        SqlClauseDefault sqlClause = createMemberSqlClause(new SqlClauseDefault("MEMBER"));
+        sqlClause.registerOrderBy("dfloc.MEMBER_ID", true, findColumn(sqlClause, "MEMBER_ID"));
+
+        // ## Act ##
+        sqlClause.registerKeysetPaging(null);
+
+        // ## Assert ##
+        assertTrue(sqlClause.isKeysetPagingEffective());
+        assertEquals("", sqlClause.getWhereClause().trim());
+    }
+
+    public void test_registerKeysetPaging_notUnique() throws Exception {
+        // ## Arrange ##
+        SqlClauseDefault sqlClause = createMemberSqlClause(new SqlClauseDefault("MEMBER"));
+        sqlClause.registerOrderBy("dfloc.MEMBER_NAME", true, findColumn(sqlClause, "MEMBER_NAME"));
+
+        // ## Act ##
+        try {
+            sqlClause.registerKeysetPaging(null);
+            // ## Assert ##
+            fail();
+        } catch (IllegalConditionBeanOperationException e) {
+            // OK
+            log(e.getMessage());
+        }
+        assertFalse(sqlClause.isKeysetPagingEffective());
+    }
+
+    public void test_registerKeysetPaging_nullableColumn() throws Exception {
+        // ## Arrange ##
+        SqlClauseDefault sqlClause = createMemberSqlClause(new SqlClauseDefault("MEMBER"));
+        sqlClause.registerOrderBy("dfloc.BIRTHDATE", true, findColumn(sqlClause, "BIRTHDATE"));
+        sqlClause.registerOrderBy("dfloc.MEMBER_ID", true, findColumn(sqlClause, "MEMBER_ID"));
+
+        // ## Act ##
+        try {
+            sqlClause.registerKeysetPaging(null);
+            // ## Assert ##
+            fail();
+        } catch (IllegalConditionBeanOperationException e) {
+            // OK
+            log(e.getMessage());
+            assertContains(e.getMessage(), "BIRTHDATE");
+        }
+        assertFalse(sqlClause.isKeysetPagingEffective());
+    }
+
+    public void test_registerKeysetPaging_tokenUnmatched() throws Exception {
+        // ## Arrange ##
+        SqlClauseDefault sqlClause = createMemberSqlClause(new SqlClauseDefault("MEMBER"));
+        sqlClause.registerOrderBy("dfloc.MEMBER_ID", false, findColumn(sqlClause, "MEMBER_ID"));
+        List<String> columnList = newArrayList("dfloc.MEMBER_ID asc");
+        KeysetPagingToken token = new KeysetPagingToken(columnList, newArrayList((Object) 3));
+
+        // ## Act ##
+        try {
+            sqlClause.registerKeysetPaging(token);
+            // ## Assert ##
+            fail();
+        } catch (IllegalArgumentException e) {
+            // OK
+            log(e.getMessage());
+        }
+    }
+
+    // ===================================================================================
+    //                                                                         Test Helper
+    //                                                                         ===========
+    protected <SQL_CLAUSE extends AbstractSqlClause> SQL_CLAUSE createMemberSqlClause(SQL_CLAUSE sqlClause) {
+        sqlClause.dbmetaProvider(createMemberDBMetaProvider());
+        return sqlClause;
+    }
+
+    protected ColumnInfo findColumn(AbstractSqlClause sqlClause, String columnDbName) {
+        for (ColumnInfo columnInfo : sqlClause.getDBMeta().getColumnInfoList()) {
+            if (columnInfo.getColumnDbName().equals(columnDbName)) {
+                return columnInfo;
+            }
+        }
+        throw new IllegalStateException("Not found the column: " + columnDbName);
+    }
+
+    protected DBMetaProvider createMemberDBMetaProvider() {
+        final DBMeta dbmeta = new MemberDBMeta();
+        return new MockDBMetaProvider() {
+            @Override
+            public DBMeta provideDBMeta(String tableFlexibleName) {
+                return dbmeta;
+            }
+
+            @Override
+            public DBMeta provideDBMetaChecked(String tableFlexibleName) {
+                return dbmeta;
+            }
+        };
+    }
+
+    protected static class MemberDBMeta extends MockDBMeta {
+
+        protected final List<ColumnInfo> _columnInfoList = new ArrayList<ColumnInfo>();
+        {
+            _columnInfoList.add(new MockColumnInfo(this, "MEMBER_ID", true));
+            _columnInfoList.add(new MockColumnInfo(this, "MEMBER_NAME", false));
+            _columnInfoList.add(new MockColumnInfo(this, "BIRTHDATE", false, false)); // nullable
+        }
+
+        @Override
+        public String getTableDbName() {
+            return "MEMBER";
+        }
+
+        @Override
+        public List<ColumnInfo> getColumnInfoList() {
+            return _columnInfoList;
+        }
+
+        @Override
+        public boolean hasPrimaryKey() {
+            return true;
+        }
+
+        @Override
+        public UniqueInfo getPrimaryUniqueInfo() {
+            return new UniqueInfo(this, newArrayList(_columnInfoList.get(0)), true);
+        }
+    }
+}
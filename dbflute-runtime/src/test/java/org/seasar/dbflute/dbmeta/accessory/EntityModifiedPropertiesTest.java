@@ -0,0 +1,167 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.dbmeta.accessory;
+
+import java.util.Iterator;
+import java.util.Set;
+
+import org.seasar.dbflute.unit.core.PlainTestCase;
+
+/**
+ * @author jflute
+ * @since 1.0.5N (2014/12/19 Friday)
+ */
+public class EntityModifiedPropertiesTest extends PlainTestCase {
+
+    // ===================================================================================
+    //                                                                             Indexed
+    //                                                                             =======
+    public void test_indexed_basic() {
+        // ## Arrange ##
+        EntityModifiedProperties properties = new EntityModifiedProperties(createIndex(3));
+
+        // ## Act ##
+        properties.addPropertyIndex(2, "prop2");
+        properties.addPropertyName("prop0");
+        properties.addPropertyName("outOfIndex");
+        properties.addPropertyIndex(2, "prop2"); // duplicate
+
+        // ## Assert ##
+        log(properties);
+        assertEquals(3, properties.size());
+        assertEquals(5L, properties.getPropertyBits());
+        assertTrue(properties.isModifiedProperty("prop0"));
+        assertFalse(properties.isModifiedProperty("prop1"));
+        assertTrue(properties.isModifiedProperty("prop2"));
+        assertTrue(properties.isModifiedProperty("outOfIndex"));
+        Set<String> nameSet = properties.getPropertyNames();
+        assertEquals(newLinkedHashSet("prop0", "prop2", "outOfIndex"), nameSet);
+        assertEquals(newArrayList("prop0", "prop2", "outOfIndex"), newArrayList(nameSet));
+        assertTrue(nameSet.contains("prop2"));
+        assertFalse(nameSet.contains("prop1"));
+    }
+
+    public void test_indexed_remove_clear() {
+        // ## Arrange ##
+        EntityModifiedProperties properties = new EntityModifiedProperties(createIndex(3));
+        properties.addPropertyIndex(0, "prop0");
+        properties.addPropertyIndex(1, "prop1");
+        Set<String> view = properties.getPropertyNames();
+
+        // ## Act ##
+        properties.remove("prop0");
+
+        // ## Assert ##
+        assertEquals(newLinkedHashSet("prop1"), view); // live view
+        properties.clear();
+        assertTrue(properties.isEmpty());
+        assertTrue(view.isEmpty());
+    }
+
+    public void test_indexed_extraBits() {
+        // ## Arrange ##
+        EntityModifiedProperties properties = new EntityModifiedProperties(createIndex(200));
+
+        // ## Act ##
+        properties.addPropertyIndex(3, "prop3");
+        properties.addPropertyIndex(64, "prop64");
+        properties.addPropertyIndex(199, "prop199");
+
+        // ## Assert ##
+        assertEquals(3, properties.size());
+        assertEquals(newArrayList("prop3", "prop64", "prop199"), newArrayList(properties.getPropertyNames()));
+        assertTrue(properties.isModifiedProperty("prop64"));
+        assertFalse(properties.isModifiedProperty("prop65"));
+        long[] extraBits = properties.getExtraPropertyBits();
+        assertEquals(3, extraBits.length);
+        assertEquals(1L, extraBits[0]);
+        assertEquals(1L << (199 - 192), extraBits[2]);
+        properties.remove("prop64");
+        assertFalse(properties.isModifiedProperty("prop64"));
+        assertEquals(2, properties.size());
+    }
+
+    public void test_indexed_accept() {
+        // ## Arrange ##
+        EntityPropertyIndex index = createIndex(70);
+        EntityModifiedProperties modified = new EntityModifiedProperties(index);
+        modified.addPropertyIndex(1, "prop1");
+        modified.addPropertyIndex(69, "prop69");
+        EntityModifiedProperties specified = new EntityModifiedProperties(index);
+
+        // ## Act ##
+        specified.accept(modified);
+        modified.addPropertyIndex(2, "prop2");
+
+        // ## Assert ##
+        assertEquals(newLinkedHashSet("prop1", "prop69"), specified.getPropertyNames());
+        EntityUniqueDrivenProperties uniqueDriven = new EntityUniqueDrivenProperties();
+        uniqueDriven.accept(modified);
+        assertEquals(newLinkedHashSet("prop1", "prop2", "prop69"), uniqueDriven.getPropertyNames());
+    }
+
+    public void test_view_readOnly() {
+        // ## Arrange ##
+        EntityModifiedProperties properties = new EntityModifiedProperties(createIndex(2));
+        properties.addPropertyIndex(0, "prop0");
+        Iterator<String> iterator = properties.getPropertyNames().iterator();
+        iterator.next();
+
+        // ## Act ##
+        // ## Assert ##
+        try {
+            iterator.remove();
+            fail();
+        } catch (UnsupportedOperationException e) {
+            log(e.getMessage());
+        }
+        try {
+            properties.getPropertyNames().add("prop1");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            log(e.getMessage());
+        }
+    }
+
+    // ===================================================================================
+    //                                                                          Name-based
+    //                                                                          ==========
+    public void test_nameBased_basic() {
+        // ## Arrange ##
+        EntityModifiedProperties properties = new EntityModifiedProperties();
+        assertTrue(properties.isEmpty());
+
+        // ## Act ##
+        properties.addPropertyName("foo");
+        properties.addPropertyIndex(0, "bar"); // no index so by name
+
+        // ## Assert ##
+        assertEquals(newArrayList("foo", "bar"), newArrayList(properties.getPropertyNames()));
+        assertTrue(properties.isModifiedProperty("bar"));
+        assertEquals(0L, properties.getPropertyBits());
+    }
+
+    // ===================================================================================
+    //                                                                         Test Helper
+    //                                                                         ===========
+    protected EntityPropertyIndex createIndex(int size) {
+        String[] propertyNames = new String[size];
+        for (int i = 0; i < size; i++) {
+            propertyNames[i] = "prop" + i;
+        }
+        return new EntityPropertyIndex(propertyNames);
+    }
+}
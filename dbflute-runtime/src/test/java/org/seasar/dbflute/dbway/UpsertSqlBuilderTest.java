@@ -0,0 +1,152 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.dbway;
+
+import org.seasar.dbflute.unit.core.PlainTestCase;
+
+/**
+ * @author jflute
+ * @since 1.0.5N (2014/12/18 Thursday)
+ */
+public class UpsertSqlBuilderTest extends PlainTestCase {
+
+    // ===================================================================================
+    //                                                                               Merge
+    //                                                                               =====
+    public void test_buildMergeSql_Oracle() {
+        // ## Arrange ##
+        UpsertSqlBuilder builder = createMemberBuilder("VERSION_NO");
+
+        // ## Act ##
+        String sql = new WayOfOracle().buildUpsertSql(builder);
+
+        // ## Assert ##
+        log(ln() + sql);
+        assertContains(sql, "merge into MEMBER dst");
+        assertContains(sql, "using (select ? as MEMBER_ID, ? as MEMBER_NAME, ? as VERSION_NO from dual) src");
+        assertContains(sql, "on (dst.MEMBER_ID = src.MEMBER_ID)");
+        assertContains(sql, "when matched then update set dst.MEMBER_NAME = src.MEMBER_NAME, dst.VERSION_NO = dst.VERSION_NO + 1");
+        assertContains(sql, "when not matched then insert (MEMBER_ID, MEMBER_NAME, VERSION_NO)");
+        assertContains(sql, "values (src.MEMBER_ID, src.MEMBER_NAME, src.VERSION_NO)");
+        assertFalse(sql.endsWith(";"));
+    }
+
+    public void test_buildMergeSql_SQLServer() {
+        // ## Arrange ##
+        UpsertSqlBuilder builder = createMemberBuilder(null);
+
+        // ## Act ##
+        String sql = new WayOfSQLServer().buildUpsertSql(builder);
+
+        // ## Assert ##
+        log(ln() + sql);
+        assertContains(sql, "using (select ? as MEMBER_ID, ? as MEMBER_NAME) src");
+        assertContains(sql, "when matched then update set dst.MEMBER_NAME = src.MEMBER_NAME");
+        assertTrue(sql.endsWith(";"));
+    }
+
+    public void test_buildMergeSql_DB2() {
+        // ## Arrange ##
+        UpsertSqlBuilder builder = createMemberBuilder(null);
+
+        // ## Act ##
+        String sql = new WayOfDB2().buildUpsertSql(builder);
+
+        // ## Assert ##
+        log(ln() + sql);
+        assertContains(sql, "using (values (?, ?)) src (MEMBER_ID, MEMBER_NAME)");
+    }
+
+    public void test_buildMergeSql_primaryKeyOnly() {
+        // ## Arrange ##
+        UpsertSqlBuilder builder = new UpsertSqlBuilder("MEMBER", newArrayList("MEMBER_ID"), newArrayList("?"),
+                newArrayList("MEMBER_ID"), newArrayList(new String[] {}), null);
+
+        // ## Act ##
+        String sql = new WayOfH2().buildUpsertSql(builder);
+
+        // ## Assert ##
+        log(ln() + sql);
+        assertNotContains(sql, "when matched");
+        assertContains(sql, "when not matched then insert (MEMBER_ID) values (src.MEMBER_ID)");
+    }
+
+    // ===================================================================================
+    //                                                                         Insert Base
+    //                                                                         ===========
+    public void test_buildInsertOnConflictSql() {
+        // ## Arrange ##
+        UpsertSqlBuilder builder = createMemberBuilder("VERSION_NO");
+
+        // ## Act ##
+        String sql = new WayOfPostgreSQL().buildUpsertSql(builder);
+
+        // ## Assert ##
+        log(ln() + sql);
+        assertContains(sql, "insert into MEMBER as dst (MEMBER_ID, MEMBER_NAME, VERSION_NO)");
+        assertContains(sql, "values (?, ?, ?)");
+        assertContains(sql, "on conflict (MEMBER_ID) do update set MEMBER_NAME = excluded.MEMBER_NAME");
+        assertContains(sql, "VERSION_NO = dst.VERSION_NO + 1");
+    }
+
+    public void test_buildInsertOnDuplicateKeySql() {
+        // ## Arrange ##
+        UpsertSqlBuilder builder = createMemberBuilder(null);
+
+        // ## Act ##
+        String sql = new WayOfMySQL().buildUpsertSql(builder);
+
+        // ## Assert ##
+        log(ln() + sql);
+        assertContains(sql, "insert into MEMBER (MEMBER_ID, MEMBER_NAME)");
+        assertContains(sql, "on duplicate key update MEMBER_NAME = values(MEMBER_NAME)");
+    }
+
+    // ===================================================================================
+    //                                                                         Unsupported
+    //                                                                         ===========
+    public void test_buildUpsertSql_unsupported() {
+        UpsertSqlBuilder builder = createMemberBuilder(null);
+        assertNull(new WayOfDerby().buildUpsertSql(builder));
+        assertNull(new WayOfSQLite().buildUpsertSql(builder));
+        assertNull(new WayOfUnknown().buildUpsertSql(builder));
+        assertFalse(new WayOfUnknown().isUpsertStatementSupported());
+        assertTrue(new WayOfPostgreSQL().isUpsertStatementSupported());
+    }
+
+    public void test_constructor_illegal() {
+        try {
+            new UpsertSqlBuilder("MEMBER", newArrayList("MEMBER_ID"), newArrayList("?", "?"), newArrayList("MEMBER_ID"),
+                    newArrayList(new String[] {}), null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            log(e.getMessage());
+        }
+    }
+
+    // ===================================================================================
+    //                                                                         Test Helper
+    //                                                                         ===========
+    protected UpsertSqlBuilder createMemberBuilder(String versionNoColumn) {
+        if (versionNoColumn != null) {
+            return new UpsertSqlBuilder("MEMBER", newArrayList("MEMBER_ID", "MEMBER_NAME", versionNoColumn), newArrayList("?", "?",
+                    "?"), newArrayList("MEMBER_ID"), newArrayList("MEMBER_NAME"), versionNoColumn);
+        } else {
+            return new UpsertSqlBuilder("MEMBER", newArrayList("MEMBER_ID", "MEMBER_NAME"), newArrayList("?", "?"),
+                    newArrayList("MEMBER_ID"), newArrayList("MEMBER_NAME"), null);
+        }
+    }
+}
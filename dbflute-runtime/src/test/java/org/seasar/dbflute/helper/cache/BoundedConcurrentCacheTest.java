@@ -0,0 +1,101 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.helper.cache;
+
+import org.seasar.dbflute.unit.core.PlainTestCase;
+
+/**
+ * @author jflute
+ * @since 1.0.5N (2014/12/06 Saturday)
+ */
+public class BoundedConcurrentCacheTest extends PlainTestCase {
+
+    public void test_get_put_basic() throws Exception {
+        // ## Arrange ##
+        BoundedConcurrentCache<String, String> cache = new BoundedConcurrentCache<String, String>(3);
+
+        // ## Act ##
+        String first = cache.get("sea");
+        String registered = cache.put("sea", "mystic");
+        String second = cache.get("sea");
+
+        // ## Assert ##
+        assertNull(first);
+        assertEquals("mystic", registered);
+        assertEquals("mystic", second);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, cache.getEvictionCount());
+        log(cache);
+    }
+
+    public void test_put_alreadyExists() throws Exception {
+        // ## Arrange ##
+        BoundedConcurrentCache<String, String> cache = new BoundedConcurrentCache<String, String>(3);
+        cache.put("sea", "mystic");
+
+        // ## Act ##
+        String registered = cache.put("sea", "bonvo");
+
+        // ## Assert ##
+        assertEquals("mystic", registered);
+        assertEquals("mystic", cache.peek("sea"));
+        assertEquals(1, cache.size());
+    }
+
+    public void test_put_evicted() throws Exception {
+        // ## Arrange ##
+        BoundedConcurrentCache<String, String> cache = new BoundedConcurrentCache<String, String>(2);
+
+        // ## Act ##
+        cache.put("sea", "mystic");
+        cache.put("land", "oneman");
+        cache.put("piari", "plaza");
+
+        // ## Assert ##
+        assertEquals(2, cache.size());
+        assertNull(cache.peek("sea"));
+        assertEquals("oneman", cache.peek("land"));
+        assertEquals("plaza", cache.peek("piari"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    public void test_remove_notEviction() throws Exception {
+        // ## Arrange ##
+        BoundedConcurrentCache<String, String> cache = new BoundedConcurrentCache<String, String>(2);
+        cache.put("sea", "mystic");
+        cache.put("land", "oneman");
+
+        // ## Act ##
+        String removed = cache.remove("sea");
+        cache.put("piari", "plaza");
+
+        // ## Assert ##
+        assertEquals("mystic", removed);
+        assertEquals(2, cache.size());
+        assertEquals("oneman", cache.peek("land"));
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    public void test_constructor_illegal() throws Exception {
+        try {
+            new BoundedConcurrentCache<String, String>(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            log(e.getMessage());
+        }
+    }
+}
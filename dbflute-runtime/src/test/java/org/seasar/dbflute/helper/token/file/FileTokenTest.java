@@ -17,10 +17,21 @@ package org.seasar.dbflute.helper.token.file;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -196,6 +207,133 @@ public class FileTokenTest extends PlainTestCase {
         assertTrue(markSet.contains("done"));
     }
 
+    // ===================================================================================
+    //                                                                  Tokenize by Buffer
+    //                                                                  ==================
+    public void test_tokenizeByBuffer_sameAsTokenize() throws Exception {
+        // ## Arrange ##
+        FileToken impl = new FileToken();
+        final String header = "A, B, C, D, E";
+        final String first = "\"a\",\"b,\",\"cc\",\"\"\"\",\"e\n,\n,\n\"\",,\"";
+        final String second = "\"a\",\"\",\"c\"\"c\",\"d\"\"\",\"e\"";
+        final String third = "\"a\",\"b,b\",\"c\"\",c\",\"d\n\",\"e\"";
+        final String fourth = "a,,c,\u3042\u3044,";
+        String all = header + ln() + first + ln() + second + ln() + third + "\r\n" + fourth + ln();
+        File file = prepareTokenFile(all);
+        FileTokenizingOption option = new FileTokenizingOption().delimitateByComma().encodeAsUTF8();
+        final List<List<String>> expectedList = new ArrayList<List<String>>();
+        final List<List<String>> actualList = new ArrayList<List<String>>();
+        final List<String> actualRowStringList = new ArrayList<String>();
+        final List<Integer> actualLineNumberList = new ArrayList<Integer>();
+        impl.tokenize(new FileInputStream(file), new FileTokenizingCallback() {
+            public void handleRow(FileTokenizingRowResource resource) {
+                expectedList.add(new ArrayList<String>(resource.getValueList()));
+            }
+        }, option);
+
+        // ## Act ##
+        impl.tokenizeByBuffer(file.getPath(), new FileTokenizingCallback() {
+            public void handleRow(FileTokenizingRowResource resource) {
+                assertEquals(Arrays.asList("A", "B", "C", "D", "E"), resource.getHeaderInfo().getColumnNameList());
+                actualList.add(new ArrayList<String>(resource.getValueList()));
+                actualRowStringList.add(resource.getRowString());
+                actualLineNumberList.add(resource.getLineNumber());
+            }
+        }, option);
+
+        // ## Assert ##
+        log(actualList);
+        assertEquals(expectedList, actualList);
+        assertEquals(Arrays.asList(first, second, third, fourth), actualRowStringList);
+        assertEquals(Arrays.asList(2, 6, 7, 9), actualLineNumberList);
+    }
+
+    public void test_tokenizeByBuffer_smallBuffer() throws Exception {
+        // ## Arrange ##
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append(i).append("\t\u3042\u3044\u3046").append(i).append("\t\"q\"\"").append(i).append("\"").append(ln());
+        }
+        File file = prepareTokenFile(sb.toString());
+        FileTokenizingOption option = new FileTokenizingOption().delimitateByTab().encodeAsUTF8().beginFirstLine();
+        final List<String> rowList = new ArrayList<String>();
+
+        // ## Act ##
+        new FileBufferTokenizer(option).bufferSize(16).tokenize(new FileInputStream(file).getChannel(),
+                new FileTokenizingCallback() {
+                    public void handleRow(FileTokenizingRowResource resource) {
+                        List<String> valueList = resource.getValueList();
+                        int number = resource.getRowNumber() - 1;
+                        assertEquals(String.valueOf(number), valueList.get(0));
+                        assertEquals("\u3042\u3044\u3046" + number, valueList.get(1));
+                        assertEquals("q\"" + number, valueList.get(2));
+                        rowList.add(valueList.get(0));
+                    }
+                });
+
+        // ## Assert ##
+        assertEquals(100, rowList.size());
+    }
+
+    public void test_tokenizeByBuffer_parallel() throws Exception {
+        // ## Arrange ##
+        StringBuilder sb = new StringBuilder();
+        sb.append("ID\tNAME").append(ln());
+        for (int i = 1; i <= 1000; i++) {
+            sb.append(i).append("\tname").append(i).append(ln());
+        }
+        File file = prepareTokenFile(sb.toString());
+        FileTokenizingOption option = new FileTokenizingOption().delimitateByTab().encodeAsUTF8().parallelByChunk(4);
+        final Set<Integer> idSet = Collections.synchronizedSet(new HashSet<Integer>());
+
+        // ## Act ##
+        new FileToken().tokenizeByBuffer(file.getPath(), new FileTokenizingCallback() {
+            public void handleRow(FileTokenizingRowResource resource) {
+                Map<String, String> columnValueMap = resource.toColumnValueMap();
+                int id = Integer.parseInt(columnValueMap.get("ID"));
+                assertEquals("name" + id, columnValueMap.get("NAME"));
+                assertEquals(id, resource.getRowNumber());
+                assertEquals(id + 1, resource.getLineNumber());
+                idSet.add(id);
+            }
+        }, option);
+
+        // ## Assert ##
+        assertEquals(1000, idSet.size());
+    }
+
+    public void test_tokenizeByBuffer_parallel_quotedLineSeparator() throws Exception {
+        // ## Arrange ##
+        String all = "A,B" + ln() + "a,\"b" + ln() + "b\"" + ln();
+        File file = prepareTokenFile(all);
+        FileTokenizingOption option = new FileTokenizingOption().delimitateByComma().encodeAsUTF8().parallelByChunk(2);
+
+        // ## Act ##
+        try {
+            new FileToken().tokenizeByBuffer(file.getPath(), new FileTokenizingCallback() {
+                public void handleRow(FileTokenizingRowResource resource) {
+                }
+            }, option);
+
+            // ## Assert ##
+            fail();
+        } catch (IllegalStateException e) {
+            log(e.getMessage());
+        }
+    }
+
+    protected File prepareTokenFile(String content) throws IOException {
+        File file = File.createTempFile("dbflute-file-token", ".txt");
+        file.deleteOnExit();
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            fos.write(content.getBytes("UTF-8"));
+        } finally {
+            fos.close();
+        }
+        return file;
+    }
+
     // ===================================================================================
     //                                                                                Make
     //                                                                                ====
@@ -500,6 +638,132 @@ public class FileTokenTest extends PlainTestCase {
         assertEquals("\",\"e\"", split[4]);
     }
 
+    // ===================================================================================
+    //                                                                Make from Result Set
+    //                                                                ====================
+    public void test_makeFromResultSet_basic() throws Exception {
+        // ## Arrange ##
+        FileToken impl = new FileToken();
+        ByteArrayOutputStream ous = new ByteArrayOutputStream();
+        String[] labels = new String[] { "MEMBER_ID", "MEMBER_NAME", "BALANCE" };
+        int[] types = new int[] { Types.INTEGER, Types.VARCHAR, Types.DECIMAL };
+        List<Object[]> rowList = new ArrayList<Object[]>();
+        rowList.add(new Object[] { 1, "Stojkovic", new BigDecimal("1E+3") });
+        rowList.add(new Object[] { 2, "Pixy, \"Dragan\"", null });
+        rowList.add(new Object[] { 3, null, new BigDecimal("12.50") });
+        ResultSet rs = new MockRowResultSet(labels, types, rowList).asResultSet();
+
+        // ## Act ##
+        int rowCount = impl.makeFromResultSet(ous, rs, new FileMakingOption().delimitateByComma().encodeAsUTF8()
+                .separateByLf().quoteMinimally().headerInfoByResultSet());
+
+        // ## Assert ##
+        String actual = ous.toString("UTF-8");
+        log(actual);
+        assertEquals(3, rowCount);
+        String[] split = actual.split("\n");
+        assertEquals(4, split.length);
+        assertEquals("MEMBER_ID,MEMBER_NAME,BALANCE", split[0]);
+        assertEquals("1,Stojkovic,1000", split[1]);
+        assertEquals("2,\"Pixy, \"\"Dragan\"\"\",", split[2]);
+        assertEquals("3,,12.50", split[3]);
+    }
+
+    public void test_makeFromResultSet_sameAsValueList() throws Exception {
+        // ## Arrange ##
+        FileToken impl = new FileToken();
+        String[] labels = new String[] { "A", "B", "C" };
+        int[] types = new int[] { Types.VARCHAR, Types.VARCHAR, Types.VARCHAR };
+        final List<Object[]> rowList = new ArrayList<Object[]>();
+        rowList.add(new Object[] { "a", "b,b", "c\"c" });
+        rowList.add(new Object[] { "d\nd", null, "" });
+        ByteArrayOutputStream rsOus = new ByteArrayOutputStream();
+        ByteArrayOutputStream listOus = new ByteArrayOutputStream();
+        List<String> columnNameList = Arrays.asList(labels);
+
+        // ## Act ##
+        impl.makeFromResultSet(rsOus, new MockRowResultSet(labels, types, rowList).asResultSet(),
+                new FileMakingOption().delimitateByTab().encodeAsUTF8().headerInfo(columnNameList));
+        impl.make(listOus, new FileMakingCallback() {
+            public void write(FileMakingRowWriter writer) throws IOException, SQLException {
+                for (Object[] row : rowList) {
+                    List<String> valueList = new ArrayList<String>();
+                    for (Object value : row) {
+                        valueList.add((String) value);
+                    }
+                    writer.writeRow(valueList);
+                }
+            }
+        }, new FileMakingOption().delimitateByTab().encodeAsUTF8().headerInfo(columnNameList));
+
+        // ## Assert ##
+        log(rsOus.toString("UTF-8"));
+        assertEquals(listOus.toString("UTF-8"), rsOus.toString("UTF-8"));
+    }
+
+    public void test_makeFromResultSet_invalidColumnCount() throws Exception {
+        // ## Arrange ##
+        FileToken impl = new FileToken();
+        String[] labels = new String[] { "A", "B" };
+        int[] types = new int[] { Types.VARCHAR, Types.VARCHAR };
+        ResultSet rs = new MockRowResultSet(labels, types, new ArrayList<Object[]>()).asResultSet();
+        FileMakingOption option = new FileMakingOption().delimitateByTab().encodeAsUTF8();
+        option.headerInfo(Arrays.asList("A", "B", "C"));
+
+        // ## Act ##
+        try {
+            impl.makeFromResultSet(new ByteArrayOutputStream(), rs, option);
+
+            // ## Assert ##
+            fail();
+        } catch (FileMakingInvalidValueCountException e) {
+            log(e.getMessage());
+        }
+    }
+
+    protected static class MockRowResultSet implements InvocationHandler {
+
+        protected final String[] _labels;
+        protected final int[] _types;
+        protected final List<Object[]> _rowList;
+        protected int _rowIndex = -1;
+
+        public MockRowResultSet(String[] labels, int[] types, List<Object[]> rowList) {
+            _labels = labels;
+            _types = types;
+            _rowList = rowList;
+        }
+
+        public ResultSet asResultSet() {
+            return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class }, this);
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            final String name = method.getName();
+            if (name.equals("next")) {
+                return ++_rowIndex < _rowList.size();
+            } else if (name.equals("getMetaData")) {
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSetMetaData.class },
+                        new InvocationHandler() {
+                            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                                final String name = method.getName();
+                                if (name.equals("getColumnCount")) {
+                                    return _labels.length;
+                                } else if (name.equals("getColumnLabel")) {
+                                    return _labels[(Integer) args[0] - 1];
+                                } else if (name.equals("getColumnType")) {
+                                    return _types[(Integer) args[0] - 1];
+                                }
+                                throw new UnsupportedOperationException(name);
+                            }
+                        });
+            } else if (name.startsWith("get") && args != null && args[0] instanceof Integer) {
+                return _rowList.get(_rowIndex)[(Integer) args[0] - 1];
+            }
+            throw new UnsupportedOperationException(name);
+        }
+    }
+
     // ===================================================================================
     //                                                                            Pinpoint
     //                                                                            ========
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.mock;
+
+import org.seasar.dbflute.Entity;
+import org.seasar.dbflute.bhv.AbstractBehaviorWritable;
+import org.seasar.dbflute.cbean.ConditionBean;
+import org.seasar.dbflute.dbmeta.DBMeta;
+
+/**
+ * @author jflute
+ * @since 1.0.5N (2014/12/21 Sunday)
+ */
+public class MockBehavior extends AbstractBehaviorWritable<MockEntity, MockConditionBean> {
+
+    // ===================================================================================
+    //                                                                      Implementation
+    //                                                                      ==============
+    public String getTableDbName() {
+        return "MEMBER";
+    }
+
+    public DBMeta getDBMeta() {
+        return new MockDBMeta();
+    }
+
+    public MockEntity newEntity() {
+        return new MockEntity();
+    }
+
+    public MockConditionBean newConditionBean() {
+        return new MockConditionBean();
+    }
+
+    @Override
+    protected Entity doReadEntity(ConditionBean cb) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected Number doReadNextVal() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected Class<? extends MockEntity> typeOfSelectedEntity() {
+        return MockEntity.class;
+    }
+
+    @Override
+    protected Class<MockEntity> typeOfHandlingEntity() {
+        return MockEntity.class;
+    }
+
+    @Override
+    protected Class<MockConditionBean> typeOfHandlingConditionBean() {
+        return MockConditionBean.class;
+    }
+}
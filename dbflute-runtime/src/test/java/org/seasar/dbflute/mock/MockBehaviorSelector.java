@@ -0,0 +1,37 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.mock;
+
+import org.seasar.dbflute.BehaviorSelector;
+import org.seasar.dbflute.bhv.BehaviorReadable;
+
+/**
+ * @author jflute
+ * @since 1.0.5N (2014/12/21 Sunday)
+ */
+public class MockBehaviorSelector implements BehaviorSelector {
+
+    public void initializeConditionBeanMetaData() {
+    }
+
+    public <BEHAVIOR extends BehaviorReadable> BEHAVIOR select(Class<BEHAVIOR> behaviorType) {
+        throw new UnsupportedOperationException();
+    }
+
+    public BehaviorReadable byName(String tableFlexibleName) {
+        throw new UnsupportedOperationException();
+    }
+}
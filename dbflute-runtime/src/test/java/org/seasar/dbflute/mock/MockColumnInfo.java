@@ -17,6 +17,7 @@ package org.seasar.dbflute.mock;
 
 import java.lang.reflect.Method;
 
+import org.seasar.dbflute.dbmeta.DBMeta;
 import org.seasar.dbflute.dbmeta.DBMeta.OptimisticLockType;
 import org.seasar.dbflute.dbmeta.info.ColumnInfo;
 import org.seasar.dbflute.dbmeta.property.PropertyGateway;
@@ -32,6 +33,22 @@ public class MockColumnInfo extends ColumnInfo {
                 null, false, OptimisticLockType.NONE, "mock", null, null, null, createPropertyMethodFinder());
     }
 
+    public MockColumnInfo(DBMeta dbmeta, String columnDbName, boolean primary) {
+        this(dbmeta, columnDbName, primary, true);
+    }
+
+    public MockColumnInfo(DBMeta dbmeta, String columnDbName, boolean primary, boolean notNull) {
+        super(dbmeta, columnDbName, columnDbName, null, columnDbName, Integer.class, columnDbName, Integer.class, primary,
+                false, notNull, "INTEGER", 3, 0, null, false, OptimisticLockType.NONE, columnDbName, null, null, null,
+                createPropertyMethodFinder());
+    }
+
+    public MockColumnInfo(DBMeta dbmeta, String columnDbName, String propertyName, Class<?> propertyType, boolean primary) {
+        super(dbmeta, columnDbName, columnDbName, null, columnDbName, propertyType, propertyName, propertyType, primary,
+                false, true, "VARCHAR", 3, 0, null, false, OptimisticLockType.NONE, columnDbName, null, null, null,
+                createPropertyMethodFinder());
+    }
+
     protected static PropertyMethodFinder createPropertyMethodFinder() {
         return new PropertyMethodFinder() {
             public Method findWriteMethod(Class<?> beanType, String propertyName, Class<?> propertyType) {
@@ -20,6 +20,7 @@ import java.util.Map;
 import org.seasar.dbflute.cbean.AndQuery;
 import org.seasar.dbflute.cbean.ConditionBean;
 import org.seasar.dbflute.cbean.ConditionQuery;
+import org.seasar.dbflute.cbean.KeysetPagingToken;
 import org.seasar.dbflute.cbean.OrQuery;
 import org.seasar.dbflute.cbean.OrderByBean;
 import org.seasar.dbflute.cbean.PagingBean;
@@ -138,6 +139,9 @@ public class MockConditionBean implements ConditionBean {
         return false;
     }
 
+    public void keysetPaging(int pageSize, KeysetPagingToken token) {
+    }
+
     public PagingBean fetchFirst(int fetchSize) {
         return null;
     }
@@ -305,6 +309,16 @@ public class MockConditionBean implements ConditionBean {
         return false;
     }
 
+    public void enableCompactResult() {
+    }
+
+    public void disableCompactResult() {
+    }
+
+    public boolean isCompactResultEnabled() {
+        return false;
+    }
+
     public boolean hasWhereClauseOnBaseQuery() {
         return false;
     }
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.s2dao.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.seasar.dbflute.unit.core.PlainTestCase;
+
+/**
+ * @author jflute
+ * @since 1.0.5N (2014/12/16 Tuesday)
+ */
+public class TnPreparedStatementCacheTest extends PlainTestCase {
+
+    // ===================================================================================
+    //                                                                               Basic
+    //                                                                               =====
+    public void test_checkout_reuse() throws Exception {
+        // ## Arrange ##
+        TnPreparedStatementCache cache = new TnPreparedStatementCache(10, 10);
+        Connection conn = new MockJdbc().asConnection();
+        String key = cache.buildStatementKey("select * from MEMBER", ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY);
+        MockJdbc actual = new MockJdbc();
+
+        // ## Act ##
+        assertNull(cache.checkout(conn, key));
+        TnCachedPreparedStatement registered = cache.register(conn, key, actual.asStatement());
+        registered.close();
+        TnCachedPreparedStatement reused = cache.checkout(conn, key);
+
+        // ## Assert ##
+        assertSame(registered, reused);
+        assertTrue(reused.isInUse());
+        assertEquals(1, actual.count("clearParameters"));
+        assertEquals(0, actual.count("close"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    public void test_checkout_inUse() throws Exception {
+        // ## Arrange ##
+        TnPreparedStatementCache cache = new TnPreparedStatementCache(10, 10);
+        Connection conn = new MockJdbc().asConnection();
+        String key = cache.buildStatementKey("select * from MEMBER", 1, 2);
+        TnCachedPreparedStatement registered = cache.register(conn, key, new MockJdbc().asStatement());
+
+        // ## Act ##
+        TnCachedPreparedStatement nested = cache.checkout(conn, key);
+
+        // ## Assert ##
+        assertNull(nested);
+        assertNull(cache.register(conn, key, new MockJdbc().asStatement()));
+        assertTrue(registered.isInUse());
+        assertNull(cache.checkout(new MockJdbc().asConnection(), key)); // other connection
+    }
+
+    // ===================================================================================
+    //                                                                            Eviction
+    //                                                                            ========
+    public void test_register_evictLeastRecentlyUsed() throws Exception {
+        // ## Arrange ##
+        TnPreparedStatementCache cache = new TnPreparedStatementCache(2, 10);
+        Connection conn = new MockJdbc().asConnection();
+        MockJdbc first = new MockJdbc();
+        MockJdbc second = new MockJdbc();
+        MockJdbc third = new MockJdbc();
+        cache.register(conn, "first", first.asStatement()).close();
+        cache.register(conn, "second", second.asStatement()).close();
+        cache.checkout(conn, "first").close(); // first is used recently
+
+        // ## Act ##
+        TnCachedPreparedStatement thirdStatement = cache.register(conn, "third", third.asStatement());
+
+        // ## Assert ##
+        assertEquals(0, first.count("close"));
+        assertEquals(1, second.count("close"));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.size());
+        thirdStatement.close();
+        assertEquals(0, third.count("close"));
+    }
+
+    public void test_register_evictInUse() throws Exception {
+        // ## Arrange ##
+        TnPreparedStatementCache cache = new TnPreparedStatementCache(1, 10);
+        Connection conn = new MockJdbc().asConnection();
+        MockJdbc first = new MockJdbc();
+        TnCachedPreparedStatement firstStatement = cache.register(conn, "first", first.asStatement());
+
+        // ## Act ##
+        cache.register(conn, "second", new MockJdbc().asStatement());
+
+        // ## Assert ##
+        assertEquals(0, first.count("close")); // still in-use
+        firstStatement.close();
+        assertEquals(1, first.count("close"));
+        assertTrue(firstStatement.isClosed());
+    }
+
+    public void test_register_sweepClosedConnection() throws Exception {
+        // ## Arrange ##
+        TnPreparedStatementCache cache = new TnPreparedStatementCache(10, 10);
+        MockJdbc oldConn = new MockJdbc();
+        MockJdbc oldStatement = new MockJdbc();
+        cache.register(oldConn.asConnection(), "foo", oldStatement.asStatement()).close();
+        oldConn.closed = true;
+
+        // ## Act ##
+        cache.register(new MockJdbc().asConnection(), "foo", new MockJdbc().asStatement());
+
+        // ## Assert ##
+        assertEquals(1, oldStatement.count("close"));
+        assertEquals(1, cache.connectionSize());
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.getEvictionCount()); // not eviction by size
+    }
+
+    public void test_register_evictOverConnection() throws Exception {
+        // ## Arrange ##
+        TnPreparedStatementCache cache = new TnPreparedStatementCache(10, 1);
+        MockJdbc oldStatement = new MockJdbc();
+        cache.register(new MockJdbc().asConnection(), "foo", oldStatement.asStatement()).close();
+
+        // ## Act ##
+        cache.register(new MockJdbc().asConnection(), "foo", new MockJdbc().asStatement());
+
+        // ## Assert ##
+        assertEquals(1, oldStatement.count("close"));
+        assertEquals(1, cache.connectionSize());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    // ===================================================================================
+    //                                                                    Connection Close
+    //                                                                    ================
+    public void test_closeStatementsIfClosed_closed() throws Exception {
+        // ## Arrange ##
+        TnPreparedStatementCache cache = new TnPreparedStatementCache(10, 10);
+        MockJdbc connJdbc = new MockJdbc();
+        Connection conn = connJdbc.asConnection();
+        MockJdbc idle = new MockJdbc();
+        MockJdbc inUse = new MockJdbc();
+        cache.register(conn, "idle", idle.asStatement()).close();
+        TnCachedPreparedStatement inUseStatement = cache.register(conn, "inUse", inUse.asStatement());
+        connJdbc.closed = true; // e.g. returned to the pool
+
+        // ## Act ##
+        boolean released = cache.closeStatementsIfClosed(conn);
+
+        // ## Assert ##
+        assertTrue(released);
+        assertEquals(1, idle.count("close"));
+        assertEquals(0, inUse.count("close")); // closed when released
+        assertEquals(0, cache.connectionSize());
+        assertEquals(0, cache.getEvictionCount());
+        inUseStatement.close();
+        assertEquals(1, inUse.count("close"));
+    }
+
+    public void test_closeStatementsIfClosed_stillOpen() throws Exception {
+        // ## Arrange ##
+        TnPreparedStatementCache cache = new TnPreparedStatementCache(10, 10);
+        Connection conn = new MockJdbc().asConnection();
+        MockJdbc actual = new MockJdbc();
+        cache.register(conn, "foo", actual.asStatement()).close();
+
+        // ## Act ##
+        boolean released = cache.closeStatementsIfClosed(conn); // e.g. close ignored in transaction
+
+        // ## Assert ##
+        assertFalse(released);
+        assertEquals(0, actual.count("close"));
+        assertNotNull(cache.checkout(conn, "foo"));
+    }
+
+    public void test_releaseCachedStatements_factory() throws Exception {
+        // ## Arrange ##
+        TnStatementFactoryImpl factory = new TnStatementFactoryImpl();
+        factory.releaseCachedStatements(new MockJdbc().asConnection()); // no cache, no exception
+        factory.setPreparedStatementCacheSize(10);
+        TnPreparedStatementCache cache = factory.getPreparedStatementCache();
+        MockJdbc connJdbc = new MockJdbc();
+        Connection conn = connJdbc.asConnection();
+        MockJdbc actual = new MockJdbc();
+        cache.register(conn, "foo", actual.asStatement()).close();
+        connJdbc.closed = true;
+
+        // ## Act ##
+        factory.releaseCachedStatements(conn);
+
+        // ## Assert ##
+        assertEquals(1, actual.count("close"));
+        assertEquals(0, cache.size());
+    }
+
+    // ===================================================================================
+    //                                                                      Option Restore
+    //                                                                      ==============
+    public void test_restoreInitialOptions() throws Exception {
+        // ## Arrange ##
+        TnPreparedStatementCache cache = new TnPreparedStatementCache(10, 10);
+        Connection conn = new MockJdbc().asConnection();
+        MockJdbc actual = new MockJdbc();
+        TnCachedPreparedStatement statement = cache.register(conn, "foo", actual.asStatement());
+        statement.setFetchSize(100);
+        statement.setMaxRows(3);
+        statement.close();
+
+        // ## Act ##
+        TnCachedPreparedStatement reused = cache.checkout(conn, "foo");
+        reused.restoreInitialOptions();
+
+        // ## Assert ##
+        assertEquals(0, actual.option("setFetchSize"));
+        assertEquals(0, actual.option("setMaxRows"));
+        assertEquals(0, actual.option("setQueryTimeout"));
+        reused.restoreInitialOptions(); // no change
+        assertEquals(2, actual.count("setFetchSize"));
+    }
+
+    // ===================================================================================
+    //                                                                         Mock Helper
+    //                                                                         ===========
+    protected static class MockJdbc implements InvocationHandler {
+
+        protected final Map<String, Integer> _countMap = new HashMap<String, Integer>();
+        protected final Map<String, Object> _optionMap = new HashMap<String, Object>();
+        public boolean closed;
+
+        public Connection asConnection() {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class }, this);
+        }
+
+        public PreparedStatement asStatement() {
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, this);
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            final String name = method.getName();
+            final Integer count = _countMap.get(name);
+            _countMap.put(name, count != null ? count + 1 : 1);
+            if (name.equals("close")) {
+                closed = true;
+            } else if (name.equals("isClosed")) {
+                return closed;
+            } else if (name.startsWith("set")) {
+                _optionMap.put(name, args[0]);
+            } else if (name.startsWith("get") && method.getReturnType().equals(int.class)) {
+                return 0;
+            } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            return null;
+        }
+
+        public int count(String name) {
+            final Integer count = _countMap.get(name);
+            return count != null ? count : 0;
+        }
+
+        public Object option(String name) {
+            return _optionMap.get(name);
+        }
+    }
+}
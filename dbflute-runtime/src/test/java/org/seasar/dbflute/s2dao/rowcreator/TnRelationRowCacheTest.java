@@ -0,0 +1,92 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.s2dao.rowcreator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.seasar.dbflute.s2dao.rowcreator.TnRelationRowCache.TnRelationSlot;
+import org.seasar.dbflute.s2dao.rowcreator.impl.TnRelationKeyCompound;
+import org.seasar.dbflute.s2dao.rowcreator.impl.TnRelationKeySimple;
+import org.seasar.dbflute.unit.core.PlainTestCase;
+
+/**
+ * @author jflute
+ * @since 1.0.5N (2014/12/07 Sunday)
+ */
+public class TnRelationRowCacheTest extends PlainTestCase {
+
+    public void test_relationRow_basic() throws Exception {
+        // ## Arrange ##
+        TnRelationRowCache cache = new TnRelationRowCache(2, true);
+
+        // ## Act ##
+        cache.addRelationRow("_0", new TnRelationKeySimple("MEMBER_ID_0", 1), "first");
+        cache.addRelationRow("_0", new TnRelationKeySimple("MEMBER_ID_0", 2), "second");
+
+        // ## Assert ##
+        assertEquals("first", cache.getRelationRow("_0", new TnRelationKeySimple("MEMBER_ID_0", 1)));
+        assertEquals("second", cache.getRelationRow("_0", new TnRelationKeySimple("MEMBER_ID_0", 2)));
+        assertNull(cache.getRelationRow("_0", new TnRelationKeySimple("MEMBER_ID_0", 3)));
+        assertNull(cache.getRelationRow("_1", new TnRelationKeySimple("MEMBER_ID_0", 1)));
+    }
+
+    public void test_relationRow_cannotCache() throws Exception {
+        TnRelationRowCache cache = new TnRelationRowCache(-1, false);
+        cache.addRelationRow("_0", new TnRelationKeySimple("MEMBER_ID_0", 1), "first");
+        assertNull(cache.getRelationRow("_0", new TnRelationKeySimple("MEMBER_ID_0", 1)));
+    }
+
+    public void test_slot_resize() throws Exception {
+        // ## Arrange ##
+        TnRelationSlot slot = new TnRelationSlot();
+
+        // ## Act ##
+        for (int i = 0; i < 1000; i++) {
+            slot.putRow(new TnRelationKeySimple("FOO_0", i), "row" + i);
+        }
+        slot.putRow(new TnRelationKeySimple("FOO_0", 7), "overridden");
+
+        // ## Assert ##
+        assertEquals(1000, slot.getRowCount());
+        assertEquals("row0", slot.getRow(new TnRelationKeySimple("FOO_0", 0)));
+        assertEquals("row999", slot.getRow(new TnRelationKeySimple("FOO_0", 999)));
+        assertEquals("overridden", slot.getRow(new TnRelationKeySimple("FOO_0", 7)));
+        assertNull(slot.getRow(new TnRelationKeySimple("FOO_0", 1000)));
+    }
+
+    public void test_compoundKey() throws Exception {
+        // ## Arrange ##
+        String[] labels = new String[] { "FOO_ID_0", "BAR_ID_0" };
+        Map<String, Object> valueMap = new LinkedHashMap<String, Object>();
+        valueMap.put("FOO_ID_0", 1);
+        valueMap.put("BAR_ID_0", "a");
+
+        // ## Act ##
+        TnRelationKeyCompound arrayKey = new TnRelationKeyCompound(labels, new Object[] { 1, "a" });
+        TnRelationKeyCompound mapKey = new TnRelationKeyCompound(valueMap);
+
+        // ## Assert ##
+        assertEquals(arrayKey, mapKey);
+        assertEquals(arrayKey.hashCode(), mapKey.hashCode());
+        assertFalse(arrayKey.equals(new TnRelationKeyCompound(labels, new Object[] { 1, "b" })));
+        assertTrue(arrayKey.containsColumn("BAR_ID_0"));
+        assertFalse(arrayKey.containsColumn("QUX_ID_0"));
+        assertEquals("a", arrayKey.extractKeyValue("BAR_ID_0"));
+        assertNull(arrayKey.extractKeyValue("QUX_ID_0"));
+        assertEquals(valueMap, arrayKey.getRelKeyValues());
+    }
+}
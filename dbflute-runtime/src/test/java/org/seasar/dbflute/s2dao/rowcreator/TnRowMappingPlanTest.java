@@ -0,0 +1,156 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.s2dao.rowcreator;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.seasar.dbflute.cbean.sqlclause.SqlClause;
+import org.seasar.dbflute.dbmeta.info.ColumnInfo;
+import org.seasar.dbflute.dbmeta.name.ColumnSqlName;
+import org.seasar.dbflute.helper.beans.DfPropertyAccessor;
+import org.seasar.dbflute.jdbc.ValueType;
+import org.seasar.dbflute.mock.MockResultSet;
+import org.seasar.dbflute.mock.MockValueType;
+import org.seasar.dbflute.s2dao.metadata.TnPropertyMapping;
+import org.seasar.dbflute.s2dao.rowcreator.TnRowMappingPlan.TnPlannedColumns;
+import org.seasar.dbflute.unit.core.PlainTestCase;
+
+/**
+ * @author jflute
+ * @since 1.0.5N (2014/12/07 Sunday)
+ */
+public class TnRowMappingPlanTest extends PlainTestCase {
+
+    public void test_prepareBasePoint_bySelectIndex() throws Exception {
+        // ## Arrange ##
+        TnRowMappingPlan plan = new TnRowMappingPlan(new String[] { "MEMBER_ID", "MEMBER_NAME" });
+        Map<String, TnPropertyMapping> propertyCache = new LinkedHashMap<String, TnPropertyMapping>();
+        propertyCache.put("MEMBER_NAME", new MockMapping("MEMBER_NAME"));
+        propertyCache.put("MEMBER_ID", new MockMapping("MEMBER_ID"));
+        Map<String, Map<String, Integer>> selectIndexMap = new LinkedHashMap<String, Map<String, Integer>>();
+        Map<String, Integer> localMap = new LinkedHashMap<String, Integer>();
+        localMap.put("MEMBER_ID", 3);
+        localMap.put("MEMBER_NAME", 7);
+        selectIndexMap.put(SqlClause.BASE_POINT_HANDLING_ENTITY_NO, localMap);
+
+        // ## Act ##
+        plan.prepareBasePoint(propertyCache, selectIndexMap);
+
+        // ## Assert ##
+        TnPlannedColumns planned = plan.getBasePlannedColumns();
+        assertEquals(2, planned.size());
+        assertEquals("MEMBER_NAME", planned.getColumnName(0));
+        assertEquals("7", planned.getValue(new MockResultSet(), 0));
+        assertEquals("MEMBER_ID", planned.getColumnName(1));
+        assertEquals("3", planned.getValue(new MockResultSet(), 1));
+    }
+
+    public void test_prepareBasePoint_byLabel() throws Exception {
+        // ## Arrange ##
+        TnRowMappingPlan plan = new TnRowMappingPlan(new String[] { "MEMBER_ID", "MEMBER_NAME", "MEMBER_ID" });
+        Map<String, TnPropertyMapping> propertyCache = new LinkedHashMap<String, TnPropertyMapping>();
+        propertyCache.put("memberName", new MockMapping("MEMBER_NAME")); // flexible
+        propertyCache.put("MEMBER_ID", new MockMapping("MEMBER_ID"));
+        propertyCache.put("NOT_SELECTED", new MockMapping("NOT_SELECTED"));
+
+        // ## Act ##
+        plan.prepareBasePoint(propertyCache, null);
+
+        // ## Assert ##
+        TnPlannedColumns planned = plan.getBasePlannedColumns();
+        assertEquals("2", planned.getValue(new MockResultSet(), 0));
+        assertEquals("1", planned.getValue(new MockResultSet(), 1)); // first column wins
+        assertEquals("NOT_SELECTED", planned.getValue(new MockResultSet(), 2)); // by name
+    }
+
+    public void test_prepareRelation() throws Exception {
+        // ## Arrange ##
+        TnRowMappingPlan plan = new TnRowMappingPlan(new String[] { "MEMBER_ID", "MEMBER_STATUS_NAME_0" });
+        Map<String, Map<String, TnPropertyMapping>> relPropCache = new LinkedHashMap<String, Map<String, TnPropertyMapping>>();
+        Map<String, TnPropertyMapping> elementMap = new LinkedHashMap<String, TnPropertyMapping>();
+        elementMap.put("MEMBER_STATUS_NAME_0", new MockMapping("MEMBER_STATUS_NAME"));
+        relPropCache.put("_0", elementMap);
+
+        // ## Act ##
+        plan.prepareRelation(relPropCache, null);
+
+        // ## Assert ##
+        assertTrue(plan.isRelationPrepared());
+        assertNull(plan.findRelationPlannedColumns("_1"));
+        TnPlannedColumns planned = plan.findRelationPlannedColumns("_0");
+        assertEquals("MEMBER_STATUS_NAME_0", planned.getColumnName(0));
+        assertEquals("2", planned.getValue(new MockResultSet(), 0));
+    }
+
+    public void test_buildLayoutKey() throws Exception {
+        String[] names = new String[] { "MEMBER_ID", "MEMBER_NAME" };
+        Map<String, Map<String, Integer>> selectIndexMap = new LinkedHashMap<String, Map<String, Integer>>();
+        String indexKey = TnRowMappingPlan.buildLayoutKey(names, selectIndexMap, true);
+        String nameKey = TnRowMappingPlan.buildLayoutKey(names, null, true);
+        String localKey = TnRowMappingPlan.buildLayoutKey(names, selectIndexMap, false);
+        log(indexKey, nameKey, localKey);
+        assertEquals(indexKey, TnRowMappingPlan.buildLayoutKey(names.clone(), selectIndexMap, true));
+        assertNotSame(indexKey, nameKey);
+        assertFalse(indexKey.equals(nameKey));
+        assertFalse(indexKey.equals(localKey));
+    }
+
+    protected static class MockMapping implements TnPropertyMapping {
+
+        protected final String _columnDbName;
+
+        public MockMapping(String columnDbName) {
+            _columnDbName = columnDbName;
+        }
+
+        public DfPropertyAccessor getPropertyAccessor() {
+            return null;
+        }
+
+        public ValueType getValueType() {
+            return new MockValueType() {
+                @Override
+                public Object getValue(ResultSet resultSet, int index) throws SQLException {
+                    return String.valueOf(index);
+                }
+
+                @Override
+                public Object getValue(ResultSet resultSet, String columnName) throws SQLException {
+                    return columnName;
+                }
+            };
+        }
+
+        public String getPropertyName() {
+            return null;
+        }
+
+        public String getColumnDbName() {
+            return _columnDbName;
+        }
+
+        public ColumnSqlName getColumnSqlName() {
+            return null;
+        }
+
+        public ColumnInfo getEntityColumnInfo() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.s2dao.sqlhandler;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.seasar.dbflute.unit.core.PlainTestCase;
+
+/**
+ * @author jflute
+ * @since 1.0.5N (2014/12/13 Saturday)
+ */
+public class TnAbstractBatchHandlerTest extends PlainTestCase {
+
+    // ===================================================================================
+    //                                                                       Flushed Batch
+    //                                                                       =============
+    public void test_executeFlushedBatch_flushed() {
+        // ## Arrange ##
+        final List<Integer> chunkSizeList = new ArrayList<Integer>();
+        TnAbstractBatchHandler handler = new MockBatchHandler("update MEMBER set MEMBER_NAME = ? where MEMBER_ID = ?") {
+            @Override
+            protected Integer getBatchFlushSize() {
+                return 3;
+            }
+
+            @Override
+            protected int[] executeBatchChunk(Connection conn, PreparedStatement ps, List<?> chunkList) {
+                chunkSizeList.add(chunkList.size());
+                final int[] chunkResult = new int[chunkList.size()];
+                Arrays.fill(chunkResult, chunkSizeList.size());
+                return chunkResult;
+            }
+        };
+
+        // ## Act ##
+        int[] result = handler.executeFlushedBatch(null, null, Arrays.asList("a", "b", "c", "d", "e", "f", "g"));
+
+        // ## Assert ##
+        assertEquals(Arrays.asList(3, 3, 1), chunkSizeList);
+        assertEquals("[1, 1, 1, 2, 2, 2, 3]", Arrays.toString(result));
+    }
+
+    public void test_executeFlushedBatch_noFlush() {
+        // ## Arrange ##
+        final List<Integer> chunkSizeList = new ArrayList<Integer>();
+        TnAbstractBatchHandler handler = new MockBatchHandler("update MEMBER set MEMBER_NAME = ? where MEMBER_ID = ?") {
+            @Override
+            protected int[] executeBatchChunk(Connection conn, PreparedStatement ps, List<?> chunkList) {
+                chunkSizeList.add(chunkList.size());
+                return new int[chunkList.size()];
+            }
+        };
+
+        // ## Act ##
+        int[] result = handler.executeFlushedBatch(null, null, Arrays.asList("a", "b", "c", "d"));
+
+        // ## Assert ##
+        assertEquals(Arrays.asList(4), chunkSizeList);
+        assertEquals(4, result.length);
+    }
+
+    // ===================================================================================
+    //                                                                    Multi-Row Values
+    //                                                                    ================
+    public void test_extractMultiRowValues_basic() {
+        // ## Arrange ##
+        String sql = "insert into MEMBER (MEMBER_ID, MEMBER_NAME)" + ln() + " values (?, ?)";
+        TnAbstractBatchHandler handler = new MockBatchHandler(sql);
+
+        // ## Act ##
+        String rowValues = handler.extractMultiRowValues();
+
+        // ## Assert ##
+        assertEquals("(?, ?)", rowValues);
+        String expected = "insert into MEMBER (MEMBER_ID, MEMBER_NAME)" + ln() + " values (?, ?), (?, ?), (?, ?)";
+        assertEquals(expected, handler.buildMultiRowValuesSql(rowValues, 3));
+    }
+
+    public void test_extractMultiRowValues_cannot() {
+        assertNull(new MockBatchHandler("update MEMBER set MEMBER_NAME = ?").extractMultiRowValues());
+        assertNull(new MockBatchHandler("insert into MEMBER (MEMBER_ID) select ? from dual").extractMultiRowValues());
+        assertNull(new MockBatchHandler("insert into MEMBER (MEMBER_ID) values (?) /*?*/").extractMultiRowValues());
+        assertNull(new MockBatchHandler("insert into MEMBER (MEMBER_ID)\nselect ? from dual").extractMultiRowValues());
+    }
+
+    public void test_extractMultiRowValues_selectInColumnName() {
+        // ## Arrange ##
+        String sql = "insert into MEMBER (MEMBER_ID, SELECTED_FLG, PRE_SELECT) values (?, ?, ?)";
+
+        // ## Act ##
+        String rowValues = new MockBatchHandler(sql).extractMultiRowValues();
+
+        // ## Assert ##
+        assertEquals("(?, ?, ?)", rowValues);
+    }
+
+    public void test_determineMultiRowValuesSize_bindParameterLimit() {
+        // ## Arrange ##
+        TnAbstractBatchHandler handler = new MockBatchHandler("insert into MEMBER ...") {
+            @Override
+            protected Integer getBatchFlushSize() {
+                return 1000;
+            }
+
+            @Override
+            protected int getMaxBindParameterCount() {
+                return 32767; // e.g. PostgreSQL
+            }
+        };
+        StringBuilder sb = new StringBuilder("(?");
+        for (int i = 1; i < 40; i++) {
+            sb.append(", ?");
+        }
+        String fortyColumns = sb.append(")").toString();
+
+        // ## Act & Assert ##
+        assertEquals(819, handler.determineMultiRowValuesSize(fortyColumns)); // 32767 / 40
+        assertEquals(1000, handler.determineMultiRowValuesSize("(?, ?)")); // flush size
+    }
+
+    public void test_determineMultiRowValuesSize_tooManyColumns() {
+        // ## Arrange ##
+        TnAbstractBatchHandler handler = new MockBatchHandler("insert into MEMBER ...") {
+            @Override
+            protected int getMaxBindParameterCount() {
+                return 2;
+            }
+        };
+
+        // ## Act & Assert ##
+        assertEquals(1, handler.determineMultiRowValuesSize("(?, ?, ?)")); // at least one row
+    }
+
+    // ===================================================================================
+    //                                                                         Mock Helper
+    //                                                                         ===========
+    protected static class MockBatchHandler extends TnAbstractBatchHandler {
+
+        public MockBatchHandler(String sql) {
+            super(null, null, sql, null, null);
+        }
+
+        @Override
+        protected void assertObjectNotNull(String variableName, Object value) {
+            // for no check of constructor
+        }
+
+        @Override
+        protected void setupBindVariables(Object bean) {
+        }
+
+        @Override
+        protected Integer getBatchLoggingLimit() {
+            return null;
+        }
+    }
+}
@@ -923,6 +923,46 @@ public class IfCommentEvaluatorTest extends PlainTestCase {
         assertTrue(createEvaluator(cdef, "pmb.code() == 'Pixy'").evaluate());
     }
 
+    // ===================================================================================
+    //                                                                            Compiled
+    //                                                                            ========
+    public void test_evaluate_compiled_reused() {
+        // ## Arrange ##
+        String expression = "pmb.memberName != null && pmb.memberId >= 2";
+        IfCommentCompiledExpression compiled = createEvaluator(null, expression).compile();
+        BasePmb pmb = new BasePmb();
+        pmb.setMemberName("foo");
+        pmb.setMemberId(3);
+
+        // ## Act && Assert ##
+        assertTrue(createEvaluator(pmb, expression).evaluate(compiled));
+        pmb.setMemberId(1);
+        assertFalse(createEvaluator(pmb, expression).evaluate(compiled));
+        Map<String, Object> map = new HashMap<String, Object>(); // another type for the same steps
+        map.put("memberName", "bar");
+        map.put("memberId", 2);
+        assertTrue(createEvaluator(map, expression).evaluate(compiled));
+        pmb.setMemberId(2);
+        assertTrue(createEvaluator(pmb, expression).evaluate(compiled));
+    }
+
+    public void test_evaluate_compiled_ifNode() {
+        // ## Arrange ##
+        BasePmb pmb = new BasePmb();
+        pmb.setMemberName("foo");
+        IfNode node = new IfNode("pmb.memberName != null", "select foo from bar");
+
+        // ## Act ##
+        IfCommentCompiledExpression first = node.prepareCompiledExpression(createEvaluator(pmb, "pmb.memberName != null"));
+        IfCommentCompiledExpression second = node.prepareCompiledExpression(createEvaluator(pmb, "pmb.memberName != null"));
+
+        // ## Assert ##
+        assertSame(first, second);
+        assertEquals(1, first.getClauses().length);
+        assertEquals(IfCommentCompiledExpression.OPERATOR_NOT_EQUAL, first.getClauses()[0].getOperator());
+        assertTrue(first.getClauses()[0].getRightPiece().isLiteral());
+    }
+
     protected static class MyCDef implements Classification {
         public String name() {
             return null;
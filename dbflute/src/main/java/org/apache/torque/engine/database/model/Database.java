@@ -2053,6 +2053,10 @@ public class Database {
         return getLittleAdjustmentProperties().isBatchUpdateColumnModifiedPropertiesFragmentedAllowed();
     }
 
+    public boolean isBatchUpdateColumnModifiedPropertiesGrouped() {
+        return getLittleAdjustmentProperties().isBatchUpdateColumnModifiedPropertiesGrouped();
+    }
+
     public boolean isQueryUpdateCountPreCheck() {
         return getLittleAdjustmentProperties().isQueryUpdateCountPreCheck();
     }
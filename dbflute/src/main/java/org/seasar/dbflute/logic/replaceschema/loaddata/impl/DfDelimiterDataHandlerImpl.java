@@ -19,11 +19,23 @@ import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.sql.DataSource;
 
@@ -31,6 +43,12 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.torque.engine.database.model.UnifiedSchema;
 import org.seasar.dbflute.exception.DfDelimiterDataRegistrationFailureException;
+import org.seasar.dbflute.helper.StringKeyMap;
+import org.seasar.dbflute.helper.StringSet;
+import org.seasar.dbflute.helper.jdbc.connection.DfCushionDataSource;
+import org.seasar.dbflute.helper.jdbc.connection.DfFittingDataSource;
+import org.seasar.dbflute.logic.jdbc.metadata.basic.DfForeignKeyExtractor;
+import org.seasar.dbflute.logic.jdbc.metadata.info.DfForeignKeyMeta;
 import org.seasar.dbflute.logic.replaceschema.loaddata.DfDelimiterDataHandler;
 import org.seasar.dbflute.logic.replaceschema.loaddata.DfDelimiterDataResource;
 import org.seasar.dbflute.logic.replaceschema.loaddata.DfDelimiterDataResultInfo;
@@ -38,6 +56,8 @@ import org.seasar.dbflute.logic.replaceschema.loaddata.DfLoadedDataInfo;
 import org.seasar.dbflute.logic.replaceschema.loaddata.impl.dataprop.DfDefaultValueProp;
 import org.seasar.dbflute.logic.replaceschema.loaddata.impl.dataprop.DfLoadingControlProp;
 import org.seasar.dbflute.logic.replaceschema.loaddata.interceptor.DfDataWritingInterceptor;
+import org.seasar.dbflute.util.DfCollectionUtil;
+import org.seasar.dbflute.util.Srl;
 
 /**
  * @author jflute
@@ -60,6 +80,7 @@ public class DfDelimiterDataHandlerImpl implements DfDelimiterDataHandler {
     protected boolean _suppressCheckColumnDef;
     protected boolean _suppressCheckImplicitSet;
     protected DfDataWritingInterceptor _dataWritingInterceptor;
+    protected int _parallelLoadingDegree; // if 1 or less, sequential
 
     /** The data-prop of default value map. (NotNull: after initialization) */
     protected DfDefaultValueProp _defaultValueProp;
@@ -106,21 +127,14 @@ public class DfDelimiterDataHandlerImpl implements DfDelimiterDataHandler {
 
                 final Map<String, Map<String, String>> convertValueMap = getConvertValueMap(resource, encoding);
                 final Map<String, String> defaultValueMap = getDefaultValueMap(resource, encoding);
+                if (isParallelLoading()) {
+                    writeParallel(resource, loadedDataInfo, resultInfo, encoding, sortedFileNameSet, convertValueMap, defaultValueMap);
+                    continue;
+                }
                 for (String fileName : sortedFileNameSet) {
                     final String fileNamePath = basePath + "/" + encoding + "/" + fileName;
-                    final DfDelimiterDataWriterImpl writer = new DfDelimiterDataWriterImpl(_dataSource, _unifiedSchema);
-                    writer.setLoggingInsertSql(isLoggingInsertSql());
-                    writer.setFileName(fileNamePath);
-                    writer.setEncoding(encoding);
-                    writer.setDelimiter(resource.getDelimiter());
-                    writer.setConvertValueMap(convertValueMap);
-                    writer.setDefaultValueMap(defaultValueMap);
-                    writer.setSuppressBatchUpdate(isSuppressBatchUpdate());
-                    writer.setSuppressCheckColumnDef(isSuppressCheckColumnDef());
-                    writer.setSuppressCheckImplicitSet(isSuppressCheckImplicitSet());
-                    writer.setDataWritingInterceptor(_dataWritingInterceptor);
-                    writer.setDefaultValueProp(_defaultValueProp);
-                    writer.setLoadingControlProp(_loadingControlProp);
+                    final DfDelimiterDataWriterImpl writer = createDelimiterDataWriter(resource, encoding, fileNamePath,
+                            convertValueMap, defaultValueMap, _dataSource);
                     writer.writeData(resultInfo);
                     prepareImplicitClassificationLazyCheck(loadedDataInfo, writer);
 
@@ -137,6 +151,296 @@ public class DfDelimiterDataHandlerImpl implements DfDelimiterDataHandler {
         return resultInfo;
     }
 
+    protected DfDelimiterDataWriterImpl createDelimiterDataWriter(DfDelimiterDataResource resource, String encoding,
+            String fileNamePath, Map<String, Map<String, String>> convertValueMap, Map<String, String> defaultValueMap,
+            DataSource dataSource) {
+        final DfDelimiterDataWriterImpl writer = new DfDelimiterDataWriterImpl(dataSource, _unifiedSchema);
+        writer.setLoggingInsertSql(isLoggingInsertSql());
+        writer.setFileName(fileNamePath);
+        writer.setEncoding(encoding);
+        writer.setDelimiter(resource.getDelimiter());
+        writer.setConvertValueMap(convertValueMap);
+        writer.setDefaultValueMap(defaultValueMap);
+        writer.setSuppressBatchUpdate(isSuppressBatchUpdate());
+        writer.setSuppressCheckColumnDef(isSuppressCheckColumnDef());
+        writer.setSuppressCheckImplicitSet(isSuppressCheckImplicitSet());
+        writer.setDataWritingInterceptor(_dataWritingInterceptor);
+        writer.setDefaultValueProp(_defaultValueProp);
+        writer.setLoadingControlProp(_loadingControlProp);
+        return writer;
+    }
+
+    // ===================================================================================
+    //                                                                    Parallel Loading
+    //                                                                    ================
+    protected boolean isParallelLoading() {
+        if (_parallelLoadingDegree <= 1) {
+            return false;
+        }
+        if (_dataWritingInterceptor != null) { // e.g. identity insert is effective only in the same session
+            _log.info("...Loading sequentially because of the data writing interceptor: " + _dataWritingInterceptor);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Write the data files in the encoding directory in parallel. <br />
+     * Tables are ordered by foreign keys and tables in the same level are loaded concurrently
+     * by separate connections (the files of one table are loaded sequentially).
+     */
+    protected void writeParallel(final DfDelimiterDataResource resource, DfLoadedDataInfo loadedDataInfo,
+            DfDelimiterDataResultInfo resultInfo, final String encoding, Set<String> sortedFileNameSet,
+            final Map<String, Map<String, String>> convertValueMap, final Map<String, String> defaultValueMap) throws IOException {
+        final Map<String, List<String>> tableFileMap = StringKeyMap.createAsFlexibleOrdered();
+        for (String fileName : sortedFileNameSet) {
+            final String tableDbName = extractTableDbName(fileName);
+            List<String> fileList = tableFileMap.get(tableDbName);
+            if (fileList == null) {
+                fileList = new ArrayList<String>();
+                tableFileMap.put(tableDbName, fileList);
+            }
+            fileList.add(fileName);
+        }
+        final List<List<String>> levelList = analyzeLoadingOrder(extractDependencyMap(tableFileMap.keySet()));
+        _log.info("...Loading tables in parallel: degree=" + _parallelLoadingDegree + ", levels=" + levelList.size());
+        prepareParallelLoadingControl(resource, encoding);
+        final DataSource parallelDataSource = createParallelDataSource();
+        final ExecutorService executorService = Executors.newFixedThreadPool(_parallelLoadingDegree);
+        try {
+            for (List<String> levelTableList : levelList) {
+                final Map<String, Future<DfParallelLoadingResult>> futureMap = new LinkedHashMap<String, Future<DfParallelLoadingResult>>();
+                for (final String tableDbName : levelTableList) {
+                    final List<String> fileList = tableFileMap.get(tableDbName);
+                    futureMap.put(tableDbName, executorService.submit(new Callable<DfParallelLoadingResult>() {
+                        public DfParallelLoadingResult call() throws Exception {
+                            final DfParallelLoadingResult loadingResult = new DfParallelLoadingResult();
+                            final long before = System.currentTimeMillis();
+                            for (String fileName : fileList) {
+                                final String fileNamePath = resource.getBasePath() + "/" + encoding + "/" + fileName;
+                                final DfDelimiterDataWriterImpl writer = createDelimiterDataWriter(resource, encoding, fileNamePath,
+                                        convertValueMap, defaultValueMap, parallelDataSource);
+                                writer.writeData(loadingResult.getResultInfo()); // result info per table
+                                loadingResult.addWriter(writer);
+                            }
+                            loadingResult.setLoadingMillis(System.currentTimeMillis() - before);
+                            return loadingResult;
+                        }
+                    }));
+                }
+                for (Entry<String, Future<DfParallelLoadingResult>> entry : futureMap.entrySet()) {
+                    final DfParallelLoadingResult loadingResult = getParallelLoadingResult(entry.getKey(), entry.getValue());
+                    reflectParallelLoadingResult(resource, loadedDataInfo, resultInfo, encoding, loadingResult);
+                    noticeLoadingSpeed(entry.getKey(), loadingResult);
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    protected String extractTableDbName(String fileName) { // same as writer's logic
+        String tableDbName = fileName.substring(0, fileName.lastIndexOf("."));
+        if (tableDbName.indexOf("-") >= 0) {
+            tableDbName = tableDbName.substring(tableDbName.indexOf("-") + "-".length());
+        }
+        return tableDbName;
+    }
+
+    /**
+     * @param tableDbNameSet The set of table DB name for loading. (NotNull)
+     * @return The map of table DB name and foreign table names in the loading tables. (NotNull)
+     */
+    protected Map<String, Set<String>> extractDependencyMap(Set<String> tableDbNameSet) {
+        final Map<String, Set<String>> dependencyMap = StringKeyMap.createAsFlexibleOrdered();
+        final StringSet loadingTableSet = StringSet.createAsFlexible();
+        loadingTableSet.addAll(tableDbNameSet);
+        final DfForeignKeyExtractor extractor = new DfForeignKeyExtractor();
+        Connection conn = null;
+        try {
+            conn = _dataSource.getConnection();
+            final DatabaseMetaData metaData = conn.getMetaData();
+            for (String tableDbName : tableDbNameSet) {
+                final Set<String> foreignTableSet = StringSet.createAsFlexibleOrdered();
+                final Map<String, DfForeignKeyMeta> fkMap = extractor.getForeignKeyMap(conn, metaData, _unifiedSchema, tableDbName);
+                for (DfForeignKeyMeta fkMeta : fkMap.values()) {
+                    final String foreignTableName = fkMeta.getForeignTablePureName();
+                    if (loadingTableSet.contains(foreignTableName)) { // only loading tables
+                        foreignTableSet.add(foreignTableName);
+                    }
+                }
+                dependencyMap.put(tableDbName, foreignTableSet);
+            }
+        } catch (SQLException e) {
+            String msg = "Failed to get foreign keys for parallel loading: " + tableDbNameSet;
+            throw new IllegalStateException(msg, e);
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException ignored) {}
+            }
+        }
+        return dependencyMap;
+    }
+
+    /**
+     * Analyze the order of loading by dependencies (in the same way as table order analyzer of LoadDataReverse). <br />
+     * Tables in the same level do not depend on each other so they can be loaded concurrently.
+     * @param dependencyMap The map of table DB name and foreign table names. (NotNull)
+     * @return The list of level that has table DB names. (NotNull)
+     */
+    protected List<List<String>> analyzeLoadingOrder(Map<String, Set<String>> dependencyMap) {
+        final Set<String> alreadyRegisteredSet = StringSet.createAsFlexible();
+        final List<List<String>> levelList = new ArrayList<List<String>>();
+        List<String> unregisteredList = new ArrayList<String>(dependencyMap.keySet());
+        while (!unregisteredList.isEmpty()) {
+            final List<String> levelTableList = new ArrayList<String>();
+            final List<String> nextList = new ArrayList<String>();
+            for (String tableDbName : unregisteredList) {
+                boolean dependsOnAny = false;
+                for (String foreignTableName : dependencyMap.get(tableDbName)) {
+                    if (!foreignTableName.equalsIgnoreCase(tableDbName) && !alreadyRegisteredSet.contains(foreignTableName)) {
+                        dependsOnAny = true;
+                        break;
+                    }
+                }
+                if (dependsOnAny) {
+                    nextList.add(tableDbName);
+                } else {
+                    levelTableList.add(tableDbName);
+                }
+            }
+            if (levelTableList.isEmpty()) { // circular reference so sequential loading in file order
+                for (String tableDbName : nextList) {
+                    levelList.add(DfCollectionUtil.newArrayList(tableDbName));
+                }
+                break;
+            }
+            alreadyRegisteredSet.addAll(levelTableList); // after the level, not concurrent with parent
+            levelList.add(levelTableList);
+            unregisteredList = nextList;
+        }
+        return levelList;
+    }
+
+    /**
+     * Prepare the shared loading control before submitting writers. <br />
+     * The property is analyzed here by the main thread so writer threads only read it.
+     * @param resource The resource of delimiter data. (NotNull)
+     * @param encoding The encoding as directory name. (NotNull)
+     */
+    protected void prepareParallelLoadingControl(DfDelimiterDataResource resource, String encoding) {
+        if (_loadingControlProp != null) {
+            _loadingControlProp.prepareLoadingControlMap(resource.getBasePath() + "/" + encoding);
+        }
+    }
+
+    protected DataSource createParallelDataSource() {
+        if (_dataSource instanceof DfFittingDataSource) { // cached connection so needs new connection per writer
+            final DfFittingDataSource fittingDataSource = (DfFittingDataSource) _dataSource;
+            return new DfCushionDataSource() {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return fittingDataSource.newConnection();
+                }
+            };
+        }
+        return _dataSource; // e.g. pooling data source
+    }
+
+    protected DfParallelLoadingResult getParallelLoadingResult(String tableDbName, Future<DfParallelLoadingResult> future)
+            throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            String msg = "The parallel loading was interrupted: table=" + tableDbName;
+            throw new DfDelimiterDataRegistrationFailureException(msg, e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            String msg = "Failed to load the table in parallel: table=" + tableDbName;
+            throw new DfDelimiterDataRegistrationFailureException(msg, cause);
+        }
+    }
+
+    protected void reflectParallelLoadingResult(DfDelimiterDataResource resource, DfLoadedDataInfo loadedDataInfo,
+            DfDelimiterDataResultInfo resultInfo, String encoding, DfParallelLoadingResult loadingResult) {
+        final DfDelimiterDataResultInfo tableResultInfo = loadingResult.getResultInfo();
+        for (Entry<String, Set<String>> entry : tableResultInfo.getNotFoundColumnMap().entrySet()) {
+            final Map<String, Set<String>> notFoundColumnMap = resultInfo.getNotFoundColumnMap();
+            final Set<String> columnSet = notFoundColumnMap.get(entry.getKey());
+            if (columnSet != null) {
+                columnSet.addAll(entry.getValue());
+            } else {
+                notFoundColumnMap.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Entry<String, List<String>> entry : tableResultInfo.getWarningFileMap().entrySet()) {
+            for (String message : entry.getValue()) {
+                resultInfo.registerWarningFile(entry.getKey(), message);
+            }
+        }
+        for (DfDelimiterDataWriterImpl writer : loadingResult.getWriterList()) {
+            prepareImplicitClassificationLazyCheck(loadedDataInfo, writer);
+            final String fileNamePath = writer.getFileName();
+            final String fileName = Srl.substringLastRear(fileNamePath, "/");
+            final boolean warned = resultInfo.getWarningFileMap().containsKey(fileNamePath);
+            loadedDataInfo.addLoadedFile(resource.getLoadType(), resource.getFileType(), encoding, fileName, warned);
+        }
+    }
+
+    protected void noticeLoadingSpeed(String tableDbName, DfParallelLoadingResult loadingResult) {
+        final int rowSize = loadingResult.getLoadedRowSize();
+        final long millis = loadingResult.getLoadingMillis();
+        final long rowsPerSecond = millis > 0 ? (rowSize * 1000L / millis) : rowSize;
+        _log.info(" -> " + tableDbName + ": " + rowSize + " rows in " + millis + "ms (" + rowsPerSecond + " rows/sec)");
+    }
+
+    protected static class DfParallelLoadingResult {
+
+        protected final DfDelimiterDataResultInfo _resultInfo = new DfDelimiterDataResultInfo();
+        protected final List<DfDelimiterDataWriterImpl> _writerList = new ArrayList<DfDelimiterDataWriterImpl>();
+        protected long _loadingMillis;
+
+        public int getLoadedRowSize() {
+            int rowSize = 0;
+            for (DfDelimiterDataWriterImpl writer : _writerList) {
+                rowSize = rowSize + writer.getLoadedRowSize();
+            }
+            return rowSize;
+        }
+
+        public DfDelimiterDataResultInfo getResultInfo() {
+            return _resultInfo;
+        }
+
+        public List<DfDelimiterDataWriterImpl> getWriterList() {
+            return _writerList;
+        }
+
+        public void addWriter(DfDelimiterDataWriterImpl writer) {
+            _writerList.add(writer);
+        }
+
+        public long getLoadingMillis() {
+            return _loadingMillis;
+        }
+
+        public void setLoadingMillis(long loadingMillis) {
+            _loadingMillis = loadingMillis;
+        }
+    }
+
+    // ===================================================================================
+    //                                                                        Assist Logic
+    //                                                                        ============
     protected boolean isUnsupportedEncodingDirectory(String encoding) {
         try {
             new String(new byte[0], 0, 0, encoding);
@@ -237,6 +541,14 @@ public class DfDelimiterDataHandlerImpl implements DfDelimiterDataHandler {
         this._defaultValueProp = defaultValueProp;
     }
 
+    public int getParallelLoadingDegree() {
+        return _parallelLoadingDegree;
+    }
+
+    public void setParallelLoadingDegree(int parallelLoadingDegree) {
+        this._parallelLoadingDegree = parallelLoadingDegree;
+    }
+
     public DfLoadingControlProp getLoadingControlProp() {
         return _loadingControlProp;
     }
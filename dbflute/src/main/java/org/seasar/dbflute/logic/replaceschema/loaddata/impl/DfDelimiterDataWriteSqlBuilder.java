@@ -15,10 +15,12 @@
  */
 package org.seasar.dbflute.logic.replaceschema.loaddata.impl;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.seasar.dbflute.DfBuildProperties;
@@ -44,19 +46,24 @@ public class DfDelimiterDataWriteSqlBuilder {
     protected Map<String, Map<String, String>> _convertValueMap;
     protected Map<String, String> _defaultValueMap;
     protected DfColumnBindTypeProvider _bindTypeProvider;
-    protected Map<String, String> _basicColumnValueMap;
     protected Map<String, String> _allColumnConvertMap;
     protected DfDefaultValueProp _defaultValueProp;
     protected Set<String> _sysdateColumnSet;
 
+    // column plan resolved once per file, the builder is reused for all rows of the file
+    protected List<String> _plannedColumnDbNameList; // lazy-loaded
+    protected List<Integer> _plannedValueIndexList; // lazy-loaded
+    protected Map<String, Object> _rowColumnValueMap; // lazy-loaded, values are overwritten per row
+    protected DfColumnValueConverter _columnValueConverter; // lazy-loaded
+
     // ===================================================================================
     //                                                                           Build SQL
     //                                                                           =========
     public String buildSql() {
-        final Map<String, String> columnValueMap = createBasicColumnValueMap();
+        prepareColumnPlan();
         final StringBuilder sb = new StringBuilder();
         final StringBuilder sbValues = new StringBuilder();
-        for (String columnDbName : columnValueMap.keySet()) {
+        for (String columnDbName : _plannedColumnDbNameList) {
             final String columnSqlName = quoteColumnNameIfNeeds(columnDbName);
             sb.append(", ").append(columnSqlName);
             sbValues.append(", ?");
@@ -68,9 +75,14 @@ public class DfDelimiterDataWriteSqlBuilder {
         return sb.toString();
     }
 
+    /**
+     * Set up the parameter of the current value list (the same order as the SQL). <br />
+     * The returned map instance is reused for all rows of the file (only values are overwritten),
+     * so use it before the next row is set up.
+     * @return The map of column value for the current row. (NotNull)
+     */
     public Map<String, Object> setupParameter() {
-        @SuppressWarnings("unchecked")
-        final Map<String, Object> columnValueMap = (Map<String, Object>) ((Object) createBasicColumnValueMap());
+        final Map<String, Object> columnValueMap = setupRowColumnValueMap();
         saveSysdateColumnSet(columnValueMap); // for relative date
         convertColumnValueIfNeeds(columnValueMap);
         return columnValueMap;
@@ -86,9 +98,11 @@ public class DfDelimiterDataWriteSqlBuilder {
         //        && (_defaultValueMap == null || _defaultValueMap.isEmpty())) { // and no default
         //    return;
         //}
-        final DfColumnValueConverter converter = createColumnValueConverter();
-        converter.emptyToNullIfNoConvert(); // e.g. TSV might have empty string (treated as null as default)
-        converter.convert(_tableDbName, columnValueMap, _columnMetaMap);
+        if (_columnValueConverter == null) {
+            _columnValueConverter = createColumnValueConverter();
+            _columnValueConverter.emptyToNullIfNoConvert(); // e.g. TSV might have empty string (treated as null as default)
+        }
+        _columnValueConverter.convert(_tableDbName, columnValueMap, _columnMetaMap);
     }
 
     protected DfColumnValueConverter createColumnValueConverter() {
@@ -108,11 +122,12 @@ public class DfDelimiterDataWriteSqlBuilder {
     // ===================================================================================
     //                                                                           SQL Parts
     //                                                                           =========
-    protected Map<String, String> createBasicColumnValueMap() {
-        if (_basicColumnValueMap != null) {
-            return _basicColumnValueMap;
+    protected void prepareColumnPlan() {
+        if (_plannedColumnDbNameList != null) {
+            return;
         }
-        _basicColumnValueMap = new LinkedHashMap<String, String>();
+        final List<String> columnDbNameList = new ArrayList<String>();
+        final List<Integer> valueIndexList = new ArrayList<Integer>();
         int columnCount = -1;
         for (String columnName : _columnNameList) {
             columnCount++;
@@ -128,6 +143,35 @@ public class DfDelimiterDataWriteSqlBuilder {
                 notFoundColumnSet.add(columnName);
                 continue;
             }
+            final String columnDbName;
+            if (!_columnMetaMap.isEmpty() && _columnMetaMap.containsKey(columnName)) {
+                columnDbName = _columnMetaMap.get(columnName).getColumnName(); // real DB name
+            } else {
+                columnDbName = columnName;
+            }
+            final int existingIndex = columnDbNameList.indexOf(columnDbName);
+            if (existingIndex >= 0) { // duplicate column, the latter value is used (same as map)
+                valueIndexList.set(existingIndex, columnCount);
+                continue;
+            }
+            columnDbNameList.add(columnDbName);
+            valueIndexList.add(columnCount);
+        }
+        _plannedColumnDbNameList = columnDbNameList;
+        _plannedValueIndexList = valueIndexList;
+    }
+
+    protected Map<String, Object> setupRowColumnValueMap() {
+        prepareColumnPlan();
+        if (_rowColumnValueMap == null) { // keys are fixed by the column plan
+            _rowColumnValueMap = new LinkedHashMap<String, Object>(_plannedColumnDbNameList.size());
+            for (String columnDbName : _plannedColumnDbNameList) {
+                _rowColumnValueMap.put(columnDbName, null);
+            }
+        }
+        int plannedIndex = 0;
+        for (Entry<String, Object> entry : _rowColumnValueMap.entrySet()) { // no structural change per row
+            final int columnCount = _plannedValueIndexList.get(plannedIndex);
             final String value;
             try {
                 if (columnCount < _valueList.size()) {
@@ -141,14 +185,10 @@ public class DfDelimiterDataWriteSqlBuilder {
                 msg = msg + " valueList=" + _valueList + " columnCount=" + columnCount;
                 throw new DfDelimiterDataRegistrationFailureException(msg, e);
             }
-            if (!_columnMetaMap.isEmpty() && _columnMetaMap.containsKey(columnName)) {
-                String realDbName = _columnMetaMap.get(columnName).getColumnName();
-                _basicColumnValueMap.put(realDbName, value);
-            } else {
-                _basicColumnValueMap.put(columnName, value);
-            }
+            entry.setValue(value);
+            ++plannedIndex;
         }
-        return _basicColumnValueMap;
+        return _rowColumnValueMap;
     }
 
     // ===================================================================================
@@ -68,6 +68,7 @@ public class DfDelimiterDataWriterImpl extends DfAbsractDataWriter implements Df
     protected String _delimiter;
     protected Map<String, Map<String, String>> _convertValueMap;
     protected Map<String, String> _defaultValueMap;
+    protected int _loadedRowSize; // after writing
 
     /** The cache map of meta info. The key is table name. */
     protected final Map<String, Map<String, DfColumnMeta>> _metaInfoCacheMap = StringKeyMap.createAsFlexible();
@@ -117,6 +118,7 @@ public class DfDelimiterDataWriterImpl extends DfAbsractDataWriter implements Df
         final boolean canBatchUpdate = !isMergedSuppressBatchUpdate(dataDirectory);
 
         final File dataFile = new File(_fileName);
+        DfDelimiterDataWriteSqlBuilder sqlBuilder = null;
         Connection conn = null;
         PreparedStatement ps = null;
         try {
@@ -200,20 +202,9 @@ public class DfDelimiterDataWriterImpl extends DfAbsractDataWriter implements Df
                 // /- - - - - - - - - - - - - - - -
                 // process registration to database
                 // - - - - - - - - - -/
-                final DfDelimiterDataWriteSqlBuilder sqlBuilder = new DfDelimiterDataWriteSqlBuilder();
-                sqlBuilder.setTableDbName(tableDbName);
-                sqlBuilder.setColumnMetaMap(columnMetaMap);
-                sqlBuilder.setColumnNameList(columnNameList);
-                sqlBuilder.setValueList(valueList);
-                sqlBuilder.setNotFoundColumnMap(resultInfo.getNotFoundColumnMap());
-                sqlBuilder.setConvertValueMap(_convertValueMap);
-                sqlBuilder.setDefaultValueMap(_defaultValueMap);
-                sqlBuilder.setBindTypeProvider(new DfColumnBindTypeProvider() {
-                    public Class<?> provide(String tableName, DfColumnMeta columnMeta) {
-                        return getBindType(tableName, columnMeta);
-                    }
-                });
-                sqlBuilder.setDefaultValueProp(_defaultValueProp);
+                if (sqlBuilder == null) { // reused for all rows of the file
+                    sqlBuilder = createSqlBuilder(resultInfo, tableDbName, columnMetaMap, columnNameList, valueList);
+                }
                 if (conn == null) {
                     conn = _dataSource.getConnection();
                 }
@@ -272,9 +263,7 @@ public class DfDelimiterDataWriterImpl extends DfAbsractDataWriter implements Df
                         ps.executeBatch(); // to avoid OutOfMemory
                     }
                     commitTransaction(conn);
-                    addedBatchSize = 0;
-                    close(ps);
-                    ps = null;
+                    addedBatchSize = 0; // the statement is kept open across commits
                 }
                 // *one record is finished here
 
@@ -291,6 +280,7 @@ public class DfDelimiterDataWriterImpl extends DfAbsractDataWriter implements Df
                 commitTransaction(conn);
             }
             noticeLoadedRowSize(tableDbName, rowNumber);
+            _loadedRowSize = rowNumber;
             checkImplicitClassification(dataFile, tableDbName, columnNameList);
         } catch (FileNotFoundException e) {
             throw e;
@@ -331,6 +321,25 @@ public class DfDelimiterDataWriterImpl extends DfAbsractDataWriter implements Df
         }
     }
 
+    protected DfDelimiterDataWriteSqlBuilder createSqlBuilder(DfDelimiterDataResultInfo resultInfo, String tableDbName,
+            Map<String, DfColumnMeta> columnMetaMap, List<String> columnNameList, List<String> valueList) {
+        final DfDelimiterDataWriteSqlBuilder sqlBuilder = new DfDelimiterDataWriteSqlBuilder();
+        sqlBuilder.setTableDbName(tableDbName);
+        sqlBuilder.setColumnMetaMap(columnMetaMap);
+        sqlBuilder.setColumnNameList(columnNameList);
+        sqlBuilder.setValueList(valueList); // refers the current values of row
+        sqlBuilder.setNotFoundColumnMap(resultInfo.getNotFoundColumnMap());
+        sqlBuilder.setConvertValueMap(_convertValueMap);
+        sqlBuilder.setDefaultValueMap(_defaultValueMap);
+        sqlBuilder.setBindTypeProvider(new DfColumnBindTypeProvider() {
+            public Class<?> provide(String tableName, DfColumnMeta columnMeta) {
+                return getBindType(tableName, columnMeta);
+            }
+        });
+        sqlBuilder.setDefaultValueProp(_defaultValueProp);
+        return sqlBuilder;
+    }
+
     protected void beginTransaction(Connection conn) throws SQLException {
         conn.setAutoCommit(false);
     }
@@ -747,6 +756,10 @@ public class DfDelimiterDataWriterImpl extends DfAbsractDataWriter implements Df
         return _fileName;
     }
 
+    public int getLoadedRowSize() {
+        return _loadedRowSize;
+    }
+
     public void setFileName(String fileName) {
         this._fileName = fileName;
     }
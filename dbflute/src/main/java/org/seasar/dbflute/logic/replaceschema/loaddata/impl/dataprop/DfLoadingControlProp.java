@@ -67,7 +67,7 @@ public class DfLoadingControlProp {
     // ===================================================================================
     //                                                                           Attribute
     //                                                                           =========
-    protected final Map<String, Map<String, Object>> _loadingControlMapMap = DfCollectionUtil.newLinkedHashMap();
+    protected final Map<String, Map<String, Object>> _loadingControlMapMap = DfCollectionUtil.newConcurrentHashMap(); // shared by parallel writers
     protected final DfRelativeDateResolver _relativeDateResolver = new DfRelativeDateResolver();
 
     // ===================================================================================
@@ -455,20 +455,35 @@ public class DfLoadingControlProp {
     // ===================================================================================
     //                                                                 Loading Control Map
     //                                                                 ===================
+    /**
+     * Prepare the loading control map of the data directory in advance. <br />
+     * Call this before parallel loading so that writer threads only read the analyzed map.
+     * @param dataDirectory The path of data directory. (NotNull)
+     */
+    public void prepareLoadingControlMap(String dataDirectory) {
+        getLoadingControlMap(dataDirectory);
+    }
+
     protected Map<String, Object> getLoadingControlMap(String dataDirectory) {
         final Map<String, Object> cachedMap = _loadingControlMapMap.get(dataDirectory);
         if (cachedMap != null) {
             return cachedMap;
         }
-        final DfOutsideMapPropReader reader = new DfOutsideMapPropReader();
-        final String path = dataDirectory + "/" + LOADING_CONTROL_MAP_NAME;
-        final Map<String, Object> resultMap = reader.readMap(path);
-        final Map<String, Object> analyzedMap = new LinkedHashMap<String, Object>();
-        if (resultMap != null && !resultMap.isEmpty()) {
-            analyzeLoadingControlMap(dataDirectory, resultMap, analyzedMap);
+        synchronized (_loadingControlMapMap) { // analyzed only once even if parallel loading
+            final Map<String, Object> preparedMap = _loadingControlMapMap.get(dataDirectory);
+            if (preparedMap != null) {
+                return preparedMap;
+            }
+            final DfOutsideMapPropReader reader = new DfOutsideMapPropReader();
+            final String path = dataDirectory + "/" + LOADING_CONTROL_MAP_NAME;
+            final Map<String, Object> resultMap = reader.readMap(path);
+            final Map<String, Object> analyzedMap = new LinkedHashMap<String, Object>();
+            if (resultMap != null && !resultMap.isEmpty()) {
+                analyzeLoadingControlMap(dataDirectory, resultMap, analyzedMap);
+            }
+            _loadingControlMapMap.put(dataDirectory, analyzedMap);
+            return analyzedMap;
         }
-        _loadingControlMapMap.put(dataDirectory, analyzedMap);
-        return _loadingControlMapMap.get(dataDirectory);
     }
 
     protected void analyzeLoadingControlMap(String dataDirectory, Map<String, Object> resultMap, Map<String, Object> analyzedMap) {
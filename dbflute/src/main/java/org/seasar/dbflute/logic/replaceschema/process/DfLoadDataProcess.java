@@ -208,6 +208,7 @@ public class DfLoadDataProcess extends DfAbstractReplaceSchemaProcess {
         handler.setDataWritingInterceptor(getDataWritingInterceptor());
         handler.setDefaultValueProp(_defaultValueProp);
         handler.setLoadingControlProp(_loadingControlProp);
+        handler.setParallelLoadingDegree(getParallelLoadingDegree());
         _delimiterDataHandlerImpl = handler;
         return _delimiterDataHandlerImpl;
     }
@@ -516,6 +517,10 @@ public class DfLoadDataProcess extends DfAbstractReplaceSchemaProcess {
         return getReplaceSchemaProperties().isSuppressBatchUpdate();
     }
 
+    public int getParallelLoadingDegree() {
+        return getReplaceSchemaProperties().getParallelLoadingDegree();
+    }
+
     public boolean isSuppressCheckColumnDef() {
         return _suppressCheckColumnDef;
     }
@@ -899,6 +899,11 @@ public final class DfLittleAdjustmentProperties extends DfAbstractHelperProperti
         return isProperty("isBatchUpdateColumnModifiedPropertiesFragmentedAllowed", false);
     }
 
+    public boolean isBatchUpdateColumnModifiedPropertiesGrouped() { // closet
+        // BatchUpdate executes one batch per modified-property set instead of fragmented check
+        return isProperty("isBatchUpdateColumnModifiedPropertiesGrouped", false);
+    }
+
     // ===================================================================================
     //                                                                        Query Update
     //                                                                        ============
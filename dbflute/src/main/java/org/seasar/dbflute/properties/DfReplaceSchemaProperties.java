@@ -432,6 +432,14 @@ public final class DfReplaceSchemaProperties extends DfAbstractHelperProperties
         return isProperty("isSuppressBatchUpdate", false, getReplaceSchemaDefinitionMap());
     }
 
+    // ===================================================================================
+    //                                                                    Parallel Loading
+    //                                                                    ================
+    public int getParallelLoadingDegree() { // closet
+        final String degree = getProperty("parallelLoadingDegree", "1", getReplaceSchemaDefinitionMap());
+        return Integer.valueOf(degree); // if 1 or less, sequential loading
+    }
+
     // ===================================================================================
     //                                                             Object Type Target List
     //                                                             =======================
@@ -15,7 +15,29 @@
  */
 package org.seasar.dbflute.logic.replaceschema.loaddata.impl;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.sql.DataSource;
+
+import org.seasar.dbflute.helper.StringKeyMap;
+import org.seasar.dbflute.helper.StringSet;
+import org.seasar.dbflute.logic.replaceschema.loaddata.DfDelimiterDataResource;
+import org.seasar.dbflute.logic.replaceschema.loaddata.DfDelimiterDataResultInfo;
+import org.seasar.dbflute.logic.replaceschema.loaddata.DfLoadedDataInfo;
+import org.seasar.dbflute.logic.replaceschema.loaddata.DfLoadedFile;
+import org.seasar.dbflute.logic.replaceschema.loaddata.impl.dataprop.DfLoadingControlProp;
 import org.seasar.dbflute.unit.core.PlainTestCase;
+import org.seasar.dbflute.util.Srl;
 
 /**
  * @author jflute
@@ -29,4 +51,254 @@ public class DfDelimiterDataHandlerImplTest extends PlainTestCase {
         assertFalse(target.isUnsupportedEncodingDirectory("Windows-31J"));
         assertTrue(target.isUnsupportedEncodingDirectory("UTF-8sss"));
     }
+
+    public void test_extractTableDbName() throws Exception {
+        final DfDelimiterDataHandlerImpl target = new DfDelimiterDataHandlerImpl();
+        assertEquals("MEMBER", target.extractTableDbName("MEMBER.tsv"));
+        assertEquals("MEMBER_STATUS", target.extractTableDbName("01-MEMBER_STATUS.tsv"));
+    }
+
+    public void test_analyzeLoadingOrder_basic() throws Exception {
+        // ## Arrange ##
+        final DfDelimiterDataHandlerImpl target = new DfDelimiterDataHandlerImpl();
+        final Map<String, Set<String>> dependencyMap = StringKeyMap.createAsFlexibleOrdered();
+        dependencyMap.put("MEMBER", newSet("MEMBER_STATUS"));
+        dependencyMap.put("MEMBER_LOGIN", newSet("MEMBER", "MEMBER_STATUS"));
+        dependencyMap.put("MEMBER_STATUS", newSet());
+        dependencyMap.put("PRODUCT", newSet("PRODUCT")); // self reference
+        dependencyMap.put("PURCHASE", newSet("member", "PRODUCT"));
+
+        // ## Act ##
+        final List<List<String>> levelList = target.analyzeLoadingOrder(dependencyMap);
+
+        // ## Assert ##
+        log(levelList);
+        assertEquals(3, levelList.size());
+        assertEquals(newArrayList("MEMBER_STATUS", "PRODUCT"), levelList.get(0));
+        assertEquals(newArrayList("MEMBER"), levelList.get(1));
+        assertEquals(newArrayList("MEMBER_LOGIN", "PURCHASE"), levelList.get(2));
+    }
+
+    public void test_analyzeLoadingOrder_circular() throws Exception {
+        // ## Arrange ##
+        final DfDelimiterDataHandlerImpl target = new DfDelimiterDataHandlerImpl();
+        final Map<String, Set<String>> dependencyMap = StringKeyMap.createAsFlexibleOrdered();
+        dependencyMap.put("FOO", newSet("BAR"));
+        dependencyMap.put("BAR", newSet("FOO"));
+        dependencyMap.put("QUX", newSet());
+
+        // ## Act ##
+        final List<List<String>> levelList = target.analyzeLoadingOrder(dependencyMap);
+
+        // ## Assert ##
+        assertEquals(3, levelList.size());
+        assertEquals(newArrayList("QUX"), levelList.get(0));
+        assertEquals(newArrayList("FOO"), levelList.get(1));
+        assertEquals(newArrayList("BAR"), levelList.get(2));
+    }
+
+    // ===================================================================================
+    //                                                                    Parallel Loading
+    //                                                                    ================
+    public void test_writeParallel_levelOrder() throws Exception {
+        // ## Arrange ##
+        final File baseDir = prepareDataDirectory();
+        try {
+            final List<String> eventList = Collections.synchronizedList(new ArrayList<String>());
+            final List<String> threadList = Collections.synchronizedList(new ArrayList<String>());
+            final List<String> analyzedList = Collections.synchronizedList(new ArrayList<String>());
+            final DfLoadingControlProp loadingControlProp = new DfLoadingControlProp() {
+                @Override
+                protected void analyzeLoadingControlMap(String dataDirectory, Map<String, Object> resultMap,
+                        Map<String, Object> analyzedMap) {
+                    analyzedList.add(Thread.currentThread().getName());
+                    super.analyzeLoadingControlMap(dataDirectory, resultMap, analyzedMap);
+                }
+            };
+            final DfDelimiterDataHandlerImpl target = new ParallelDelimiterDataHandler(eventList, threadList);
+            target.setParallelLoadingDegree(3);
+            target.setLoadingControlProp(loadingControlProp);
+            final DfDelimiterDataResource resource = new DfDelimiterDataResource();
+            resource.setLoadType("ut");
+            resource.setBasePath(baseDir.getPath());
+            resource.setFileType("tsv");
+            resource.setDelimiter("\t");
+            final DfLoadedDataInfo loadedDataInfo = new DfLoadedDataInfo();
+            final DfDelimiterDataResultInfo resultInfo = new DfDelimiterDataResultInfo();
+            final Set<String> fileNameSet = new TreeSet<String>();
+            fileNameSet.add("01-MEMBER.tsv");
+            fileNameSet.add("02-MEMBER.tsv");
+            fileNameSet.add("MEMBER_STATUS.tsv");
+            fileNameSet.add("PRODUCT.tsv");
+            fileNameSet.add("PURCHASE.tsv");
+
+            // ## Act ##
+            target.writeParallel(resource, loadedDataInfo, resultInfo, "UTF-8", fileNameSet, null, null);
+
+            // ## Assert ##
+            log(eventList);
+            assertEquals(10, eventList.size());
+            assertBefore(eventList, "end:MEMBER_STATUS.tsv", "begin:01-MEMBER.tsv");
+            assertBefore(eventList, "end:PRODUCT.tsv", "begin:PURCHASE.tsv");
+            assertBefore(eventList, "end:01-MEMBER.tsv", "begin:02-MEMBER.tsv"); // files of one table are sequential
+            assertBefore(eventList, "end:02-MEMBER.tsv", "begin:PURCHASE.tsv");
+            assertEquals(newArrayList(Thread.currentThread().getName()), analyzedList); // only once by main thread
+            for (String threadName : threadList) {
+                assertFalse(Thread.currentThread().getName().equals(threadName));
+            }
+            final List<String> loadedNameList = new ArrayList<String>();
+            for (DfLoadedFile loadedFile : loadedDataInfo.getLoadedFileList()) {
+                loadedNameList.add(loadedFile.getFileName());
+            }
+            assertEquals(newArrayList("MEMBER_STATUS.tsv", "PRODUCT.tsv", "01-MEMBER.tsv", "02-MEMBER.tsv", "PURCHASE.tsv"),
+                    loadedNameList);
+        } finally {
+            deleteDataDirectory(baseDir);
+        }
+    }
+
+    public void test_writeParallel_failure() throws Exception {
+        // ## Arrange ##
+        final File baseDir = prepareDataDirectory();
+        try {
+            final List<String> eventList = Collections.synchronizedList(new ArrayList<String>());
+            final List<String> threadList = Collections.synchronizedList(new ArrayList<String>());
+            final DfDelimiterDataHandlerImpl target = new ParallelDelimiterDataHandler(eventList, threadList) {
+                @Override
+                protected void doWriteData(String fileName) {
+                    if ("PRODUCT.tsv".equals(fileName)) {
+                        throw new IllegalStateException("failed: " + fileName);
+                    }
+                }
+            };
+            target.setParallelLoadingDegree(2);
+            target.setLoadingControlProp(new DfLoadingControlProp());
+            final DfDelimiterDataResource resource = new DfDelimiterDataResource();
+            resource.setBasePath(baseDir.getPath());
+            final Set<String> fileNameSet = new TreeSet<String>();
+            fileNameSet.add("MEMBER_STATUS.tsv");
+            fileNameSet.add("PRODUCT.tsv");
+            fileNameSet.add("PURCHASE.tsv");
+
+            // ## Act ##
+            try {
+                target.writeParallel(resource, new DfLoadedDataInfo(), new DfDelimiterDataResultInfo(), "UTF-8",
+                        fileNameSet, null, null);
+
+                // ## Assert ##
+                fail();
+            } catch (IllegalStateException e) {
+                log(e.getMessage());
+                assertEquals("failed: PRODUCT.tsv", e.getMessage());
+            }
+            assertFalse(eventList.contains("begin:PURCHASE.tsv")); // next level is not loaded
+        } finally {
+            deleteDataDirectory(baseDir);
+        }
+    }
+
+    protected void assertBefore(List<String> eventList, String before, String after) {
+        final int beforeIndex = eventList.indexOf(before);
+        final int afterIndex = eventList.indexOf(after);
+        assertTrue(before + " should be before " + after, beforeIndex >= 0 && beforeIndex < afterIndex);
+    }
+
+    protected static class ParallelDelimiterDataHandler extends DfDelimiterDataHandlerImpl {
+
+        protected final List<String> _eventList;
+        protected final List<String> _threadList;
+
+        public ParallelDelimiterDataHandler(List<String> eventList, List<String> threadList) {
+            _eventList = eventList;
+            _threadList = threadList;
+        }
+
+        @Override
+        protected Map<String, Set<String>> extractDependencyMap(Set<String> tableDbNameSet) { // no database
+            final Map<String, Set<String>> dependencyMap = StringKeyMap.createAsFlexibleOrdered();
+            for (String tableDbName : tableDbNameSet) {
+                final StringSet foreignSet = StringSet.createAsFlexibleOrdered();
+                if (tableDbName.equals("MEMBER")) {
+                    foreignSet.add("MEMBER_STATUS");
+                } else if (tableDbName.equals("PURCHASE")) {
+                    foreignSet.add("MEMBER");
+                    foreignSet.add("PRODUCT");
+                }
+                foreignSet.retainAll(tableDbNameSet);
+                dependencyMap.put(tableDbName, foreignSet);
+            }
+            return dependencyMap;
+        }
+
+        @Override
+        protected DataSource createParallelDataSource() {
+            return null; // not connected
+        }
+
+        @Override
+        protected DfDelimiterDataWriterImpl createDelimiterDataWriter(DfDelimiterDataResource resource, String encoding,
+                String fileNamePath, Map<String, Map<String, String>> convertValueMap,
+                Map<String, String> defaultValueMap, DataSource dataSource) {
+            final DfDelimiterDataWriterImpl writer = new DfDelimiterDataWriterImpl(dataSource, null) {
+                @Override
+                public void writeData(DfDelimiterDataResultInfo resultInfo) throws IOException {
+                    final String fileName = Srl.substringLastRear(_fileName, "/");
+                    _eventList.add("begin:" + fileName);
+                    _threadList.add(Thread.currentThread().getName());
+                    isRTrimCellValue(Srl.substringLastFront(_fileName, "/")); // shared property
+                    try {
+                        Thread.sleep(20L);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    doWriteData(fileName);
+                    _eventList.add("end:" + fileName);
+                }
+            };
+            writer.setFileName(fileNamePath);
+            writer.setEncoding(encoding);
+            writer.setLoadingControlProp(_loadingControlProp);
+            return writer;
+        }
+
+        protected void doWriteData(String fileName) {
+            // do nothing as default
+        }
+    }
+
+    protected File prepareDataDirectory() throws IOException {
+        final File baseDir = File.createTempFile("dbflute-delimiter", "");
+        baseDir.delete();
+        final File encodingDir = new File(baseDir, "UTF-8");
+        encodingDir.mkdirs();
+        final File propFile = new File(encodingDir, DfLoadingControlProp.LOADING_CONTROL_MAP_NAME);
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(propFile), "UTF-8");
+        try {
+            writer.write("map:{\n    ; isRTrimCellValue = true\n}");
+        } finally {
+            writer.close();
+        }
+        return baseDir;
+    }
+
+    protected void deleteDataDirectory(File dir) {
+        final File[] fileList = dir.listFiles();
+        if (fileList != null) {
+            for (File file : fileList) {
+                deleteDataDirectory(file);
+            }
+        }
+        dir.delete();
+    }
+
+    // ===================================================================================
+    //                                                                        Assist Logic
+    //                                                                        ============
+    protected Set<String> newSet(String... elements) {
+        final StringSet set = StringSet.createAsFlexibleOrdered();
+        for (String element : elements) {
+            set.add(element);
+        }
+        return set;
+    }
 }
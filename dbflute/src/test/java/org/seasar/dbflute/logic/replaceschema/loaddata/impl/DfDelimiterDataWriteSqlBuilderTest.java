@@ -0,0 +1,74 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.dbflute.logic.replaceschema.loaddata.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.seasar.dbflute.helper.StringKeyMap;
+import org.seasar.dbflute.logic.jdbc.metadata.info.DfColumnMeta;
+import org.seasar.dbflute.logic.replaceschema.loaddata.impl.dataprop.DfDefaultValueProp;
+import org.seasar.dbflute.unit.core.PlainTestCase;
+
+/**
+ * @author jflute
+ * @since 1.0.5N (2014/12/14 Sunday)
+ */
+public class DfDelimiterDataWriteSqlBuilderTest extends PlainTestCase {
+
+    public void test_setupParameter_reusedPerRow() throws Exception {
+        // ## Arrange ##
+        final Map<String, DfColumnMeta> columnMetaMap = StringKeyMap.createAsFlexible();
+        columnMetaMap.put("MEMBER_ID", createColumnMeta("MEMBER_ID"));
+        columnMetaMap.put("MEMBER_NAME", createColumnMeta("MEMBER_NAME"));
+        final Map<String, Set<String>> notFoundColumnMap = new LinkedHashMap<String, Set<String>>();
+        final List<String> valueList = new ArrayList<String>();
+        final DfDelimiterDataWriteSqlBuilder builder = new DfDelimiterDataWriteSqlBuilder();
+        builder.setTableDbName("MEMBER");
+        builder.setColumnMetaMap(columnMetaMap);
+        builder.setColumnNameList(newArrayList("member_id", "NOT_FOUND", "member_name"));
+        builder.setValueList(valueList);
+        builder.setNotFoundColumnMap(notFoundColumnMap);
+        builder.setDefaultValueMap(new LinkedHashMap<String, String>());
+        builder.setDefaultValueProp(new DfDefaultValueProp());
+
+        // ## Act ##
+        valueList.addAll(newArrayList("1", "foo", "Stojkovic"));
+        final Map<String, Object> firstMap = builder.setupParameter();
+        final List<Object> firstValueList = new ArrayList<Object>(firstMap.values());
+        valueList.clear();
+        valueList.addAll(newArrayList("2", "bar", ""));
+        final Map<String, Object> secondMap = builder.setupParameter();
+
+        // ## Assert ##
+        assertSame(firstMap, secondMap); // no map per row
+        assertEquals(newArrayList("MEMBER_ID", "MEMBER_NAME"), new ArrayList<String>(secondMap.keySet()));
+        assertEquals(newArrayList((Object) "1", "Stojkovic"), firstValueList);
+        assertEquals("2", secondMap.get("MEMBER_ID"));
+        assertNull(secondMap.get("MEMBER_NAME")); // empty to null
+        assertEquals(1, notFoundColumnMap.get("MEMBER").size());
+        assertTrue(notFoundColumnMap.get("MEMBER").contains("NOT_FOUND"));
+    }
+
+    protected DfColumnMeta createColumnMeta(String columnName) {
+        final DfColumnMeta columnMeta = new DfColumnMeta();
+        columnMeta.setColumnName(columnName);
+        return columnMeta;
+    }
+}